@@ -0,0 +1,215 @@
+package org.es.tok.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.es.tok.config.EsTokConfig;
+import org.es.tok.config.EsTokConfigLoader;
+import org.es.tok.core.payload.SettingsFlattener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Inputs shared by the benchmarks: the golden analysis corpus and curated
+ * texts from {@code testing/}, long documents stitched from them, and
+ * deterministic synthetic vocabularies and rule sets.
+ */
+final class BenchmarkFixtures {
+    static final String GOLDEN_ANALYSIS_CASES = "/golden/analysis/analysis_cases.json";
+    static final String CURATED_TEXT_CASES = "/text_related_curated_cases.json";
+
+    /** Vocab size of the production dictionary the synthetic vocab stands in for. */
+    static final int PRODUCTION_VOCAB_SIZE = 2_680_000;
+    static final int LONG_DOCUMENT_LENGTH = 64 * 1024;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String COMMON_HANS = "的一是在不了有和人这中大为上个国我以要他时来用们生到作地于出就分对成会可主发年动同工也能下过子说产种面而方后多定行学法所民得经十三之进着等部度家电力里如水化高自二理起小物现实加量都两体制机当使点从业本去把性好应开它合还因由其些然前外天政四日那社义事平形相全表间样与关各重新线内数正心反你明看原又么利比或但质气第向道命此变条只没结解问意建月公无系军很情者最立代想已通并提直题党程展五果料象员革位入常文总次品式活设及管特件长求老头基资边流路级少图山统接知较将组见计别她手角期根论运农指几九区强放决西被干做必战先回则任取据处队南给色光门即保治北造百规热领七海口东导器压志世金增争济阶油思术极交受联什认六共权收证改清己美再采转更单风切打白教速花带安场身车例真务具万每目至达走积示议声报斗完类八离华名确才科张信马节话米整空元况今集温传土许步群广石记需段研界拉林律叫且究观越织装影算低持音众书布复容儿须际商非验连断深难近矿千周委素技备半办青省列习响约支般史感劳便团往酸历市克何除消构府称太准精值号率族维划选标写存候毛亲快效斯院查江型眼王按格养易置派层片始却专状育厂京识适属圆包火住调满县局照参红细引听该铁价严龙飞";
+    private static final String LATIN = "abcdefghijklmnopqrstuvwxyz0123456789";
+    private static final String[] SEPARATORS = {"，", "。", " ", "！", "、", "\n", " | ", "？"};
+
+    private BenchmarkFixtures() {
+    }
+
+    /** Request payloads of the golden analysis cases, by case name. */
+    static Map<String, Map<String, Object>> goldenRequests() {
+        List<Map<String, Object>> cases = readJson(GOLDEN_ANALYSIS_CASES);
+        Map<String, Map<String, Object>> requests = new LinkedHashMap<>();
+        for (Map<String, Object> goldenCase : cases) {
+            requests.put((String) goldenCase.get("name"), castMap(goldenCase.get("request")));
+        }
+        return requests;
+    }
+
+    /** Texts of the golden analysis cases followed by the curated related-text cases. */
+    static List<String> corpusTexts() {
+        List<String> texts = new ArrayList<>();
+        for (Map<String, Object> request : goldenRequests().values()) {
+            texts.add((String) request.get("text"));
+        }
+        for (Map<String, Object> curatedCase : BenchmarkFixtures.<Map<String, Object>>readJson(CURATED_TEXT_CASES)) {
+            texts.add((String) curatedCase.get("text"));
+        }
+        return List.copyOf(texts);
+    }
+
+    /**
+     * A document of about {@code length} chars built from the corpus texts in a
+     * seeded random order, the way long video descriptions repeat and mix
+     * titles, tags and boilerplate.
+     */
+    static String longDocument(int length) {
+        List<String> texts = corpusTexts();
+        Random random = new Random(length);
+        StringBuilder document = new StringBuilder(length + 256);
+        while (document.length() < length) {
+            document.append(texts.get(random.nextInt(texts.size())));
+            document.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+        }
+        return document.toString();
+    }
+
+    /**
+     * {@code size} vocab words: every 2 to 4 char window of the corpus, so the
+     * benchmark documents do match, padded with seeded random CJK and mixed
+     * words of 2 to 6 chars.
+     */
+    static List<String> syntheticVocab(int size) {
+        Set<String> words = new LinkedHashSet<>(size * 2);
+        for (String text : corpusTexts()) {
+            for (int start = 0; start < text.length() && words.size() < size; start++) {
+                for (int length = 2; length <= 4 && start + length <= text.length(); length++) {
+                    String window = text.substring(start, start + length);
+                    if (!window.isBlank()) {
+                        words.add(window);
+                    }
+                }
+            }
+        }
+        Random random = new Random(42);
+        while (words.size() < size) {
+            int length = 2 + random.nextInt(5);
+            String alphabet = random.nextInt(10) == 0 ? LATIN : COMMON_HANS;
+            words.add(randomWord(random, alphabet, length));
+        }
+        return List.copyOf(words);
+    }
+
+    /**
+     * A {@code rules_config} payload with {@code rulesPerKind} exclude tokens,
+     * prefixes, suffixes and contains rules, a tenth as many include and
+     * declude rules, and regex patterns on both sides.
+     */
+    static Map<String, Object> rulesPayload(int rulesPerKind) {
+        Random random = new Random(rulesPerKind);
+        int minorKind = Math.max(1, rulesPerKind / 10);
+        List<String> excludePatterns = new ArrayList<>();
+        List<String> includePatterns = new ArrayList<>();
+        for (int index = 0; index < minorKind; index++) {
+            String word = randomWord(random, COMMON_HANS, 1 + random.nextInt(2));
+            excludePatterns.add(switch (index % 4) {
+                case 0 -> word + "\\d{1,3}";
+                case 1 -> "[a-z]{2,4}" + word;
+                case 2 -> "^" + randomWord(random, LATIN, 2) + "\\d+$";
+                default -> ".*" + word + ".*" + randomWord(random, COMMON_HANS, 1);
+            });
+            includePatterns.add(word + "[^\\s]{3}");
+        }
+        Map<String, Object> rules = new LinkedHashMap<>();
+        rules.put("exclude_tokens", randomWords(random, rulesPerKind, COMMON_HANS, 1, 3));
+        rules.put("exclude_prefixes", randomWords(random, rulesPerKind, COMMON_HANS + LATIN, 2, 4));
+        rules.put("exclude_suffixes", randomWords(random, rulesPerKind, COMMON_HANS + LATIN, 2, 4));
+        rules.put("exclude_contains", randomWords(random, rulesPerKind, COMMON_HANS, 3, 4));
+        rules.put("exclude_patterns", excludePatterns);
+        rules.put("include_tokens", randomWords(random, minorKind, COMMON_HANS, 2, 3));
+        rules.put("include_prefixes", randomWords(random, minorKind, COMMON_HANS, 3, 4));
+        rules.put("include_suffixes", randomWords(random, minorKind, COMMON_HANS, 3, 4));
+        rules.put("include_contains", randomWords(random, minorKind, COMMON_HANS, 4, 5));
+        rules.put("include_patterns", includePatterns);
+        rules.put("declude_prefixes", randomWords(random, minorKind, COMMON_HANS, 1, 1));
+        rules.put("declude_suffixes", randomWords(random, minorKind, COMMON_HANS, 1, 1));
+        return rules;
+    }
+
+    /**
+     * Analysis payload for one of the benchmarked configurations, starting from
+     * the golden case that exercises the same stages:
+     * <ul>
+     * <li>{@code categ}: categ only ({@code minimal_categ});</li>
+     * <li>{@code vocab}: the inline vocab case with a 100k-word vocab;</li>
+     * <li>{@code ngram}: vocab, categ, all ngrams and the extra filters
+     * ({@code long_desc_drop_categs_ngrams});</li>
+     * <li>{@code rules}: {@code ngram} plus 1000 rules per kind;</li>
+     * <li>{@code pinyin}: {@code ngram} plus index-time pinyin terms, which only
+     * the tokenizer emits.</li>
+     * </ul>
+     */
+    static Map<String, Object> configPayload(String configuration) {
+        Map<String, Map<String, Object>> golden = goldenRequests();
+        Map<String, Object> payload = switch (configuration) {
+            case "categ" -> new LinkedHashMap<>(golden.get("minimal_categ"));
+            case "vocab" -> {
+                Map<String, Object> vocab = new LinkedHashMap<>(golden.get("inline_vocab"));
+                vocab.put("vocab_config", Map.of("list", syntheticVocab(100_000)));
+                yield vocab;
+            }
+            case "ngram", "rules", "pinyin" -> new LinkedHashMap<>(golden.get("long_desc_drop_categs_ngrams"));
+            default -> throw new IllegalArgumentException("Unknown benchmark configuration [%s]".formatted(configuration));
+        };
+        if ("rules".equals(configuration)) {
+            payload.put("use_rules", true);
+            payload.put("rules_config", rulesPayload(1000));
+        }
+        if ("pinyin".equals(configuration)) {
+            Map<String, Object> extra = new LinkedHashMap<>(castMap(payload.get("extra_config")));
+            extra.put("emit_pinyin_terms", true);
+            payload.put("extra_config", extra);
+        }
+        payload.remove("text");
+        return payload;
+    }
+
+    static EsTokConfig config(String configuration) {
+        return EsTokConfigLoader.loadConfig(SettingsFlattener.flatten(configPayload(configuration)), null, true);
+    }
+
+    private static List<String> randomWords(Random random, int count, String alphabet, int minLength, int maxLength) {
+        List<String> words = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            words.add(randomWord(random, alphabet, minLength + random.nextInt(maxLength - minLength + 1)));
+        }
+        return words;
+    }
+
+    private static String randomWord(Random random, String alphabet, int length) {
+        StringBuilder word = new StringBuilder(length);
+        for (int index = 0; index < length; index++) {
+            word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return word.toString();
+    }
+
+    private static <T> List<T> readJson(String resource) {
+        try (InputStream input = BenchmarkFixtures.class.getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalStateException("Missing benchmark fixture [%s]".formatted(resource));
+            }
+            return MAPPER.readValue(input, new TypeReference<List<T>>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+}
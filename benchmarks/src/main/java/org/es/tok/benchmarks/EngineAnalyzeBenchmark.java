@@ -0,0 +1,71 @@
+package org.es.tok.benchmarks;
+
+import org.es.tok.core.facade.EsTokEngine;
+import org.es.tok.core.model.AnalyzeResult;
+import org.es.tok.strategy.TokenBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link EsTokEngine#analyze} per configuration, on the golden corpus texts and
+ * on a long document. The buffer path is what the tokenizer and the REST
+ * analyze action run; the string path adds building the result tokens.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EngineAnalyzeBenchmark {
+    @Param({"categ", "vocab", "ngram", "rules"})
+    public String configuration;
+
+    @Param({"golden", "long"})
+    public String input;
+
+    private EsTokEngine engine;
+    private TokenBuffer buffer;
+    private List<String> texts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        engine = new EsTokEngine(BenchmarkFixtures.config(configuration));
+        buffer = TokenBuffer.forCurrentThread();
+        texts = "long".equals(input)
+                ? List.of(BenchmarkFixtures.longDocument(BenchmarkFixtures.LONG_DOCUMENT_LENGTH))
+                : BenchmarkFixtures.corpusTexts();
+    }
+
+    @Benchmark
+    public int analyzeIntoBuffer() {
+        engine.analyze(nextText(), buffer);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public void analyzeToResult(Blackhole blackhole) {
+        AnalyzeResult result = engine.analyze(nextText());
+        blackhole.consume(result);
+    }
+
+    private String nextText() {
+        String text = texts.get(next);
+        next = next + 1 == texts.size() ? 0 : next + 1;
+        return text;
+    }
+}
@@ -0,0 +1,61 @@
+package org.es.tok.benchmarks;
+
+import org.es.tok.extra.HantToHansConverter;
+import org.es.tok.extra.TextNormalizer;
+import org.es.tok.strategy.TokenBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traditional to simplified conversion on its own and fused with lower-casing
+ * in {@link TextNormalizer}, the pass the engine runs before tokenizing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HantToHansBenchmark {
+    @Param({"256", "" + BenchmarkFixtures.LONG_DOCUMENT_LENGTH})
+    public int length;
+
+    private HantToHansConverter converter;
+    private TextNormalizer normalizer;
+    private TokenBuffer buffer;
+    private String text;
+
+    @Setup
+    public void setUp() throws IOException {
+        converter = HantToHansConverter.getInstance();
+        normalizer = TextNormalizer.of(true, converter);
+        buffer = TokenBuffer.forCurrentThread();
+        String document = BenchmarkFixtures.longDocument(length);
+        // Swap in the traditional forms so the converter has work to do
+        text = document.replace('发', '發').replace('说', '說').replace('国', '國').replace('时', '時')
+                .replace('们', '們').replace('个', '個').replace('这', '這').replace('来', '來');
+    }
+
+    @Benchmark
+    public String convert() {
+        return converter.convert(text);
+    }
+
+    @Benchmark
+    public int normalize() {
+        normalizer.normalize(text, buffer);
+        return buffer.inputLength();
+    }
+}
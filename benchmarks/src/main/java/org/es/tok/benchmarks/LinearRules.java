@@ -0,0 +1,107 @@
+package org.es.tok.benchmarks;
+
+import org.es.tok.rules.AnalyzeRules;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Baseline for {@link RulesFilterBenchmark}: {@link AnalyzeRules#shouldExclude(String, Set)}
+ * scanning every rule for every token, as the rules were applied before they
+ * were compiled.
+ */
+final class LinearRules {
+    private final AnalyzeRules rules;
+    private final Set<String> includeTokens;
+    private final Set<String> excludeTokens;
+    private final List<Pattern> includePatterns;
+    private final List<Pattern> excludePatterns;
+
+    LinearRules(AnalyzeRules rules) {
+        this.rules = rules;
+        this.includeTokens = new HashSet<>(rules.getIncludeTokens());
+        this.excludeTokens = new HashSet<>(rules.getExcludeTokens());
+        this.includePatterns = compile(rules.getIncludePatterns());
+        this.excludePatterns = compile(rules.getExcludePatterns());
+    }
+
+    boolean shouldExclude(String token) {
+        return shouldExclude(token, null);
+    }
+
+    boolean shouldExclude(String token, Set<String> allTokenTexts) {
+        if (token == null || token.isEmpty()) {
+            return false;
+        }
+        if (matches(token, includeTokens, rules.getIncludePrefixes(), rules.getIncludeSuffixes(),
+                rules.getIncludeContains(), includePatterns)) {
+            return false;
+        }
+        if (matches(token, excludeTokens, rules.getExcludePrefixes(), rules.getExcludeSuffixes(),
+                rules.getExcludeContains(), excludePatterns)) {
+            return true;
+        }
+        if (allTokenTexts == null || allTokenTexts.isEmpty()) {
+            return false;
+        }
+        for (String prefix : rules.getDecludePrefixes()) {
+            if (token.length() > prefix.length() && token.startsWith(prefix)
+                    && allTokenTexts.contains(token.substring(prefix.length()))) {
+                return true;
+            }
+        }
+        for (String suffix : rules.getDecludeSuffixes()) {
+            if (token.length() > suffix.length() && token.endsWith(suffix)
+                    && allTokenTexts.contains(token.substring(0, token.length() - suffix.length()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matches(String token, Set<String> tokens, List<String> prefixes, List<String> suffixes,
+            List<String> contains, List<Pattern> patterns) {
+        if (tokens.contains(token)) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (token.startsWith(prefix)) {
+                return true;
+            }
+        }
+        for (String suffix : suffixes) {
+            if (token.endsWith(suffix)) {
+                return true;
+            }
+        }
+        for (String sub : contains) {
+            if (token.contains(sub)) {
+                return true;
+            }
+        }
+        for (Pattern pattern : patterns) {
+            if (pattern.matcher(token).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<Pattern> compile(List<String> patterns) {
+        List<Pattern> compiled = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern != null && !pattern.isEmpty()) {
+                try {
+                    compiled.add(Pattern.compile(pattern));
+                } catch (PatternSyntaxException e) {
+                    // Skipped, like AnalyzeRules does
+                }
+            }
+        }
+        return compiled;
+    }
+}
@@ -0,0 +1,94 @@
+package org.es.tok.benchmarks;
+
+import org.es.tok.rules.AnalyzeRules;
+import org.es.tok.rules.RulesLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AnalyzeRules#shouldExclude(String)} over tokens of the benchmark
+ * corpus with large rule sets against the {@link LinearRules} scan it
+ * replaced, and the one-off cost of compiling them.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class RulesFilterBenchmark {
+    @Param({"1000", "20000"})
+    public int rulesPerKind;
+
+    private Map<String, Object> payload;
+    private AnalyzeRules rules;
+    private LinearRules linear;
+    private String[] tokens;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        payload = BenchmarkFixtures.rulesPayload(rulesPerKind);
+        rules = RulesLoader.loadFromMap(payload).compile();
+        linear = new LinearRules(rules);
+        // Every 1 to 6 char window of the corpus, like the tokens ngrams emit
+        List<String> windows = new ArrayList<>();
+        for (String text : BenchmarkFixtures.corpusTexts()) {
+            for (int start = 0; start < text.length(); start++) {
+                for (int length = 1; length <= 6 && start + length <= text.length(); length++) {
+                    windows.add(text.substring(start, start + length));
+                }
+            }
+        }
+        tokens = windows.toArray(String[]::new);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public int shouldExclude() {
+        int excluded = 0;
+        for (String token : tokens) {
+            if (rules.shouldExclude(token)) {
+                excluded++;
+            }
+        }
+        return excluded;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public int linearShouldExclude() {
+        int excluded = 0;
+        for (String token : tokens) {
+            if (linear.shouldExclude(token)) {
+                excluded++;
+            }
+        }
+        return excluded;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public AnalyzeRules compile() {
+        return RulesLoader.loadFromMap(payload).compile();
+    }
+}
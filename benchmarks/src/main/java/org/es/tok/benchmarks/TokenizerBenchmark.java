@@ -0,0 +1,74 @@
+package org.es.tok.benchmarks;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.es.tok.analysis.EsTokAnalyzer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code EsTokTokenizer} driven through a Lucene {@link Analyzer} the way the
+ * indexing chain consumes it: reused token stream components, attributes read
+ * per token. {@code pinyin} adds the index-time pinyin terms.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenizerBenchmark {
+    @Param({"categ", "vocab", "ngram", "pinyin"})
+    public String configuration;
+
+    @Param({"golden", "long"})
+    public String input;
+
+    private Analyzer analyzer;
+    private List<String> texts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        analyzer = new EsTokAnalyzer(BenchmarkFixtures.config(configuration));
+        texts = "long".equals(input)
+                ? List.of(BenchmarkFixtures.longDocument(BenchmarkFixtures.LONG_DOCUMENT_LENGTH))
+                : BenchmarkFixtures.corpusTexts();
+    }
+
+    @TearDown
+    public void tearDown() {
+        analyzer.close();
+    }
+
+    @Benchmark
+    public int tokenStream() throws IOException {
+        String text = texts.get(next);
+        next = next + 1 == texts.size() ? 0 : next + 1;
+        int termChars = 0;
+        try (TokenStream stream = analyzer.tokenStream("text", text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                termChars += term.length();
+            }
+            stream.end();
+        }
+        return termChars;
+    }
+}
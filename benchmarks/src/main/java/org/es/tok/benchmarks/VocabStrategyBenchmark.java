@@ -0,0 +1,77 @@
+package org.es.tok.benchmarks;
+
+import org.es.tok.strategy.TokenBuffer;
+import org.es.tok.strategy.VocabStrategy;
+import org.es.tok.vocab.VocabAutomaton;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vocab automaton construction and matching, up to the size of the production
+ * dictionary. Construction is measured single-shot since one build of the full
+ * vocab takes seconds and dominates node startup and vocab reloads.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class VocabStrategyBenchmark {
+    @Param({"100000", "" + BenchmarkFixtures.PRODUCTION_VOCAB_SIZE})
+    public int size;
+
+    private List<String> vocab;
+    private VocabStrategy strategy;
+    private List<String> texts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        vocab = BenchmarkFixtures.syntheticVocab(size);
+        strategy = new VocabStrategy(VocabAutomaton.build(vocab));
+        texts = List.of(
+                BenchmarkFixtures.longDocument(BenchmarkFixtures.LONG_DOCUMENT_LENGTH),
+                String.join("\n", BenchmarkFixtures.corpusTexts()));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public VocabAutomaton build() {
+        return VocabAutomaton.build(vocab);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public int match(ThreadCursor cursor) {
+        TokenBuffer buffer = cursor.buffer;
+        buffer.reset(texts.get(cursor.next()));
+        strategy.tokenize(buffer);
+        return buffer.size();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadCursor {
+        private final TokenBuffer buffer = TokenBuffer.forCurrentThread();
+        private int next;
+
+        private int next() {
+            next ^= 1;
+            return next;
+        }
+    }
+}
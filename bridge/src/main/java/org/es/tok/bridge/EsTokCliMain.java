@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
 
 public class EsTokCliMain {
@@ -11,6 +12,16 @@ public class EsTokCliMain {
     private static final EsTokBridgeService SERVICE = new EsTokBridgeService();
 
     public static void main(String[] args) throws Exception {
+        if (args.length > 0 && VocabCompileCommand.NAME.equals(args[0])) {
+            try {
+                MAPPER.writeValue(System.out, new VocabCompileCommand().run(Arrays.asList(args).subList(1, args.length)));
+            } catch (IllegalArgumentException exception) {
+                writeError(exception.getMessage());
+                System.exit(2);
+            }
+            return;
+        }
+
         Map<String, Object> payload = MAPPER.readValue(System.in, new TypeReference<Map<String, Object>>() {
         });
         try {
@@ -0,0 +1,63 @@
+package org.es.tok.bridge;
+
+import org.es.tok.vocab.VocabFileLoader;
+import org.es.tok.vocab.VocabImage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline vocab compiler:
+ * {@code compile-vocab <vocabs.txt> <vocabs.bin> [--size N]}.
+ *
+ * Reads a text vocab (one {@code word[,freq]} per line), builds the vocab
+ * automaton and writes a binary image that nodes can memory-map through
+ * {@code vocab_config.image}.
+ */
+public class VocabCompileCommand {
+    static final String NAME = "compile-vocab";
+
+    public Map<String, Object> run(List<String> args) throws IOException {
+        if (args.size() != 2 && args.size() != 4) {
+            throw new IllegalArgumentException(
+                    "Usage: " + NAME + " <input vocab txt> <output image> [--size N]");
+        }
+        Path input = Path.of(args.get(0));
+        Path output = Path.of(args.get(1));
+        int size = -1;
+        if (args.size() == 4) {
+            if (!"--size".equals(args.get(2))) {
+                throw new IllegalArgumentException("Unknown option: " + args.get(2));
+            }
+            try {
+                size = Integer.parseInt(args.get(3));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid --size: " + args.get(3));
+            }
+        }
+
+        List<String> vocabs = VocabFileLoader.loadVocabsFromFilePath(input);
+        if (size >= 0 && size < vocabs.size()) {
+            vocabs = vocabs.subList(0, size);
+        }
+        if (vocabs.isEmpty()) {
+            throw new IllegalArgumentException("vocab file is empty: [%s]".formatted(input));
+        }
+
+        VocabImage image = VocabImage.compile(vocabs, output);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("output", output.toAbsolutePath().toString());
+        summary.put("format_version", VocabImage.FORMAT_VERSION);
+        summary.put("vocabs", vocabs.size());
+        summary.put("keywords", image.getAutomaton().getKeywordCount());
+        summary.put("states", image.getAutomaton().getStateCount());
+        summary.put("bytes", Files.size(output));
+        summary.put("vocab_hash", image.getFingerprint());
+        return summary;
+    }
+}
@@ -6,10 +6,12 @@ import org.es.tok.core.model.AnalyzeRequest;
 import org.es.tok.core.model.AnalyzeResult;
 import org.es.tok.core.model.AnalyzeToken;
 import org.es.tok.extra.HantToHansConverter;
+import org.es.tok.extra.TextNormalizer;
 import org.es.tok.rules.AnalyzeRules;
 import org.es.tok.rules.RulesConfig;
 import org.es.tok.strategy.CategStrategy;
 import org.es.tok.strategy.NgramStrategy;
+import org.es.tok.strategy.TokenBuffer;
 import org.es.tok.strategy.TokenStrategy;
 import org.es.tok.strategy.VocabStrategy;
 
@@ -18,9 +20,8 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -29,7 +30,9 @@ public class EsTokEngine {
     private final VocabStrategy vocabStrategy;
     private final CategStrategy categStrategy;
     private final NgramStrategy ngramStrategy;
-    private final HantToHansConverter hantToHansConverter;
+    private final TextNormalizer normalizer;
+    // The config is immutable, so the version is computed once per engine.
+    private volatile AnalysisVersion version;
 
     public EsTokEngine(EsTokConfig config) {
         this(
@@ -46,7 +49,9 @@ public class EsTokEngine {
         this.vocabStrategy = vocabStrategy;
         this.categStrategy = categStrategy;
         this.ngramStrategy = ngramStrategy;
-        this.hantToHansConverter = hantToHansConverter;
+        this.normalizer = TextNormalizer.of(
+                config.getExtraConfig().isIgnoreCase(),
+                config.getExtraConfig().isIgnoreHant() ? hantToHansConverter : null);
 
         if (vocabStrategy == null && categStrategy == null) {
             throw new IllegalArgumentException("Must use at least one strategy: use_vocab, use_categ");
@@ -58,71 +63,92 @@ public class EsTokEngine {
     }
 
     public AnalyzeResult analyze(String text) {
-        List<TokenStrategy.TokenInfo> tokenInfos = analyzeToTokenInfos(text);
-        List<AnalyzeToken> tokens = new ArrayList<>(tokenInfos.size());
-        for (int index = 0; index < tokenInfos.size(); index++) {
-            TokenStrategy.TokenInfo token = tokenInfos.get(index);
-            tokens.add(new AnalyzeToken(
-                    token.getText(),
-                    token.getStartOffset(),
-                    token.getEndOffset(),
-                    token.getType(),
-                    token.getGroup(),
-                    index));
-        }
-        return new AnalyzeResult(tokens, resolveVersion());
+        if (text == null) {
+            return new AnalyzeResult(List.of(), resolveVersion());
+        }
+        TokenBuffer buffer = TokenBuffer.forCurrentThread();
+        try {
+            analyze(text, buffer);
+            List<AnalyzeToken> tokens = new ArrayList<>(buffer.size());
+            for (int index = 0; index < buffer.size(); index++) {
+                tokens.add(new AnalyzeToken(
+                        buffer.termToString(index),
+                        buffer.startOffset(index),
+                        buffer.endOffset(index),
+                        buffer.typeName(index),
+                        buffer.groupName(index),
+                        index));
+            }
+            return new AnalyzeResult(tokens, resolveVersion());
+        } finally {
+            buffer.trim();
+        }
     }
 
     public List<TokenStrategy.TokenInfo> analyzeToTokenInfos(String text) {
         if (text == null) {
             return List.of();
         }
-
-        String processed = text;
-        if (config.getExtraConfig().isIgnoreCase()) {
-            processed = processed.toLowerCase();
-        }
-        if (config.getExtraConfig().isIgnoreHant() && hantToHansConverter != null) {
-            processed = hantToHansConverter.convert(processed);
+        TokenBuffer buffer = TokenBuffer.forCurrentThread();
+        try {
+            analyze(text, buffer);
+            return buffer.toTokenInfos();
+        } finally {
+            buffer.trim();
         }
+    }
 
-        List<TokenStrategy.TokenInfo> baseTokens = generateBaseTokens(processed);
+    /**
+     * Analyze {@code text} into {@code buffer}, replacing its previous content.
+     * All stages work in place on the buffer's columns, so a warmed-up buffer
+     * analyzes without per-token allocation (rules filtering aside). The input
+     * is normalized (ignore_case, ignore_hant) in place in the buffer's char pool.
+     */
+    public void analyze(CharSequence text, TokenBuffer buffer) {
+        normalizer.normalize(text, buffer);
+        generateBaseTokens(buffer);
 
         if (config.getExtraConfig().isDropDuplicates()) {
-            baseTokens = dropDuplicatedTokens(baseTokens);
+            buffer.dropDuplicates();
         }
 
-        baseTokens = sortTokensByOffset(baseTokens);
+        buffer.sortByOffset();
 
-        List<TokenStrategy.TokenInfo> ngramTokens = new ArrayList<>();
+        // Ngrams are appended behind the base tokens; the base-token filters
+        // below only look at [0, baseCount) and compaction keeps the order.
+        int baseCount = buffer.size();
         if (ngramStrategy != null) {
-            ngramTokens = ngramStrategy.generateNgrams(baseTokens);
+            ngramStrategy.generateNgrams(buffer, baseCount);
         }
 
         if (config.getExtraConfig().isDropCategs()) {
-            baseTokens = dropCategTokens(baseTokens, 2);
+            dropCategTokens(buffer, baseCount, 2);
         }
 
-        List<TokenStrategy.TokenInfo> allTokens = new ArrayList<>(baseTokens);
-        allTokens.addAll(ngramTokens);
-
         if (config.getExtraConfig().isDropDuplicates()) {
-            allTokens = dropDuplicatedTokens(allTokens);
+            buffer.dropDuplicates();
         }
 
-        allTokens = dropRedundantShortAlnumFragments(allTokens);
+        dropRedundantShortAlnumFragments(buffer);
 
-        allTokens = sortTokensByOffset(allTokens);
+        buffer.sortByOffset();
 
         if (config.getRulesConfig() != null && config.getRulesConfig().hasActiveRules()) {
-            allTokens = applyRulesFilter(allTokens);
+            applyRulesFilter(buffer);
         }
-
-        return allTokens;
     }
 
     public AnalysisVersion resolveVersion() {
-        String vocabHash = hashStrings(config.getVocabConfig().getVocabs());
+        AnalysisVersion resolved = version;
+        if (resolved == null) {
+            resolved = computeVersion();
+            version = resolved;
+        }
+        return resolved;
+    }
+
+    private AnalysisVersion computeVersion() {
+        String vocabHash = config.getVocabConfig().getVocabHash();
         String rulesHash = hashRules(config.getRulesConfig());
         String analysisHash = hashString(String.join("|",
                 Boolean.toString(config.getExtraConfig().isIgnoreCase()),
@@ -155,240 +181,245 @@ public class EsTokEngine {
         }
     }
 
-    private List<TokenStrategy.TokenInfo> applyRulesFilter(List<TokenStrategy.TokenInfo> tokens) {
+    private void applyRulesFilter(TokenBuffer tokens) {
         AnalyzeRules rules = config.getRulesConfig().getAnalyzeRules();
+        String[] tokenTexts = new String[tokens.size()];
         Set<String> allTokenTexts = new HashSet<>();
-        for (TokenStrategy.TokenInfo token : tokens) {
-            allTokenTexts.add(token.getText());
+        for (int index = 0; index < tokens.size(); index++) {
+            tokenTexts[index] = tokens.termToString(index);
+            allTokenTexts.add(tokenTexts[index]);
         }
 
-        List<TokenStrategy.TokenInfo> filtered = new ArrayList<>();
-        for (TokenStrategy.TokenInfo token : tokens) {
-            if (!rules.shouldExclude(token.getText(), allTokenTexts)) {
-                filtered.add(token);
+        for (int index = 0; index < tokens.size(); index++) {
+            if (rules.shouldExclude(tokenTexts[index], allTokenTexts)) {
+                tokens.markRemoved(index);
             }
         }
-        return filtered;
+        tokens.compact();
     }
 
-    private List<TokenStrategy.TokenInfo> generateBaseTokens(String text) {
-        List<TokenStrategy.TokenInfo> baseTokens = new ArrayList<>();
+    private void generateBaseTokens(TokenBuffer tokens) {
         if (config.getCategConfig().isUseCateg() && categStrategy != null) {
-            baseTokens.addAll(categStrategy.tokenize(text));
+            categStrategy.tokenize(tokens);
         }
         if (config.getVocabConfig().isUseVocab() && vocabStrategy != null) {
-            baseTokens.addAll(vocabStrategy.tokenize(text));
+            vocabStrategy.tokenize(tokens);
         }
-        return baseTokens;
     }
 
-    private List<TokenStrategy.TokenInfo> sortTokensByOffset(List<TokenStrategy.TokenInfo> tokens) {
-        List<TokenStrategy.TokenInfo> sortedTokens = new ArrayList<>(tokens);
-        sortedTokens.sort((a, b) -> {
-            int offsetCompare = Integer.compare(a.getStartOffset(), b.getStartOffset());
-            if (offsetCompare != 0) {
-                return offsetCompare;
-            }
-
-            int endOffsetCompare = Integer.compare(a.getEndOffset(), b.getEndOffset());
-            if (endOffsetCompare != 0) {
-                return endOffsetCompare;
-            }
-
-            return a.getText().compareTo(b.getText());
-        });
-
-        return sortedTokens;
-    }
-
-    private List<TokenStrategy.TokenInfo> dropDuplicatedTokens(List<TokenStrategy.TokenInfo> tokens) {
-        Set<TokenKey> seenTokens = new LinkedHashSet<>();
-        List<TokenStrategy.TokenInfo> uniqueTokens = new ArrayList<>();
-
-        for (TokenStrategy.TokenInfo token : tokens) {
-            TokenKey key = new TokenKey(token.getText(), token.getStartOffset(), token.getEndOffset());
-            if (seenTokens.add(key)) {
-                uniqueTokens.add(token);
-            }
-        }
-
-        return uniqueTokens;
-    }
-
-    private List<TokenStrategy.TokenInfo> dropCategTokens(List<TokenStrategy.TokenInfo> tokens, int vocabFreqThreshold) {
-        List<TokenStrategy.TokenInfo> sortedTokens = sortTokensByOffset(tokens);
-        SeparatorOffsets separatorOffsets = computeSeparatorOffsets(tokens);
-        Iterator<TokenStrategy.TokenInfo> iterator = tokens.iterator();
-        while (iterator.hasNext()) {
-            TokenStrategy.TokenInfo token = iterator.next();
-            if (!isTokenGroup(token, "categ")) {
+    // Base tokens [0, baseCount) must be sorted by offset.
+    //
+    // A cjk/lang categ token is dropped when at least vocabFreqThreshold vocab
+    // tokens contain it, or when any containing vocab token sits on a separator
+    // boundary (below the threshold, every containing vocab token would have
+    // been checked). Sweeping categ tokens by start offset, vocab tokens that
+    // start at or before the categ token are added to Fenwick trees keyed by end
+    // offset, so "contains" becomes a suffix count: O(n log n) overall.
+    private void dropCategTokens(TokenBuffer tokens, int baseCount, int vocabFreqThreshold) {
+        byte[] separatorOffsets = computeSeparatorOffsets(tokens, baseCount);
+        int[] vocabEnds = tokens.offsetTable(0);
+        int[] boundaryVocabEnds = tokens.offsetTable(1);
+        int treeSize = tokens.inputLength() + 1;
+        int vocabCount = 0;
+        int boundaryVocabCount = 0;
+        int vocabCursor = 0;
+        for (int token = 0; token < baseCount; token++) {
+            if (tokens.group(token) != TokenBuffer.GROUP_CATEG) {
                 continue;
             }
-            String tokenType = token.getType();
-            if (!"cjk".equals(tokenType) && !"lang".equals(tokenType)) {
+            byte tokenType = tokens.type(token);
+            if (tokenType != TokenBuffer.TYPE_CJK && tokenType != TokenBuffer.TYPE_LANG) {
                 continue;
             }
 
-            int vocabFreq = 0;
-            int categStart = token.getStartOffset();
-            boolean shouldRemoveToken = false;
-            for (int index = 0; index < sortedTokens.size(); index++) {
-                TokenStrategy.TokenInfo vocabToken = sortedTokens.get(index);
-                if (vocabToken.getStartOffset() > categStart) {
-                    break;
+            int categStart = tokens.startOffset(token);
+            for (; vocabCursor < baseCount && tokens.startOffset(vocabCursor) <= categStart; vocabCursor++) {
+                if (tokens.group(vocabCursor) != TokenBuffer.GROUP_VOCAB) {
+                    continue;
                 }
-                if (isTokenGroup(vocabToken, "vocab") && isContainedIn(token, vocabToken)) {
-                    vocabFreq++;
-                    if (vocabFreq >= vocabFreqThreshold || isBoundaryToken(vocabToken, separatorOffsets)) {
-                        shouldRemoveToken = true;
-                        break;
-                    }
+                int vocabEnd = tokens.endOffset(vocabCursor);
+                fenwickAdd(vocabEnds, treeSize, vocabEnd);
+                vocabCount++;
+                if (isBoundaryToken(tokens, vocabCursor, separatorOffsets)) {
+                    fenwickAdd(boundaryVocabEnds, treeSize, vocabEnd);
+                    boundaryVocabCount++;
                 }
             }
-            if (shouldRemoveToken) {
-                iterator.remove();
+
+            // containing vocab tokens: started at or before categStart, end at or after categEnd
+            int categEnd = tokens.endOffset(token);
+            int vocabFreq = vocabCount - fenwickCountAtMost(vocabEnds, categEnd - 1);
+            int boundaryFreq = boundaryVocabCount - fenwickCountAtMost(boundaryVocabEnds, categEnd - 1);
+            if (vocabFreq >= vocabFreqThreshold || boundaryFreq > 0) {
+                tokens.markRemoved(token);
             }
         }
 
-        tokens.removeIf(token -> isTokenGroup(token, "categ") && isSeparatorType(token.getType()));
-        return tokens;
+        for (int token = 0; token < baseCount; token++) {
+            if (tokens.group(token) == TokenBuffer.GROUP_CATEG && isSeparatorType(tokens.type(token))) {
+                tokens.markRemoved(token);
+            }
+        }
+        tokens.compact();
     }
 
-    private boolean isTokenGroup(TokenStrategy.TokenInfo token, String group) {
-        return group.equals(token.getGroup());
+    // Fenwick tree over offsets [0, size - 1]; tree index is offset + 1.
+    private static void fenwickAdd(int[] tree, int size, int offset) {
+        for (int index = offset + 1; index <= size; index += index & -index) {
+            tree[index]++;
+        }
     }
 
-    private List<TokenStrategy.TokenInfo> dropRedundantShortAlnumFragments(List<TokenStrategy.TokenInfo> tokens) {
-        if (tokens.isEmpty()) {
-            return tokens;
+    private static int fenwickCountAtMost(int[] tree, int offset) {
+        int count = 0;
+        for (int index = offset + 1; index > 0; index -= index & -index) {
+            count += tree[index];
         }
+        return count;
+    }
 
-        List<TokenStrategy.TokenInfo> retained = new ArrayList<>(tokens);
-        Set<TokenStrategy.TokenInfo> removals = new HashSet<>();
-        for (TokenStrategy.TokenInfo token : tokens) {
-            if (!isTokenGroup(token, "vocab") || !isCompactAsciiAlphaNumeric(token.getText())) {
+    // A compact ASCII alnum vocab token (e.g. "a1b2") makes its single-char
+    // eng/arab categ fragments redundant when they tile it exactly and mix
+    // letters and digits. Fragments are indexed by start offset (with prefix
+    // sums over the offsets) so every vocab token is checked in O(1).
+    private void dropRedundantShortAlnumFragments(TokenBuffer tokens) {
+        int size = tokens.size();
+        boolean hasCandidate = false;
+        for (int token = 0; token < size && !hasCandidate; token++) {
+            hasCandidate = tokens.group(token) == TokenBuffer.GROUP_VOCAB
+                    && tokens.endOffset(token) - tokens.startOffset(token) >= 2
+                    && isCompactAsciiAlphaNumeric(tokens, token);
+        }
+        if (!hasCandidate) {
+            return;
+        }
+
+        int textLength = tokens.inputLength();
+        int[] fragmentCounts = tokens.offsetTable(0);
+        int[] exactPrefix = tokens.offsetTable(1);
+        int[] digitPrefix = tokens.offsetTable(2);
+        int[] letterPrefix = tokens.offsetTable(3);
+        for (int token = 0; token < size; token++) {
+            if (!isSingleCharAlnumFragment(tokens, token)) {
                 continue;
             }
-
-            List<TokenStrategy.TokenInfo> fragments = findCoveredSingleCharAlnumFragments(tokens, token);
-            if (fragments.size() < 2) {
-                continue;
+            int start = tokens.startOffset(token);
+            fragmentCounts[start]++;
+            int codePoint = Character.codePointAt(tokens.chars(), tokens.termOffset(token));
+            if (Character.isDigit(codePoint)) {
+                digitPrefix[start + 1]++;
             }
-            if (!hasMixedAlphaNumericFragments(fragments)) {
-                continue;
+            if (Character.isLetter(codePoint)) {
+                letterPrefix[start + 1]++;
             }
-            if (!fragmentsFullySpanToken(fragments, token)) {
-                continue;
-            }
-            removals.addAll(fragments);
         }
-
-        if (removals.isEmpty()) {
-            return tokens;
+        // exactPrefix[o]: offsets before o holding exactly one fragment;
+        // digit/letterPrefix[o]: digit/letter fragments starting before o.
+        for (int offset = 0; offset < textLength; offset++) {
+            exactPrefix[offset + 1] = exactPrefix[offset] + (fragmentCounts[offset] == 1 ? 1 : 0);
+            digitPrefix[offset + 1] += digitPrefix[offset];
+            letterPrefix[offset + 1] += letterPrefix[offset];
         }
 
-        retained.removeIf(removals::contains);
-        return retained;
-    }
-
-    private List<TokenStrategy.TokenInfo> findCoveredSingleCharAlnumFragments(
-            List<TokenStrategy.TokenInfo> tokens,
-            TokenStrategy.TokenInfo vocabToken) {
-        List<TokenStrategy.TokenInfo> fragments = new ArrayList<>();
-        for (TokenStrategy.TokenInfo candidate : tokens) {
-            if (!isTokenGroup(candidate, "categ")) {
-                continue;
-            }
-            if (!("eng".equals(candidate.getType()) || "arab".equals(candidate.getType()))) {
+        // Reuse the counts table as a difference array of removed offset ranges.
+        int[] removedRanges = fragmentCounts;
+        Arrays.fill(removedRanges, 0, textLength + 2, 0);
+        boolean anyRemoved = false;
+        for (int token = 0; token < size; token++) {
+            if (tokens.group(token) != TokenBuffer.GROUP_VOCAB || !isCompactAsciiAlphaNumeric(tokens, token)) {
                 continue;
             }
-            if (candidate.getStartOffset() < vocabToken.getStartOffset()
-                    || candidate.getEndOffset() > vocabToken.getEndOffset()) {
+            int start = tokens.startOffset(token);
+            int end = tokens.endOffset(token);
+            // Single-char fragments tile [start, end) iff every offset in it holds
+            // exactly one fragment; at least two fragments are required.
+            if (end - start < 2 || exactPrefix[end] - exactPrefix[start] != end - start) {
                 continue;
             }
-            if (candidate.getText().codePointCount(0, candidate.getText().length()) != 1) {
+            if (digitPrefix[end] == digitPrefix[start] || letterPrefix[end] == letterPrefix[start]) {
                 continue;
             }
-            fragments.add(candidate);
+            removedRanges[start]++;
+            removedRanges[end]--;
+            anyRemoved = true;
+        }
+        if (!anyRemoved) {
+            return;
         }
-        fragments.sort((left, right) -> Integer.compare(left.getStartOffset(), right.getStartOffset()));
-        return fragments;
-    }
 
-    private boolean hasMixedAlphaNumericFragments(List<TokenStrategy.TokenInfo> fragments) {
-        boolean hasDigit = false;
-        boolean hasLetter = false;
-        for (TokenStrategy.TokenInfo fragment : fragments) {
-            if (fragment.getText() == null || fragment.getText().isBlank()) {
-                continue;
+        for (int offset = 0; offset < textLength; offset++) {
+            removedRanges[offset + 1] += removedRanges[offset];
+        }
+        for (int token = 0; token < size; token++) {
+            if (isSingleCharAlnumFragment(tokens, token) && removedRanges[tokens.startOffset(token)] > 0) {
+                tokens.markRemoved(token);
             }
-            int codePoint = fragment.getText().codePointAt(0);
-            hasDigit |= Character.isDigit(codePoint);
-            hasLetter |= Character.isLetter(codePoint);
         }
-        return hasDigit && hasLetter;
+        tokens.compact();
     }
 
-    private boolean fragmentsFullySpanToken(List<TokenStrategy.TokenInfo> fragments, TokenStrategy.TokenInfo vocabToken) {
-        int expectedOffset = vocabToken.getStartOffset();
-        for (TokenStrategy.TokenInfo fragment : fragments) {
-            if (fragment.getStartOffset() != expectedOffset) {
-                return false;
-            }
-            expectedOffset = fragment.getEndOffset();
+    // Single-code-point eng/arab categ token; these are ASCII, so one char long.
+    private boolean isSingleCharAlnumFragment(TokenBuffer tokens, int candidate) {
+        if (tokens.group(candidate) != TokenBuffer.GROUP_CATEG) {
+            return false;
         }
-        return expectedOffset == vocabToken.getEndOffset();
+        byte type = tokens.type(candidate);
+        if (type != TokenBuffer.TYPE_ENG && type != TokenBuffer.TYPE_ARAB) {
+            return false;
+        }
+        return tokens.termLength(candidate) == 1;
     }
 
-    private boolean isCompactAsciiAlphaNumeric(String text) {
-        if (text == null || text.isBlank()) {
+    private boolean isCompactAsciiAlphaNumeric(TokenBuffer tokens, int token) {
+        int length = tokens.termLength(token);
+        if (length == 0) {
             return false;
         }
-        return text.chars().allMatch(ch -> ch < 128 && Character.isLetterOrDigit(ch));
+        for (int index = 0; index < length; index++) {
+            char ch = tokens.termCharAt(token, index);
+            if (ch >= 128 || !Character.isLetterOrDigit(ch)) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private boolean isContainedIn(TokenStrategy.TokenInfo token1, TokenStrategy.TokenInfo token2) {
-        return token2.getStartOffset() <= token1.getStartOffset() && token1.getEndOffset() <= token2.getEndOffset();
-    }
+    private static final byte SEP_START = 1;
+    private static final byte SEP_END = 2;
 
-    private SeparatorOffsets computeSeparatorOffsets(List<TokenStrategy.TokenInfo> tokens) {
-        Set<Integer> sepStartOffsets = new HashSet<>();
-        Set<Integer> sepEndOffsets = new HashSet<>();
+    // Per-offset flags (see TokenBuffer#offsetFlags): SEP_START marks the last
+    // char of a separator, SEP_END the offset right after a separator's first
+    // char; the text bounds count as separators.
+    private byte[] computeSeparatorOffsets(TokenBuffer tokens, int baseCount) {
+        byte[] flags = tokens.offsetFlags();
         int maxEndOffset = 0;
-        boolean hasTokens = false;
-
-        for (TokenStrategy.TokenInfo token : tokens) {
-            hasTokens = true;
-            maxEndOffset = Math.max(maxEndOffset, token.getEndOffset());
-            if (isSeparatorType(token.getType())) {
-                int startOffset = token.getStartOffset();
-                int endOffset = token.getEndOffset();
-                sepStartOffsets.add(endOffset - 1);
-                sepEndOffsets.add(startOffset + 1);
+        for (int token = 0; token < baseCount; token++) {
+            maxEndOffset = Math.max(maxEndOffset, tokens.endOffset(token));
+            if (isSeparatorType(tokens.type(token))) {
+                flags[flagIndex(tokens.endOffset(token) - 1)] |= SEP_START;
+                flags[flagIndex(tokens.startOffset(token) + 1)] |= SEP_END;
             }
         }
 
-        sepStartOffsets.add(-1);
-        sepEndOffsets.add((hasTokens ? maxEndOffset : 0) + 1);
-
-        return new SeparatorOffsets(sepStartOffsets, sepEndOffsets);
+        flags[flagIndex(-1)] |= SEP_START;
+        flags[flagIndex(maxEndOffset + 1)] |= SEP_END;
+        return flags;
     }
 
-    private boolean isSeparatorType(String type) {
-        return "ws".equals(type) || "dash".equals(type) || "mask".equals(type) || "nord".equals(type);
+    private static int flagIndex(int offset) {
+        return offset + 1;
     }
 
-    private boolean isBoundaryToken(TokenStrategy.TokenInfo token, SeparatorOffsets separatorOffsets) {
-        int startBoundary = token.getStartOffset() - 1;
-        int endBoundary = token.getEndOffset() + 1;
-        return separatorOffsets.isSepStartOffset(startBoundary) || separatorOffsets.isSepEndOffset(endBoundary);
+    private boolean isSeparatorType(byte type) {
+        return type == TokenBuffer.TYPE_WS || type == TokenBuffer.TYPE_DASH || type == TokenBuffer.TYPE_MASK
+                || type == TokenBuffer.TYPE_NORD;
     }
 
-    private String hashStrings(List<String> values) {
-        if (values == null || values.isEmpty()) {
-            return "disabled";
-        }
-        return hashString(String.join("\u001f", values));
+    private boolean isBoundaryToken(TokenBuffer tokens, int token, byte[] separatorOffsets) {
+        int startBoundary = tokens.startOffset(token) - 1;
+        int endBoundary = tokens.endOffset(token) + 1;
+        return (separatorOffsets[flagIndex(startBoundary)] & SEP_START) != 0
+                || (separatorOffsets[flagIndex(endBoundary)] & SEP_END) != 0;
     }
 
     private String hashRules(RulesConfig rulesConfig) {
@@ -424,54 +455,4 @@ public class EsTokEngine {
             throw new IllegalStateException("SHA-256 not available", e);
         }
     }
-
-    private static final class TokenKey {
-        private final String text;
-        private final int startOffset;
-        private final int endOffset;
-
-        private TokenKey(String text, int startOffset, int endOffset) {
-            this.text = text;
-            this.startOffset = startOffset;
-            this.endOffset = endOffset;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) {
-                return true;
-            }
-            if (obj == null || getClass() != obj.getClass()) {
-                return false;
-            }
-            TokenKey tokenKey = (TokenKey) obj;
-            return startOffset == tokenKey.startOffset && endOffset == tokenKey.endOffset && text.equals(tokenKey.text);
-        }
-
-        @Override
-        public int hashCode() {
-            int result = text.hashCode();
-            result = 31 * result + startOffset;
-            result = 31 * result + endOffset;
-            return result;
-        }
-    }
-
-    private static final class SeparatorOffsets {
-        private final Set<Integer> sepStartOffsets;
-        private final Set<Integer> sepEndOffsets;
-
-        private SeparatorOffsets(Set<Integer> sepStartOffsets, Set<Integer> sepEndOffsets) {
-            this.sepStartOffsets = sepStartOffsets;
-            this.sepEndOffsets = sepEndOffsets;
-        }
-
-        private boolean isSepStartOffset(int offset) {
-            return sepStartOffsets.contains(offset);
-        }
-
-        private boolean isSepEndOffset(int offset) {
-            return sepEndOffsets.contains(offset);
-        }
-    }
-}
\ No newline at end of file
+}
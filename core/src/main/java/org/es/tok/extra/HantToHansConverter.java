@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -15,8 +16,19 @@ public class HantToHansConverter {
 
     private final Map<String, String> hantToHansMap;
 
+    // Conversion is per UTF-16 unit, so only single-unit keys ever apply. They are
+    // kept in dense tables: a bitset of convertible units, the simplified unit for
+    // one-unit forms, and the few forms that are longer (supplementary chars).
+    private final long[] convertibleUnits = new long[(Character.MAX_VALUE + 1) >>> 6];
+    private final char[] simplifiedUnits = new char[Character.MAX_VALUE + 1];
+    private final Map<Character, String> longerForms = new HashMap<>();
+
+    private volatile TextNormalizer hansNormalizer;
+    private volatile TextNormalizer lowerCaseHansNormalizer;
+
     private HantToHansConverter() throws IOException {
         this.hantToHansMap = loadHantToHansDict();
+        buildUnitTables();
     }
 
     // Get singleton instance of converter
@@ -33,32 +45,76 @@ public class HantToHansConverter {
 
     // traditional-to-simplified conversion
     public String convert(String text) {
-        // check if contain hant chars
         if (text == null || text.isEmpty()) {
             return text;
         }
-        boolean isContainHants = false;
-        for (int i = 0; i < text.length(); i++) {
-            String ch = text.substring(i, i + 1);
-            if (hantToHansMap.containsKey(ch)) {
-                isContainHants = true;
-                break;
-            }
+        // check if contain hant chars
+        int length = text.length();
+        int first = 0;
+        while (first < length && !isConvertible(text.charAt(first))) {
+            first++;
         }
-        if (!isContainHants) {
+        if (first == length) {
             return text;
         }
 
         // apply conversion
-        StringBuilder sb = new StringBuilder(text.length());
-        for (int i = 0; i < text.length(); i++) {
-            String ch = text.substring(i, i + 1);
-            String simplified = hantToHansMap.get(ch);
-            sb.append(simplified != null ? simplified : ch);
+        StringBuilder sb = new StringBuilder(length + 8);
+        sb.append(text, 0, first);
+        for (int i = first; i < length; i++) {
+            appendSimplified(sb, text.charAt(i));
         }
         return sb.toString();
     }
 
+    boolean isConvertible(char unit) {
+        return (convertibleUnits[unit >>> 6] & (1L << unit)) != 0;
+    }
+
+    void appendSimplified(StringBuilder sb, char unit) {
+        if (!isConvertible(unit)) {
+            sb.append(unit);
+            return;
+        }
+        String longer = longerForms.get(unit);
+        if (longer != null) {
+            sb.append(longer);
+        } else {
+            sb.append(simplifiedUnits[unit]);
+        }
+    }
+
+    /** Shared normalizer for ignore_hant, optionally combined with ignore_case. */
+    TextNormalizer normalizer(boolean lowerCase) {
+        TextNormalizer normalizer = lowerCase ? lowerCaseHansNormalizer : hansNormalizer;
+        if (normalizer == null) {
+            normalizer = new TextNormalizer(lowerCase, this);
+            if (lowerCase) {
+                lowerCaseHansNormalizer = normalizer;
+            } else {
+                hansNormalizer = normalizer;
+            }
+        }
+        return normalizer;
+    }
+
+    private void buildUnitTables() {
+        for (Map.Entry<String, String> entry : hantToHansMap.entrySet()) {
+            String key = entry.getKey();
+            String value = entry.getValue();
+            if (key.length() != 1 || value == null) {
+                continue;
+            }
+            char unit = key.charAt(0);
+            convertibleUnits[unit >>> 6] |= 1L << unit;
+            if (value.length() == 1) {
+                simplifiedUnits[unit] = value.charAt(0);
+            } else {
+                longerForms.put(unit, value);
+            }
+        }
+    }
+
     // Load traditional-to-simplified dictionary from `hants.json`
     private Map<String, String> loadHantToHansDict() throws IOException {
         try (InputStream inputStream = getClass().getResourceAsStream(HANTS_JSON_PATH)) {
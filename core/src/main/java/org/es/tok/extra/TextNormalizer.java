@@ -0,0 +1,176 @@
+package org.es.tok.extra;
+
+import org.es.tok.strategy.TokenBuffer;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Input normalization for ignore_case and ignore_hant, done in one pass.
+ *
+ * Lower-casing and traditional-to-simplified conversion are folded into one
+ * table indexed by UTF-16 unit, and the input is rewritten in place in the
+ * TokenBuffer's char pool. ASCII only needs a range check, and input without
+ * upper-case or hant chars is left untouched.
+ *
+ * The result is identical to {@code String.toLowerCase()} followed by
+ * {@link HantToHansConverter#convert(String)}, so indexed terms do not change:
+ * <ul>
+ * <li>units whose form is longer (U+0130, hant chars simplified to
+ * supplementary chars) continue on an expanding path;</li>
+ * <li>the context-dependent final sigma and the tr/az/lt locale rules
+ * fall back to the String-based conversion.</li>
+ * </ul>
+ */
+public final class TextNormalizer {
+    public static final TextNormalizer NONE = new TextNormalizer(false, null);
+
+    private static final char GREEK_CAPITAL_SIGMA = '\u03a3';
+
+    private final boolean lowerCase;
+    private final HantToHansConverter converter;
+    // null when normalization is disabled
+    private final char[] units;
+    // Units that do not map to exactly one unit; those absent from longerForms
+    // are context dependent.
+    private final long[] irregularUnits;
+    private final Map<Character, String> longerForms;
+
+    TextNormalizer(boolean lowerCase, HantToHansConverter converter) {
+        this.lowerCase = lowerCase;
+        this.converter = converter;
+        if (!lowerCase && converter == null) {
+            this.units = null;
+            this.irregularUnits = null;
+            this.longerForms = Map.of();
+            return;
+        }
+
+        this.units = new char[Character.MAX_VALUE + 1];
+        this.irregularUnits = new long[(Character.MAX_VALUE + 1) >>> 6];
+        this.longerForms = new HashMap<>();
+        for (int unit = 0; unit <= Character.MAX_VALUE; unit++) {
+            char c = (char) unit;
+            units[unit] = c;
+            if (Character.isSurrogate(c)) {
+                continue;
+            }
+            if (lowerCase && c == GREEK_CAPITAL_SIGMA) {
+                irregularUnits[unit >>> 6] |= 1L << unit;
+                continue;
+            }
+            String form = String.valueOf(c);
+            if (lowerCase) {
+                form = form.toLowerCase(Locale.ROOT);
+            }
+            if (converter != null) {
+                form = converter.convert(form);
+            }
+            if (form.length() == 1) {
+                units[unit] = form.charAt(0);
+            } else {
+                irregularUnits[unit >>> 6] |= 1L << unit;
+                longerForms.put(c, form);
+            }
+        }
+    }
+
+    public static TextNormalizer of(boolean lowerCase, HantToHansConverter converter) {
+        if (converter != null) {
+            return converter.normalizer(lowerCase);
+        }
+        return lowerCase ? LowerCaseHolder.INSTANCE : NONE;
+    }
+
+    /**
+     * Reset {@code buffer} to the normalized form of {@code text}.
+     */
+    public void normalize(CharSequence text, TokenBuffer buffer) {
+        buffer.reset(text);
+        if (units == null) {
+            return;
+        }
+        if (lowerCase && isLocaleSensitive()) {
+            buffer.reset(convertString(text.toString()));
+            return;
+        }
+
+        char[] chars = buffer.chars();
+        int length = buffer.inputLength();
+        for (int index = 0; index < length; index++) {
+            char c = chars[index];
+            if (c < 0x80) {
+                if (lowerCase && c >= 'A' && c <= 'Z') {
+                    chars[index] = (char) (c + ('a' - 'A'));
+                }
+            } else if (Character.isSurrogate(c)) {
+                if (lowerCase && Character.isHighSurrogate(c) && index + 1 < length
+                        && Character.isLowSurrogate(chars[index + 1])) {
+                    int codePoint = Character.toCodePoint(c, chars[index + 1]);
+                    int lower = Character.toLowerCase(codePoint);
+                    if (lower != codePoint) {
+                        Character.toChars(lower, chars, index);
+                    }
+                    index++;
+                }
+            } else if (isIrregular(c)) {
+                normalizeIrregular(text, buffer, index);
+                return;
+            } else {
+                chars[index] = units[c];
+            }
+        }
+    }
+
+    /**
+     * Continue from {@code from}, the first irregular unit; chars before it are
+     * already normalized, chars from it on are still the input.
+     */
+    private void normalizeIrregular(CharSequence text, TokenBuffer buffer, int from) {
+        char[] chars = buffer.chars();
+        int length = buffer.inputLength();
+        StringBuilder builder = new StringBuilder(length + 16);
+        builder.append(chars, 0, from);
+        for (int index = from; index < length; index++) {
+            char c = chars[index];
+            if (Character.isSurrogate(c)) {
+                if (lowerCase && Character.isHighSurrogate(c) && index + 1 < length
+                        && Character.isLowSurrogate(chars[index + 1])) {
+                    builder.appendCodePoint(Character.toLowerCase(Character.toCodePoint(c, chars[index + 1])));
+                    index++;
+                } else {
+                    builder.append(c);
+                }
+            } else if (isIrregular(c)) {
+                String longer = longerForms.get(c);
+                if (longer == null) {
+                    buffer.reset(convertString(text.toString()));
+                    return;
+                }
+                builder.append(longer);
+            } else {
+                builder.append(units[c]);
+            }
+        }
+        buffer.reset(builder);
+    }
+
+    private boolean isIrregular(char c) {
+        return (irregularUnits[c >>> 6] & (1L << c)) != 0;
+    }
+
+    private String convertString(String text) {
+        String converted = lowerCase ? text.toLowerCase() : text;
+        return converter != null ? converter.convert(converted) : converted;
+    }
+
+    private static boolean isLocaleSensitive() {
+        String language = Locale.getDefault().getLanguage();
+        return "tr".equals(language) || "az".equals(language) || "lt".equals(language);
+    }
+
+    private static final class LowerCaseHolder {
+        private static final TextNormalizer INSTANCE = new TextNormalizer(true, null);
+    }
+}
@@ -6,8 +6,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.regex.Pattern;
-import java.util.regex.PatternSyntaxException;
 
 /**
  * Defines token exclusion, inclusion, and context-dependent exclusion (declude)
@@ -36,6 +34,10 @@ import java.util.regex.PatternSyntaxException;
  * <li>{@code declude_suffixes}: if token ends with a suffix AND token without
  * that suffix exists in all tokens → exclude</li>
  * </ul>
+ * <p>
+ * The rule lists are compiled on first use (or eagerly via {@link #compile()})
+ * into tries and automata, so each token is classified in time proportional to
+ * its length rather than to the number of rules.
  */
 public class AnalyzeRules {
 
@@ -55,7 +57,6 @@ public class AnalyzeRules {
     private final List<String> excludeSuffixes;
     private final List<String> excludeContains;
     private final List<String> excludePatterns;
-    private final List<Pattern> compiledExcludePatterns;
 
     // Include rules (higher priority than exclude)
     private final List<String> includeTokens;
@@ -64,12 +65,13 @@ public class AnalyzeRules {
     private final List<String> includeSuffixes;
     private final List<String> includeContains;
     private final List<String> includePatterns;
-    private final List<Pattern> compiledIncludePatterns;
 
     // Declude rules (context-dependent exclusion)
     private final List<String> decludePrefixes;
     private final List<String> decludeSuffixes;
 
+    private volatile CompiledRules compiled;
+
     /**
      * Constructor with exclude and include rules (declude defaults to empty).
      */
@@ -101,7 +103,6 @@ public class AnalyzeRules {
         this.excludeSuffixes = safe(excludeSuffixes);
         this.excludeContains = safe(excludeContains);
         this.excludePatterns = safe(excludePatterns);
-        this.compiledExcludePatterns = compilePatterns(this.excludePatterns);
 
         this.includeTokens = safe(includeTokens);
         this.includeTokensSet = new HashSet<>(this.includeTokens);
@@ -109,7 +110,6 @@ public class AnalyzeRules {
         this.includeSuffixes = safe(includeSuffixes);
         this.includeContains = safe(includeContains);
         this.includePatterns = safe(includePatterns);
-        this.compiledIncludePatterns = compilePatterns(this.includePatterns);
 
         this.decludePrefixes = safe(decludePrefixes);
         this.decludeSuffixes = safe(decludeSuffixes);
@@ -119,18 +119,24 @@ public class AnalyzeRules {
         return list != null ? new ArrayList<>(list) : new ArrayList<>();
     }
 
-    private static List<Pattern> compilePatterns(List<String> patterns) {
-        List<Pattern> compiled = new ArrayList<>();
-        for (String pattern : patterns) {
-            if (pattern != null && !pattern.isEmpty()) {
-                try {
-                    compiled.add(Pattern.compile(pattern));
-                } catch (PatternSyntaxException e) {
-                    // Skip invalid patterns silently
-                }
-            }
+    /**
+     * Compile the rule lists into their matchers now instead of on the first
+     * token. Safe to call more than once.
+     *
+     * @return this
+     */
+    public AnalyzeRules compile() {
+        compiled();
+        return this;
+    }
+
+    private CompiledRules compiled() {
+        CompiledRules current = compiled;
+        if (current == null) {
+            current = new CompiledRules(this);
+            compiled = current;
         }
-        return compiled;
+        return current;
     }
 
     /**
@@ -193,40 +199,7 @@ public class AnalyzeRules {
      * Check if a token matches any exclude rule.
      */
     private boolean matchesExcludeRules(String token) {
-        // Exact match (O(1) via HashSet)
-        if (!excludeTokensSet.isEmpty() && excludeTokensSet.contains(token)) {
-            return true;
-        }
-
-        // Prefix match
-        for (String prefix : excludePrefixes) {
-            if (token.startsWith(prefix)) {
-                return true;
-            }
-        }
-
-        // Suffix match
-        for (String suffix : excludeSuffixes) {
-            if (token.endsWith(suffix)) {
-                return true;
-            }
-        }
-
-        // Contains match
-        for (String sub : excludeContains) {
-            if (token.contains(sub)) {
-                return true;
-            }
-        }
-
-        // Regex pattern match
-        for (Pattern pattern : compiledExcludePatterns) {
-            if (pattern.matcher(token).matches()) {
-                return true;
-            }
-        }
-
-        return false;
+        return compiled().exclude.matches(token);
     }
 
     /**
@@ -239,28 +212,19 @@ public class AnalyzeRules {
         if (allTokenTexts == null || allTokenTexts.isEmpty()) {
             return false;
         }
+        CompiledRules rules = compiled();
+        int length = token.length();
 
         // Check declude prefixes
-        for (String prefix : decludePrefixes) {
-            if (token.length() > prefix.length() && token.startsWith(prefix)) {
-                String baseForm = token.substring(prefix.length());
-                if (allTokenTexts.contains(baseForm)) {
-                    return true;
-                }
-            }
+        if (rules.decludePrefixes.anyPrefix(token,
+                prefixLength -> prefixLength < length && allTokenTexts.contains(token.substring(prefixLength)))) {
+            return true;
         }
 
         // Check declude suffixes
-        for (String suffix : decludeSuffixes) {
-            if (token.length() > suffix.length() && token.endsWith(suffix)) {
-                String baseForm = token.substring(0, token.length() - suffix.length());
-                if (allTokenTexts.contains(baseForm)) {
-                    return true;
-                }
-            }
-        }
-
-        return false;
+        return rules.decludeSuffixes.anySuffix(token,
+                suffixLength -> suffixLength < length
+                        && allTokenTexts.contains(token.substring(0, length - suffixLength)));
     }
 
     /**
@@ -270,41 +234,7 @@ public class AnalyzeRules {
         if (!hasIncludeRules()) {
             return false;
         }
-
-        // Exact match (O(1) via HashSet)
-        if (!includeTokensSet.isEmpty() && includeTokensSet.contains(token)) {
-            return true;
-        }
-
-        // Prefix match
-        for (String prefix : includePrefixes) {
-            if (token.startsWith(prefix)) {
-                return true;
-            }
-        }
-
-        // Suffix match
-        for (String suffix : includeSuffixes) {
-            if (token.endsWith(suffix)) {
-                return true;
-            }
-        }
-
-        // Contains match
-        for (String sub : includeContains) {
-            if (token.contains(sub)) {
-                return true;
-            }
-        }
-
-        // Regex pattern match
-        for (Pattern pattern : compiledIncludePatterns) {
-            if (pattern.matcher(token).matches()) {
-                return true;
-            }
-        }
-
-        return false;
+        return compiled().include.matches(token);
     }
 
     /**
@@ -386,6 +316,23 @@ public class AnalyzeRules {
         return Collections.unmodifiableList(decludeSuffixes);
     }
 
+    /** Compiled matchers for the rule lists; built once, read-only afterwards. */
+    private static final class CompiledRules {
+        private final RuleMatcher include;
+        private final RuleMatcher exclude;
+        private final RuleTrie decludePrefixes;
+        private final RuleTrie decludeSuffixes;
+
+        private CompiledRules(AnalyzeRules rules) {
+            this.include = new RuleMatcher(rules.includeTokensSet, rules.includePrefixes, rules.includeSuffixes,
+                    rules.includeContains, rules.includePatterns);
+            this.exclude = new RuleMatcher(rules.excludeTokensSet, rules.excludePrefixes, rules.excludeSuffixes,
+                    rules.excludeContains, rules.excludePatterns);
+            this.decludePrefixes = RuleTrie.forPrefixes(rules.decludePrefixes);
+            this.decludeSuffixes = RuleTrie.forSuffixes(rules.decludeSuffixes);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -0,0 +1,352 @@
+package org.es.tok.rules;
+
+/**
+ * Translates the common subset of {@link java.util.regex.Pattern} syntax into
+ * Lucene {@link org.apache.lucene.util.automaton.RegExp} syntax with the same
+ * full-match semantics, so rule patterns can be unioned into one automaton.
+ * <p>
+ * Supported: literals and escaped literals, {@code .}, character classes with
+ * ranges and negation, {@code \d \w \s} (ASCII, as in Java's defaults) and
+ * their negations outside classes, groups (plain, non-capturing and named),
+ * alternation, greedy or reluctant quantifiers, and {@code ^}/{@code $} at the
+ * ends of a top-level branch (no-ops under {@code matches()}).
+ * <p>
+ * Everything else (flags, lookaround, back references, boundaries, Unicode
+ * properties, possessive quantifiers, class unions and intersections, ...) is
+ * rejected; such patterns keep running as {@link java.util.regex.Pattern}.
+ */
+final class JavaRegexTranslator {
+    // Java's '.' excludes the line terminators; Lucene's matches any code point.
+    private static final int[] LINE_TERMINATORS = { '\n', '\r', 0x85, 0x2028, 0x2029 };
+    private static final String DIGITS = "0-9";
+    private static final String WORD = "0-9A-Z\\_a-z";
+    private static final String SPACES = "\\ \\\t\\\n\\\u000b\\\f\\\r";
+
+    private final String regex;
+    private int pos;
+
+    private JavaRegexTranslator(String regex) {
+        this.regex = regex;
+    }
+
+    /**
+     * @return the Lucene regexp, or null if the pattern uses unsupported syntax
+     */
+    static String translate(String regex) {
+        if (regex == null || regex.isEmpty()) {
+            return null;
+        }
+        try {
+            JavaRegexTranslator translator = new JavaRegexTranslator(regex);
+            String translated = translator.alternation(true);
+            return translator.pos == regex.length() ? translated : null;
+        } catch (UnsupportedSyntax e) {
+            return null;
+        }
+    }
+
+    private String alternation(boolean topLevel) {
+        StringBuilder out = new StringBuilder();
+        while (true) {
+            String branch = branch(topLevel);
+            out.append(branch.isEmpty() ? "()" : branch);
+            if (!accept('|')) {
+                return out.toString();
+            }
+            out.append('|');
+        }
+    }
+
+    private String branch(boolean topLevel) {
+        StringBuilder out = new StringBuilder();
+        if (topLevel) {
+            accept('^');
+        }
+        while (pos < regex.length()) {
+            int c = regex.codePointAt(pos);
+            if (c == '|' || c == ')') {
+                break;
+            }
+            if (c == '$' && topLevel && (pos + 1 == regex.length() || regex.charAt(pos + 1) == '|')) {
+                pos++;
+                break;
+            }
+            out.append(piece());
+        }
+        return out.toString();
+    }
+
+    private String piece() {
+        String atom = atom();
+        if (pos >= regex.length()) {
+            return atom;
+        }
+        String quantifier;
+        char c = regex.charAt(pos);
+        if (c == '*' || c == '+' || c == '?') {
+            pos++;
+            quantifier = String.valueOf(c);
+        } else if (c == '{') {
+            quantifier = repetition();
+        } else {
+            return atom;
+        }
+        // A reluctant quantifier accepts the same strings; possessive ones do not.
+        accept('?');
+        if (pos < regex.length() && "*+?{".indexOf(regex.charAt(pos)) >= 0) {
+            throw UnsupportedSyntax.INSTANCE;
+        }
+        return "(" + atom + ")" + quantifier;
+    }
+
+    private String repetition() {
+        int close = regex.indexOf('}', pos);
+        if (close < 0) {
+            throw UnsupportedSyntax.INSTANCE;
+        }
+        String body = regex.substring(pos + 1, close);
+        if (!body.matches("\\d{1,4}(,\\d{0,4})?")) {
+            throw UnsupportedSyntax.INSTANCE;
+        }
+        pos = close + 1;
+        return "{" + body + "}";
+    }
+
+    private String atom() {
+        int c = regex.codePointAt(pos);
+        pos += Character.charCount(c);
+        switch (c) {
+            case '(':
+                return group();
+            case '[':
+                return charClass();
+            case '.':
+                return dot();
+            case '\\':
+                return escapeOutsideClass();
+            case '^':
+            case '$':
+            case '*':
+            case '+':
+            case '?':
+            case '{':
+                throw UnsupportedSyntax.INSTANCE;
+            default:
+                return literal(c);
+        }
+    }
+
+    private String group() {
+        if (accept('?')) {
+            if (accept(':')) {
+                // non-capturing
+            } else if (pos + 1 < regex.length() && regex.charAt(pos) == '<'
+                    && Character.isLetter(regex.charAt(pos + 1))) {
+                int close = regex.indexOf('>', pos);
+                if (close < 0) {
+                    throw UnsupportedSyntax.INSTANCE;
+                }
+                pos = close + 1;
+            } else {
+                throw UnsupportedSyntax.INSTANCE;
+            }
+        }
+        String inner = alternation(false);
+        if (!accept(')')) {
+            throw UnsupportedSyntax.INSTANCE;
+        }
+        return "(" + inner + ")";
+    }
+
+    private String charClass() {
+        StringBuilder out = new StringBuilder("[");
+        if (accept('^')) {
+            out.append('^');
+        }
+        if (pos < regex.length() && regex.charAt(pos) == ']') {
+            throw UnsupportedSyntax.INSTANCE;
+        }
+        while (true) {
+            if (pos >= regex.length()) {
+                throw UnsupportedSyntax.INSTANCE;
+            }
+            char c = regex.charAt(pos);
+            if (c == ']') {
+                pos++;
+                break;
+            }
+            if (c == '[' || (c == '&' && pos + 1 < regex.length() && regex.charAt(pos + 1) == '&')) {
+                throw UnsupportedSyntax.INSTANCE;
+            }
+            String shorthand = classShorthand();
+            if (shorthand != null) {
+                out.append(shorthand);
+                if (isRangeDash()) {
+                    throw UnsupportedSyntax.INSTANCE;
+                }
+                continue;
+            }
+            int lo = classChar();
+            if (isRangeDash()) {
+                pos++;
+                if (classShorthand() != null) {
+                    throw UnsupportedSyntax.INSTANCE;
+                }
+                int hi = classChar();
+                if (hi < lo || isRangeDash()) {
+                    throw UnsupportedSyntax.INSTANCE;
+                }
+                appendLiteral(out, lo);
+                out.append('-');
+                appendLiteral(out, hi);
+            } else {
+                appendLiteral(out, lo);
+            }
+        }
+        return out.append(']').toString();
+    }
+
+    private boolean isRangeDash() {
+        return pos + 1 < regex.length() && regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']';
+    }
+
+    /** Positive shorthand class inside a class, as range text; null if none. */
+    private String classShorthand() {
+        if (pos + 1 >= regex.length() || regex.charAt(pos) != '\\') {
+            return null;
+        }
+        String ranges = switch (regex.charAt(pos + 1)) {
+            case 'd' -> DIGITS;
+            case 'w' -> WORD;
+            case 's' -> SPACES;
+            case 'D', 'W', 'S' -> throw UnsupportedSyntax.INSTANCE;
+            default -> null;
+        };
+        if (ranges != null) {
+            pos += 2;
+        }
+        return ranges;
+    }
+
+    private int classChar() {
+        int c = regex.codePointAt(pos);
+        pos += Character.charCount(c);
+        return c == '\\' ? escapedCodePoint() : c;
+    }
+
+    private String escapeOutsideClass() {
+        if (pos >= regex.length()) {
+            throw UnsupportedSyntax.INSTANCE;
+        }
+        String ranges = switch (regex.charAt(pos)) {
+            case 'd' -> "[" + DIGITS + "]";
+            case 'D' -> "[^" + DIGITS + "]";
+            case 'w' -> "[" + WORD + "]";
+            case 'W' -> "[^" + WORD + "]";
+            case 's' -> "[" + SPACES + "]";
+            case 'S' -> "[^" + SPACES + "]";
+            default -> null;
+        };
+        if (ranges != null) {
+            pos++;
+            return ranges;
+        }
+        return literal(escapedCodePoint());
+    }
+
+    /** The code point of an escape whose backslash was consumed. */
+    private int escapedCodePoint() {
+        if (pos >= regex.length()) {
+            throw UnsupportedSyntax.INSTANCE;
+        }
+        int c = regex.codePointAt(pos);
+        pos += Character.charCount(c);
+        switch (c) {
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            case 'a':
+                return 0x07;
+            case 'e':
+                return 0x1b;
+            case 'x':
+                return hex(2);
+            case 'u':
+                return hex(4);
+            default:
+                // Any other letter or digit is a construct (boundary, property,
+                // back reference, quoting, ...); anything else is a literal.
+                if (c < 0x80 && Character.isLetterOrDigit(c)) {
+                    throw UnsupportedSyntax.INSTANCE;
+                }
+                return c;
+        }
+    }
+
+    private int hex(int digits) {
+        if (pos + digits > regex.length()) {
+            throw UnsupportedSyntax.INSTANCE;
+        }
+        int value = 0;
+        for (int index = 0; index < digits; index++) {
+            int digit = Character.digit(regex.charAt(pos + index), 16);
+            if (digit < 0) {
+                throw UnsupportedSyntax.INSTANCE;
+            }
+            value = value * 16 + digit;
+        }
+        pos += digits;
+        // Java pairs escaped surrogates into code points; leave those to Java.
+        if (Character.isSurrogate((char) value)) {
+            throw UnsupportedSyntax.INSTANCE;
+        }
+        return value;
+    }
+
+    private static String dot() {
+        StringBuilder out = new StringBuilder("[^");
+        for (int terminator : LINE_TERMINATORS) {
+            appendLiteral(out, terminator);
+        }
+        return out.append(']').toString();
+    }
+
+    private static String literal(int codePoint) {
+        StringBuilder out = new StringBuilder(4);
+        appendLiteral(out, codePoint);
+        return out.toString();
+    }
+
+    /**
+     * Lucene's operators are all ASCII punctuation, and a backslash before a
+     * letter selects a shorthand class, so only ASCII non-alphanumerics are
+     * escaped.
+     */
+    private static void appendLiteral(StringBuilder out, int codePoint) {
+        if (codePoint < 0x80 && !Character.isLetterOrDigit(codePoint)) {
+            out.append('\\');
+        }
+        out.appendCodePoint(codePoint);
+    }
+
+    private boolean accept(char c) {
+        if (pos < regex.length() && regex.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private static final class UnsupportedSyntax extends RuntimeException {
+        private static final UnsupportedSyntax INSTANCE = new UnsupportedSyntax();
+
+        private UnsupportedSyntax() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.es.tok.rules;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compiled form of one group of rules (the include_* or the exclude_* lists).
+ * <p>
+ * A token is tested in time proportional to its length: exact tokens are a
+ * hash lookup, prefixes and suffixes one trie walk each, contains one
+ * Aho-Corasick pass, and patterns one run of the union automaton.
+ */
+final class RuleMatcher {
+    private final Set<String> tokens;
+    private final RuleTrie prefixes;
+    private final RuleTrie suffixes;
+    private final RuleTrie contains;
+    private final RulePatterns patterns;
+    private final boolean empty;
+
+    RuleMatcher(Set<String> tokens, List<String> prefixes, List<String> suffixes, List<String> contains,
+            List<String> patterns) {
+        this.tokens = tokens;
+        this.prefixes = RuleTrie.forPrefixes(prefixes);
+        this.suffixes = RuleTrie.forSuffixes(suffixes);
+        this.contains = RuleTrie.forContains(contains);
+        this.patterns = RulePatterns.compile(patterns);
+        this.empty = tokens.isEmpty() && this.prefixes.isEmpty() && this.suffixes.isEmpty()
+                && this.contains.isEmpty() && this.patterns.isEmpty();
+    }
+
+    boolean matches(String token) {
+        if (empty) {
+            return false;
+        }
+        return tokens.contains(token)
+                || prefixes.matchesPrefixOf(token)
+                || suffixes.matchesSuffixOf(token)
+                || contains.occursIn(token)
+                || patterns.matches(token);
+    }
+
+    int translatedPatternCount() {
+        return patterns.translatedCount();
+    }
+}
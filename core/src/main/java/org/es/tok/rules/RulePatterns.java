@@ -0,0 +1,119 @@
+package org.es.tok.rules;
+
+import org.apache.lucene.util.automaton.Automaton;
+import org.apache.lucene.util.automaton.CharacterRunAutomaton;
+import org.apache.lucene.util.automaton.Operations;
+import org.apache.lucene.util.automaton.RegExp;
+import org.apache.lucene.util.automaton.TooComplexToDeterminizeException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Full-match test of a token against a list of regex rules.
+ * <p>
+ * Patterns that {@link JavaRegexTranslator} understands are unioned into one
+ * deterministic automaton, so a token is checked in a single pass over its
+ * chars however many patterns there are. If the union is too large to
+ * determinize, each pattern gets its own automaton. The remaining patterns
+ * are matched with {@link Pattern} as before; invalid patterns are skipped.
+ */
+final class RulePatterns {
+    static final RulePatterns EMPTY = new RulePatterns(new CharacterRunAutomaton[0], new Pattern[0], 0);
+
+    private final CharacterRunAutomaton[] automata;
+    private final Pattern[] fallbackPatterns;
+    private final int translatedCount;
+
+    private RulePatterns(CharacterRunAutomaton[] automata, Pattern[] fallbackPatterns, int translatedCount) {
+        this.automata = automata;
+        this.fallbackPatterns = fallbackPatterns;
+        this.translatedCount = translatedCount;
+    }
+
+    static RulePatterns compile(List<String> patterns) {
+        List<String> translated = new ArrayList<>();
+        List<Pattern> translatedSources = new ArrayList<>();
+        List<Pattern> fallback = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (pattern == null || pattern.isEmpty()) {
+                continue;
+            }
+            Pattern compiled;
+            try {
+                compiled = Pattern.compile(pattern);
+            } catch (PatternSyntaxException e) {
+                // Skip invalid patterns silently
+                continue;
+            }
+            String regexp = JavaRegexTranslator.translate(pattern);
+            if (regexp != null) {
+                translated.add(regexp);
+                translatedSources.add(compiled);
+            } else {
+                fallback.add(compiled);
+            }
+        }
+        if (translated.isEmpty() && fallback.isEmpty()) {
+            return EMPTY;
+        }
+
+        List<CharacterRunAutomaton> automata = new ArrayList<>();
+        int translatedCount = translated.size();
+        if (!translated.isEmpty()) {
+            CharacterRunAutomaton union = translated.size() == 1
+                    ? null
+                    : toRunAutomaton("(" + String.join(")|(", translated) + ")");
+            if (union != null) {
+                automata.add(union);
+            } else {
+                for (int index = 0; index < translated.size(); index++) {
+                    CharacterRunAutomaton automaton = toRunAutomaton(translated.get(index));
+                    if (automaton != null) {
+                        automata.add(automaton);
+                    } else {
+                        fallback.add(translatedSources.get(index));
+                        translatedCount--;
+                    }
+                }
+            }
+        }
+        return new RulePatterns(automata.toArray(new CharacterRunAutomaton[0]),
+                fallback.toArray(new Pattern[0]), translatedCount);
+    }
+
+    boolean isEmpty() {
+        return automata.length == 0 && fallbackPatterns.length == 0;
+    }
+
+    /** Number of patterns matched by automata rather than {@link Pattern}. */
+    int translatedCount() {
+        return translatedCount;
+    }
+
+    boolean matches(String token) {
+        for (CharacterRunAutomaton automaton : automata) {
+            if (automaton.run(token)) {
+                return true;
+            }
+        }
+        for (Pattern pattern : fallbackPatterns) {
+            if (pattern.matcher(token).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CharacterRunAutomaton toRunAutomaton(String regexp) {
+        try {
+            Automaton automaton = new RegExp(regexp, RegExp.NONE).toAutomaton();
+            return new CharacterRunAutomaton(
+                    Operations.determinize(automaton, Operations.DEFAULT_DETERMINIZE_WORK_LIMIT));
+        } catch (TooComplexToDeterminizeException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
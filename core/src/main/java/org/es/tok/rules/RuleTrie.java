@@ -0,0 +1,287 @@
+package org.es.tok.rules;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.IntPredicate;
+
+/**
+ * Char trie over a set of rule strings, held in primitive arrays.
+ *
+ * States are numbered breadth-first, so the children of a state occupy a
+ * contiguous id range with sorted labels and a transition is a binary search.
+ * The same trie answers the three string rule kinds in time proportional to the
+ * token length, independent of the number of rules:
+ * <ul>
+ * <li>prefixes: walk the token forwards;</li>
+ * <li>suffixes: the keys are stored reversed and the token is walked
+ * backwards;</li>
+ * <li>contains: Aho-Corasick failure links, built only for this kind.</li>
+ * </ul>
+ */
+final class RuleTrie {
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    static final RuleTrie EMPTY = new RuleTrie(new int[] { 1, 1 }, new char[1], new boolean[1], null, null, 0);
+
+    private final int[] childStart;
+    private final char[] labels;
+    private final boolean[] terminal;
+    // Aho-Corasick only: failure links, and whether a key ends at a state or at
+    // any state on its failure chain.
+    private final int[] failure;
+    private final boolean[] matchReachable;
+    private final int keyCount;
+
+    private RuleTrie(int[] childStart, char[] labels, boolean[] terminal, int[] failure,
+            boolean[] matchReachable, int keyCount) {
+        this.childStart = childStart;
+        this.labels = labels;
+        this.terminal = terminal;
+        this.failure = failure;
+        this.matchReachable = matchReachable;
+        this.keyCount = keyCount;
+    }
+
+    static RuleTrie forPrefixes(Collection<String> prefixes) {
+        return build(prefixes, false, false);
+    }
+
+    static RuleTrie forSuffixes(Collection<String> suffixes) {
+        return build(suffixes, true, false);
+    }
+
+    static RuleTrie forContains(Collection<String> substrings) {
+        return build(substrings, false, true);
+    }
+
+    boolean isEmpty() {
+        return keyCount == 0;
+    }
+
+    int keyCount() {
+        return keyCount;
+    }
+
+    /** {@code token.startsWith(key)} for some key. */
+    boolean matchesPrefixOf(String token) {
+        return anyPrefix(token, length -> true);
+    }
+
+    /** {@code token.endsWith(key)} for some key; the trie must hold reversed keys. */
+    boolean matchesSuffixOf(String token) {
+        return anySuffix(token, length -> true);
+    }
+
+    /**
+     * Whether some key is a prefix of {@code token} whose length passes
+     * {@code prefixLength}. Lengths are tried shortest first.
+     */
+    boolean anyPrefix(String token, IntPredicate prefixLength) {
+        if (keyCount == 0) {
+            return false;
+        }
+        int state = ROOT;
+        if (terminal[ROOT] && prefixLength.test(0)) {
+            return true;
+        }
+        int length = token.length();
+        for (int index = 0; index < length; index++) {
+            state = child(state, token.charAt(index));
+            if (state == NONE) {
+                return false;
+            }
+            if (terminal[state] && prefixLength.test(index + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether some key is a suffix of {@code token} whose length passes
+     * {@code suffixLength}; the trie must hold reversed keys.
+     */
+    boolean anySuffix(String token, IntPredicate suffixLength) {
+        if (keyCount == 0) {
+            return false;
+        }
+        int state = ROOT;
+        if (terminal[ROOT] && suffixLength.test(0)) {
+            return true;
+        }
+        int length = token.length();
+        for (int index = length - 1; index >= 0; index--) {
+            state = child(state, token.charAt(index));
+            if (state == NONE) {
+                return false;
+            }
+            if (terminal[state] && suffixLength.test(length - index)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** {@code token.contains(key)} for some key; the trie must be built for contains. */
+    boolean occursIn(String token) {
+        if (keyCount == 0) {
+            return false;
+        }
+        if (matchReachable[ROOT]) {
+            return true;
+        }
+        int state = ROOT;
+        int length = token.length();
+        for (int index = 0; index < length; index++) {
+            char c = token.charAt(index);
+            while (true) {
+                int child = child(state, c);
+                if (child != NONE) {
+                    state = child;
+                    break;
+                }
+                if (state == ROOT) {
+                    break;
+                }
+                state = failure[state];
+            }
+            if (matchReachable[state]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int child(int state, char c) {
+        int lo = childStart[state];
+        int hi = childStart[state + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char label = labels[mid];
+            if (label < c) {
+                lo = mid + 1;
+            } else if (label > c) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Reverses UTF-16 units one by one. Unlike {@link StringBuilder#reverse()}
+     * this also flips surrogate pairs, matching the backwards walk over the token.
+     */
+    private static String reverseChars(String key) {
+        char[] chars = new char[key.length()];
+        for (int index = 0; index < chars.length; index++) {
+            chars[index] = key.charAt(chars.length - 1 - index);
+        }
+        return new String(chars);
+    }
+
+    private static RuleTrie build(Collection<String> rules, boolean reversed, boolean withFailure) {
+        String[] keys = new String[rules.size()];
+        int count = 0;
+        for (String rule : rules) {
+            if (rule != null) {
+                keys[count++] = reversed ? reverseChars(rule) : rule;
+            }
+        }
+        if (count == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(keys, 0, count);
+        int unique = 0;
+        for (int index = 0; index < count; index++) {
+            if (unique == 0 || !keys[index].equals(keys[unique - 1])) {
+                keys[unique++] = keys[index];
+            }
+        }
+
+        // Breadth-first expansion: each state owns the contiguous range of sorted
+        // keys sharing its prefix and appends its children in label order.
+        int capacity = 16;
+        int[] rangeLo = new int[capacity];
+        int[] rangeHi = new int[capacity];
+        int[] depth = new int[capacity];
+        int[] parent = new int[capacity];
+        char[] labels = new char[capacity];
+        int[] childStart = new int[capacity + 1];
+        boolean[] terminal = new boolean[capacity];
+        rangeHi[ROOT] = unique;
+        parent[ROOT] = NONE;
+        int size = 1;
+        for (int state = 0; state < size; state++) {
+            int lo = rangeLo[state];
+            int hi = rangeHi[state];
+            if (lo < hi && keys[lo].length() == depth[state]) {
+                terminal[state] = true;
+                lo++;
+            }
+            childStart[state] = size;
+            int index = lo;
+            while (index < hi) {
+                char label = keys[index].charAt(depth[state]);
+                int next = index + 1;
+                while (next < hi && keys[next].charAt(depth[state]) == label) {
+                    next++;
+                }
+                if (size == capacity) {
+                    capacity = capacity + (capacity >> 1) + 16;
+                    rangeLo = Arrays.copyOf(rangeLo, capacity);
+                    rangeHi = Arrays.copyOf(rangeHi, capacity);
+                    depth = Arrays.copyOf(depth, capacity);
+                    parent = Arrays.copyOf(parent, capacity);
+                    labels = Arrays.copyOf(labels, capacity);
+                    childStart = Arrays.copyOf(childStart, capacity + 1);
+                    terminal = Arrays.copyOf(terminal, capacity);
+                }
+                rangeLo[size] = index;
+                rangeHi[size] = next;
+                depth[size] = depth[state] + 1;
+                parent[size] = state;
+                labels[size] = label;
+                size++;
+                index = next;
+            }
+        }
+        childStart = Arrays.copyOf(childStart, size + 1);
+        childStart[size] = size;
+        labels = Arrays.copyOf(labels, size);
+        terminal = Arrays.copyOf(terminal, size);
+
+        int[] failure = null;
+        boolean[] matchReachable = null;
+        if (withFailure) {
+            failure = new int[size];
+            matchReachable = new boolean[size];
+            matchReachable[ROOT] = terminal[ROOT];
+            RuleTrie trie = new RuleTrie(childStart, labels, terminal, null, null, unique);
+            // Parents precede children in breadth-first order, so every failure
+            // target is resolved before it is needed.
+            for (int state = 1; state < size; state++) {
+                int target = ROOT;
+                if (parent[state] != ROOT) {
+                    int fallback = failure[parent[state]];
+                    while (true) {
+                        int child = trie.child(fallback, labels[state]);
+                        if (child != NONE) {
+                            target = child;
+                            break;
+                        }
+                        if (fallback == ROOT) {
+                            break;
+                        }
+                        fallback = failure[fallback];
+                    }
+                }
+                failure[state] = target;
+                matchReachable[state] = terminal[state] || matchReachable[target];
+            }
+        }
+        return new RuleTrie(childStart, labels, terminal, failure, matchReachable, unique);
+    }
+}
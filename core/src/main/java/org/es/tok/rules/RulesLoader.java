@@ -61,7 +61,8 @@ public class RulesLoader {
             return new RulesConfig(false, AnalyzeRules.EMPTY);
         }
 
-        return new RulesConfig(true, rules);
+        // Compile now so the first analyzed document does not pay for it
+        return new RulesConfig(true, rules.compile());
     }
 
     /**
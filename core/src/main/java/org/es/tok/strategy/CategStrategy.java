@@ -1,38 +1,24 @@
 package org.es.tok.strategy;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class CategStrategy implements TokenStrategy {
     // Unicode Character Ranges
     // * https://jrgraphix.net/research/unicode_blocks.php
-    private static final String CH_ARAB = "\\d";
-    private static final String CH_ENG = "a-zA-Z";
-    private static final String CH_CJK = "\\u2e80-\\u2fdf\\u3040-\\u30FF\\u4E00-\\u9FFF\\uf900-\\ufaff〇";
-    private static final String CH_LANG = "\\u0391-\\u03c9\\u0410-\\u044f\\u0e01-\\u0e5b";
-    private static final String CH_DASH = "\\-\\+\\_\\.";
-    private static final String CH_WS = "\\s";
-    private static final String CH_MASK = "▂";
-
-    private static final String RE_ARAB = "[%s]+".formatted(CH_ARAB);
-    private static final String RE_ENG = "[%s]+".formatted(CH_ENG);
-    private static final String RE_CJK = "[%s]+".formatted(CH_CJK);
-    private static final String RE_LANG = "[%s]+".formatted(CH_LANG);
-    private static final String RE_DASH = "[%s]+".formatted(CH_DASH);
-    private static final String RE_WS = "[%s]+".formatted(CH_WS);
-    private static final String RE_MASK = "[%s]+".formatted(CH_MASK);
-    private static final String RE_NORD = "[^%s]+".formatted(
-            RE_ARAB + RE_ENG + RE_CJK + RE_LANG + RE_DASH + RE_WS + RE_MASK);
-
-    private static final String RE_CATEG = "(?<arab>%s)|(?<eng>%s)|(?<cjk>%s)|(?<lang>%s)|(?<dash>%s)|(?<ws>%s)|(?<mask>%s)|(?<nord>%s)"
-            .formatted(RE_ARAB, RE_ENG, RE_CJK, RE_LANG, RE_DASH, RE_WS, RE_MASK, RE_NORD);
-    private static final Pattern PT_CATEG = Pattern.compile(RE_CATEG);
-
-    private static final List<String> TYPE_NAMES = Arrays.asList(
-            "arab", "eng", "cjk", "lang", "dash", "ws", "mask", "nord");
+    //
+    // Categories, in the order they used to be tried by the named-group regex:
+    // * arab: 0-9 (ASCII digits only)
+    // * eng : a-zA-Z
+    // * cjk : U+2E80-U+2FDF U+3040-U+30FF U+4E00-U+9FFF U+F900-U+FAFF U+3007
+    // * lang: U+0391-U+03C9 U+0410-U+044F U+0E01-U+0E5B
+    // * dash: - + _ .
+    // * ws  : space, tab, LF, VT, FF, CR (ASCII whitespace only)
+    // * mask: U+2582
+    // * nord: everything else
+    //
+    // The ranges are disjoint, so every UTF-16 unit maps to exactly one type and
+    // a token is a maximal run of units of the same type.
+    private static final byte[] UNIT_TYPES = buildUnitTypes();
 
     private final boolean splitWord;
 
@@ -40,37 +26,74 @@ public class CategStrategy implements TokenStrategy {
         this.splitWord = splitWord;
     }
 
+    /**
+     * Category of a code point. Supplementary code points (including the CJK
+     * extension planes) are nord, as they always were with the regex; changing
+     * that would change the terms of already indexed documents.
+     */
+    public static byte typeOf(int codePoint) {
+        if (codePoint < 0 || codePoint > Character.MAX_VALUE) {
+            return TokenBuffer.TYPE_NORD;
+        }
+        return UNIT_TYPES[codePoint];
+    }
+
     @Override
-    public List<TokenInfo> tokenize(String text) {
-        List<TokenInfo> tokens = new ArrayList<>();
-        Matcher matcher = PT_CATEG.matcher(text);
+    public void tokenize(TokenBuffer buffer) {
+        char[] chars = buffer.chars();
+        int length = buffer.inputLength();
         int position = 0;
+        int start = 0;
 
-        while (matcher.find()) {
-            String tokenText = matcher.group();
-            int start = matcher.start();
-            int end = matcher.end();
-            String type = determineTokenType(matcher);
-            if (splitWord && ("cjk".equals(type) || "lang".equals(type))) {
+        // Surrogates are nord, so a surrogate pair is never split and joins the
+        // surrounding nord run, exactly like a supplementary code point did.
+        while (start < length) {
+            byte type = UNIT_TYPES[chars[start]];
+            int end = start + 1;
+            while (end < length && UNIT_TYPES[chars[end]] == type) {
+                end++;
+            }
+            if (splitWord && (type == TokenBuffer.TYPE_CJK || type == TokenBuffer.TYPE_LANG)) {
                 for (int i = start; i < end; i++) {
-                    tokens.add(new TokenInfo(
-                            String.valueOf(tokenText.charAt(i - start)),
-                            i, i + 1, type, position++, "categ"));
+                    buffer.add(i, i + 1, type, TokenBuffer.GROUP_CATEG, position++);
                 }
             } else {
-                tokens.add(new TokenInfo(tokenText, start, end, type, position++, "categ"));
+                buffer.add(start, end, type, TokenBuffer.GROUP_CATEG, position++);
             }
+            start = end;
         }
-
-        return tokens;
     }
 
-    private String determineTokenType(Matcher matcher) {
-        for (String typeName : TYPE_NAMES) {
-            if (matcher.group(typeName) != null) {
-                return typeName;
-            }
+    private static byte[] buildUnitTypes() {
+        byte[] types = new byte[Character.MAX_VALUE + 1];
+        Arrays.fill(types, TokenBuffer.TYPE_NORD);
+
+        fill(types, '0', '9', TokenBuffer.TYPE_ARAB);
+
+        fill(types, 'a', 'z', TokenBuffer.TYPE_ENG);
+        fill(types, 'A', 'Z', TokenBuffer.TYPE_ENG);
+
+        fill(types, '\u2e80', '\u2fdf', TokenBuffer.TYPE_CJK);
+        fill(types, '\u3040', '\u30ff', TokenBuffer.TYPE_CJK);
+        fill(types, '\u4e00', '\u9fff', TokenBuffer.TYPE_CJK);
+        fill(types, '\uf900', '\ufaff', TokenBuffer.TYPE_CJK);
+        types['\u3007'] = TokenBuffer.TYPE_CJK;
+
+        fill(types, '\u0391', '\u03c9', TokenBuffer.TYPE_LANG);
+        fill(types, '\u0410', '\u044f', TokenBuffer.TYPE_LANG);
+        fill(types, '\u0e01', '\u0e5b', TokenBuffer.TYPE_LANG);
+
+        for (char c : "-+_.".toCharArray()) {
+            types[c] = TokenBuffer.TYPE_DASH;
+        }
+        for (char c : " \t\n\u000b\f\r".toCharArray()) {
+            types[c] = TokenBuffer.TYPE_WS;
         }
-        return "nord";
+        types['\u2582'] = TokenBuffer.TYPE_MASK;
+        return types;
+    }
+
+    private static void fill(byte[] types, char from, char to, byte type) {
+        Arrays.fill(types, from, to + 1, type);
     }
-}
\ No newline at end of file
+}
@@ -1,327 +1,284 @@
 package org.es.tok.strategy;
 
 import org.es.tok.ngram.NgramConfig;
-import org.es.tok.ngram.NgramTextBuilder;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.function.Predicate;
 
 public class NgramStrategy {
     private final NgramConfig ngramConfig;
 
-    private static final Set<String> CATEG_TYPES = new HashSet<>(Arrays.asList(
-            "arab", "eng", "cjk", "lang"));
-    private static final Set<String> VOCAB_TYPES = new HashSet<>(Arrays.asList(
-            "vocab"));
-    private static final Set<String> WORD_TYPES = new HashSet<>(Arrays.asList(
-            "arab", "eng", "cjk", "lang", "vocab"));
-    private static final Set<String> SEP_TYPES = new HashSet<>(Arrays.asList(
-            "dash", "ws", "mask"));
-    private static final Set<String> NORD_TYPES = new HashSet<>(Arrays.asList(
-            "nord"));
-
     public NgramStrategy(NgramConfig ngramConfig) {
         this.ngramConfig = ngramConfig;
     }
 
-    private boolean isCategToken(TokenStrategy.TokenInfo token) {
-        return CATEG_TYPES.contains(token.getType());
+    private static boolean isCategType(byte type) {
+        return type == TokenBuffer.TYPE_ARAB || type == TokenBuffer.TYPE_ENG
+                || type == TokenBuffer.TYPE_CJK || type == TokenBuffer.TYPE_LANG;
     }
 
-    private boolean isVocabToken(TokenStrategy.TokenInfo token) {
-        return VOCAB_TYPES.contains(token.getType());
+    private static boolean isVocabType(byte type) {
+        return type == TokenBuffer.TYPE_VOCAB;
     }
 
-    private boolean isWordToken(TokenStrategy.TokenInfo token) {
-        return WORD_TYPES.contains(token.getType());
+    private static boolean isWordType(byte type) {
+        return isCategType(type) || isVocabType(type);
     }
 
-    private boolean isSepToken(TokenStrategy.TokenInfo token) {
-        return SEP_TYPES.contains(token.getType());
+    private static boolean isSepType(byte type) {
+        return type == TokenBuffer.TYPE_DASH || type == TokenBuffer.TYPE_WS || type == TokenBuffer.TYPE_MASK;
     }
 
-    private boolean isNordToken(TokenStrategy.TokenInfo token) {
-        return NORD_TYPES.contains(token.getType());
+    private static boolean isNordType(byte type) {
+        return type == TokenBuffer.TYPE_NORD;
+    }
+
+    // kinds of ngram, each with its own first/second token predicates
+    private static final int BIGRAM = 0;
+    private static final int VBGRAM = 1;
+    private static final int VCGRAM = 2;
+
+    private static boolean passesTokenPredicate(int kind, byte type) {
+        switch (kind) {
+            case BIGRAM:
+                return isCategType(type);
+            case VBGRAM:
+                return isVocabType(type);
+            default:
+                return isWordType(type);
+        }
     }
 
-    private boolean isContainedIn(TokenStrategy.TokenInfo token1, TokenStrategy.TokenInfo token2) {
+    private static byte ngramType(int kind) {
+        switch (kind) {
+            case BIGRAM:
+                return TokenBuffer.TYPE_BIGRAM;
+            case VBGRAM:
+                return TokenBuffer.TYPE_VBGRAM;
+            default:
+                return TokenBuffer.TYPE_VCGRAM;
+        }
+    }
+
+    private static boolean isContainedIn(TokenBuffer tokens, int token1, int token2) {
         // token1 is contained in token2, i.e., L2<=L1<=R1<=R2
-        return token2.getStartOffset() <= token1.getStartOffset() &&
-                token1.getEndOffset() <= token2.getEndOffset();
+        return tokens.startOffset(token2) <= tokens.startOffset(token1) &&
+                tokens.endOffset(token1) <= tokens.endOffset(token2);
     }
 
-    private boolean isOneContainsOther(TokenStrategy.TokenInfo token1, TokenStrategy.TokenInfo token2) {
-        return isContainedIn(token1, token2) || isContainedIn(token2, token1);
+    private static boolean isOneContainsOther(TokenBuffer tokens, int token1, int token2) {
+        return isContainedIn(tokens, token1, token2) || isContainedIn(tokens, token2, token1);
     }
 
-    private boolean isNonOverlapAfter(TokenStrategy.TokenInfo secondToken, TokenStrategy.TokenInfo firstToken) {
-        return secondToken.getStartOffset() >= firstToken.getEndOffset();
+    private static boolean isNonOverlapAfter(TokenBuffer tokens, int secondToken, int firstToken) {
+        return tokens.startOffset(secondToken) >= tokens.endOffset(firstToken);
     }
 
-    private boolean isOverlapOrAdjacent(TokenStrategy.TokenInfo secondToken, TokenStrategy.TokenInfo firstToken) {
-        return secondToken.getStartOffset() <= firstToken.getEndOffset();
+    private static boolean isOverlapOrAdjacent(TokenBuffer tokens, int secondToken, int firstToken) {
+        return tokens.startOffset(secondToken) <= tokens.endOffset(firstToken);
     }
 
-    // main function
-    public List<TokenStrategy.TokenInfo> generateNgrams(List<TokenStrategy.TokenInfo> baseTokens) {
-        List<TokenStrategy.TokenInfo> ngramTokens = new ArrayList<>();
+    /**
+     * Append ngram tokens built from the base tokens {@code [0, baseCount)} of
+     * {@code tokens}, which must be sorted by offset. Ngram terms are written
+     * into the buffer's term pool.
+     */
+    public void generateNgrams(TokenBuffer tokens, int baseCount) {
         if (!ngramConfig.hasAnyNgramEnabled()) {
-            return ngramTokens;
+            return;
         }
         if (ngramConfig.isUseBigram()) {
-            ngramTokens.addAll(generateBigrams(baseTokens));
+            VocabBounds vocabBounds = ngramConfig.isDropCogram() ? new VocabBounds(tokens, baseCount) : null;
+            generateNgramsGeneric(tokens, baseCount, BIGRAM, vocabBounds);
         }
         if (ngramConfig.isUseVbgram()) {
-            ngramTokens.addAll(generateVbgrams(baseTokens));
+            generateNgramsGeneric(tokens, baseCount, VBGRAM, null);
         }
         if (ngramConfig.isUseVcgram()) {
-            ngramTokens.addAll(generateVcgrams(baseTokens));
-        }
-        return ngramTokens;
-    }
-
-    // process ngrams that could have spaces
-    public List<TokenStrategy.TokenInfo> spacifyNgramText(
-            NgramTextBuilder ngramTextBuilder, String ngramType, boolean hasSpace) {
-        List<TokenStrategy.TokenInfo> ngramTokens = new ArrayList<>();
-        String ngramString = ngramTextBuilder.toString();
-        int startOffset = ngramTextBuilder.getStartOffset();
-        int endOffset = ngramTextBuilder.getEndOffset();
-
-        if (hasSpace) {
-            // replace multiple spaces with a single space
-            String ngramStringClean = ngramString.replaceAll("\\s+", " ");
-            ngramTokens.add(new TokenStrategy.TokenInfo(
-                    ngramStringClean,
-                    startOffset,
-                    endOffset,
-                    ngramType,
-                    0,
-                    "ngram"));
-            // remove spaces
-            String ngramStringNoSpace = ngramString.replaceAll(" ", "");
-            ngramTokens.add(new TokenStrategy.TokenInfo(
-                    ngramStringNoSpace,
-                    startOffset,
-                    endOffset,
-                    ngramType,
-                    0,
-                    "ngram"));
-        } else {
-            ngramTokens.add(new TokenStrategy.TokenInfo(
-                    ngramString,
-                    startOffset,
-                    endOffset,
-                    ngramType,
-                    0,
-                    "ngram"));
+            generateNgramsGeneric(tokens, baseCount, VCGRAM, null);
         }
-        return ngramTokens;
     }
 
-    private List<TokenStrategy.TokenInfo> findAllValidNextAdjacentTokens(
-            TokenStrategy.TokenInfo firstToken,
-            List<TokenStrategy.TokenInfo> baseTokens,
-            int firstTokenIdx,
-            Predicate<TokenStrategy.TokenInfo> secondTokenPredicate) {
-
-        List<TokenStrategy.TokenInfo> validTokens = new ArrayList<>();
-
-        // upperbound of candicate tokens idx:
-        // break at first "nord" or nonSecondTokenPredicate token after firstToken
-        int candidateIdxUB = baseTokens.size();
-        for (int i = firstTokenIdx + 1; i < baseTokens.size(); i++) {
-            TokenStrategy.TokenInfo token = baseTokens.get(i);
-            if (isNonOverlapAfter(token, firstToken) &&
-                    !isSepToken(token) &&
-                    (isNordToken(token) || !secondTokenPredicate.test(token))) {
-                candidateIdxUB = i;
-                break;
+    private void generateNgramsGeneric(TokenBuffer tokens, int baseCount, int kind, VocabBounds vocabBounds) {
+        for (int first = 0; first < baseCount; first++) {
+            if (!passesTokenPredicate(kind, tokens.type(first))) {
+                continue;
             }
-        }
 
-        // upperbound of candicate tokens start_offset:
-        // break at first nonSep and secondTokenPredicate-passed token after firstToken
-        // (implicit constraint: idx < candidateIdxUB)
-        int candidateStartOffsetUB = baseTokens.get(candidateIdxUB - 1).getStartOffset();
-        for (int i = firstTokenIdx + 1; i < candidateIdxUB; i++) {
-            TokenStrategy.TokenInfo token = baseTokens.get(i);
-            if (isNonOverlapAfter(token, firstToken) &&
-                    !isSepToken(token) &&
-                    secondTokenPredicate.test(token)) {
-                candidateStartOffsetUB = token.getStartOffset() + 1;
-                break;
-            }
-        }
+            // One forward scan over the candidates after firstToken:
+            // - upperbound of candicate tokens idx: stop at the first "nord" or
+            // nonSecondTokenPredicate token after firstToken;
+            // - upperbound of candicate tokens start_offset: set by the first nonSep
+            // and secondTokenPredicate-passed token after firstToken. A candidate can
+            // only be checked against it once it is set, as any earlier such
+            // candidate would have set it.
+            int candidateStartOffsetUB = Integer.MAX_VALUE;
+            for (int second = first + 1; second < baseCount; second++) {
+                byte type = tokens.type(second);
+                boolean passes = passesTokenPredicate(kind, type);
+                if (isNonOverlapAfter(tokens, second, first) && !isSepType(type)) {
+                    if (isNordType(type) || !passes) {
+                        break;
+                    }
+                    if (candidateStartOffsetUB == Integer.MAX_VALUE) {
+                        candidateStartOffsetUB = tokens.startOffset(second) + 1;
+                    }
+                }
 
-        // i: index of candidate token
-        for (int i = firstTokenIdx + 1; i < candidateIdxUB; i++) {
-            TokenStrategy.TokenInfo candidateToken = baseTokens.get(i);
-            // Skip if one token is contained in the other
-            if (isOneContainsOther(firstToken, candidateToken)) {
-                continue;
-            }
-            // Skip if candidate token does not pass the second token predicate
-            if (!secondTokenPredicate.test(candidateToken)) {
-                continue;
-            }
-            if (isOverlapOrAdjacent(candidateToken, firstToken)) {
-                // valid if candidate token is overlapping or adjacent to first token
-                validTokens.add(candidateToken);
-            } else {
-                if (candidateToken.getStartOffset() < candidateStartOffsetUB) {
-                    // valid for any candidate token that starts before the upper bound
-                    validTokens.add(candidateToken);
-                } else {
+                // Skip if one token is contained in the other
+                if (isOneContainsOther(tokens, first, second)) {
+                    continue;
+                }
+                // Skip if candidate token does not pass the second token predicate
+                if (!passes) {
+                    continue;
+                }
+                // valid if candidate token is overlapping or adjacent to first token,
+                // or starts before the upper bound
+                if (!isOverlapOrAdjacent(tokens, second, first)
+                        && tokens.startOffset(second) >= candidateStartOffsetUB) {
                     break;
                 }
+                if (!passesPairPredicate(tokens, kind, first, second, vocabBounds)) {
+                    continue;
+                }
+                appendNgram(tokens, first, second, ngramType(kind));
             }
         }
+    }
 
-        return validTokens;
+    private boolean passesPairPredicate(TokenBuffer tokens, int kind, int first, int second,
+            VocabBounds vocabBounds) {
+        switch (kind) {
+            case BIGRAM:
+                // exclude cograms if drop_cogram is true
+                return vocabBounds == null || !vocabBounds.isCogram(tokens, first, second);
+            case VCGRAM:
+                // at least one vocab
+                return isVocabType(tokens.type(first)) || isVocabType(tokens.type(second));
+            default:
+                return true;
+        }
     }
 
     /**
-     * Check if a bigram is a "cogram" (combination of vocab suffixes/prefixes).
-     * A cogram is a bigram where:
-     * 1. The first token ends at the end of some vocab token
-     * 2. The second token starts at the beginning of some vocab token
-     * 3. These are two different vocab tokens
+     * Vocab tokens indexed by start and end offset, so that cogram checks are
+     * O(1) instead of a scan over all tokens per bigram.
      */
-    private boolean isCogram(TokenStrategy.TokenInfo firstToken, TokenStrategy.TokenInfo secondToken,
-            List<TokenStrategy.TokenInfo> allTokens) {
-        if (!ngramConfig.isDropCogram()) {
-            return false;
-        }
-
-        // Find vocab tokens that end at firstToken's end position
-        List<TokenStrategy.TokenInfo> vocabsEndingAtFirst = new ArrayList<>();
-        for (TokenStrategy.TokenInfo token : allTokens) {
-            if (isVocabToken(token) && token.getEndOffset() == firstToken.getEndOffset()) {
-                vocabsEndingAtFirst.add(token);
+    private static final class VocabBounds {
+        private final int[] endCounts;
+        private final int[] endTokens;
+        private final int[] startCounts;
+        private final int[] startTokens;
+
+        private VocabBounds(TokenBuffer tokens, int baseCount) {
+            endCounts = tokens.offsetTable(0);
+            endTokens = tokens.offsetTable(1);
+            startCounts = tokens.offsetTable(2);
+            startTokens = tokens.offsetTable(3);
+            for (int token = 0; token < baseCount; token++) {
+                if (!isVocabType(tokens.type(token))) {
+                    continue;
+                }
+                int end = tokens.endOffset(token);
+                endCounts[end]++;
+                endTokens[end] = token;
+                int start = tokens.startOffset(token);
+                startCounts[start]++;
+                startTokens[start] = token;
             }
         }
 
-        // Find vocab tokens that start at secondToken's start position
-        List<TokenStrategy.TokenInfo> vocabsStartingAtSecond = new ArrayList<>();
-        for (TokenStrategy.TokenInfo token : allTokens) {
-            if (isVocabToken(token) && token.getStartOffset() == secondToken.getStartOffset()) {
-                vocabsStartingAtSecond.add(token);
+        /**
+         * Check if a bigram is a "cogram" (combination of vocab suffixes/prefixes).
+         * A cogram is a bigram where:
+         * 1. The first token ends at the end of some vocab token
+         * 2. The second token starts at the beginning of some vocab token
+         * 3. These are two different vocab tokens
+         */
+        private boolean isCogram(TokenBuffer tokens, int first, int second) {
+            int firstEnd = tokens.endOffset(first);
+            int secondStart = tokens.startOffset(second);
+            int endingCount = endCounts[firstEnd];
+            int startingCount = startCounts[secondStart];
+            if (endingCount == 0 || startingCount == 0) {
+                return false;
             }
+            // With more than one candidate on either side, some pair differs.
+            return endingCount > 1 || startingCount > 1 || endTokens[firstEnd] != startTokens[secondStart];
         }
+    }
 
-        // Check if they are different vocab tokens
-        for (TokenStrategy.TokenInfo vocab1 : vocabsEndingAtFirst) {
-            for (TokenStrategy.TokenInfo vocab2 : vocabsStartingAtSecond) {
-                if (!vocab1.equals(vocab2)) {
-                    return true;
-                }
-            }
+    /**
+     * Append the ngram of {@code first} and {@code second}: their terms joined
+     * with the overlap removed, or with a space when there is a gap between
+     * them. Gapped ngrams are emitted twice, with whitespace runs collapsed to a
+     * single space and with spaces removed.
+     */
+    private void appendNgram(TokenBuffer tokens, int first, int second, byte ngramType) {
+        int startOffset = tokens.startOffset(first);
+        int endOffset = tokens.endOffset(second);
+        boolean hasSpace = tokens.endOffset(first) < tokens.startOffset(second);
+        int secondFrom = hasSpace ? 0 : Math.max(0, tokens.endOffset(first) - tokens.startOffset(second));
+        int maxLength = tokens.termLength(first) + 1 + tokens.termLength(second) - secondFrom;
+
+        if (!hasSpace) {
+            int termOffset = tokens.reserveTerm(maxLength);
+            int length = writeNgramTerm(tokens, first, second, secondFrom, false, termOffset, TERM_RAW);
+            tokens.addSynthesized(startOffset, endOffset, ngramType, TokenBuffer.GROUP_NGRAM, 0, termOffset, length);
+            return;
         }
 
-        return false;
+        // replace multiple spaces with a single space
+        int termOffset = tokens.reserveTerm(maxLength);
+        int length = writeNgramTerm(tokens, first, second, secondFrom, true, termOffset, TERM_COLLAPSE_WHITESPACE);
+        tokens.addSynthesized(startOffset, endOffset, ngramType, TokenBuffer.GROUP_NGRAM, 0, termOffset, length);
+        // remove spaces
+        termOffset = tokens.reserveTerm(maxLength);
+        length = writeNgramTerm(tokens, first, second, secondFrom, true, termOffset, TERM_REMOVE_SPACES);
+        tokens.addSynthesized(startOffset, endOffset, ngramType, TokenBuffer.GROUP_NGRAM, 0, termOffset, length);
     }
 
-    private List<TokenStrategy.TokenInfo> generateNgramsGeneric(
-            List<TokenStrategy.TokenInfo> tokens,
-            Predicate<TokenStrategy.TokenInfo> firstTokenPredicate,
-            Predicate<TokenStrategy.TokenInfo> secondTokenPredicate,
-            Predicate<TokenPair> extraPredicate,
-            String ngramType) {
-
-        List<TokenStrategy.TokenInfo> ngrams = new ArrayList<>();
-
-        for (int i = 0; i < tokens.size(); i++) {
-            TokenStrategy.TokenInfo firstToken = tokens.get(i);
-            if (!firstTokenPredicate.test(firstToken)) {
-                continue;
+    private static final int TERM_RAW = 0;
+    private static final int TERM_COLLAPSE_WHITESPACE = 1;
+    private static final int TERM_REMOVE_SPACES = 2;
+
+    private static int writeNgramTerm(TokenBuffer tokens, int first, int second, int secondFrom, boolean hasSpace,
+            int termOffset, int mode) {
+        char[] chars = tokens.chars();
+        int target = termOffset;
+        boolean previousWhitespace = false;
+        int firstOffset = tokens.termOffset(first);
+        int firstLength = tokens.termLength(first);
+        int secondOffset = tokens.termOffset(second);
+        int secondLength = tokens.termLength(second);
+        int total = firstLength + (hasSpace ? 1 : 0) + secondLength - secondFrom;
+        for (int index = 0; index < total; index++) {
+            char c;
+            if (index < firstLength) {
+                c = chars[firstOffset + index];
+            } else if (hasSpace && index == firstLength) {
+                c = ' ';
+            } else {
+                c = chars[secondOffset + secondFrom + index - firstLength - (hasSpace ? 1 : 0)];
             }
 
-            // Find all valid adjacent tokens for this first token
-            List<TokenStrategy.TokenInfo> validSecondTokens = findAllValidNextAdjacentTokens(
-                    firstToken, tokens, i, secondTokenPredicate);
-
-            for (TokenStrategy.TokenInfo secondToken : validSecondTokens) {
-                if (extraPredicate != null &&
-                        !extraPredicate.test(new TokenPair(firstToken, secondToken))) {
+            if (mode == TERM_COLLAPSE_WHITESPACE) {
+                // same as String.replaceAll("\\s+", " ")
+                if (isRegexWhitespace(c)) {
+                    if (!previousWhitespace) {
+                        chars[target++] = ' ';
+                    }
+                    previousWhitespace = true;
                     continue;
                 }
-
-                NgramTextBuilder ngramTextBuilder = new NgramTextBuilder(firstToken);
-
-                // Add space token if there is gap between two tokens
-                boolean hasSpace = false;
-                if (firstToken.getEndOffset() < secondToken.getStartOffset()) {
-                    hasSpace = true;
-                    TokenStrategy.TokenInfo spaceToken = new TokenStrategy.TokenInfo(
-                            " ",
-                            firstToken.getEndOffset(),
-                            secondToken.getStartOffset(),
-                            "space",
-                            0,
-                            "ngram");
-                    ngramTextBuilder.appendToken(spaceToken);
-                }
-
-                ngramTextBuilder.appendToken(secondToken);
-
-                ngrams.addAll(spacifyNgramText(ngramTextBuilder, ngramType, hasSpace));
+                previousWhitespace = false;
+            } else if (mode == TERM_REMOVE_SPACES && c == ' ') {
+                continue;
             }
+            chars[target++] = c;
         }
-        return ngrams;
-    }
-
-    // Helper class to hold a pair of tokens
-    private static class TokenPair {
-        private final TokenStrategy.TokenInfo first;
-        private final TokenStrategy.TokenInfo second;
-
-        public TokenPair(TokenStrategy.TokenInfo first, TokenStrategy.TokenInfo second) {
-            this.first = first;
-            this.second = second;
-        }
-
-        public TokenStrategy.TokenInfo getFirst() {
-            return first;
-        }
-
-        public TokenStrategy.TokenInfo getSecond() {
-            return second;
-        }
-    }
-
-    // bigram: ngrams that concat exactly 2 adjacent categ tokens
-    private List<TokenStrategy.TokenInfo> generateBigrams(List<TokenStrategy.TokenInfo> tokens) {
-        return generateNgramsGeneric(
-                tokens,
-                this::isCategToken, // first token must be categ
-                this::isCategToken, // second token must be categ
-                pair -> !isCogram(pair.getFirst(), pair.getSecond(), tokens), // exclude cograms if drop_cogram is true
-                "bigram");
-    }
-
-    // vbgram: ngrams that concat exactly 2 adjacent vocab tokens
-    private List<TokenStrategy.TokenInfo> generateVbgrams(List<TokenStrategy.TokenInfo> tokens) {
-        return generateNgramsGeneric(
-                tokens,
-                this::isVocabToken, // first token must be vocab
-                this::isVocabToken, // second token must be vocab
-                null, // no additional validation
-                "vbgram");
+        return target - termOffset;
     }
 
-    // vcgram: ngrams that concat exactly 2 adjacent word tokens, but must contain
-    // at least one vocab token
-    private List<TokenStrategy.TokenInfo> generateVcgrams(List<TokenStrategy.TokenInfo> tokens) {
-        return generateNgramsGeneric(
-                tokens,
-                this::isWordToken, // first token must be word
-                this::isWordToken, // second token must be word
-                pair -> isVocabToken(pair.getFirst()) || isVocabToken(pair.getSecond()), // at least one vocab
-                "vcgram");
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,527 @@
+package org.es.tok.strategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable, columnar token buffer shared by the strategies and post-filters of
+ * one analysis.
+ *
+ * Tokens are stored as parallel primitive columns (offsets, position, type and
+ * group ordinals) and their terms as slices of a single {@code char[]} pool.
+ * The pool starts with the (normalized) input text, so categ and vocab terms
+ * are plain slices of the input; synthesized terms such as vocab_concat and
+ * ngrams are appended behind it. Filters mark and compact in place, so
+ * analyzing a text allocates nothing once the buffer has grown to size.
+ *
+ * A buffer is not thread-safe; keep one per thread (a tokenizer instance, or
+ * {@link #forCurrentThread()}).
+ */
+public final class TokenBuffer {
+    public static final byte TYPE_ARAB = 0;
+    public static final byte TYPE_ENG = 1;
+    public static final byte TYPE_CJK = 2;
+    public static final byte TYPE_LANG = 3;
+    public static final byte TYPE_DASH = 4;
+    public static final byte TYPE_WS = 5;
+    public static final byte TYPE_MASK = 6;
+    public static final byte TYPE_NORD = 7;
+    public static final byte TYPE_VOCAB = 8;
+    public static final byte TYPE_VOCAB_CONCAT = 9;
+    public static final byte TYPE_BIGRAM = 10;
+    public static final byte TYPE_VBGRAM = 11;
+    public static final byte TYPE_VCGRAM = 12;
+
+    public static final byte GROUP_CATEG = 0;
+    public static final byte GROUP_VOCAB = 1;
+    public static final byte GROUP_NGRAM = 2;
+
+    private static final String[] TYPE_NAMES = {
+            "arab", "eng", "cjk", "lang", "dash", "ws", "mask", "nord",
+            "vocab", "vocab_concat", "bigram", "vbgram", "vcgram" };
+    private static final String[] GROUP_NAMES = { "categ", "vocab", "ngram" };
+
+    /** Number of independent tables available from {@link #offsetTable(int)}. */
+    public static final int OFFSET_TABLES = 4;
+
+    private static final int INITIAL_TOKENS = 64;
+    private static final int INITIAL_CHARS = 256;
+    // Buffers that grew beyond these bounds (a huge document) are released after
+    // use instead of being pinned by their thread forever.
+    private static final int RETAINED_TOKENS = 1 << 16;
+    private static final int RETAINED_CHARS = 1 << 20;
+
+    private static final ThreadLocal<TokenBuffer> THREAD_BUFFERS = ThreadLocal.withInitial(TokenBuffer::new);
+
+    private char[] chars = new char[INITIAL_CHARS];
+    private int inputLength;
+    private int charsLength;
+
+    private int size;
+    private int[] startOffsets = new int[INITIAL_TOKENS];
+    private int[] endOffsets = new int[INITIAL_TOKENS];
+    private int[] termOffsets = new int[INITIAL_TOKENS];
+    private int[] termLengths = new int[INITIAL_TOKENS];
+    private int[] positions = new int[INITIAL_TOKENS];
+    private byte[] types = new byte[INITIAL_TOKENS];
+    private byte[] groups = new byte[INITIAL_TOKENS];
+
+    private boolean[] removed = new boolean[INITIAL_TOKENS];
+    private int[] scratchInts = new int[INITIAL_TOKENS];
+    private int[] order = new int[INITIAL_TOKENS];
+    private byte[] scratchBytes = new byte[INITIAL_TOKENS];
+    private int[] hashSlots = new int[INITIAL_TOKENS * 2];
+    private byte[] offsetFlags = new byte[INITIAL_CHARS];
+    private final int[][] offsetTables = new int[OFFSET_TABLES][];
+
+    /** The calling thread's buffer; callers must finish with it before reusing it. */
+    public static TokenBuffer forCurrentThread() {
+        return THREAD_BUFFERS.get();
+    }
+
+    /** Clear all tokens and load {@code text} as the input. */
+    public void reset(CharSequence text) {
+        int length = text.length();
+        size = 0;
+        ensureChars(length);
+        if (text instanceof String string) {
+            string.getChars(0, length, chars, 0);
+        } else if (text instanceof StringBuilder builder) {
+            builder.getChars(0, length, chars, 0);
+        } else {
+            for (int index = 0; index < length; index++) {
+                chars[index] = text.charAt(index);
+            }
+        }
+        inputLength = length;
+        charsLength = length;
+    }
+
+    /** Clear all tokens and load {@code text[offset, offset + length)} as the input. */
+    public void reset(char[] text, int offset, int length) {
+        size = 0;
+        ensureChars(length);
+        System.arraycopy(text, offset, chars, 0, length);
+        inputLength = length;
+        charsLength = length;
+    }
+
+    /** Drop oversized arrays left behind by an unusually large input. */
+    public void trim() {
+        if (startOffsets.length > RETAINED_TOKENS || chars.length > RETAINED_CHARS) {
+            TokenBuffer fresh = new TokenBuffer();
+            chars = fresh.chars;
+            startOffsets = fresh.startOffsets;
+            endOffsets = fresh.endOffsets;
+            termOffsets = fresh.termOffsets;
+            termLengths = fresh.termLengths;
+            positions = fresh.positions;
+            types = fresh.types;
+            groups = fresh.groups;
+            removed = fresh.removed;
+            scratchInts = fresh.scratchInts;
+            order = fresh.order;
+            scratchBytes = fresh.scratchBytes;
+            hashSlots = fresh.hashSlots;
+            offsetFlags = fresh.offsetFlags;
+            Arrays.fill(offsetTables, null);
+            size = 0;
+            inputLength = 0;
+            charsLength = 0;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int inputLength() {
+        return inputLength;
+    }
+
+    /**
+     * Backing char pool. Input chars occupy {@code [0, inputLength())}; the array
+     * may be replaced when terms are appended, so do not hold on to it across
+     * {@code add*} calls.
+     */
+    public char[] chars() {
+        return chars;
+    }
+
+    /** Add a token whose term is the input slice {@code [startOffset, endOffset)}. */
+    public void add(int startOffset, int endOffset, byte type, byte group, int position) {
+        addWithTerm(startOffset, endOffset, type, group, position, startOffset, endOffset - startOffset);
+    }
+
+    /**
+     * Reserve room for a synthesized term of up to {@code maxLength} chars and
+     * return the pool offset to write it at; the pool is guaranteed not to move
+     * until the next reservation.
+     */
+    public int reserveTerm(int maxLength) {
+        ensureChars(charsLength + maxLength);
+        return charsLength;
+    }
+
+    /**
+     * Add a token whose term was written at {@code termOffset} (from
+     * {@link #reserveTerm}) with {@code termLength} chars.
+     */
+    public void addSynthesized(int startOffset, int endOffset, byte type, byte group, int position,
+            int termOffset, int termLength) {
+        charsLength = Math.max(charsLength, termOffset + termLength);
+        addWithTerm(startOffset, endOffset, type, group, position, termOffset, termLength);
+    }
+
+    private void addWithTerm(int startOffset, int endOffset, byte type, byte group, int position,
+            int termOffset, int termLength) {
+        ensureTokens(size + 1);
+        startOffsets[size] = startOffset;
+        endOffsets[size] = endOffset;
+        termOffsets[size] = termOffset;
+        termLengths[size] = termLength;
+        positions[size] = position;
+        types[size] = type;
+        groups[size] = group;
+        size++;
+    }
+
+    public int startOffset(int index) {
+        return startOffsets[index];
+    }
+
+    public int endOffset(int index) {
+        return endOffsets[index];
+    }
+
+    public int termOffset(int index) {
+        return termOffsets[index];
+    }
+
+    public int termLength(int index) {
+        return termLengths[index];
+    }
+
+    public char termCharAt(int index, int charIndex) {
+        return chars[termOffsets[index] + charIndex];
+    }
+
+    public int position(int index) {
+        return positions[index];
+    }
+
+    public byte type(int index) {
+        return types[index];
+    }
+
+    public byte group(int index) {
+        return groups[index];
+    }
+
+    public String typeName(int index) {
+        return TYPE_NAMES[types[index]];
+    }
+
+    public String groupName(int index) {
+        return GROUP_NAMES[groups[index]];
+    }
+
+    public static String typeName(byte type) {
+        return TYPE_NAMES[type];
+    }
+
+    public static String groupName(byte group) {
+        return GROUP_NAMES[group];
+    }
+
+    public String termToString(int index) {
+        return new String(chars, termOffsets[index], termLengths[index]);
+    }
+
+    /** Same ordering as {@link String#compareTo} on the two terms. */
+    public int compareTerms(int left, int right) {
+        int leftOffset = termOffsets[left];
+        int rightOffset = termOffsets[right];
+        int leftLength = termLengths[left];
+        int rightLength = termLengths[right];
+        int limit = Math.min(leftLength, rightLength);
+        for (int index = 0; index < limit; index++) {
+            char leftChar = chars[leftOffset + index];
+            char rightChar = chars[rightOffset + index];
+            if (leftChar != rightChar) {
+                return leftChar - rightChar;
+            }
+        }
+        return leftLength - rightLength;
+    }
+
+    public boolean termEquals(int left, int right) {
+        int length = termLengths[left];
+        if (length != termLengths[right]) {
+            return false;
+        }
+        int leftOffset = termOffsets[left];
+        int rightOffset = termOffsets[right];
+        for (int index = 0; index < length; index++) {
+            if (chars[leftOffset + index] != chars[rightOffset + index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cleared, reusable per-offset flag array with one entry for every offset in
+     * {@code [-1, inputLength() + 1]}; offset {@code o} is at index {@code o + 1}.
+     */
+    public byte[] offsetFlags() {
+        int length = inputLength + 3;
+        if (offsetFlags.length < length) {
+            offsetFlags = new byte[Math.max(length, offsetFlags.length + (offsetFlags.length >> 1))];
+        } else {
+            Arrays.fill(offsetFlags, 0, length, (byte) 0);
+        }
+        return offsetFlags;
+    }
+
+    /**
+     * Cleared, reusable int table with one entry for every offset in
+     * {@code [0, inputLength() + 1]}, for offset-indexed lookups (counts, prefix
+     * sums, Fenwick trees) that keep the post-filters linear or n log n.
+     * {@code table} selects one of {@link #OFFSET_TABLES} independent tables.
+     */
+    public int[] offsetTable(int table) {
+        int length = inputLength + 2;
+        int[] values = offsetTables[table];
+        if (values == null || values.length < length) {
+            int capacity = values == null ? length : Math.max(length, values.length + (values.length >> 1));
+            values = new int[capacity];
+            offsetTables[table] = values;
+        } else {
+            Arrays.fill(values, 0, length, 0);
+        }
+        return values;
+    }
+
+    /** Mark a token for removal by the next {@link #compact()}. */
+    public void markRemoved(int index) {
+        removed[index] = true;
+    }
+
+    public boolean isMarkedRemoved(int index) {
+        return removed[index];
+    }
+
+    /** Remove marked tokens, keeping the relative order of the others. */
+    public void compact() {
+        int target = 0;
+        for (int index = 0; index < size; index++) {
+            if (removed[index]) {
+                removed[index] = false;
+                continue;
+            }
+            if (target != index) {
+                startOffsets[target] = startOffsets[index];
+                endOffsets[target] = endOffsets[index];
+                termOffsets[target] = termOffsets[index];
+                termLengths[target] = termLengths[index];
+                positions[target] = positions[index];
+                types[target] = types[index];
+                groups[target] = groups[index];
+            }
+            target++;
+        }
+        size = target;
+    }
+
+    /** Keep only the first token of every (term, startOffset, endOffset) key. */
+    public void dropDuplicates() {
+        if (size < 2) {
+            return;
+        }
+        int slotCount = Integer.highestOneBit(size * 2 - 1) << 1;
+        if (hashSlots.length < slotCount) {
+            hashSlots = new int[slotCount];
+        }
+        Arrays.fill(hashSlots, 0, slotCount, -1);
+        int mask = slotCount - 1;
+        boolean anyRemoved = false;
+        for (int index = 0; index < size; index++) {
+            int slot = keyHash(index) & mask;
+            while (true) {
+                int existing = hashSlots[slot];
+                if (existing == -1) {
+                    hashSlots[slot] = index;
+                    break;
+                }
+                if (startOffsets[existing] == startOffsets[index] && endOffsets[existing] == endOffsets[index]
+                        && termEquals(existing, index)) {
+                    removed[index] = true;
+                    anyRemoved = true;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+        if (anyRemoved) {
+            compact();
+        }
+    }
+
+    private int keyHash(int index) {
+        int hash = 0;
+        int offset = termOffsets[index];
+        int end = offset + termLengths[index];
+        for (int charIndex = offset; charIndex < end; charIndex++) {
+            hash = 31 * hash + chars[charIndex];
+        }
+        hash = 31 * hash + startOffsets[index];
+        hash = 31 * hash + endOffsets[index];
+        return hash ^ (hash >>> 16);
+    }
+
+    /** Stable sort by (startOffset, endOffset, term). */
+    public void sortByOffset() {
+        if (size < 2) {
+            return;
+        }
+        ensureScratch(size);
+        for (int index = 0; index < size; index++) {
+            order[index] = index;
+        }
+        mergeSort(order, scratchInts, 0, size);
+        if (isIdentity(order, size)) {
+            return;
+        }
+        permute(order);
+    }
+
+    private boolean isIdentity(int[] permutation, int length) {
+        for (int index = 0; index < length; index++) {
+            if (permutation[index] != index) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void mergeSort(int[] values, int[] scratch, int from, int to) {
+        if (to - from <= 16) {
+            for (int index = from + 1; index < to; index++) {
+                int value = values[index];
+                int cursor = index - 1;
+                while (cursor >= from && compareByOffset(values[cursor], value) > 0) {
+                    values[cursor + 1] = values[cursor];
+                    cursor--;
+                }
+                values[cursor + 1] = value;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(values, scratch, from, middle);
+        mergeSort(values, scratch, middle, to);
+        if (compareByOffset(values[middle - 1], values[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(values, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        int target = from;
+        while (left < middle && right < to) {
+            if (compareByOffset(scratch[right], scratch[left]) < 0) {
+                values[target++] = scratch[right++];
+            } else {
+                values[target++] = scratch[left++];
+            }
+        }
+        while (left < middle) {
+            values[target++] = scratch[left++];
+        }
+        while (right < to) {
+            values[target++] = scratch[right++];
+        }
+    }
+
+    private int compareByOffset(int left, int right) {
+        int compare = Integer.compare(startOffsets[left], startOffsets[right]);
+        if (compare != 0) {
+            return compare;
+        }
+        compare = Integer.compare(endOffsets[left], endOffsets[right]);
+        if (compare != 0) {
+            return compare;
+        }
+        return compareTerms(left, right);
+    }
+
+    private void permute(int[] permutation) {
+        permuteInts(startOffsets, permutation);
+        permuteInts(endOffsets, permutation);
+        permuteInts(termOffsets, permutation);
+        permuteInts(termLengths, permutation);
+        permuteInts(positions, permutation);
+        permuteBytes(types, permutation);
+        permuteBytes(groups, permutation);
+    }
+
+    private void permuteInts(int[] column, int[] permutation) {
+        for (int index = 0; index < size; index++) {
+            scratchInts[index] = column[permutation[index]];
+        }
+        System.arraycopy(scratchInts, 0, column, 0, size);
+    }
+
+    private void permuteBytes(byte[] column, int[] permutation) {
+        for (int index = 0; index < size; index++) {
+            scratchBytes[index] = column[permutation[index]];
+        }
+        System.arraycopy(scratchBytes, 0, column, 0, size);
+    }
+
+    /** Materialize the tokens as {@link TokenStrategy.TokenInfo} objects. */
+    public List<TokenStrategy.TokenInfo> toTokenInfos() {
+        List<TokenStrategy.TokenInfo> tokens = new ArrayList<>(size);
+        for (int index = 0; index < size; index++) {
+            tokens.add(new TokenStrategy.TokenInfo(
+                    termToString(index),
+                    startOffsets[index],
+                    endOffsets[index],
+                    typeName(index),
+                    positions[index],
+                    groupName(index)));
+        }
+        return tokens;
+    }
+
+    private void ensureChars(int capacity) {
+        if (chars.length < capacity) {
+            chars = Arrays.copyOf(chars, Math.max(capacity, chars.length + (chars.length >> 1)));
+        }
+    }
+
+    private void ensureTokens(int capacity) {
+        if (startOffsets.length >= capacity) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, startOffsets.length + (startOffsets.length >> 1));
+        startOffsets = Arrays.copyOf(startOffsets, newCapacity);
+        endOffsets = Arrays.copyOf(endOffsets, newCapacity);
+        termOffsets = Arrays.copyOf(termOffsets, newCapacity);
+        termLengths = Arrays.copyOf(termLengths, newCapacity);
+        positions = Arrays.copyOf(positions, newCapacity);
+        types = Arrays.copyOf(types, newCapacity);
+        groups = Arrays.copyOf(groups, newCapacity);
+        removed = Arrays.copyOf(removed, newCapacity);
+    }
+
+    private void ensureScratch(int capacity) {
+        if (order.length < capacity) {
+            int newCapacity = startOffsets.length;
+            order = new int[newCapacity];
+            scratchInts = new int[newCapacity];
+            scratchBytes = new byte[newCapacity];
+        }
+    }
+}
@@ -3,7 +3,17 @@ package org.es.tok.strategy;
 import java.util.List;
 
 public interface TokenStrategy {
-    List<TokenInfo> tokenize(String text);
+    /**
+     * Append this strategy's tokens for the input text held in {@code buffer}.
+     */
+    void tokenize(TokenBuffer buffer);
+
+    default List<TokenInfo> tokenize(String text) {
+        TokenBuffer buffer = new TokenBuffer();
+        buffer.reset(text);
+        tokenize(buffer);
+        return buffer.toTokenInfos();
+    }
 
     public static class TokenInfo {
         private final String text;
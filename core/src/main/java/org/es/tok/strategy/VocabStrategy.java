@@ -1,22 +1,20 @@
 package org.es.tok.strategy;
 
-import org.ahocorasick.trie.Emit;
-import org.ahocorasick.trie.Trie;
+import org.es.tok.vocab.VocabAutomaton;
+import org.es.tok.vocab.VocabFingerprint;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class VocabStrategy implements TokenStrategy {
-    // Global cache: all indexes and REST share the same Trie for the same vocab
-    // list.
-    // Building an Aho-Corasick Trie from millions of words costs 1-4GB memory;
-    // without this cache, each index or REST request would build its own copy →
-    // OOM.
+    // Global cache: all indexes and REST share the same automaton for the same
+    // vocab list.
+    // Even in its compact primitive-array form the automaton over millions of
+    // words takes a few hundred MB; without this cache, each index or REST
+    // request would build its own copy.
     private static final ConcurrentHashMap<String, VocabStrategy> globalCache = new ConcurrentHashMap<>();
 
-    private final Trie trie;
+    private final VocabAutomaton automaton;
 
     /**
      * Get or create a cached VocabStrategy for the given vocab list.
@@ -28,104 +26,94 @@ public class VocabStrategy implements TokenStrategy {
         if (vocabs == null || vocabs.isEmpty()) {
             return null;
         }
-        String key = vocabs.size() + ":" + vocabs.hashCode();
-        return globalCache.computeIfAbsent(key, k -> new VocabStrategy(vocabs));
+        return getOrCreate(VocabFingerprint.of(vocabs), vocabs);
+    }
+
+    /**
+     * Same as {@link #getOrCreate(List)}, keyed by the list's precomputed
+     * {@link VocabFingerprint} so the lookup does not touch the words.
+     */
+    public static VocabStrategy getOrCreate(String fingerprint, List<String> vocabs) {
+        if (vocabs == null || vocabs.isEmpty()) {
+            return null;
+        }
+        return globalCache.computeIfAbsent(fingerprint, k -> new VocabStrategy(vocabs));
     }
 
     public VocabStrategy(List<String> vocabs) {
         if (vocabs == null || vocabs.isEmpty()) {
-            this.trie = null;
+            this.automaton = null;
             return;
         }
 
-        Trie.TrieBuilder builder = Trie.builder();
-        for (String word : vocabs) {
-            if (word != null && !word.trim().isEmpty()) {
-                builder.addKeyword(word.trim());
-            }
-        }
+        this.automaton = VocabAutomaton.build(vocabs);
+    }
 
-        this.trie = builder.build();
+    /**
+     * Wrap an already built automaton, e.g. one memory-mapped from a compiled
+     * vocab image. Wrapping is cheap, so these strategies are not cached.
+     */
+    public VocabStrategy(VocabAutomaton automaton) {
+        this.automaton = automaton;
     }
 
-    @Override
-    public List<TokenInfo> tokenize(String text) {
-        List<TokenInfo> tokens = new ArrayList<>();
+    public VocabAutomaton getAutomaton() {
+        return automaton;
+    }
 
-        if (trie == null) {
-            return tokens;
+    @Override
+    public void tokenize(TokenBuffer buffer) {
+        if (automaton == null) {
+            return;
         }
 
-        Collection<Emit> emits = trie.parseText(text);
-        int position = 0;
-
-        for (Emit emit : emits) {
-            int startOffset = emit.getStart();
-            int endOffset = emit.getEnd() + 1;
-            String tokenText = emit.getKeyword();
-
-            if (shouldDropVocabToken(tokenText, text, startOffset, endOffset)) {
-                continue;
-            }
+        // Vocab terms are slices of the input; only concat terms are copied into
+        // the buffer's term pool.
+        automaton.match(buffer.chars(), 0, buffer.inputLength(), new VocabTokenCollector(buffer));
+    }
 
-            tokens.add(new TokenInfo(
-                    tokenText,
-                    startOffset,
-                    endOffset,
-                    "vocab",
-                    position++,
-                    "vocab"));
+    private final class VocabTokenCollector implements VocabAutomaton.MatchHandler {
+        private final TokenBuffer buffer;
+        private int position = 0;
 
-            if (!shouldConcatVocabToken(tokenText)) {
-                continue;
-            }
-
-            String concatToken = concatToken(tokenText);
-            if (concatToken != null) {
-                tokens.add(new TokenInfo(
-                        concatToken,
-                        startOffset,
-                        endOffset,
-                        "vocab_concat",
-                        position++,
-                        "vocab"));
-            }
+        private VocabTokenCollector(TokenBuffer buffer) {
+            this.buffer = buffer;
         }
 
-        return tokens;
-    }
+        @Override
+        public void onMatch(int startOffset, int endOffset) {
+            char[] text = buffer.chars();
+            int textLength = buffer.inputLength();
 
-    private String concatToken(String tokenText) {
-        if (tokenText == null || tokenText.isEmpty()) {
-            return null;
-        }
+            if (shouldDropVocabToken(text, textLength, startOffset, endOffset)) {
+                return;
+            }
 
-        StringBuilder builder = new StringBuilder(tokenText.length());
-        boolean removed = false;
+            buffer.add(startOffset, endOffset, TokenBuffer.TYPE_VOCAB, TokenBuffer.GROUP_VOCAB, position++);
 
-        for (int i = 0; i < tokenText.length(); i++) {
-            char c = tokenText.charAt(i);
-            if (isRemovableSeparator(c)) {
-                removed = true;
-                continue;
+            if (!shouldConcatVocabToken(text, startOffset, endOffset)) {
+                return;
             }
-            builder.append(c);
-        }
 
-        if (!removed || builder.length() == 0) {
-            return null;
+            int termOffset = buffer.reserveTerm(endOffset - startOffset);
+            char[] chars = buffer.chars();
+            int termLength = 0;
+            for (int i = startOffset; i < endOffset; i++) {
+                char c = chars[i];
+                if (!isRemovableSeparator(c)) {
+                    chars[termOffset + termLength++] = c;
+                }
+            }
+            if (termLength > 0) {
+                buffer.addSynthesized(startOffset, endOffset, TokenBuffer.TYPE_VOCAB_CONCAT,
+                        TokenBuffer.GROUP_VOCAB, position++, termOffset, termLength);
+            }
         }
-
-        return builder.toString();
     }
 
-    private boolean shouldConcatVocabToken(String tokenText) {
-        if (tokenText == null || tokenText.isEmpty()) {
-            return false;
-        }
-
-        for (int i = 0; i < tokenText.length(); i++) {
-            if (isRemovableSeparator(tokenText.charAt(i))) {
+    private boolean shouldConcatVocabToken(char[] text, int startOffset, int endOffset) {
+        for (int i = startOffset; i < endOffset; i++) {
+            if (isRemovableSeparator(text[i])) {
                 return true;
             }
         }
@@ -158,26 +146,26 @@ public class VocabStrategy implements TokenStrategy {
     }
 
     // drop vocab token if both bounds are same type of alpha-num
-    private boolean shouldDropVocabToken(String tokenText, String text, int startOffset, int endOffset) {
+    private boolean shouldDropVocabToken(char[] text, int textLength, int startOffset, int endOffset) {
         // only check alpha-num-sep tokens
-        if (!isConsistOfAlphaNumSep(tokenText)) {
+        if (!isConsistOfAlphaNumSep(text, startOffset, endOffset)) {
             return false;
         }
 
         boolean isStartSame = false;
         boolean isStartBothNum = false;
         if (startOffset > 0) {
-            char charBefore = text.charAt(startOffset - 1);
-            char charStart = text.charAt(startOffset);
+            char charBefore = text[startOffset - 1];
+            char charStart = text[startOffset];
             isStartBothNum = bothNum(charBefore, charStart);
             isStartSame = isSameTypeOfAlphaNum(charBefore, charStart);
         }
 
         boolean isEndSame = false;
         boolean isEndBothNum = false;
-        if (endOffset < text.length()) {
-            char charEnd = text.charAt(endOffset - 1);
-            char charAfter = text.charAt(endOffset);
+        if (endOffset < textLength) {
+            char charEnd = text[endOffset - 1];
+            char charAfter = text[endOffset];
             isEndBothNum = bothNum(charEnd, charAfter);
             isEndSame = isSameTypeOfAlphaNum(charEnd, charAfter);
         }
@@ -190,19 +178,19 @@ public class VocabStrategy implements TokenStrategy {
 
         // drop if either bound of short tokens is same type of alpha-num,
         // otherwise there would be too many false positives (unmeaningful segments)
-        if (tokenText.length() < 3) {
+        if (endOffset - startOffset < 3) {
             return isStartSame || isEndSame;
         }
 
         return isStartSame && isEndSame;
     }
 
-    private boolean isConsistOfAlphaNumSep(String str) {
-        if (str == null || str.isEmpty()) {
+    private boolean isConsistOfAlphaNumSep(char[] text, int startOffset, int endOffset) {
+        if (startOffset >= endOffset) {
             return false;
         }
-        for (int i = 0; i < str.length(); i++) {
-            char c = str.charAt(i);
+        for (int i = startOffset; i < endOffset; i++) {
+            char c = text[i];
             if (!isAlphaNum(c) && !isRemovableSeparator(c)) {
                 return false;
             }
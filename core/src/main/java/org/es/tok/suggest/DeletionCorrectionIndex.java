@@ -0,0 +1,133 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Symmetric-delete correction index over short terms.
+ * <p>
+ * Every term is indexed under each string obtained by deleting up to
+ * {@link #MAX_EDITS} of its code points. A term within edit distance
+ * {@code d} of a token shares at least one such deletion with the token, so
+ * correction candidates come from looking up the token's own deletions instead
+ * of walking the term dictionary. Deletions stop at a single code point, so
+ * two strings that differ in every position never match; such a pair is no
+ * useful correction anyway. The deletions are kept only as hashes packed
+ * with the term id into one sorted long array; a hash collision merely adds a
+ * candidate, and callers verify the real edit distance of every candidate.
+ */
+final class DeletionCorrectionIndex {
+    static final int MAX_EDITS = 2;
+    static final DeletionCorrectionIndex EMPTY = new DeletionCorrectionIndex(new String[0], new long[0]);
+
+    private final String[] terms;
+    private final long[] deletions;
+
+    private DeletionCorrectionIndex(String[] terms, long[] deletions) {
+        this.terms = terms;
+        this.deletions = deletions;
+    }
+
+    /** Indexes {@code terms}; candidates are later returned in this order. */
+    static DeletionCorrectionIndex build(List<String> terms) {
+        if (terms.isEmpty()) {
+            return EMPTY;
+        }
+        long[] packed = new long[terms.size() * 8];
+        int size = 0;
+        for (int id = 0; id < terms.size(); id++) {
+            for (String deletion : deletions(terms.get(id), MAX_EDITS)) {
+                if (size == packed.length) {
+                    packed = Arrays.copyOf(packed, size + (size >> 1));
+                }
+                packed[size++] = pack(deletion.hashCode(), id);
+            }
+        }
+        packed = Arrays.copyOf(packed, size);
+        Arrays.sort(packed);
+        return new DeletionCorrectionIndex(terms.toArray(String[]::new), packed);
+    }
+
+    int size() {
+        return terms.length;
+    }
+
+    long ramBytesUsed() {
+        long bytes = RamUsageEstimator.shallowSizeOf(terms) + RamUsageEstimator.sizeOf(deletions);
+        for (String term : terms) {
+            bytes += RamUsageEstimator.sizeOf(term);
+        }
+        return bytes;
+    }
+
+    /**
+     * Indexed terms that may be within {@code maxEdits} of {@code token}, in
+     * index order. The result is a superset; the edit distance is not checked.
+     */
+    List<String> candidates(String token, int maxEdits) {
+        if (terms.length == 0 || token == null || token.isEmpty()) {
+            return List.of();
+        }
+        BitSet matched = new BitSet(terms.length);
+        for (String deletion : deletions(token, Math.min(MAX_EDITS, maxEdits))) {
+            int hash = deletion.hashCode();
+            int index = lowerBound(pack(hash, 0));
+            while (index < deletions.length && (int) (deletions[index] >>> 32) == hash) {
+                matched.set((int) deletions[index]);
+                index++;
+            }
+        }
+        List<String> candidates = new ArrayList<>(matched.cardinality());
+        for (int id = matched.nextSetBit(0); id >= 0; id = matched.nextSetBit(id + 1)) {
+            candidates.add(terms[id]);
+        }
+        return candidates;
+    }
+
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = deletions.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (deletions[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Hash in the high four bytes, so a hash's entries are contiguous once sorted; term id in the low four. */
+    private static long pack(int hash, int id) {
+        return ((long) hash << 32) | id;
+    }
+
+    /** {@code text} and every distinct string left after deleting up to {@code maxEdits} code points. */
+    static Set<String> deletions(String text, int maxEdits) {
+        Set<String> deletions = new HashSet<>();
+        deletions.add(text);
+        collectDeletions(text.codePoints().toArray(), maxEdits, deletions);
+        return deletions;
+    }
+
+    private static void collectDeletions(int[] codePoints, int remaining, Set<String> deletions) {
+        if (remaining == 0 || codePoints.length <= 1) {
+            return;
+        }
+        for (int index = 0; index < codePoints.length; index++) {
+            int[] deleted = new int[codePoints.length - 1];
+            System.arraycopy(codePoints, 0, deleted, 0, index);
+            System.arraycopy(codePoints, index + 1, deleted, index, deleted.length - index);
+            if (deletions.add(new String(deleted, 0, deleted.length))) {
+                collectDeletions(deleted, remaining - 1, deletions);
+            }
+        }
+    }
+}
@@ -4,6 +4,8 @@ import org.es.tok.text.TextNormalization;
 import org.es.tok.text.TopicQualityHeuristics;
 
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.MultiTerms;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.Terms;
@@ -12,6 +14,10 @@ import org.apache.lucene.search.spell.DirectSpellChecker;
 import org.apache.lucene.search.spell.SuggestMode;
 import org.apache.lucene.search.spell.SuggestWord;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -24,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.PriorityQueue;
+import java.util.function.Predicate;
 
 /**
  * Index-level spell-correction and completion helper backed by Lucene terms.
@@ -34,6 +41,19 @@ import java.util.PriorityQueue;
  */
 public class LuceneIndexSuggester {
 
+    /** Node-wide budget of the per-segment suggestion terms and completion FSTs, absolute or as a share of the heap. */
+    public static final Setting<ByteSizeValue> SEGMENT_CACHE_SIZE_SETTING = Setting.memorySizeSetting(
+            "es_tok.suggest.segment_cache.size",
+            "2%",
+            Setting.Property.NodeScope);
+
+    /** Node-wide budget of the reader-level pinyin, literal prefix and correction indexes, absolute or as a share of the heap. */
+    public static final Setting<ByteSizeValue> READER_CACHE_SIZE_SETTING = Setting.memorySizeSetting(
+            "es_tok.suggest.reader_cache.size",
+            "1%",
+            Setting.Property.NodeScope);
+
+    private static final long LITERAL_TERM_BYTES = 64;
     private static final List<String> COMPLETION_WARMUP_ANCHORS = buildCompletionWarmupAnchors();
     private static final int EXACT_FULL_PINYIN_PREFIX_LENGTH = 8;
     private static final int EXACT_INITIALS_PINYIN_PREFIX_LENGTH = 8;
@@ -43,13 +63,28 @@ public class LuceneIndexSuggester {
     private static final int COARSE_PINYIN_BUCKET_LIMIT = 512;
     private static final int LITERAL_PREFIX_BUCKET_LIMIT = 512;
     private static final int MAX_LITERAL_TERMS = 50_000;
-    private static final int MAX_PRECOMPUTED_PINYIN_TERMS = 50_000;
-    private static final int MAX_DIRECT_PINYIN_TERMS = 50_000;
+    private static final int MAX_CORRECTION_TERMS = 50_000;
 
     private final IndexReader reader;
+    private final TermStats termStats;
+
+    /**
+     * Applies the node's {@link #SEGMENT_CACHE_SIZE_SETTING} to the per-segment
+     * caches and {@link #READER_CACHE_SIZE_SETTING} to the reader-level indexes.
+     */
+    public static void configureCaches(Settings settings) {
+        SegmentTermsCache.setMaxBytes(SEGMENT_CACHE_SIZE_SETTING.get(settings).getBytes());
+        ReaderIndexCache.setMaxBytes(READER_CACHE_SIZE_SETTING.get(settings).getBytes());
+    }
 
     public LuceneIndexSuggester(IndexReader reader) {
-        this.reader = Objects.requireNonNull(reader, "reader");
+        this(new TermStats(reader));
+    }
+
+    /** Suggester whose doc frequency lookups go through the request's shared {@code termStats}. */
+    public LuceneIndexSuggester(TermStats termStats) {
+        this.termStats = Objects.requireNonNull(termStats, "termStats");
+        this.reader = termStats.reader();
     }
 
     public void prewarmPinyinIndices(Collection<String> fields) throws IOException {
@@ -310,36 +345,38 @@ public class LuceneIndexSuggester {
             return;
         }
 
-        Terms terms = MultiTerms.getTerms(reader, field);
-        if (terms == null) {
+        // Every segment contributes its own most frequent completions; doc
+        // frequencies of the union are then summed across all segments
+        List<SegmentCompletionIndex> segments = completionIndexes(field);
+        if (segments.isEmpty()) {
             return;
         }
 
-        TermsEnum termsEnum = terms.iterator();
-        if (termsEnum.seekCeil(new BytesRef(prefix)) == TermsEnum.SeekStatus.END) {
-            return;
+        BytesRef prefixBytes = new BytesRef(prefix);
+        int minCandidateLength = config.minCandidateLength();
+        Predicate<BytesRef> accept = term ->
+                normalizeSuggestionSurface(term.utf8ToString()).length() >= minCandidateLength;
+        LinkedHashSet<BytesRef> completions = new LinkedHashSet<>();
+        for (SegmentCompletionIndex segment : segments) {
+            for (SegmentCompletionIndex.Completion completion : segment.topCompletions(prefixBytes, config.scanLimit(), accept)) {
+                completions.add(completion.term());
+            }
         }
 
-        int visited = 0;
-        BytesRef current = termsEnum.term();
         String normalizedPrefix = normalizeSuggestionSurface(prefix);
-        while (current != null && visited < config.scanLimit()) {
-            String text = current.utf8ToString();
-            if (!text.startsWith(prefix)) {
-                break;
-            }
-            visited++;
-            String normalizedText = normalizeSuggestionSurface(text);
-            if (normalizedText.length() >= config.minCandidateLength()) {
-                addCompletionCandidate(
-                        candidates,
-                        normalizedText,
-                        termsEnum.docFreq(),
-                        termsEnum.docFreq(),
-                        CompletionType.PREFIX,
-                        prefixScore(normalizedText, termsEnum.docFreq(), normalizedPrefix));
+        for (BytesRef completion : completions) {
+            int docFreq = 0;
+            for (SegmentCompletionIndex segment : segments) {
+                docFreq += segment.docFreq(completion);
             }
-            current = termsEnum.next();
+            String normalizedText = normalizeSuggestionSurface(completion.utf8ToString());
+            addCompletionCandidate(
+                    candidates,
+                    normalizedText,
+                    docFreq,
+                    docFreq,
+                    CompletionType.PREFIX,
+                    prefixScore(normalizedText, docFreq, normalizedPrefix));
         }
     }
 
@@ -358,6 +395,8 @@ public class LuceneIndexSuggester {
             return;
         }
 
+        List<String> tails = new ArrayList<>();
+        List<Integer> bigramDocFreqs = new ArrayList<>();
         int visited = 0;
         BytesRef current = termsEnum.term();
         while (current != null && visited < config.scanLimit()) {
@@ -368,17 +407,13 @@ public class LuceneIndexSuggester {
             visited++;
             String tail = normalizeSuggestionSurface(text.substring(prefix.length()));
             if (isAcceptableNextTokenTail(tail, config.minCandidateLength())) {
-                int tailDocFreq = docFreq(field, tail);
-                addCompletionCandidate(
-                        candidates,
-                        tail,
-                        termsEnum.docFreq(),
-                        tailDocFreq,
-                        CompletionType.NEXT_TOKEN,
-                        nextTokenScore(tail, termsEnum.docFreq(), tailDocFreq));
+                tails.add(tail);
+                bigramDocFreqs.add(termsEnum.docFreq());
             }
             current = termsEnum.next();
         }
+
+        addNextTokenCandidates(field, tails, bigramDocFreqs, false, candidates);
     }
 
     private void collectCompactBigramMatches(
@@ -396,6 +431,8 @@ public class LuceneIndexSuggester {
             return;
         }
 
+        List<String> tails = new ArrayList<>();
+        List<Integer> bigramDocFreqs = new ArrayList<>();
         int visited = 0;
         BytesRef current = termsEnum.term();
         while (current != null && visited < config.scanLimit()) {
@@ -409,18 +446,44 @@ public class LuceneIndexSuggester {
                 continue;
             }
 
+            // Compact bigrams only count when the tail is indexed as a token of its own
             String tail = normalizeSuggestionSurface(text.substring(token.length()));
+            if (isAcceptableNextTokenTail(tail, config.minCandidateLength())) {
+                tails.add(tail);
+                bigramDocFreqs.add(termsEnum.docFreq());
+            }
+            current = termsEnum.next();
+        }
+
+        addNextTokenCandidates(field, tails, bigramDocFreqs, true, candidates);
+    }
+
+    /**
+     * Adds the tails found by a bigram scan, looking up their doc frequencies in
+     * one sorted batch once the scan is done instead of one seek per term. With
+     * {@code requireIndexedTail}, tails that are not indexed on their own are
+     * skipped.
+     */
+    private void addNextTokenCandidates(
+            String field,
+            List<String> tails,
+            List<Integer> bigramDocFreqs,
+            boolean requireIndexedTail,
+            Map<String, CompletionAccumulator> candidates) throws IOException {
+        termStats.prefetch(field, tails);
+        for (int index = 0; index < tails.size(); index++) {
+            String tail = tails.get(index);
             int tailDocFreq = docFreq(field, tail);
-            if (tailDocFreq > 0 && isAcceptableNextTokenTail(tail, config.minCandidateLength())) {
+            if (tailDocFreq > 0 || requireIndexedTail == false) {
+                int bigramDocFreq = bigramDocFreqs.get(index);
                 addCompletionCandidate(
                         candidates,
                         tail,
-                        termsEnum.docFreq(),
+                        bigramDocFreq,
                         tailDocFreq,
                         CompletionType.NEXT_TOKEN,
-                        nextTokenScore(tail, termsEnum.docFreq(), tailDocFreq));
+                        nextTokenScore(tail, bigramDocFreq, tailDocFreq));
             }
-            current = termsEnum.next();
         }
     }
 
@@ -568,58 +631,34 @@ public class LuceneIndexSuggester {
             return;
         }
 
-        Terms terms = MultiTerms.getTerms(reader, field);
-        if (terms == null) {
-            return;
-        }
-
+        int maxEdits = Math.min(DeletionCorrectionIndex.MAX_EDITS, config.maxEdits());
         int tokenCodePointLength = token.codePointCount(0, token.length());
-        for (String prefix : shortCjkPrefixes(token)) {
-            TermsEnum termsEnum = terms.iterator();
-            if (termsEnum.seekCeil(new BytesRef(prefix)) == TermsEnum.SeekStatus.END) {
+        for (String candidate : correctionIndex(field).candidates(token, maxEdits)) {
+            if (!isAcceptableCorrectionCandidate(token, candidate) || token.equals(candidate)) {
                 continue;
             }
 
-            int visited = 0;
-            BytesRef current = termsEnum.term();
-            while (current != null && visited < 128) {
-                String candidate = normalizeSuggestionSurface(current.utf8ToString());
-                if (!candidate.startsWith(prefix)) {
-                    break;
-                }
-
-                visited++;
-                current = termsEnum.next();
-
-                if (!isAcceptableCorrectionCandidate(token, candidate) || token.equals(candidate)) {
-                    continue;
-                }
-
-                int candidateCodePointLength = candidate.codePointCount(0, candidate.length());
-                if (candidateCodePointLength < 2 || candidateCodePointLength > 4) {
-                    continue;
-                }
-                if (Math.abs(candidateCodePointLength - tokenCodePointLength) > 1) {
-                    continue;
-                }
-
-                int distance = boundedCodePointEditDistance(token, candidate, Math.min(2, config.maxEdits()));
-                if (distance < 0) {
-                    continue;
-                }
+            int candidateCodePointLength = candidate.codePointCount(0, candidate.length());
+            if (Math.abs(candidateCodePointLength - tokenCodePointLength) > 1) {
+                continue;
+            }
 
-                int candidateDocFreq = docFreq(field, candidate);
-                if (candidateDocFreq < config.minCandidateDocFreq()) {
-                    continue;
-                }
-                if (PinyinSupport.containsChinese(token) && !PinyinSupport.matchesChineseAnchor(token, candidate)) {
-                    continue;
-                }
+            int distance = boundedCodePointEditDistance(token, candidate, maxEdits);
+            if (distance < 0) {
+                continue;
+            }
 
-                float score = shortCjkCorrectionScore(token, candidate, candidateDocFreq, distance);
-                candidates.computeIfAbsent(candidate, CorrectionCandidateAccumulator::new)
-                        .add(field, candidate, score, candidateDocFreq);
+            int candidateDocFreq = docFreq(field, candidate);
+            if (candidateDocFreq < config.minCandidateDocFreq()) {
+                continue;
             }
+            if (PinyinSupport.containsChinese(token) && !PinyinSupport.matchesChineseAnchor(token, candidate)) {
+                continue;
+            }
+
+            float score = shortCjkCorrectionScore(token, candidate, candidateDocFreq, distance);
+            candidates.computeIfAbsent(candidate, CorrectionCandidateAccumulator::new)
+                    .add(field, candidate, score, candidateDocFreq);
         }
     }
 
@@ -770,17 +809,36 @@ public class LuceneIndexSuggester {
     }
 
     private PinyinFieldIndex pinyinFieldIndex(String field) throws IOException {
-        Object cacheKey = pinyinCacheKey(reader);
-        return PinyinIndexCache.getOrBuild(cacheKey, field, () -> buildPinyinFieldIndex(field, hasPrecomputedPinyinTerms(field)));
+        return ReaderIndexCache.getOrBuild(
+                reader,
+                field,
+                ReaderIndexCache.Kind.PINYIN,
+                () -> buildPinyinFieldIndex(field, hasPrecomputedPinyinTerms(field)),
+                built -> built.index().ramBytesUsed());
     }
 
     private LiteralFieldIndex literalFieldIndex(String field) throws IOException {
-        Object cacheKey = pinyinCacheKey(reader);
-        return LiteralPrefixIndexCache.getOrBuild(cacheKey, field, () -> buildLiteralFieldIndex(field));
+        return ReaderIndexCache.getOrBuild(
+                reader,
+                field,
+                ReaderIndexCache.Kind.LITERAL,
+                () -> buildLiteralFieldIndex(field),
+                LiteralFieldIndex::ramBytesUsed);
+    }
+
+    private DeletionCorrectionIndex correctionIndex(String field) throws IOException {
+        return ReaderIndexCache.getOrBuild(
+                reader,
+                field,
+                ReaderIndexCache.Kind.CORRECTION,
+                () -> buildCorrectionIndex(field),
+                DeletionCorrectionIndex::ramBytesUsed);
     }
 
     private void prewarmCompletionField(String field) throws IOException {
         literalFieldIndex(field);
+        completionIndexes(field);
+        correctionIndex(field);
 
         Terms terms = MultiTerms.getTerms(reader, field);
         if (terms == null) {
@@ -886,22 +944,6 @@ public class LuceneIndexSuggester {
         return term != null && term.utf8ToString().startsWith(PinyinSupport.PRECOMPUTED_FULL_PREFIX);
     }
 
-    private static Object pinyinCacheKey(IndexReader reader) {
-        List<Object> segmentKeys = new ArrayList<>();
-        reader.leaves().forEach(leaf -> {
-            IndexReader.CacheHelper coreCacheHelper = leaf.reader().getCoreCacheHelper();
-            if (coreCacheHelper != null) {
-                segmentKeys.add(coreCacheHelper.getKey());
-            }
-        });
-        if (segmentKeys.isEmpty() == false) {
-            return List.copyOf(segmentKeys);
-        }
-
-        IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
-        return cacheHelper != null ? cacheHelper.getKey() : reader;
-    }
-
     private boolean collectLiteralPrefixMatches(
             String field,
             String prefix,
@@ -937,34 +979,27 @@ public class LuceneIndexSuggester {
     }
 
     private LiteralFieldIndex buildLiteralFieldIndex(String field) throws IOException {
-        Terms terms = MultiTerms.getTerms(reader, field);
-        if (terms == null) {
+        List<SegmentTermsCache.SegmentTerms> segments = segmentTerms(
+                field, SegmentTermsCache.Kind.LITERAL, leafReader -> loadLiteralSegmentTerms(leafReader, field));
+        if (segments.isEmpty()) {
             return LiteralFieldIndex.EMPTY;
         }
 
         PriorityQueue<LiteralIndexedTerm> retained = new PriorityQueue<>(Comparator
                 .comparingInt(LiteralIndexedTerm::docFreq)
                 .thenComparing(LiteralIndexedTerm::text));
-        TermsEnum termsEnum = terms.iterator();
-        BytesRef current;
-        while ((current = termsEnum.next()) != null) {
-            String normalized = normalizeSuggestionSurface(current.utf8ToString());
-            String literalKey = literalPrefixKey(normalized);
-            if (literalKey.isBlank()) {
-                continue;
-            }
-
-            LiteralIndexedTerm indexedTerm = new LiteralIndexedTerm(normalized, termsEnum.docFreq(), literalKey);
+        SegmentTermsCache.forEachMerged(segments, (term, normalized, docFreq) -> {
+            LiteralIndexedTerm indexedTerm = new LiteralIndexedTerm(normalized, docFreq, literalPrefixKey(normalized));
             if (retained.size() < MAX_LITERAL_TERMS) {
                 retained.add(indexedTerm);
-                continue;
+                return;
             }
             LiteralIndexedTerm smallest = retained.peek();
             if (smallest != null && compareLiteralTerms(indexedTerm, smallest) > 0) {
                 retained.poll();
                 retained.add(indexedTerm);
             }
-        }
+        });
 
         List<LiteralIndexedTerm> termsList = retained.stream()
                 .sorted(Comparator.comparingInt(LiteralIndexedTerm::docFreq).reversed().thenComparing(LiteralIndexedTerm::text))
@@ -972,6 +1007,69 @@ public class LuceneIndexSuggester {
         return new LiteralFieldIndex(termsList, buildLiteralPrefixBuckets(termsList));
     }
 
+    /**
+     * Deletion index over the most frequent short CJK surfaces of the field,
+     * the candidates short CJK typos are corrected to.
+     */
+    private DeletionCorrectionIndex buildCorrectionIndex(String field) throws IOException {
+        List<SegmentTermsCache.SegmentTerms> segments = segmentTerms(
+                field, SegmentTermsCache.Kind.SHORT_CJK, leafReader -> loadShortCjkSegmentTerms(leafReader, field));
+        if (segments.isEmpty()) {
+            return DeletionCorrectionIndex.EMPTY;
+        }
+
+        Map<String, Integer> surfaceDocFreqs = new HashMap<>();
+        SegmentTermsCache.forEachMerged(segments, (term, normalized, docFreq) ->
+                surfaceDocFreqs.merge(normalized, docFreq, Math::max));
+        List<String> surfaces = surfaceDocFreqs.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(MAX_CORRECTION_TERMS)
+                .map(Map.Entry::getKey)
+                .toList();
+        return DeletionCorrectionIndex.build(surfaces);
+    }
+
+    private static SegmentTermsCache.SegmentTerms loadShortCjkSegmentTerms(LeafReader leafReader, String field)
+            throws IOException {
+        Terms terms = leafReader.terms(field);
+        if (terms == null) {
+            return SegmentTermsCache.SegmentTerms.EMPTY;
+        }
+
+        SegmentTermsCache.SegmentTerms.Builder builder = SegmentTermsCache.SegmentTerms.builder();
+        TermsEnum termsEnum = terms.iterator();
+        BytesRef current;
+        while ((current = termsEnum.next()) != null) {
+            String text = current.utf8ToString();
+            String normalized = normalizeSuggestionSurface(text);
+            if (isShortCjkCorrectionCandidate(normalized)) {
+                builder.add(text, normalized, termsEnum.docFreq());
+            }
+        }
+        return builder.build();
+    }
+
+    private static SegmentTermsCache.SegmentTerms loadLiteralSegmentTerms(LeafReader leafReader, String field)
+            throws IOException {
+        Terms terms = leafReader.terms(field);
+        if (terms == null) {
+            return SegmentTermsCache.SegmentTerms.EMPTY;
+        }
+
+        SegmentTermsCache.SegmentTerms.Builder builder = SegmentTermsCache.SegmentTerms.builder();
+        TermsEnum termsEnum = terms.iterator();
+        BytesRef current;
+        while ((current = termsEnum.next()) != null) {
+            String text = current.utf8ToString();
+            String normalized = normalizeSuggestionSurface(text);
+            if (literalPrefixKey(normalized).isBlank()) {
+                continue;
+            }
+            builder.add(text, normalized, termsEnum.docFreq());
+        }
+        return builder.build();
+    }
+
     private static String literalPrefixKey(String text) {
         if (!PinyinSupport.isAsciiAlphaNumericQuery(text)) {
             return "";
@@ -1008,21 +1106,42 @@ public class LuceneIndexSuggester {
     }
 
     private PinyinFieldIndex buildPrecomputedPinyinFieldIndex(String field) throws IOException {
-        Terms terms = MultiTerms.getTerms(reader, field);
-        if (terms == null) {
+        List<SegmentTermsCache.SegmentTerms> segments = segmentTerms(
+                field,
+                SegmentTermsCache.Kind.PRECOMPUTED_PINYIN,
+                leafReader -> loadPrecomputedPinyinSegmentTerms(leafReader, field));
+        if (segments.isEmpty()) {
             return PinyinFieldIndex.EMPTY;
         }
 
+        // Several encoded terms decode to one surface; the surface keeps the best
+        // of their reader-wide doc frequencies.
+        PinyinPrefixIndex.Builder builder = PinyinPrefixIndex.builder();
+        Map<String, Integer> slots = new HashMap<>();
+        SegmentTermsCache.forEachMergedEntry(segments, (segment, index, docFreq) -> {
+            Integer slot = slots.putIfAbsent(segment.surface(index), builder.size());
+            if (slot == null) {
+                builder.add(segment, index, docFreq);
+            } else if (docFreq > builder.docFreq(slot)) {
+                builder.set(slot, segment, index, docFreq);
+            }
+        });
+        return new PinyinFieldIndex(builder.build());
+    }
+
+    private static SegmentTermsCache.SegmentTerms loadPrecomputedPinyinSegmentTerms(LeafReader leafReader, String field)
+            throws IOException {
+        Terms terms = leafReader.terms(field);
+        if (terms == null) {
+            return SegmentTermsCache.SegmentTerms.EMPTY;
+        }
+
         TermsEnum termsEnum = terms.iterator();
         if (termsEnum.seekCeil(new BytesRef(PinyinSupport.PRECOMPUTED_FULL_PREFIX)) == TermsEnum.SeekStatus.END) {
-            return PinyinFieldIndex.EMPTY;
+            return SegmentTermsCache.SegmentTerms.EMPTY;
         }
 
-        PriorityQueue<PinyinIndexedTerm> retained = new PriorityQueue<>(Comparator
-                .comparingInt(PinyinIndexedTerm::docFreq)
-                .thenComparing(PinyinIndexedTerm::text));
-        Map<String, Integer> surfaceDocFreqs = new HashMap<>();
-
+        SegmentTermsCache.SegmentTerms.Builder builder = SegmentTermsCache.SegmentTerms.builder();
         BytesRef current = termsEnum.term();
         while (current != null) {
             String encoded = current.utf8ToString();
@@ -1031,140 +1150,88 @@ public class LuceneIndexSuggester {
             }
 
             String surface = normalizeSuggestionSurface(PinyinSupport.decodePrecomputedSuggestionSurface(encoded));
-            if (!PinyinSupport.shouldIndexTerm(surface) || containsWhitespace(surface)) {
-                current = termsEnum.next();
-                continue;
+            if (isPinyinIndexableSurface(surface)) {
+                PinyinSupport.PinyinKey key = PinyinSupport.uncachedPinyinKey(surface);
+                if (!key.isEmpty()) {
+                    builder.add(encoded, surface, termsEnum.docFreq(), key);
+                }
             }
-
-            surfaceDocFreqs.merge(surface, termsEnum.docFreq(), Math::max);
             current = termsEnum.next();
         }
+        return builder.build();
+    }
 
-        for (Map.Entry<String, Integer> entry : surfaceDocFreqs.entrySet()) {
-            PinyinIndexedTerm indexedTerm = new PinyinIndexedTerm(entry.getKey(), entry.getValue(), PinyinSupport.pinyinKey(entry.getKey()));
-            if (indexedTerm.pinyinKey().isEmpty()) {
-                continue;
-            }
-            if (retained.size() < MAX_PRECOMPUTED_PINYIN_TERMS) {
-                retained.add(indexedTerm);
-                continue;
-            }
-            PinyinIndexedTerm smallest = retained.peek();
-            if (smallest != null && compareIndexedTerms(indexedTerm, smallest) > 0) {
-                retained.poll();
-                retained.add(indexedTerm);
-            }
+    private PinyinFieldIndex buildDirectPinyinFieldIndex(String field) throws IOException {
+        List<SegmentTermsCache.SegmentTerms> segments = segmentTerms(
+                field,
+                SegmentTermsCache.Kind.DIRECT_PINYIN,
+                leafReader -> loadDirectPinyinSegmentTerms(leafReader, field));
+        if (segments.isEmpty()) {
+            return PinyinFieldIndex.EMPTY;
         }
 
-        List<PinyinIndexedTerm> termsList = retained.stream()
-                .sorted(Comparator.comparingInt(PinyinIndexedTerm::docFreq).reversed().thenComparing(PinyinIndexedTerm::text))
-                .toList();
-        return new PinyinFieldIndex(
-            buildExactPinyinPrefixBuckets(termsList, false),
-            buildExactPinyinPrefixBuckets(termsList, true),
-                buildPinyinPrefixBuckets(termsList, true),
-                buildPinyinPrefixBuckets(termsList, false));
+        // Raw terms that normalize to the same surface stay separate entries
+        PinyinPrefixIndex.Builder builder = PinyinPrefixIndex.builder();
+        SegmentTermsCache.forEachMergedEntry(segments, builder::add);
+        return new PinyinFieldIndex(builder.build());
     }
 
-    private PinyinFieldIndex buildDirectPinyinFieldIndex(String field) throws IOException {
-        Terms terms = MultiTerms.getTerms(reader, field);
+    private static SegmentTermsCache.SegmentTerms loadDirectPinyinSegmentTerms(LeafReader leafReader, String field)
+            throws IOException {
+        Terms terms = leafReader.terms(field);
         if (terms == null) {
-            return PinyinFieldIndex.EMPTY;
+            return SegmentTermsCache.SegmentTerms.EMPTY;
         }
 
-        PriorityQueue<PinyinIndexedTerm> retained = new PriorityQueue<>(Comparator
-                .comparingInt(PinyinIndexedTerm::docFreq)
-                .thenComparing(PinyinIndexedTerm::text));
+        SegmentTermsCache.SegmentTerms.Builder builder = SegmentTermsCache.SegmentTerms.builder();
         TermsEnum termsEnum = terms.iterator();
         BytesRef current;
         while ((current = termsEnum.next()) != null) {
-            String normalized = normalizeSuggestionSurface(current.utf8ToString());
-            if (!PinyinSupport.shouldIndexTerm(normalized) || containsWhitespace(normalized)) {
-                continue;
-            }
-            PinyinIndexedTerm indexedTerm = new PinyinIndexedTerm(normalized, termsEnum.docFreq(), PinyinSupport.pinyinKey(normalized));
-            if (indexedTerm.pinyinKey().isEmpty()) {
-                continue;
-            }
-            if (retained.size() < MAX_DIRECT_PINYIN_TERMS) {
-                retained.add(indexedTerm);
-                continue;
-            }
-            PinyinIndexedTerm smallest = retained.peek();
-            if (smallest != null && compareIndexedTerms(indexedTerm, smallest) > 0) {
-                retained.poll();
-                retained.add(indexedTerm);
+            String text = current.utf8ToString();
+            String normalized = normalizeSuggestionSurface(text);
+            if (isPinyinIndexableSurface(normalized)) {
+                PinyinSupport.PinyinKey key = PinyinSupport.uncachedPinyinKey(normalized);
+                if (!key.isEmpty()) {
+                    builder.add(text, normalized, termsEnum.docFreq(), key);
+                }
             }
         }
-
-        List<PinyinIndexedTerm> termsList = retained.stream()
-                .sorted(Comparator.comparingInt(PinyinIndexedTerm::docFreq).reversed().thenComparing(PinyinIndexedTerm::text))
-                .toList();
-        return new PinyinFieldIndex(
-            buildExactPinyinPrefixBuckets(termsList, false),
-            buildExactPinyinPrefixBuckets(termsList, true),
-                buildPinyinPrefixBuckets(termsList, true),
-                buildPinyinPrefixBuckets(termsList, false));
+        return builder.build();
     }
 
-    private static Map<String, List<PinyinIndexedTerm>> buildPinyinPrefixBuckets(
-            List<PinyinIndexedTerm> terms,
-            boolean fullPinyin) {
-        Map<String, List<PinyinIndexedTerm>> buckets = new HashMap<>();
-        for (PinyinIndexedTerm term : terms) {
-            addPinyinPrefixes(buckets, PinyinSupport.bucketKeys(term.pinyinKey(), fullPinyin), term, COARSE_PINYIN_BUCKET_LIMIT);
-        }
-        return buckets;
+    private static boolean isPinyinIndexableSurface(String surface) {
+        return PinyinSupport.shouldIndexTerm(surface) && !containsWhitespace(surface);
     }
 
-    private static Map<String, List<PinyinIndexedTerm>> buildExactPinyinPrefixBuckets(
-            List<PinyinIndexedTerm> terms,
-            boolean initialsOnly) {
-        Map<String, List<PinyinIndexedTerm>> buckets = new HashMap<>();
-        int maxPrefixLength = initialsOnly ? EXACT_INITIALS_PINYIN_PREFIX_LENGTH : EXACT_FULL_PINYIN_PREFIX_LENGTH;
-        int minPrefixLength = initialsOnly ? EXACT_INITIALS_PINYIN_PREFIX_MIN_LENGTH : EXACT_FULL_PINYIN_PREFIX_MIN_LENGTH;
-        for (PinyinIndexedTerm term : terms) {
-            String key = initialsOnly ? term.pinyinKey().initials() : term.pinyinKey().full();
-            if (key == null || key.isBlank()) {
-                continue;
-            }
-            int effectiveMaxLength = Math.min(maxPrefixLength, key.length());
-            if (effectiveMaxLength < minPrefixLength) {
-                continue;
-            }
-            for (int length = minPrefixLength; length <= effectiveMaxLength; length++) {
-                addPinyinPrefix(buckets, key.substring(0, length), term, exactPinyinBucketLimit(length, initialsOnly));
+    /** Cached terms of every segment that has the field, in leaf order. */
+    private List<SegmentTermsCache.SegmentTerms> segmentTerms(
+            String field,
+            SegmentTermsCache.Kind kind,
+            SegmentTermsCache.Loader<SegmentTermsCache.SegmentTerms> loader) throws IOException {
+        List<SegmentTermsCache.SegmentTerms> segments = new ArrayList<>(reader.leaves().size());
+        for (LeafReaderContext leaf : reader.leaves()) {
+            SegmentTermsCache.SegmentTerms terms = SegmentTermsCache.getOrBuild(leaf, field, kind, loader);
+            if (terms.size() > 0) {
+                segments.add(terms);
             }
         }
-        return buckets;
-    }
-
-    private static void addPinyinPrefixes(
-            Map<String, List<PinyinIndexedTerm>> buckets,
-            List<String> keys,
-            PinyinIndexedTerm term,
-            int bucketLimit) {
-        if (keys == null || keys.isEmpty()) {
-            return;
-        }
-
-        for (String prefix : keys) {
-            addPinyinPrefix(buckets, prefix, term, bucketLimit);
-        }
+        return segments;
     }
 
-    private static void addPinyinPrefix(
-            Map<String, List<PinyinIndexedTerm>> buckets,
-            String prefix,
-            PinyinIndexedTerm term,
-            int bucketLimit) {
-        if (prefix == null || prefix.isBlank()) {
-            return;
-        }
-        List<PinyinIndexedTerm> bucket = buckets.computeIfAbsent(prefix, ignored -> new ArrayList<>());
-        if (bucket.size() < bucketLimit) {
-            bucket.add(term);
+    /** Completion index of every segment that has the field, in leaf order. */
+    private List<SegmentCompletionIndex> completionIndexes(String field) throws IOException {
+        List<SegmentCompletionIndex> segments = new ArrayList<>(reader.leaves().size());
+        for (LeafReaderContext leaf : reader.leaves()) {
+            SegmentCompletionIndex index = SegmentTermsCache.getOrBuild(
+                    leaf,
+                    field,
+                    SegmentTermsCache.Kind.COMPLETION,
+                    leafReader -> SegmentCompletionIndex.build(leafReader.terms(field)));
+            if (index.size() > 0) {
+                segments.add(index);
+            }
         }
+        return segments;
     }
 
     private static int exactPinyinBucketLimit(int prefixLength, boolean initialsOnly) {
@@ -1186,14 +1253,6 @@ public class LuceneIndexSuggester {
         return 96;
     }
 
-    private static int compareIndexedTerms(PinyinIndexedTerm left, PinyinIndexedTerm right) {
-        int docFreqCompare = Integer.compare(left.docFreq(), right.docFreq());
-        if (docFreqCompare != 0) {
-            return docFreqCompare;
-        }
-        return right.text().compareTo(left.text());
-    }
-
     private boolean isSingleTokenTail(String tail) {
         return !tail.isBlank() && containsWhitespace(tail) == false;
     }
@@ -1302,6 +1361,29 @@ public class LuceneIndexSuggester {
         return true;
     }
 
+    /**
+     * Surfaces a short CJK token can be corrected to: two to four code points,
+     * not all ASCII and without digits, which {@link #isAcceptableCorrectionCandidate}
+     * would reject for such a token anyway.
+     */
+    private static boolean isShortCjkCorrectionCandidate(String surface) {
+        int codePointLength = surface.codePointCount(0, surface.length());
+        if (codePointLength < 2 || codePointLength > 4) {
+            return false;
+        }
+        boolean nonAscii = false;
+        for (int index = 0; index < surface.length(); index++) {
+            char c = surface.charAt(index);
+            if (Character.isDigit(c)) {
+                return false;
+            }
+            if (c >= 128 && Character.isWhitespace(c) == false) {
+                nonAscii = true;
+            }
+        }
+        return nonAscii;
+    }
+
     private static boolean isShortCjkCorrectionToken(String token) {
         if (token == null || token.isBlank()) {
             return false;
@@ -1327,27 +1409,6 @@ public class LuceneIndexSuggester {
         return nonAsciiCount >= Math.max(1, codePointLength - 1);
     }
 
-    private static String firstCodePointString(String text) {
-        if (text == null || text.isBlank()) {
-            return "";
-        }
-        int codePoint = text.codePointAt(0);
-        return new String(Character.toChars(codePoint));
-    }
-
-    private static List<String> shortCjkPrefixes(String token) {
-        List<String> prefixes = new ArrayList<>();
-        String first = firstCodePointString(token);
-        if (!first.isEmpty()) {
-            int[] codePoints = token.codePoints().toArray();
-            if (codePoints.length >= 3) {
-                prefixes.add(new String(codePoints, 0, 2));
-            }
-            prefixes.add(first);
-        }
-        return prefixes;
-    }
-
     private static int boundedCodePointEditDistance(String left, String right, int maxDistance) {
         int[] leftCodePoints = left.codePoints().toArray();
         int[] rightCodePoints = right.codePoints().toArray();
@@ -1444,7 +1505,7 @@ public class LuceneIndexSuggester {
         if (field == null || token == null || token.isBlank()) {
             return 0;
         }
-        return reader.docFreq(new Term(field, token));
+        return termStats.docFreq(field, token);
     }
 
     public record Correction(
@@ -1718,16 +1779,11 @@ public class LuceneIndexSuggester {
     private record LiteralIndexedTerm(String text, int docFreq, String literalKey) {
     }
 
-    private record PinyinFieldIndex(
-            Map<String, List<PinyinIndexedTerm>> exactFullPrefixBuckets,
-            Map<String, List<PinyinIndexedTerm>> exactInitialsPrefixBuckets,
-            Map<String, List<PinyinIndexedTerm>> fullPrefixBuckets,
-            Map<String, List<PinyinIndexedTerm>> initialsPrefixBuckets) {
-        private static final PinyinFieldIndex EMPTY = new PinyinFieldIndex(Map.of(), Map.of(), Map.of(), Map.of());
+    private record PinyinFieldIndex(PinyinPrefixIndex index) {
+        private static final PinyinFieldIndex EMPTY = new PinyinFieldIndex(PinyinPrefixIndex.EMPTY);
 
         private List<PinyinIndexedTerm> candidates(String input) {
-            if (exactFullPrefixBuckets.isEmpty() && exactInitialsPrefixBuckets.isEmpty()
-                    && fullPrefixBuckets.isEmpty() && initialsPrefixBuckets.isEmpty()) {
+            if (index.size() == 0) {
                 return List.of();
             }
 
@@ -1737,58 +1793,72 @@ public class LuceneIndexSuggester {
             }
 
             LinkedHashMap<String, PinyinIndexedTerm> merged = new LinkedHashMap<>();
-            addCandidates(merged, exactBucket(exactFullPrefixBuckets, inputKey.full()));
+            addCandidates(merged, exactFullPrefix(inputKey.full()));
             if (PinyinSupport.shouldUseInitialsBuckets(input)) {
-                addCandidates(merged, exactBucket(exactInitialsPrefixBuckets, inputKey.initials()));
+                addCandidates(merged, exactInitialsPrefix(inputKey.initials()));
             }
             if (merged.size() < EXACT_PREFIX_COARSE_FALLBACK_THRESHOLD) {
-                addCandidates(merged, bucket(fullPrefixBuckets, inputKey.full()));
+                addCandidates(merged, coarseFull(inputKey.full()));
                 if (PinyinSupport.shouldUseInitialsBuckets(input)) {
-                    addCandidates(merged, bucket(initialsPrefixBuckets, inputKey.initials()));
+                    addCandidates(merged, coarseInitials(inputKey.initials()));
                 }
             }
 
             String normalizedInput = PinyinSupport.normalizeInput(input);
             if (merged.isEmpty() && !normalizedInput.isEmpty()) {
-                addCandidates(merged, exactBucket(exactFullPrefixBuckets, normalizedInput));
+                addCandidates(merged, exactFullPrefix(normalizedInput));
                 if (PinyinSupport.shouldUseInitialsBuckets(input)) {
-                    addCandidates(merged, exactBucket(exactInitialsPrefixBuckets, normalizedInput));
+                    addCandidates(merged, exactInitialsPrefix(normalizedInput));
                 }
                 if (merged.size() < EXACT_PREFIX_COARSE_FALLBACK_THRESHOLD) {
-                    addCandidates(merged, bucket(fullPrefixBuckets, normalizedInput));
+                    addCandidates(merged, coarseFull(normalizedInput));
                     if (PinyinSupport.shouldUseInitialsBuckets(input)) {
-                        addCandidates(merged, bucket(initialsPrefixBuckets, normalizedInput));
+                        addCandidates(merged, coarseInitials(normalizedInput));
                     }
                 }
             }
             return List.copyOf(merged.values());
         }
 
-        private static void addCandidates(
-                LinkedHashMap<String, PinyinIndexedTerm> merged,
-                List<PinyinIndexedTerm> candidates) {
-            for (PinyinIndexedTerm candidate : candidates) {
-                merged.putIfAbsent(candidate.text(), candidate);
+        private void addCandidates(LinkedHashMap<String, PinyinIndexedTerm> merged, int[] ranks) {
+            for (int rank : ranks) {
+                String surface = index.surface(rank);
+                if (!merged.containsKey(surface)) {
+                    merged.put(surface, new PinyinIndexedTerm(surface, index.docFreq(rank), PinyinSupport.pinyinKey(surface)));
+                }
             }
         }
 
-        private static List<PinyinIndexedTerm> bucket(
-                Map<String, List<PinyinIndexedTerm>> buckets,
-                String queryKey) {
+        // Exact prefixes shorter than the minimum are too crowded to be worth a
+        // lookup; longer ones keep the limit of the longest bucketed prefix.
+        private int[] exactFullPrefix(String queryKey) {
+            if (queryKey == null || queryKey.length() < EXACT_FULL_PINYIN_PREFIX_MIN_LENGTH) {
+                return new int[0];
+            }
+            int limitLength = Math.min(EXACT_FULL_PINYIN_PREFIX_LENGTH, queryKey.length());
+            return index.fullPrefix(queryKey, exactPinyinBucketLimit(limitLength, false));
+        }
+
+        private int[] exactInitialsPrefix(String queryKey) {
+            if (queryKey == null || queryKey.length() < EXACT_INITIALS_PINYIN_PREFIX_MIN_LENGTH) {
+                return new int[0];
+            }
+            int limitLength = Math.min(EXACT_INITIALS_PINYIN_PREFIX_LENGTH, queryKey.length());
+            return index.initialsPrefix(queryKey, exactPinyinBucketLimit(limitLength, true));
+        }
+
+        private int[] coarseFull(String queryKey) {
             if (queryKey == null || queryKey.isBlank()) {
-                return List.of();
+                return new int[0];
             }
-            int anchorLength = Math.min(4, queryKey.length());
-            return buckets.getOrDefault(queryKey.substring(0, anchorLength), List.of());
+            return index.anchor(queryKey.substring(0, Math.min(4, queryKey.length())), COARSE_PINYIN_BUCKET_LIMIT);
         }
 
-        private static List<PinyinIndexedTerm> exactBucket(
-                Map<String, List<PinyinIndexedTerm>> buckets,
-                String queryKey) {
+        private int[] coarseInitials(String queryKey) {
             if (queryKey == null || queryKey.isBlank()) {
-                return List.of();
+                return new int[0];
             }
-            return buckets.getOrDefault(queryKey, List.of());
+            return index.initialsPrefix(queryKey.substring(0, Math.min(4, queryKey.length())), COARSE_PINYIN_BUCKET_LIMIT);
         }
     }
 
@@ -1804,82 +1874,23 @@ public class LuceneIndexSuggester {
             String bucketKey = inputKey.substring(0, Math.min(5, inputKey.length()));
             return prefixBuckets.getOrDefault(bucketKey, List.of());
         }
-    }
-
-    private static final class PinyinIndexCache {
-        private static final int MAX_READERS = 16;
-        private static final Map<Object, Map<String, PinyinFieldIndex>> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<Object, Map<String, PinyinFieldIndex>> eldest) {
-                return size() > MAX_READERS;
-            }
-        };
 
-        private static PinyinFieldIndex getOrBuild(Object readerKey, String field, PinyinFieldIndexLoader loader)
-                throws IOException {
-            synchronized (CACHE) {
-                Map<String, PinyinFieldIndex> byField = CACHE.computeIfAbsent(readerKey, ignored -> new HashMap<>());
-                PinyinFieldIndex cached = byField.get(field);
-                if (cached != null) {
-                    return cached;
+        private long ramBytesUsed() {
+            long bytes = RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) RamUsageEstimator.NUM_BYTES_OBJECT_REF * terms.size();
+            for (LiteralIndexedTerm term : terms) {
+                bytes += LITERAL_TERM_BYTES + RamUsageEstimator.sizeOf(term.text());
+                if (term.literalKey() != term.text()) {
+                    bytes += RamUsageEstimator.sizeOf(term.literalKey());
                 }
             }
-
-            PinyinFieldIndex built = loader.load();
-            synchronized (CACHE) {
-                Map<String, PinyinFieldIndex> byField = CACHE.computeIfAbsent(readerKey, ignored -> new HashMap<>());
-                PinyinFieldIndex cached = byField.get(field);
-                if (cached != null) {
-                    return cached;
-                }
-                byField.put(field, built);
-                return built;
+            for (Map.Entry<String, List<LiteralIndexedTerm>> bucket : prefixBuckets.entrySet()) {
+                bytes += LITERAL_TERM_BYTES + RamUsageEstimator.sizeOf(bucket.getKey())
+                        + (long) RamUsageEstimator.NUM_BYTES_OBJECT_REF * bucket.getValue().size();
             }
+            return bytes;
         }
     }
 
-    private static final class LiteralPrefixIndexCache {
-        private static final int MAX_READERS = 16;
-        private static final Map<Object, Map<String, LiteralFieldIndex>> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<Object, Map<String, LiteralFieldIndex>> eldest) {
-                return size() > MAX_READERS;
-            }
-        };
-
-        private static LiteralFieldIndex getOrBuild(Object readerKey, String field, LiteralFieldIndexLoader loader)
-                throws IOException {
-            synchronized (CACHE) {
-                Map<String, LiteralFieldIndex> byField = CACHE.computeIfAbsent(readerKey, ignored -> new HashMap<>());
-                LiteralFieldIndex cached = byField.get(field);
-                if (cached != null) {
-                    return cached;
-                }
-            }
-
-            LiteralFieldIndex built = loader.load();
-            synchronized (CACHE) {
-                Map<String, LiteralFieldIndex> byField = CACHE.computeIfAbsent(readerKey, ignored -> new HashMap<>());
-                LiteralFieldIndex cached = byField.get(field);
-                if (cached != null) {
-                    return cached;
-                }
-                byField.put(field, built);
-                return built;
-            }
-        }
-    }
-
-    @FunctionalInterface
-    private interface PinyinFieldIndexLoader {
-        PinyinFieldIndex load() throws IOException;
-    }
-
-    @FunctionalInterface
-    private interface LiteralFieldIndexLoader {
-        LiteralFieldIndex load() throws IOException;
-    }
-
     private static final class AutoSuggestionAccumulator {
         private static final Comparator<AutoSuggestionAccumulator> ORDER = Comparator
                 .comparingDouble(AutoSuggestionAccumulator::rankingScore).reversed()
@@ -0,0 +1,79 @@
+package org.es.tok.suggest;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Node-wide memo of {@link PinyinSupport.PinyinKey} per surface, shared by
+ * index-time pinyin terms, warmup index builds and query-time scoring.
+ * <p>
+ * The memo is a direct-mapped table: a surface has exactly one slot, and a
+ * miss overwrites whatever was there. Lookups take no lock; entries are
+ * immutable, so a racing reader sees either a complete entry or a stale one
+ * and falls back to computing the key. Long surfaces bypass the memo since
+ * they rarely repeat.
+ */
+final class PinyinKeyCache {
+    static final int DEFAULT_CAPACITY = 1 << 16;
+    static final int MAX_SURFACE_LENGTH = 32;
+
+    private final Entry[] slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    PinyinKeyCache(int capacity) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Pinyin key cache capacity must be a power of two [%s]".formatted(capacity));
+        }
+        this.slots = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+
+    PinyinSupport.PinyinKey get(String surface, Function<String, PinyinSupport.PinyinKey> loader) {
+        if (surface.length() > MAX_SURFACE_LENGTH) {
+            return loader.apply(surface);
+        }
+        int hash = surface.hashCode();
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        Entry entry = slots[slot];
+        if (entry != null && entry.hash == hash && entry.surface.equals(surface)) {
+            hits.increment();
+            return entry.key;
+        }
+        misses.increment();
+        PinyinSupport.PinyinKey key = loader.apply(surface);
+        slots[slot] = new Entry(hash, surface, key);
+        return key;
+    }
+
+    PinyinSupport.PinyinKeyCacheStats stats() {
+        int entries = 0;
+        for (Entry entry : slots) {
+            if (entry != null) {
+                entries++;
+            }
+        }
+        return new PinyinSupport.PinyinKeyCacheStats(hits.sum(), misses.sum(), entries, slots.length);
+    }
+
+    void clear() {
+        for (int slot = 0; slot < slots.length; slot++) {
+            slots[slot] = null;
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    private static final class Entry {
+        private final int hash;
+        private final String surface;
+        private final PinyinSupport.PinyinKey key;
+
+        private Entry(int hash, String surface, PinyinSupport.PinyinKey key) {
+            this.hash = hash;
+            this.surface = surface;
+            this.key = key;
+        }
+    }
+}
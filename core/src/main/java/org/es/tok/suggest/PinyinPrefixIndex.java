@@ -0,0 +1,431 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.util.IntroSorter;
+import org.apache.lucene.util.IntsRef;
+import org.apache.lucene.util.IntsRefBuilder;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.FSTCompiler;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.apache.lucene.util.fst.Util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Pinyin prefix index over every term of a field, backed by Lucene FSTs.
+ * <p>
+ * Terms are ranked by doc frequency (descending, then text) and referred to by
+ * rank. Two FSTs map pinyin keys to ranks, one for full pinyin
+ * ({@code yingshijufeng}) and one for initials ({@code ysjf}); each path is
+ * the key, a zero byte and the big-endian rank, so homophones stay distinct.
+ * The output of a path is its rank, so the lowest-output completions below a
+ * prefix are the most frequent terms with that prefix and come out of a
+ * best-first top-k traversal without visiting the rest of the subtree.
+ * <p>
+ * The coarse syllable-prefix anchors of {@link PinyinSupport#bucketKeys} (at
+ * most four chars, e.g. {@code yisj} or {@code yins}) are looked up by exact
+ * key, so they are kept as rank lists grouped by anchor in one int array.
+ * Surfaces live in one char block. Together this holds the whole dictionary of
+ * a field in less heap than per-prefix lists of term records took for a
+ * capped subset of it.
+ */
+final class PinyinPrefixIndex {
+    static final PinyinPrefixIndex EMPTY = new PinyinPrefixIndex(
+            new char[0], new int[] {0}, new int[0], null, null, new int[0], new int[] {0}, new int[0]);
+
+    private static final int RANK_BYTES = Integer.BYTES;
+    private static final int ANCHOR_BYTES = 4;
+    private static final byte KEY_END = 0;
+    private static final Comparator<Long> RANK_ORDER = Comparator.naturalOrder();
+
+    private final char[] surfaceChars;
+    private final int[] surfaceStarts;
+    private final int[] docFreqs;
+    private final FST<Long> fullFst;
+    private final FST<Long> initialsFst;
+    private final int[] anchorKeys;
+    private final int[] anchorStarts;
+    private final int[] anchorRanks;
+
+    private PinyinPrefixIndex(
+            char[] surfaceChars,
+            int[] surfaceStarts,
+            int[] docFreqs,
+            FST<Long> fullFst,
+            FST<Long> initialsFst,
+            int[] anchorKeys,
+            int[] anchorStarts,
+            int[] anchorRanks) {
+        this.surfaceChars = surfaceChars;
+        this.surfaceStarts = surfaceStarts;
+        this.docFreqs = docFreqs;
+        this.fullFst = fullFst;
+        this.initialsFst = initialsFst;
+        this.anchorKeys = anchorKeys;
+        this.anchorStarts = anchorStarts;
+        this.anchorRanks = anchorRanks;
+    }
+
+    /**
+     * Indexes {@code surfaces} with their doc frequencies; surfaces whose pinyin
+     * key is empty are skipped.
+     */
+    static PinyinPrefixIndex build(List<String> surfaces, int[] surfaceDocFreqs) {
+        SegmentTermsCache.SegmentTerms.Builder terms = SegmentTermsCache.SegmentTerms.builder();
+        for (int index = 0; index < surfaces.size(); index++) {
+            PinyinSupport.PinyinKey key = PinyinSupport.uncachedPinyinKey(surfaces.get(index));
+            if (!key.isEmpty()) {
+                terms.add(surfaces.get(index), surfaces.get(index), surfaceDocFreqs[index], key);
+            }
+        }
+        SegmentTermsCache.SegmentTerms segment = terms.build();
+        Builder builder = builder();
+        for (int index = 0; index < segment.size(); index++) {
+            builder.add(segment, index, segment.docFreq(index));
+        }
+        return builder.build();
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Collects the terms of a reader as references into the cached segment
+     * terms that hold their pinyin keys, so building the index only sorts and
+     * compiles.
+     */
+    static final class Builder {
+        private SegmentTermsCache.SegmentTerms[] segments = new SegmentTermsCache.SegmentTerms[64];
+        private int[] indexes = new int[64];
+        private int[] docFreqs = new int[64];
+        private int size;
+
+        private Builder() {
+        }
+
+        /** Adds the term at {@code index} of {@code segment}, which must carry pinyin keys. */
+        Builder add(SegmentTermsCache.SegmentTerms segment, int index, int docFreq) {
+            if (size == indexes.length) {
+                int capacity = size + (size >> 1);
+                segments = Arrays.copyOf(segments, capacity);
+                indexes = Arrays.copyOf(indexes, capacity);
+                docFreqs = Arrays.copyOf(docFreqs, capacity);
+            }
+            segments[size] = segment;
+            indexes[size] = index;
+            docFreqs[size] = docFreq;
+            size++;
+            return this;
+        }
+
+        /** Overwrites the term added at {@code slot}. */
+        void set(int slot, SegmentTermsCache.SegmentTerms segment, int index, int docFreq) {
+            segments[slot] = segment;
+            indexes[slot] = index;
+            docFreqs[slot] = docFreq;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int docFreq(int slot) {
+            return docFreqs[slot];
+        }
+
+        PinyinPrefixIndex build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            int[] order = rankOrder();
+            String[] fulls = new String[size];
+            String[] initials = new String[size];
+            int[] rankDocFreqs = new int[size];
+            int[] surfaceStarts = new int[size + 1];
+            StringBuilder surfaceChars = new StringBuilder();
+            long[] anchors = new long[Math.max(16, size * 4)];
+            int anchorCount = 0;
+            for (int rank = 0; rank < size; rank++) {
+                SegmentTermsCache.SegmentTerms segment = segments[order[rank]];
+                int index = indexes[order[rank]];
+                fulls[rank] = segment.fullPinyin(index);
+                initials[rank] = segment.initials(index);
+                rankDocFreqs[rank] = docFreqs[order[rank]];
+                surfaceChars.append(segment.surface(index));
+                surfaceStarts[rank + 1] = surfaceChars.length();
+                for (int offset = segment.anchorStart(index); offset < segment.anchorEnd(index); offset++) {
+                    if (anchorCount == anchors.length) {
+                        anchors = Arrays.copyOf(anchors, anchorCount + (anchorCount >> 1));
+                    }
+                    anchors[anchorCount++] = ((long) segment.anchor(offset) << 32) | rank;
+                }
+            }
+
+            // Sorting the packed anchors groups each anchor's ranks, most frequent first
+            Arrays.sort(anchors, 0, anchorCount);
+            int[] anchorRanks = new int[anchorCount];
+            int[] anchorKeys = new int[16];
+            int[] anchorStarts = new int[17];
+            int distinctAnchors = 0;
+            for (int index = 0; index < anchorCount; index++) {
+                int anchorKey = (int) (anchors[index] >>> 32);
+                if (distinctAnchors == 0 || anchorKeys[distinctAnchors - 1] != anchorKey) {
+                    if (distinctAnchors == anchorKeys.length) {
+                        anchorKeys = Arrays.copyOf(anchorKeys, distinctAnchors * 2);
+                        anchorStarts = Arrays.copyOf(anchorStarts, distinctAnchors * 2 + 1);
+                    }
+                    anchorKeys[distinctAnchors] = anchorKey;
+                    anchorStarts[distinctAnchors] = index;
+                    distinctAnchors++;
+                }
+                anchorRanks[index] = (int) anchors[index];
+            }
+            anchorStarts[distinctAnchors] = anchorCount;
+
+            char[] chars = new char[surfaceChars.length()];
+            surfaceChars.getChars(0, chars.length, chars, 0);
+            return new PinyinPrefixIndex(
+                    chars,
+                    surfaceStarts,
+                    rankDocFreqs,
+                    buildKeyFst(fulls, size),
+                    buildKeyFst(initials, size),
+                    Arrays.copyOf(anchorKeys, distinctAnchors),
+                    Arrays.copyOf(anchorStarts, distinctAnchors + 1),
+                    anchorRanks);
+        }
+
+        /** Slots by doc frequency (descending, then surface): the slot of each rank. */
+        private int[] rankOrder() {
+            int[] order = new int[size];
+            for (int slot = 0; slot < size; slot++) {
+                order[slot] = slot;
+            }
+            new IntroSorter() {
+                private int pivotSlot;
+
+                @Override
+                protected void swap(int i, int j) {
+                    int swapped = order[i];
+                    order[i] = order[j];
+                    order[j] = swapped;
+                }
+
+                @Override
+                protected void setPivot(int i) {
+                    pivotSlot = order[i];
+                }
+
+                @Override
+                protected int comparePivot(int j) {
+                    int slot = order[j];
+                    int docFreqCompare = Integer.compare(docFreqs[slot], docFreqs[pivotSlot]);
+                    return docFreqCompare != 0
+                            ? docFreqCompare
+                            : segments[pivotSlot].surface(indexes[pivotSlot]).compareTo(segments[slot].surface(indexes[slot]));
+                }
+            }.sort(0, size);
+            return order;
+        }
+    }
+
+    int size() {
+        return docFreqs.length;
+    }
+
+    String surface(int rank) {
+        return new String(surfaceChars, surfaceStarts[rank], surfaceStarts[rank + 1] - surfaceStarts[rank]);
+    }
+
+    int docFreq(int rank) {
+        return docFreqs[rank];
+    }
+
+    /** Ranks of the {@code limit} most frequent terms whose full pinyin starts with {@code prefix}. */
+    int[] fullPrefix(String prefix, int limit) {
+        return topRanks(fullFst, asciiBytes(prefix), limit);
+    }
+
+    /** Ranks of the {@code limit} most frequent terms whose initials start with {@code prefix}. */
+    int[] initialsPrefix(String prefix, int limit) {
+        return topRanks(initialsFst, asciiBytes(prefix), limit);
+    }
+
+    /** Ranks of the {@code limit} most frequent terms with {@code anchor} among their syllable-prefix anchors. */
+    int[] anchor(String anchor, int limit) {
+        if (anchor.isEmpty() || anchor.length() > ANCHOR_BYTES || asciiBytes(anchor) == null) {
+            return new int[0];
+        }
+        int slot = Arrays.binarySearch(anchorKeys, anchorKey(anchor));
+        if (slot < 0) {
+            return new int[0];
+        }
+        int start = anchorStarts[slot];
+        return Arrays.copyOfRange(anchorRanks, start, Math.min(anchorStarts[slot + 1], start + limit));
+    }
+
+    long ramBytesUsed() {
+        long bytes = RamUsageEstimator.sizeOf(surfaceChars) + RamUsageEstimator.sizeOf(surfaceStarts)
+                + RamUsageEstimator.sizeOf(docFreqs) + RamUsageEstimator.sizeOf(anchorKeys)
+                + RamUsageEstimator.sizeOf(anchorStarts) + RamUsageEstimator.sizeOf(anchorRanks);
+        for (FST<Long> fst : Arrays.asList(fullFst, initialsFst)) {
+            if (fst != null) {
+                bytes += fst.ramBytesUsed();
+            }
+        }
+        return bytes;
+    }
+
+    private static int[] topRanks(FST<Long> fst, byte[] prefix, int limit) {
+        if (fst == null || prefix == null || limit < 1) {
+            return new int[0];
+        }
+        try {
+            FST.BytesReader bytesReader = fst.getBytesReader();
+            FST.Arc<Long> arc = fst.getFirstArc(new FST.Arc<>());
+            Long prefixOutput = fst.outputs.getNoOutput();
+            for (byte label : prefix) {
+                if (fst.findTargetArc(label & 0xFF, arc, arc, bytesReader) == null) {
+                    return new int[0];
+                }
+                prefixOutput = fst.outputs.add(prefixOutput, arc.output());
+            }
+
+            RankCollector collector = new RankCollector(fst, limit);
+            collector.addStartPaths(arc, prefixOutput, false, new IntsRefBuilder());
+            collector.search();
+            return collector.ranks();
+        } catch (IOException e) {
+            // The FSTs are on heap; reading them cannot fail
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FST<Long> buildKeyFst(String[] keys, int count) {
+        int[] order = new int[count];
+        for (int index = 0; index < count; index++) {
+            order[index] = index;
+        }
+        new IntroSorter() {
+            private String pivot;
+            private int pivotRank;
+
+            @Override
+            protected void swap(int i, int j) {
+                int swapped = order[i];
+                order[i] = order[j];
+                order[j] = swapped;
+            }
+
+            @Override
+            protected void setPivot(int i) {
+                pivotRank = order[i];
+                pivot = keys[pivotRank];
+            }
+
+            @Override
+            protected int comparePivot(int j) {
+                int keyCompare = pivot.compareTo(keys[order[j]]);
+                return keyCompare != 0 ? keyCompare : Integer.compare(pivotRank, order[j]);
+            }
+        }.sort(0, count);
+
+        try {
+            FSTCompiler<Long> compiler = newCompiler();
+            IntsRefBuilder input = new IntsRefBuilder();
+            for (int rank : order) {
+                String key = keys[rank];
+                if (key == null || key.isEmpty()) {
+                    continue;
+                }
+                input.clear();
+                for (int index = 0; index < key.length(); index++) {
+                    input.append(key.charAt(index));
+                }
+                input.append(KEY_END);
+                appendRank(input, rank);
+                compiler.add(input.get(), (long) rank);
+            }
+            return compile(compiler);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static FSTCompiler<Long> newCompiler() {
+        // Every path ends in its own rank, so no two suffixes are equal and the
+        // suffix hash would only cost time.
+        return new FSTCompiler.Builder<>(FST.INPUT_TYPE.BYTE1, PositiveIntOutputs.getSingleton())
+                .suffixRAMLimitMB(0)
+                .build();
+    }
+
+    private static FST<Long> compile(FSTCompiler<Long> compiler) throws IOException {
+        FST.FSTMetadata<Long> metadata = compiler.compile();
+        return metadata == null ? null : FST.fromFSTReader(metadata, compiler.getFSTReader());
+    }
+
+    /** Anchor chars zero padded into four bytes, the high half of the packed anchor entries. */
+    static int anchorKey(String anchor) {
+        int packed = 0;
+        for (int index = 0; index < ANCHOR_BYTES; index++) {
+            packed = (packed << 8) | (index < anchor.length() ? anchor.charAt(index) & 0x7F : 0);
+        }
+        return packed;
+    }
+
+    private static void appendRank(IntsRefBuilder input, int rank) {
+        for (int shift = (RANK_BYTES - 1) * 8; shift >= 0; shift -= 8) {
+            input.append((rank >>> shift) & 0xFF);
+        }
+    }
+
+    private static byte[] asciiBytes(String key) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        byte[] bytes = new byte[key.length()];
+        for (int index = 0; index < key.length(); index++) {
+            char c = key.charAt(index);
+            if (c >= 128) {
+                return null;
+            }
+            bytes[index] = (byte) c;
+        }
+        return bytes;
+    }
+
+    /**
+     * Best-first traversal that keeps the ranks of accepted paths; each path ends
+     * with its rank, so the rank is read from the input rather than the output.
+     */
+    private static final class RankCollector extends Util.TopNSearcher<Long> {
+        private final int[] ranks;
+        private int count;
+
+        private RankCollector(FST<Long> fst, int limit) {
+            super(fst, limit, limit + 10, RANK_ORDER);
+            this.ranks = new int[limit];
+        }
+
+        @Override
+        protected boolean acceptResult(IntsRef input, Long output) {
+            int end = input.offset + input.length;
+            int rank = 0;
+            for (int index = end - RANK_BYTES; index < end; index++) {
+                rank = (rank << 8) | input.ints[index];
+            }
+            ranks[count++] = rank;
+            return true;
+        }
+
+        private int[] ranks() {
+            return count == ranks.length ? ranks : Arrays.copyOf(ranks, count);
+        }
+    }
+}
@@ -1,7 +1,5 @@
 package org.es.tok.suggest;
 
-import com.github.houbb.pinyin.constant.enums.PinyinStyleEnum;
-import com.github.houbb.pinyin.util.PinyinHelper;
 import org.es.tok.text.TextNormalization;
 
 import java.util.ArrayList;
@@ -16,6 +14,7 @@ public final class PinyinSupport {
     public static final String PRECOMPUTED_FULL_PREFIX = "__pyf__";
     public static final String PRECOMPUTED_INITIALS_PREFIX = "__pyi__";
     public static final String PRECOMPUTED_SEPARATOR = "|";
+    private static final PinyinKeyCache PINYIN_KEY_CACHE = new PinyinKeyCache(PinyinKeyCache.DEFAULT_CAPACITY);
 
     private PinyinSupport() {
     }
@@ -24,27 +23,27 @@ public final class PinyinSupport {
         if (text == null || text.isBlank()) {
             return PinyinKey.EMPTY;
         }
+        return PINYIN_KEY_CACHE.get(text, PinyinTransliterator.get()::transliterate);
+    }
 
-        String normalized = normalizeInput(text);
-        String raw = PinyinHelper.toPinyin(text, PinyinStyleEnum.NORMAL);
-        String rawInitials = PinyinHelper.toPinyin(text, PinyinStyleEnum.FIRST_LETTER);
-        List<String> syllables = tokenizeSyllables(raw);
-        String full = joinSyllables(syllables);
-        String initials = normalizeInput(rawInitials);
-        if (full.isEmpty()) {
-            full = normalized;
-        }
-        if (full.isEmpty() && initials.isEmpty()) {
+    /**
+     * Key of {@code text} without going through the memo, for index builds that
+     * key every dictionary term once and would otherwise evict the hot query keys.
+     */
+    static PinyinKey uncachedPinyinKey(String text) {
+        if (text == null || text.isBlank()) {
             return PinyinKey.EMPTY;
         }
-        if (initials.isEmpty() && !syllables.isEmpty()) {
-            StringBuilder builder = new StringBuilder(syllables.size());
-            for (String syllable : syllables) {
-                builder.append(syllable.charAt(0));
-            }
-            initials = builder.toString();
-        }
-        return new PinyinKey(full, initials, syllables);
+        return PinyinTransliterator.get().transliterate(text);
+    }
+
+    /** Hit and miss counts of the node-wide pinyin key memo. */
+    public static PinyinKeyCacheStats pinyinKeyCacheStats() {
+        return PINYIN_KEY_CACHE.stats();
+    }
+
+    static void clearPinyinKeyCache() {
+        PINYIN_KEY_CACHE.clear();
     }
 
     static boolean shouldUsePinyin(String text) {
@@ -587,7 +586,7 @@ public final class PinyinSupport {
         return left.codePointBefore(left.length()) == right.codePointBefore(right.length());
     }
 
-    private static List<String> tokenizeSyllables(String text) {
+    static List<String> tokenizeSyllables(String text) {
         if (text == null || text.isBlank()) {
             return List.of();
         }
@@ -601,17 +600,6 @@ public final class PinyinSupport {
         return syllables;
     }
 
-    private static String joinSyllables(List<String> syllables) {
-        if (syllables.isEmpty()) {
-            return "";
-        }
-        StringBuilder builder = new StringBuilder();
-        for (String syllable : syllables) {
-            builder.append(syllable);
-        }
-        return builder.toString();
-    }
-
     static List<String> bucketKeys(PinyinKey key, boolean fullPinyin) {
         if (key == null || key.isEmpty()) {
             return List.of();
@@ -744,8 +732,15 @@ public final class PinyinSupport {
         return Math.min(maxPenalty, extraLength * step);
     }
 
+    public record PinyinKeyCacheStats(long hits, long misses, int entries, int capacity) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0d : hits / (double) lookups;
+        }
+    }
+
     record PinyinKey(String full, String initials, List<String> syllables) {
-        private static final PinyinKey EMPTY = new PinyinKey("", "", List.of());
+        static final PinyinKey EMPTY = new PinyinKey("", "", List.of());
 
         boolean isEmpty() {
             return full.isEmpty() && initials.isEmpty();
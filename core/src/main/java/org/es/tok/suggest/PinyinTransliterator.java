@@ -0,0 +1,308 @@
+package org.es.tok.suggest;
+
+import com.github.houbb.pinyin.api.IPinyinContext;
+import com.github.houbb.pinyin.api.impl.PinyinContext;
+import com.github.houbb.pinyin.constant.enums.PinyinStyleEnum;
+import com.github.houbb.pinyin.spi.IPinyinTone;
+import com.github.houbb.pinyin.support.style.PinyinToneStyles;
+import com.github.houbb.pinyin.support.tone.PinyinTones;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Table-driven transliteration of text into the pinyin syllables and initials
+ * that {@link PinyinSupport} keys candidates by.
+ * <p>
+ * The tables are built once from the houbb pinyin dictionaries, and the text
+ * is segmented exactly like {@code PinyinHelper.toPinyin} does:
+ * <ul>
+ * <li>runs of CJK unified ideographs (U+4E00..U+9FA5) are split by forward
+ * maximum matching against the phrase dictionary, so polyphonic characters
+ * take their reading from the phrase they occur in;</li>
+ * <li>other runs are split into words of letters, digits and apostrophes and
+ * single remaining chars;</li>
+ * <li>all-ASCII words pass through as one syllable, anything else is read one
+ * char at a time.</li>
+ * </ul>
+ * Unlike {@code PinyinHelper}, nothing is allocated per char and the phrase
+ * lookups walk a trie instead of a map of maps.
+ */
+final class PinyinTransliterator {
+    private static final int NONE = -1;
+    private static final int ROOT = 0;
+
+    // Per UTF-16 unit: the syllable read for the char on its own and the
+    // initials it contributes, both already reduced to lower-case ASCII
+    // letters and digits; null when the char contributes nothing.
+    private final String[] charSyllables;
+    private final String[] charInitials;
+
+    // Phrase trie in breadth-first order: the children of a state are the
+    // sorted labels in [childStart[state], childStart[state + 1]).
+    private final int[] childStart;
+    private final char[] labels;
+    private final int[] phraseOf;
+    private final String[][] phraseSyllables;
+    private final String[] phraseInitials;
+
+    private PinyinTransliterator(
+            String[] charSyllables,
+            String[] charInitials,
+            int[] childStart,
+            char[] labels,
+            int[] phraseOf,
+            String[][] phraseSyllables,
+            String[] phraseInitials) {
+        this.charSyllables = charSyllables;
+        this.charInitials = charInitials;
+        this.childStart = childStart;
+        this.labels = labels;
+        this.phraseOf = phraseOf;
+        this.phraseSyllables = phraseSyllables;
+        this.phraseInitials = phraseInitials;
+    }
+
+    static PinyinTransliterator get() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Pinyin key of a non-blank text; equal to the key derived from
+     * {@code PinyinHelper.toPinyin} in the NORMAL and FIRST_LETTER styles.
+     */
+    PinyinSupport.PinyinKey transliterate(String text) {
+        List<String> syllables = new ArrayList<>();
+        StringBuilder initials = new StringBuilder();
+        int length = text.length();
+        int index = 0;
+        while (index < length) {
+            int runEnd = index + 1;
+            if (isSegmentedChinese(text.charAt(index))) {
+                while (runEnd < length && isSegmentedChinese(text.charAt(runEnd))) {
+                    runEnd++;
+                }
+                while (index < runEnd) {
+                    index = appendChinese(text, index, runEnd, syllables, initials);
+                }
+                continue;
+            }
+            while (runEnd < length && !isSegmentedChinese(text.charAt(runEnd))) {
+                runEnd++;
+            }
+            if (runEnd - index == 1) {
+                appendEntry(text, index, runEnd, syllables, initials);
+                index = runEnd;
+                continue;
+            }
+            while (index < runEnd) {
+                int wordEnd = index;
+                while (wordEnd < runEnd && isWordChar(text.charAt(wordEnd))) {
+                    wordEnd++;
+                }
+                if (wordEnd == index) {
+                    wordEnd++;
+                }
+                appendEntry(text, index, wordEnd, syllables, initials);
+                index = wordEnd;
+            }
+        }
+
+        String full = String.join("", syllables);
+        if (full.isEmpty()) {
+            full = PinyinSupport.normalizeInput(text);
+        }
+        String initialsKey = initials.toString();
+        if (full.isEmpty() && initialsKey.isEmpty()) {
+            return PinyinSupport.PinyinKey.EMPTY;
+        }
+        if (initialsKey.isEmpty() && !syllables.isEmpty()) {
+            StringBuilder builder = new StringBuilder(syllables.size());
+            for (String syllable : syllables) {
+                builder.append(syllable.charAt(0));
+            }
+            initialsKey = builder.toString();
+        }
+        return new PinyinSupport.PinyinKey(full, initialsKey, List.copyOf(syllables));
+    }
+
+    /** Appends the longest phrase starting at {@code from}, or the single char there. */
+    private int appendChinese(String text, int from, int runEnd, List<String> syllables, StringBuilder initials) {
+        int state = ROOT;
+        int phrase = NONE;
+        int phraseEnd = from;
+        for (int index = from; index < runEnd; index++) {
+            state = child(state, text.charAt(index));
+            if (state == NONE) {
+                break;
+            }
+            if (phraseOf[state] != NONE) {
+                phrase = phraseOf[state];
+                phraseEnd = index + 1;
+            }
+        }
+        if (phrase == NONE) {
+            appendChar(text.charAt(from), syllables, initials);
+            return from + 1;
+        }
+        for (String syllable : phraseSyllables[phrase]) {
+            syllables.add(syllable);
+        }
+        initials.append(phraseInitials[phrase]);
+        return phraseEnd;
+    }
+
+    private void appendEntry(String text, int from, int to, List<String> syllables, StringBuilder initials) {
+        boolean ascii = true;
+        for (int index = from; index < to && ascii; index++) {
+            ascii = text.charAt(index) < 128;
+        }
+        if (!ascii) {
+            for (int index = from; index < to; index++) {
+                appendChar(text.charAt(index), syllables, initials);
+            }
+            return;
+        }
+        // ASCII words are not transliterated, and whitespace entries only separate
+        String word = PinyinSupport.normalizeInput(text.substring(from, to));
+        if (!word.isEmpty()) {
+            syllables.add(word);
+            initials.append(word);
+        }
+    }
+
+    private void appendChar(char c, List<String> syllables, StringBuilder initials) {
+        String syllable = charSyllables[c];
+        if (syllable != null) {
+            syllables.add(syllable);
+        }
+        String initial = charInitials[c];
+        if (initial != null) {
+            initials.append(initial);
+        }
+    }
+
+    private int child(int state, char c) {
+        int lo = childStart[state];
+        int hi = childStart[state + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char label = labels[mid];
+            if (label < c) {
+                lo = mid + 1;
+            } else if (label > c) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NONE;
+    }
+
+    private static boolean isSegmentedChinese(char c) {
+        return c >= '\u4e00' && c <= '\u9fa5';
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isDigit(c) || Character.isLowerCase(c) || Character.isUpperCase(c) || c == '\'';
+    }
+
+    private static PinyinTransliterator build() {
+        IPinyinTone tone = PinyinTones.defaults();
+        IPinyinContext normal = PinyinContext.newInstance()
+                .style(PinyinToneStyles.getTone(PinyinStyleEnum.NORMAL))
+                .connector(" ");
+        IPinyinContext firstLetter = PinyinContext.newInstance()
+                .style(PinyinToneStyles.getTone(PinyinStyleEnum.FIRST_LETTER))
+                .connector(" ");
+        Map<String, String> canonical = new HashMap<>();
+
+        String[] charSyllables = new String[Character.MAX_VALUE + 1];
+        String[] charInitials = new String[Character.MAX_VALUE + 1];
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            String surface = String.valueOf((char) c);
+            String syllable = PinyinSupport.normalizeInput(tone.tone(surface, normal));
+            String initial = PinyinSupport.normalizeInput(tone.tone(surface, firstLetter));
+            charSyllables[c] = syllable.isEmpty() ? null : canonical.computeIfAbsent(syllable, key -> key);
+            charInitials[c] = initial.isEmpty() ? null : canonical.computeIfAbsent(initial, key -> key);
+        }
+
+        Set<String> phraseSet = tone.phraseSet();
+        String[] keys = phraseSet.stream()
+                .filter(phrase -> phrase != null && !phrase.isEmpty())
+                .sorted()
+                .toArray(String[]::new);
+        String[][] phraseSyllables = new String[keys.length][];
+        String[] phraseInitials = new String[keys.length];
+        for (int index = 0; index < keys.length; index++) {
+            List<String> syllables = PinyinSupport.tokenizeSyllables(tone.tone(keys[index], normal));
+            phraseSyllables[index] = syllables.stream()
+                    .map(syllable -> canonical.computeIfAbsent(syllable, key -> key))
+                    .toArray(String[]::new);
+            phraseInitials[index] = PinyinSupport.normalizeInput(tone.tone(keys[index], firstLetter));
+        }
+
+        // Breadth-first expansion: each state owns the contiguous range of sorted
+        // keys sharing its prefix and appends its children in label order.
+        int capacity = Math.max(16, keys.length * 2);
+        int[] rangeLo = new int[capacity];
+        int[] rangeHi = new int[capacity];
+        int[] depth = new int[capacity];
+        char[] labels = new char[capacity];
+        int[] childStart = new int[capacity + 1];
+        int[] phraseOf = new int[capacity];
+        rangeHi[ROOT] = keys.length;
+        int size = 1;
+        for (int state = 0; state < size; state++) {
+            int lo = rangeLo[state];
+            int hi = rangeHi[state];
+            phraseOf[state] = NONE;
+            if (lo < hi && keys[lo].length() == depth[state]) {
+                phraseOf[state] = lo;
+                lo++;
+            }
+            childStart[state] = size;
+            int index = lo;
+            while (index < hi) {
+                char label = keys[index].charAt(depth[state]);
+                int next = index + 1;
+                while (next < hi && keys[next].charAt(depth[state]) == label) {
+                    next++;
+                }
+                if (size == capacity) {
+                    capacity = capacity + (capacity >> 1) + 16;
+                    rangeLo = Arrays.copyOf(rangeLo, capacity);
+                    rangeHi = Arrays.copyOf(rangeHi, capacity);
+                    depth = Arrays.copyOf(depth, capacity);
+                    labels = Arrays.copyOf(labels, capacity);
+                    childStart = Arrays.copyOf(childStart, capacity + 1);
+                    phraseOf = Arrays.copyOf(phraseOf, capacity);
+                }
+                rangeLo[size] = index;
+                rangeHi[size] = next;
+                depth[size] = depth[state] + 1;
+                labels[size] = label;
+                size++;
+                index = next;
+            }
+        }
+        childStart = Arrays.copyOf(childStart, size + 1);
+        childStart[size] = size;
+        return new PinyinTransliterator(
+                charSyllables,
+                charInitials,
+                childStart,
+                Arrays.copyOf(labels, size),
+                Arrays.copyOf(phraseOf, size),
+                phraseSyllables,
+                phraseInitials);
+    }
+
+    private static final class Holder {
+        private static final PinyinTransliterator INSTANCE = build();
+    }
+}
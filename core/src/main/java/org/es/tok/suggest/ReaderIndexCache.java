@@ -0,0 +1,198 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Reader-level suggestion indexes (pinyin prefix, literal prefix and
+ * correction indexes), keyed by the segment cores of the reader and the field.
+ * <p>
+ * The indexes only depend on term doc frequencies, which count deleted docs
+ * too, so readers over the same segment cores share them and a refresh that
+ * only deletes reuses them. An entry is dropped as soon as one of its segment
+ * cores closes, with an LRU bound on the estimated bytes of all entries as a
+ * backstop; an entry larger than the whole budget is used once and not cached.
+ * Concurrent misses on the same index share one build.
+ */
+final class ReaderIndexCache {
+    static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    // Access-ordered, guarded by itself along with bytes
+    private static final Map<Key, Entry> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    private static long bytes;
+    private static volatile long maxBytes = DEFAULT_MAX_BYTES;
+    private static final Set<Object> LISTENING_KEYS = ConcurrentHashMap.newKeySet();
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final SingleFlight<Key> BUILDS = new SingleFlight<>();
+
+    private ReaderIndexCache() {
+    }
+
+    /** Which index of a field an entry holds. */
+    enum Kind {
+        PINYIN,
+        LITERAL,
+        CORRECTION
+    }
+
+    @FunctionalInterface
+    interface Loader<T> {
+        T load() throws IOException;
+    }
+
+    static <T> T getOrBuild(IndexReader reader, String field, Kind kind, Loader<T> loader, ToLongFunction<T> weigher)
+            throws IOException {
+        List<IndexReader.CacheHelper> cacheHelpers = cacheHelpers(reader);
+        if (cacheHelpers.isEmpty()) {
+            MISSES.increment();
+            return loader.load();
+        }
+
+        List<Object> readerKey = new ArrayList<>(cacheHelpers.size());
+        for (IndexReader.CacheHelper cacheHelper : cacheHelpers) {
+            readerKey.add(cacheHelper.getKey());
+        }
+        Key key = new Key(List.copyOf(readerKey), field, kind);
+        synchronized (CACHE) {
+            Entry cached = CACHE.get(key);
+            if (cached != null) {
+                HITS.increment();
+                return cast(cached.value());
+            }
+        }
+
+        return BUILDS.execute(key, () -> {
+            synchronized (CACHE) {
+                Entry cached = CACHE.get(key);
+                if (cached != null) {
+                    HITS.increment();
+                    return cast(cached.value());
+                }
+            }
+            MISSES.increment();
+            T built = loader.load();
+            long entryBytes = ENTRY_OVERHEAD_BYTES + RamUsageEstimator.sizeOf(field) + weigher.applyAsLong(built);
+            if (entryBytes > maxBytes) {
+                return built;
+            }
+            for (IndexReader.CacheHelper cacheHelper : cacheHelpers) {
+                if (LISTENING_KEYS.add(cacheHelper.getKey())) {
+                    cacheHelper.addClosedListener(ReaderIndexCache::evict);
+                }
+            }
+            synchronized (CACHE) {
+                Entry cached = CACHE.putIfAbsent(key, new Entry(built, entryBytes));
+                if (cached != null) {
+                    return cast(cached.value());
+                }
+                bytes += entryBytes;
+                evictToBudget();
+                return built;
+            }
+        });
+    }
+
+    /** Sets the byte budget of the cache, evicting least recently used entries beyond it. */
+    static void setMaxBytes(long budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("reader index cache budget must be non-negative, got " + budget);
+        }
+        synchronized (CACHE) {
+            maxBytes = budget;
+            evictToBudget();
+        }
+    }
+
+    static Stats stats() {
+        synchronized (CACHE) {
+            return new Stats(HITS.sum(), MISSES.sum(), CACHE.size(), bytes);
+        }
+    }
+
+    static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            bytes = 0;
+        }
+        HITS.reset();
+        MISSES.reset();
+    }
+
+    /**
+     * The core cache helpers of every segment, or the reader's own cache
+     * helper when no segment has one; empty when nothing can be keyed.
+     */
+    private static List<IndexReader.CacheHelper> cacheHelpers(IndexReader reader) {
+        List<IndexReader.CacheHelper> cacheHelpers = new ArrayList<>(reader.leaves().size());
+        for (LeafReaderContext leaf : reader.leaves()) {
+            IndexReader.CacheHelper coreCacheHelper = leaf.reader().getCoreCacheHelper();
+            if (coreCacheHelper != null) {
+                cacheHelpers.add(coreCacheHelper);
+            }
+        }
+        if (cacheHelpers.isEmpty() && reader.getReaderCacheHelper() != null) {
+            cacheHelpers.add(reader.getReaderCacheHelper());
+        }
+        return cacheHelpers;
+    }
+
+    private static void evictToBudget() {
+        Iterator<Entry> eldest = CACHE.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().bytes();
+            eldest.remove();
+        }
+    }
+
+    private static void evict(Object closedKey) {
+        LISTENING_KEYS.remove(closedKey);
+        synchronized (CACHE) {
+            Iterator<Map.Entry<Key, Entry>> entries = CACHE.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Key, Entry> entry = entries.next();
+                if (entry.getKey().contains(closedKey)) {
+                    bytes -= entry.getValue().bytes();
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object cached) {
+        return (T) cached;
+    }
+
+    private record Key(List<Object> readerKey, String field, Kind kind) {
+
+        private boolean contains(Object closedKey) {
+            for (Object key : readerKey) {
+                if (key == closedKey) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private record Entry(Object value, long bytes) {
+    }
+
+    record Stats(long hits, long misses, int entries, long bytes) {
+    }
+}
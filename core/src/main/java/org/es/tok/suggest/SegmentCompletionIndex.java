@@ -0,0 +1,150 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefBuilder;
+import org.apache.lucene.util.IntsRef;
+import org.apache.lucene.util.IntsRefBuilder;
+import org.apache.lucene.util.fst.FST;
+import org.apache.lucene.util.fst.FSTCompiler;
+import org.apache.lucene.util.fst.PositiveIntOutputs;
+import org.apache.lucene.util.fst.Util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Weighted completion FST over the term dictionary of one segment.
+ * <p>
+ * Each term maps to {@code Integer.MAX_VALUE - docFreq}, so the lowest-output
+ * paths below a prefix are the most frequent terms with that prefix. A
+ * best-first top-k traversal finds them after walking the prefix, without
+ * enumerating the rest of the subtree, so a frequent completion that sorts
+ * after thousands of rare ones is still found. The term dictionary is already
+ * sorted, so the FST is compiled in a single pass over it.
+ */
+final class SegmentCompletionIndex {
+    static final SegmentCompletionIndex EMPTY = new SegmentCompletionIndex(null, 0);
+
+    private static final Comparator<Long> WEIGHT_ORDER = Comparator.naturalOrder();
+
+    private final FST<Long> fst;
+    private final int size;
+
+    private SegmentCompletionIndex(FST<Long> fst, int size) {
+        this.fst = fst;
+        this.size = size;
+    }
+
+    static SegmentCompletionIndex build(Terms terms) throws IOException {
+        if (terms == null) {
+            return EMPTY;
+        }
+        FSTCompiler<Long> compiler = new FSTCompiler.Builder<>(FST.INPUT_TYPE.BYTE1, PositiveIntOutputs.getSingleton())
+                .build();
+        IntsRefBuilder input = new IntsRefBuilder();
+        TermsEnum termsEnum = terms.iterator();
+        int size = 0;
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+            compiler.add(Util.toIntsRef(term, input), weight(termsEnum.docFreq()));
+            size++;
+        }
+        FST.FSTMetadata<Long> metadata = compiler.compile();
+        if (metadata == null) {
+            return EMPTY;
+        }
+        return new SegmentCompletionIndex(FST.fromFSTReader(metadata, compiler.getFSTReader()), size);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long ramBytesUsed() {
+        return fst == null ? 0L : fst.ramBytesUsed();
+    }
+
+    /**
+     * Up to {@code limit} terms starting with {@code prefix} that {@code accept}
+     * lets through, most frequent first.
+     */
+    List<Completion> topCompletions(BytesRef prefix, int limit, Predicate<BytesRef> accept) {
+        if (fst == null || limit < 1) {
+            return List.of();
+        }
+        try {
+            FST.BytesReader bytesReader = fst.getBytesReader();
+            FST.Arc<Long> arc = fst.getFirstArc(new FST.Arc<>());
+            Long prefixOutput = fst.outputs.getNoOutput();
+            for (int index = prefix.offset; index < prefix.offset + prefix.length; index++) {
+                if (fst.findTargetArc(prefix.bytes[index] & 0xFF, arc, arc, bytesReader) == null) {
+                    return List.of();
+                }
+                prefixOutput = fst.outputs.add(prefixOutput, arc.output());
+            }
+
+            CompletionCollector collector = new CompletionCollector(fst, limit, accept);
+            IntsRefBuilder start = new IntsRefBuilder();
+            Util.toIntsRef(prefix, start);
+            collector.addStartPaths(arc, prefixOutput, true, start);
+            List<Completion> completions = new ArrayList<>(limit);
+            BytesRefBuilder scratch = new BytesRefBuilder();
+            for (Util.Result<Long> result : collector.search()) {
+                // The prefix itself is returned without passing through acceptResult
+                BytesRef term = Util.toBytesRef(result.input(), scratch);
+                if (accept.test(term)) {
+                    completions.add(new Completion(BytesRef.deepCopyOf(term), docFreq(result.output())));
+                }
+            }
+            return completions;
+        } catch (IOException e) {
+            // The FST is on heap; reading it cannot fail
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Doc frequency of {@code term} in this segment, 0 if the segment lacks it. */
+    int docFreq(BytesRef term) {
+        if (fst == null) {
+            return 0;
+        }
+        try {
+            Long output = Util.get(fst, term);
+            return output == null ? 0 : docFreq(output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long weight(int docFreq) {
+        return Integer.MAX_VALUE - (long) docFreq;
+    }
+
+    private static int docFreq(long weight) {
+        return (int) (Integer.MAX_VALUE - weight);
+    }
+
+    record Completion(BytesRef term, int docFreq) {
+    }
+
+    /** Best-first traversal that skips the terms {@code accept} rejects instead of counting them. */
+    private static final class CompletionCollector extends Util.TopNSearcher<Long> {
+        private final Predicate<BytesRef> accept;
+        private final BytesRefBuilder scratch = new BytesRefBuilder();
+
+        private CompletionCollector(FST<Long> fst, int limit, Predicate<BytesRef> accept) {
+            super(fst, limit, limit * 2 + 10, WEIGHT_ORDER);
+            this.accept = accept;
+        }
+
+        @Override
+        protected boolean acceptResult(IntsRef input, Long output) {
+            return accept.test(Util.toBytesRef(input, scratch));
+        }
+    }
+}
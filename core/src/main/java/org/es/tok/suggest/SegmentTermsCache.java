@@ -0,0 +1,453 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-segment suggestion terms and structures, keyed by the segment's core
+ * cache key.
+ * <p>
+ * Segments are immutable, so the terms a segment contributes to the literal and
+ * pinyin prefix indexes never change, and neither does its completion index.
+ * Caching them per segment means a refresh that adds a small segment only scans
+ * that segment's term dictionary; the
+ * reader-level indexes are then rebuilt by summing the cached doc frequencies
+ * instead of rescanning every term through {@code MultiTerms}. Entries are
+ * dropped when the segment core closes, with an LRU bound on their estimated
+ * bytes as a backstop; an entry larger than the whole budget is used once and
+ * not cached. Concurrent misses on the same segment share one load.
+ */
+final class SegmentTermsCache {
+    static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    // Access-ordered, guarded by itself along with bytes
+    private static final Map<Key, Entry> CACHE = new LinkedHashMap<>(64, 0.75f, true);
+    private static long bytes;
+    private static volatile long maxBytes = DEFAULT_MAX_BYTES;
+    private static final Set<Object> LISTENING_CORES = ConcurrentHashMap.newKeySet();
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final SingleFlight<Key> LOADS = new SingleFlight<>();
+
+    private SegmentTermsCache() {
+    }
+
+    /**
+     * What a segment's entry was built for; each kind filters terms differently.
+     * {@link #COMPLETION} entries are {@link SegmentCompletionIndex}es, the rest
+     * are {@link SegmentTerms}.
+     */
+    enum Kind {
+        LITERAL,
+        DIRECT_PINYIN,
+        PRECOMPUTED_PINYIN,
+        SHORT_CJK,
+        COMPLETION
+    }
+
+    @FunctionalInterface
+    interface Loader<T> {
+        T load(LeafReader reader) throws IOException;
+    }
+
+    static <T> T getOrBuild(LeafReaderContext leaf, String field, Kind kind, Loader<T> loader) throws IOException {
+        IndexReader.CacheHelper coreCacheHelper = leaf.reader().getCoreCacheHelper();
+        if (coreCacheHelper == null) {
+            MISSES.increment();
+            return loader.load(leaf.reader());
+        }
+
+        Object coreKey = coreCacheHelper.getKey();
+        Key key = new Key(coreKey, field, kind);
+        synchronized (CACHE) {
+            Entry cached = CACHE.get(key);
+            if (cached != null) {
+                HITS.increment();
+                return cast(cached.value());
+            }
+        }
+
+        return LOADS.execute(key, () -> {
+            synchronized (CACHE) {
+                Entry cached = CACHE.get(key);
+                if (cached != null) {
+                    HITS.increment();
+                    return cast(cached.value());
+                }
+            }
+            MISSES.increment();
+            T built = loader.load(leaf.reader());
+            long entryBytes = ENTRY_OVERHEAD_BYTES + RamUsageEstimator.sizeOf(field) + ramBytesUsed(built);
+            if (entryBytes > maxBytes) {
+                return built;
+            }
+            if (LISTENING_CORES.add(coreKey)) {
+                coreCacheHelper.addClosedListener(SegmentTermsCache::evictCore);
+            }
+            synchronized (CACHE) {
+                Entry cached = CACHE.putIfAbsent(key, new Entry(built, entryBytes));
+                if (cached != null) {
+                    return cast(cached.value());
+                }
+                bytes += entryBytes;
+                evictToBudget();
+                return built;
+            }
+        });
+    }
+
+    /** Sets the byte budget of the cache, evicting least recently used entries beyond it. */
+    static void setMaxBytes(long budget) {
+        if (budget < 0) {
+            throw new IllegalArgumentException("segment cache budget must be non-negative, got " + budget);
+        }
+        synchronized (CACHE) {
+            maxBytes = budget;
+            evictToBudget();
+        }
+    }
+
+    private static void evictToBudget() {
+        Iterator<Entry> eldest = CACHE.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            bytes -= eldest.next().bytes();
+            eldest.remove();
+        }
+    }
+
+    private static long ramBytesUsed(Object value) {
+        if (value instanceof SegmentTerms segmentTerms) {
+            return segmentTerms.ramBytesUsed();
+        }
+        if (value instanceof SegmentCompletionIndex completionIndex) {
+            return completionIndex.ramBytesUsed();
+        }
+        return 0L;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object cached) {
+        return (T) cached;
+    }
+
+    static Stats stats() {
+        int segments;
+        long terms = 0;
+        long cachedBytes;
+        synchronized (CACHE) {
+            segments = CACHE.size();
+            cachedBytes = bytes;
+            for (Entry cached : CACHE.values()) {
+                if (cached.value() instanceof SegmentTerms segmentTerms) {
+                    terms += segmentTerms.size();
+                } else if (cached.value() instanceof SegmentCompletionIndex completionIndex) {
+                    terms += completionIndex.size();
+                }
+            }
+        }
+        return new Stats(HITS.sum(), MISSES.sum(), segments, terms, cachedBytes);
+    }
+
+    static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            bytes = 0;
+        }
+        HITS.reset();
+        MISSES.reset();
+    }
+
+    private static void evictCore(Object coreKey) {
+        LISTENING_CORES.remove(coreKey);
+        synchronized (CACHE) {
+            Iterator<Map.Entry<Key, Entry>> entries = CACHE.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Key, Entry> entry = entries.next();
+                if (entry.getKey().coreKey() == coreKey) {
+                    bytes -= entry.getValue().bytes();
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    private record Key(Object coreKey, String field, Kind kind) {
+    }
+
+    private record Entry(Object value, long bytes) {
+    }
+
+    record Stats(long hits, long misses, int segments, long terms, long bytes) {
+    }
+
+    /**
+     * Terms one segment contributes, in term dictionary order: the raw term the
+     * doc frequency belongs to, the normalized surface suggested for it (the same
+     * instance when they are equal) and the segment-local doc frequency.
+     * <p>
+     * Terms of the pinyin kinds also carry the pinyin key of their surface and
+     * its packed syllable-prefix anchors, so merging segments into a
+     * {@link PinyinPrefixIndex} never transliterates a term again.
+     */
+    static final class SegmentTerms {
+        static final SegmentTerms EMPTY = new SegmentTerms(new String[0], new String[0], new int[0], null, null, null, null, 0);
+
+        private final String[] terms;
+        private final String[] surfaces;
+        private final int[] docFreqs;
+        private final String[] fullPinyin;
+        private final String[] initials;
+        private final int[] anchorStarts;
+        private final int[] anchors;
+        private final int size;
+        private final long ramBytesUsed;
+
+        private SegmentTerms(
+                String[] terms,
+                String[] surfaces,
+                int[] docFreqs,
+                String[] fullPinyin,
+                String[] initials,
+                int[] anchorStarts,
+                int[] anchors,
+                int size) {
+            this.terms = terms;
+            this.surfaces = surfaces;
+            this.docFreqs = docFreqs;
+            this.fullPinyin = fullPinyin;
+            this.initials = initials;
+            this.anchorStarts = anchorStarts;
+            this.anchors = anchors;
+            this.size = size;
+            long bytes = RamUsageEstimator.shallowSizeOf(terms)
+                    + RamUsageEstimator.shallowSizeOf(surfaces)
+                    + RamUsageEstimator.sizeOf(docFreqs);
+            for (int index = 0; index < size; index++) {
+                bytes += RamUsageEstimator.sizeOf(terms[index]);
+                if (surfaces[index] != terms[index]) {
+                    bytes += RamUsageEstimator.sizeOf(surfaces[index]);
+                }
+            }
+            if (fullPinyin != null) {
+                bytes += RamUsageEstimator.shallowSizeOf(fullPinyin)
+                        + RamUsageEstimator.shallowSizeOf(initials)
+                        + RamUsageEstimator.sizeOf(anchorStarts)
+                        + RamUsageEstimator.sizeOf(anchors);
+                for (int index = 0; index < size; index++) {
+                    bytes += RamUsageEstimator.sizeOf(fullPinyin[index]) + RamUsageEstimator.sizeOf(initials[index]);
+                }
+            }
+            this.ramBytesUsed = bytes;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long ramBytesUsed() {
+            return ramBytesUsed;
+        }
+
+        String term(int index) {
+            return terms[index];
+        }
+
+        String surface(int index) {
+            return surfaces[index];
+        }
+
+        int docFreq(int index) {
+            return docFreqs[index];
+        }
+
+        /** Full pinyin of the surface; only for terms added with a pinyin key. */
+        String fullPinyin(int index) {
+            return fullPinyin[index];
+        }
+
+        /** Pinyin initials of the surface; only for terms added with a pinyin key. */
+        String initials(int index) {
+            return initials[index];
+        }
+
+        int anchorStart(int index) {
+            return anchorStarts[index];
+        }
+
+        int anchorEnd(int index) {
+            return anchorStarts[index + 1];
+        }
+
+        /** Packed syllable-prefix anchor at {@code offset}, between {@link #anchorStart} and {@link #anchorEnd} of a term. */
+        int anchor(int offset) {
+            return anchors[offset];
+        }
+
+        static Builder builder() {
+            return new Builder();
+        }
+
+        static final class Builder {
+            private String[] terms = new String[64];
+            private String[] surfaces = new String[64];
+            private int[] docFreqs = new int[64];
+            private String[] fullPinyin;
+            private String[] initials;
+            private int[] anchorStarts;
+            private int[] anchors;
+            private int anchorCount;
+            private int size;
+
+            private Builder() {
+            }
+
+            Builder add(String term, String surface, int docFreq) {
+                if (fullPinyin != null) {
+                    throw new IllegalStateException("terms of a pinyin segment need a pinyin key");
+                }
+                grow();
+                terms[size] = term;
+                surfaces[size] = surface.equals(term) ? term : surface;
+                docFreqs[size] = docFreq;
+                size++;
+                return this;
+            }
+
+            /** Adds a term with the non-empty pinyin key of its surface. */
+            Builder add(String term, String surface, int docFreq, PinyinSupport.PinyinKey key) {
+                if (fullPinyin == null) {
+                    if (size > 0) {
+                        throw new IllegalStateException("terms of a literal segment have no pinyin key");
+                    }
+                    fullPinyin = new String[terms.length];
+                    initials = new String[terms.length];
+                    anchorStarts = new int[terms.length + 1];
+                    anchors = new int[terms.length * 4];
+                }
+                grow();
+                fullPinyin[size] = key.full();
+                initials[size] = key.initials();
+                for (String anchor : PinyinSupport.bucketKeys(key, true)) {
+                    if (anchorCount == anchors.length) {
+                        anchors = Arrays.copyOf(anchors, anchorCount + (anchorCount >> 1));
+                    }
+                    anchors[anchorCount++] = PinyinPrefixIndex.anchorKey(anchor);
+                }
+                anchorStarts[size + 1] = anchorCount;
+                terms[size] = term;
+                surfaces[size] = surface.equals(term) ? term : surface;
+                docFreqs[size] = docFreq;
+                size++;
+                return this;
+            }
+
+            private void grow() {
+                if (size < terms.length) {
+                    return;
+                }
+                int capacity = size + (size >> 1);
+                terms = Arrays.copyOf(terms, capacity);
+                surfaces = Arrays.copyOf(surfaces, capacity);
+                docFreqs = Arrays.copyOf(docFreqs, capacity);
+                if (fullPinyin != null) {
+                    fullPinyin = Arrays.copyOf(fullPinyin, capacity);
+                    initials = Arrays.copyOf(initials, capacity);
+                    anchorStarts = Arrays.copyOf(anchorStarts, capacity + 1);
+                }
+            }
+
+            SegmentTerms build() {
+                if (size == 0) {
+                    return EMPTY;
+                }
+                return new SegmentTerms(
+                        Arrays.copyOf(terms, size),
+                        Arrays.copyOf(surfaces, size),
+                        Arrays.copyOf(docFreqs, size),
+                        fullPinyin == null ? null : Arrays.copyOf(fullPinyin, size),
+                        initials == null ? null : Arrays.copyOf(initials, size),
+                        anchorStarts == null ? null : Arrays.copyOf(anchorStarts, size + 1),
+                        anchors == null ? null : Arrays.copyOf(anchors, anchorCount),
+                        size);
+            }
+        }
+    }
+
+    /**
+     * Visits every term of the reader once with its doc frequency summed across
+     * segments, which is what {@code MultiTerms} reports. Terms are visited in
+     * the order they are first seen; a single segment is visited in place.
+     */
+    static void forEachMerged(List<SegmentTerms> segments, TermConsumer consumer) {
+        forEachMergedEntry(segments, (segment, index, docFreq) -> consumer.accept(segment.term(index), segment.surface(index), docFreq));
+    }
+
+    /**
+     * Like {@link #forEachMerged}, but hands out where each term was first seen
+     * so callers can read what else the segment keeps for it.
+     */
+    static void forEachMergedEntry(List<SegmentTerms> segments, EntryConsumer consumer) {
+        if (segments.size() == 1) {
+            SegmentTerms segment = segments.get(0);
+            for (int index = 0; index < segment.size(); index++) {
+                consumer.accept(segment, index, segment.docFreq(index));
+            }
+            return;
+        }
+
+        int expectedSize = 0;
+        for (SegmentTerms segment : segments) {
+            expectedSize = Math.max(expectedSize, segment.size());
+        }
+        Map<String, MergedTerm> merged = new LinkedHashMap<>(Math.max(16, expectedSize * 4 / 3 + 1));
+        for (SegmentTerms segment : segments) {
+            for (int index = 0; index < segment.size(); index++) {
+                MergedTerm term = merged.get(segment.term(index));
+                if (term == null) {
+                    merged.put(segment.term(index), new MergedTerm(segment, index, segment.docFreq(index)));
+                } else {
+                    term.docFreq += segment.docFreq(index);
+                }
+            }
+        }
+        for (MergedTerm term : merged.values()) {
+            consumer.accept(term.segment, term.index, term.docFreq);
+        }
+    }
+
+    private static final class MergedTerm {
+        private final SegmentTerms segment;
+        private final int index;
+        private int docFreq;
+
+        private MergedTerm(SegmentTerms segment, int index, int docFreq) {
+            this.segment = segment;
+            this.index = index;
+            this.docFreq = docFreq;
+        }
+    }
+
+    @FunctionalInterface
+    interface TermConsumer {
+        void accept(String term, String surface, int docFreq);
+    }
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(SegmentTerms segment, int index, int docFreq);
+    }
+}
@@ -0,0 +1,69 @@
+package org.es.tok.suggest;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deduplicates concurrent computations of the same key: the first caller runs
+ * the loader and every caller that arrives while it is running waits for and
+ * shares its result (or its failure). Nothing is kept once the computation
+ * completes, so callers cache the result themselves, inside the loader, to
+ * cover callers that arrive just after it.
+ */
+public final class SingleFlight<K> {
+    private final ConcurrentHashMap<K, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws IOException;
+    }
+
+    public <V> V execute(K key, Loader<V> loader) throws IOException {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+
+        try {
+            V value = loader.load();
+            flight.complete(value);
+            return value;
+        } catch (IOException | RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /** Callers that shared another caller's computation instead of running their own. */
+    public long coalescedCount() {
+        return coalesced.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> V await(CompletableFuture<Object> running) throws IOException {
+        try {
+            return (V) running.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a concurrent computation of the same key");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw new IOException(ioException.getMessage(), ioException);
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw (Error) cause;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Request-scoped term statistics over one reader.
+ * <p>
+ * {@link IndexReader#docFreq} pulls a fresh {@link TermsEnum} from every leaf
+ * and seeks it from the root on each call. This keeps one enum per leaf and
+ * field for the life of the request, memoizes the statistics of every term it
+ * has looked up, and lets callers {@link #prefetch} a batch of terms in sorted
+ * order so consecutive seeks share the term dictionary blocks they walk.
+ * <p>
+ * Not thread safe; create one per request and share it between the suggester,
+ * query parser and relation scoring that serve that request.
+ */
+public final class TermStats {
+    private static final TermStatistic ABSENT = new TermStatistic(0, 0L);
+
+    private final IndexReader reader;
+    private final Map<String, TermsEnum[]> enumsByField = new HashMap<>();
+    private final Map<Term, TermStatistic> statistics = new HashMap<>();
+
+    public TermStats(IndexReader reader) {
+        this.reader = Objects.requireNonNull(reader, "reader");
+    }
+
+    public IndexReader reader() {
+        return reader;
+    }
+
+    /** Number of documents containing {@code term}, same as {@link IndexReader#docFreq}. */
+    public int docFreq(String field, String term) throws IOException {
+        return statistic(new Term(field, term)).docFreq();
+    }
+
+    /** Number of occurrences of {@code term}, same as {@link IndexReader#totalTermFreq}. */
+    public long totalTermFreq(String field, String term) throws IOException {
+        return statistic(new Term(field, term)).totalTermFreq();
+    }
+
+    /** Looks up every term of {@code terms} not looked up yet, in term order. */
+    public void prefetch(String field, Collection<String> terms) throws IOException {
+        List<Term> pending = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            if (term != null) {
+                Term key = new Term(field, term);
+                if (statistics.containsKey(key) == false) {
+                    pending.add(key);
+                }
+            }
+        }
+        pending.sort(null);
+        for (Term term : pending) {
+            statistic(term);
+        }
+    }
+
+    private TermStatistic statistic(Term term) throws IOException {
+        TermStatistic cached = statistics.get(term);
+        if (cached != null) {
+            return cached;
+        }
+        TermStatistic statistic = lookup(term.field(), term.bytes());
+        statistics.put(term, statistic);
+        return statistic;
+    }
+
+    private TermStatistic lookup(String field, BytesRef bytes) throws IOException {
+        int docFreq = 0;
+        long totalTermFreq = 0L;
+        for (TermsEnum termsEnum : termsEnums(field)) {
+            if (termsEnum != null && termsEnum.seekExact(bytes)) {
+                docFreq += termsEnum.docFreq();
+                totalTermFreq += termsEnum.totalTermFreq();
+            }
+        }
+        return docFreq == 0 ? ABSENT : new TermStatistic(docFreq, totalTermFreq);
+    }
+
+    /** One enum per leaf, null where the leaf has no terms for the field. */
+    private TermsEnum[] termsEnums(String field) throws IOException {
+        TermsEnum[] enums = enumsByField.get(field);
+        if (enums == null) {
+            List<LeafReaderContext> leaves = reader.leaves();
+            enums = new TermsEnum[leaves.size()];
+            for (int index = 0; index < enums.length; index++) {
+                Terms terms = leaves.get(index).reader().terms(field);
+                enums[index] = terms == null ? null : terms.iterator();
+            }
+            enumsByField.put(field, enums);
+        }
+        return enums;
+    }
+
+    private record TermStatistic(int docFreq, long totalTermFreq) {
+    }
+}
@@ -0,0 +1,131 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.TermVectors;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.BytesRef;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+
+/**
+ * Request-scoped reader of the tokens a document was indexed with, taken from
+ * stored term vectors.
+ * <p>
+ * Scoring a candidate by its topic tokens otherwise means running the field's
+ * analyzer over the source text of every candidate. A field mapped with
+ * {@code "term_vector"} keeps those tokens per document, so they can be read
+ * back instead. Tokens come out in the order of their first position when
+ * positions are stored, which is the order the analyzer produced them, and in
+ * term order otherwise. {@link #prefetch} loads the term vectors of a batch
+ * of hits in doc id order, so consecutive documents share decompressed blocks.
+ * <p>
+ * Not thread safe; create one per request.
+ */
+public final class TermVectorTokens {
+    private final List<LeafReaderContext> leaves;
+    private final TermVectors[] termVectors;
+    private final Map<Integer, Fields> fieldsByDoc = new HashMap<>();
+
+    public TermVectorTokens(IndexReader reader) {
+        this.leaves = Objects.requireNonNull(reader, "reader").leaves();
+        this.termVectors = new TermVectors[leaves.size()];
+    }
+
+    /** Loads the term vectors of {@code hits} in doc id order. */
+    public void prefetch(ScoreDoc[] hits) throws IOException {
+        prefetch(Arrays.asList(hits));
+    }
+
+    public void prefetch(Collection<ScoreDoc> hits) throws IOException {
+        int[] docs = new int[hits.size()];
+        int size = 0;
+        for (ScoreDoc hit : hits) {
+            docs[size++] = hit.doc;
+        }
+        Arrays.sort(docs, 0, size);
+        for (int index = 0; index < size; index++) {
+            int leafIndex = ReaderUtil.subIndex(docs[index], leaves);
+            if (leaves.get(leafIndex).reader().getFieldInfos().hasTermVectors()) {
+                fields(leafIndex, docs[index]);
+            }
+        }
+    }
+
+    /**
+     * Indexed tokens of {@code field} in {@code doc} with their frequency,
+     * mapped through {@code normalizer}; tokens that normalize to blank are
+     * dropped and tokens that normalize alike are summed. Returns {@code null}
+     * when the segment stores no term vectors for the field, in which case the
+     * caller has to analyze the source instead.
+     */
+    public Map<String, Integer> tokens(int doc, String field, UnaryOperator<String> normalizer) throws IOException {
+        int leafIndex = ReaderUtil.subIndex(doc, leaves);
+        LeafReaderContext leaf = leaves.get(leafIndex);
+        FieldInfo fieldInfo = leaf.reader().getFieldInfos().fieldInfo(field);
+        if (fieldInfo == null || fieldInfo.hasTermVectors() == false) {
+            return null;
+        }
+        Fields docFields = fields(leafIndex, doc);
+        Terms terms = docFields == null ? null : docFields.terms(field);
+        if (terms == null) {
+            return Map.of();
+        }
+        List<PositionedToken> indexed = new ArrayList<>();
+        TermsEnum termsEnum = terms.iterator();
+        PostingsEnum postings = null;
+        boolean hasPositions = terms.hasPositions();
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+            int freq = (int) termsEnum.totalTermFreq();
+            int firstPosition = indexed.size();
+            if (hasPositions) {
+                postings = termsEnum.postings(postings, PostingsEnum.POSITIONS);
+                postings.nextDoc();
+                firstPosition = postings.nextPosition();
+            }
+            indexed.add(new PositionedToken(term.utf8ToString(), firstPosition, freq));
+        }
+        indexed.sort(Comparator.comparingInt(PositionedToken::firstPosition));
+        Map<String, Integer> tokens = new LinkedHashMap<>();
+        for (PositionedToken token : indexed) {
+            String normalized = normalizer.apply(token.text());
+            if (normalized != null && normalized.isBlank() == false) {
+                tokens.merge(normalized, token.freq(), Integer::sum);
+            }
+        }
+        return tokens;
+    }
+
+    /** Term vectors of {@code doc}, or null when it has none; loaded once per request. */
+    private Fields fields(int leafIndex, int doc) throws IOException {
+        if (fieldsByDoc.containsKey(doc)) {
+            return fieldsByDoc.get(doc);
+        }
+        LeafReaderContext leaf = leaves.get(leafIndex);
+        if (termVectors[leafIndex] == null) {
+            termVectors[leafIndex] = leaf.reader().termVectors();
+        }
+        Fields fields = termVectors[leafIndex].get(doc - leaf.docBase);
+        fieldsByDoc.put(doc, fields);
+        return fields;
+    }
+
+    private record PositionedToken(String text, int firstPosition, int freq) {
+    }
+}
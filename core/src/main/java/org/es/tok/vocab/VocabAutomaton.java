@@ -0,0 +1,322 @@
+package org.es.tok.vocab;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Compact Aho-Corasick automaton over a vocab list, held entirely in primitive
+ * arrays.
+ *
+ * States are numbered breadth-first, so the children of every state occupy a
+ * contiguous id range whose edge labels are sorted; a transition is a binary
+ * search over that range (root transitions use a dense char-indexed table).
+ * A state costs 18 bytes, versus several hundred for the object graph of
+ * {@code org.ahocorasick.trie.Trie}, and matching walks a {@code char[]}
+ * without allocating per emit.
+ *
+ * The arrays are accessed through {@link IntBuffer}/{@link CharBuffer} views so
+ * the same automaton can live on heap (built from a word list) or off heap
+ * (memory-mapped from a compiled {@link VocabImage}).
+ */
+public final class VocabAutomaton {
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+    static final int ROOT_TABLE_SIZE = Character.MAX_VALUE + 1;
+
+    /** Receives every vocab occurrence as a {@code [start, end)} char range. */
+    @FunctionalInterface
+    public interface MatchHandler {
+        void onMatch(int start, int end);
+    }
+
+    private final IntBuffer rootNext;
+    private final IntBuffer childStart;
+    private final CharBuffer labels;
+    private final IntBuffer failure;
+    private final IntBuffer outputLink;
+    private final IntBuffer matchLength;
+    private final int keywordCount;
+
+    VocabAutomaton(IntBuffer rootNext, IntBuffer childStart, CharBuffer labels, IntBuffer failure,
+            IntBuffer outputLink, IntBuffer matchLength, int keywordCount) {
+        this.rootNext = rootNext;
+        this.childStart = childStart;
+        this.labels = labels;
+        this.failure = failure;
+        this.outputLink = outputLink;
+        this.matchLength = matchLength;
+        this.keywordCount = keywordCount;
+    }
+
+    /**
+     * Build an automaton from raw vocab words. Words are trimmed, blank words are
+     * skipped and duplicates collapse into a single keyword.
+     */
+    public static VocabAutomaton build(Collection<String> words) {
+        String[] keywords = new String[words.size()];
+        int count = 0;
+        for (String word : words) {
+            if (word == null) {
+                continue;
+            }
+            String trimmed = word.trim();
+            if (!trimmed.isEmpty()) {
+                keywords[count++] = trimmed;
+            }
+        }
+        Arrays.sort(keywords, 0, count);
+        int unique = 0;
+        for (int index = 0; index < count; index++) {
+            if (unique == 0 || !keywords[index].equals(keywords[unique - 1])) {
+                keywords[unique++] = keywords[index];
+            }
+        }
+        return fromSortedKeywords(keywords, unique);
+    }
+
+    /**
+     * Build from keywords that are already trimmed, non-empty, sorted by
+     * {@link String#compareTo} and free of duplicates.
+     */
+    static VocabAutomaton fromSortedKeywords(String[] keywords, int keywordCount) {
+        Builder builder = new Builder(Math.max(16, keywordCount * 2));
+        builder.addState(0, keywordCount, 0, NONE, '\0');
+
+        // Breadth-first expansion: each state owns the contiguous range of sorted
+        // keywords sharing its prefix, and its children are appended in label
+        // order, which keeps child id ranges contiguous and sorted.
+        for (int state = 0; state < builder.size; state++) {
+            int lo = builder.rangeLo[state];
+            int hi = builder.rangeHi[state];
+            int depth = builder.depth[state];
+            if (lo < hi && keywords[lo].length() == depth) {
+                builder.matchLength[state] = depth;
+                lo++;
+            }
+            builder.childStart[state] = builder.size;
+            int index = lo;
+            while (index < hi) {
+                char label = keywords[index].charAt(depth);
+                int next = index + 1;
+                while (next < hi && keywords[next].charAt(depth) == label) {
+                    next++;
+                }
+                builder.addState(index, next, depth + 1, state, label);
+                index = next;
+            }
+        }
+        return builder.finish(keywordCount);
+    }
+
+    /**
+     * Report every vocab occurrence in {@code text[offset, offset + length)}.
+     * Matches are reported in order of their end offset, longest first; offsets
+     * are indexes into {@code text}.
+     */
+    public void match(char[] text, int offset, int length, MatchHandler handler) {
+        int state = ROOT;
+        int end = offset + length;
+        for (int index = offset; index < end; index++) {
+            state = next(state, text[index]);
+            int emitState = matchLength.get(state) > 0 ? state : outputLink.get(state);
+            while (emitState != NONE) {
+                handler.onMatch(index + 1 - matchLength.get(emitState), index + 1);
+                emitState = outputLink.get(emitState);
+            }
+        }
+    }
+
+    public int getKeywordCount() {
+        return keywordCount;
+    }
+
+    public int getStateCount() {
+        return labels.capacity();
+    }
+
+    /** Whether the automaton arrays live off heap in a memory-mapped image. */
+    public boolean isMapped() {
+        return labels.isDirect();
+    }
+
+    /** Approximate heap footprint of the automaton arrays, in bytes (0 when mapped). */
+    public long ramBytesUsed() {
+        return heapBytes(rootNext) + heapBytes(childStart) + heapBytes(failure) + heapBytes(outputLink)
+                + heapBytes(matchLength) + (labels.isDirect() ? 0L : (long) labels.capacity() * Character.BYTES);
+    }
+
+    IntBuffer rootNext() {
+        return rootNext.duplicate();
+    }
+
+    IntBuffer childStart() {
+        return childStart.duplicate();
+    }
+
+    CharBuffer labels() {
+        return labels.duplicate();
+    }
+
+    IntBuffer failure() {
+        return failure.duplicate();
+    }
+
+    IntBuffer outputLink() {
+        return outputLink.duplicate();
+    }
+
+    IntBuffer matchLength() {
+        return matchLength.duplicate();
+    }
+
+    private static long heapBytes(IntBuffer buffer) {
+        return buffer.isDirect() ? 0L : (long) buffer.capacity() * Integer.BYTES;
+    }
+
+    private int next(int state, char c) {
+        while (true) {
+            int child = child(state, c);
+            if (child != NONE) {
+                return child;
+            }
+            if (state == ROOT) {
+                return ROOT;
+            }
+            state = failure.get(state);
+        }
+    }
+
+    private int child(int state, char c) {
+        if (state == ROOT) {
+            int child = rootNext.get(c);
+            return child == ROOT ? NONE : child;
+        }
+        int lo = childStart.get(state);
+        int hi = childStart.get(state + 1) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char label = labels.get(mid);
+            if (label < c) {
+                lo = mid + 1;
+            } else if (label > c) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NONE;
+    }
+
+    private static int child(int[] childStart, char[] labels, int state, char c) {
+        int lo = childStart[state];
+        int hi = childStart[state + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char label = labels[mid];
+            if (label < c) {
+                lo = mid + 1;
+            } else if (label > c) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NONE;
+    }
+
+    private static final class Builder {
+        private int size;
+        private int[] rangeLo;
+        private int[] rangeHi;
+        private int[] depth;
+        private int[] parent;
+        private char[] labels;
+        private int[] childStart;
+        private int[] matchLength;
+
+        private Builder(int capacity) {
+            rangeLo = new int[capacity];
+            rangeHi = new int[capacity];
+            depth = new int[capacity];
+            parent = new int[capacity];
+            labels = new char[capacity];
+            childStart = new int[capacity + 1];
+            matchLength = new int[capacity];
+        }
+
+        private void addState(int lo, int hi, int stateDepth, int parentState, char label) {
+            if (size == labels.length) {
+                int capacity = size + (size >> 1) + 16;
+                rangeLo = Arrays.copyOf(rangeLo, capacity);
+                rangeHi = Arrays.copyOf(rangeHi, capacity);
+                depth = Arrays.copyOf(depth, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                labels = Arrays.copyOf(labels, capacity);
+                childStart = Arrays.copyOf(childStart, capacity + 1);
+                matchLength = Arrays.copyOf(matchLength, capacity);
+            }
+            rangeLo[size] = lo;
+            rangeHi[size] = hi;
+            depth[size] = stateDepth;
+            parent[size] = parentState;
+            labels[size] = label;
+            size++;
+        }
+
+        private VocabAutomaton finish(int keywordCount) {
+            // Release the build-only arrays before allocating the final ones.
+            rangeLo = null;
+            rangeHi = null;
+            depth = null;
+
+            int[] finalChildStart = Arrays.copyOf(childStart, size + 1);
+            finalChildStart[size] = size;
+            char[] finalLabels = Arrays.copyOf(labels, size);
+            int[] finalMatchLength = Arrays.copyOf(matchLength, size);
+            childStart = null;
+            labels = null;
+            matchLength = null;
+
+            int[] rootNext = new int[ROOT_TABLE_SIZE];
+            for (int state = finalChildStart[ROOT]; state < finalChildStart[ROOT + 1]; state++) {
+                rootNext[finalLabels[state]] = state;
+            }
+
+            int[] failure = new int[size];
+            int[] outputLink = new int[size];
+            outputLink[ROOT] = NONE;
+            // Parents always precede children in breadth-first order, so every
+            // failure target is resolved before it is needed.
+            for (int state = 1; state < size; state++) {
+                int parentState = parent[state];
+                char label = finalLabels[state];
+                int target = ROOT;
+                if (parentState != ROOT) {
+                    int fallback = failure[parentState];
+                    while (true) {
+                        int child = fallback == ROOT
+                                ? (rootNext[label] == ROOT ? NONE : rootNext[label])
+                                : child(finalChildStart, finalLabels, fallback, label);
+                        if (child != NONE) {
+                            target = child;
+                            break;
+                        }
+                        if (fallback == ROOT) {
+                            break;
+                        }
+                        fallback = failure[fallback];
+                    }
+                }
+                failure[state] = target;
+                outputLink[state] = finalMatchLength[target] > 0 ? target : outputLink[target];
+            }
+            parent = null;
+
+            return new VocabAutomaton(IntBuffer.wrap(rootNext), IntBuffer.wrap(finalChildStart),
+                    CharBuffer.wrap(finalLabels), IntBuffer.wrap(failure), IntBuffer.wrap(outputLink),
+                    IntBuffer.wrap(finalMatchLength), keywordCount);
+        }
+    }
+}
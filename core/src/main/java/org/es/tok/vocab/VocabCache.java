@@ -13,8 +13,14 @@ import java.util.concurrent.ConcurrentHashMap;
 
 public class VocabCache {
     private static final ConcurrentHashMap<String, CachedVocab> cache = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Path, CachedImage> imageCache = new ConcurrentHashMap<>();
 
     public static List<String> loadVocabsWithCache(Settings settings, Environment environment) {
+        return loadVocabEntryWithCache(settings, environment).vocabs();
+    }
+
+    /** Load and register the configured vocab list, sharing it with other settings that load the same words. */
+    public static VocabRegistry.Entry loadVocabEntryWithCache(Settings settings, Environment environment) {
         // Create a cache key based on the vocab configuration
         String cacheKey = createCacheKey(settings, environment);
 
@@ -22,18 +28,22 @@ public class VocabCache {
         // This prevents multiple concurrent requests from all loading vocabs
         // simultaneously
         CachedVocab cached = cache.computeIfAbsent(cacheKey,
-                k -> new CachedVocab(VocabFileLoader.loadVocabsInternal(settings, environment), settings,
-                        environment));
+                k -> new CachedVocab(loadAndRegister(settings, environment), k, settings, environment));
 
         // Check if the cached entry is still valid (e.g., file not modified)
-        if (!cached.isValid(settings, environment)) {
-            CachedVocab newCached = new CachedVocab(VocabFileLoader.loadVocabsInternal(settings, environment),
-                    settings, environment);
+        if (!cached.isValid(cacheKey, environment)) {
+            CachedVocab newCached = new CachedVocab(loadAndRegister(settings, environment), cacheKey, settings,
+                    environment);
             cache.put(cacheKey, newCached);
-            return newCached.vocabs;
+            return newCached.entry;
         }
 
-        return cached.vocabs;
+        return cached.entry;
+    }
+
+    private static VocabRegistry.Entry loadAndRegister(Settings settings, Environment environment) {
+        VocabRegistry.Entry loaded = VocabFileLoader.loadVocabEntryInternal(settings, environment);
+        return VocabRegistry.register(loaded.fingerprint(), loaded.vocabs());
     }
 
     private static String createCacheKey(Settings settings, Environment environment) {
@@ -50,10 +60,11 @@ public class VocabCache {
                 keyBuilder.append("file:").append(file).append("|");
             }
 
-            // Include list contents
+            // Include the list by its fingerprint rather than its contents
             List<String> list = vocabConfig.getAsList("list");
             if (!list.isEmpty()) {
-                keyBuilder.append("list:").append(String.join(",", list)).append("|");
+                keyBuilder.append("list:").append(list.size()).append(":")
+                        .append(VocabFingerprint.of(list)).append("|");
             }
 
             // Include size
@@ -67,23 +78,59 @@ public class VocabCache {
         return keyBuilder.toString();
     }
 
+    /**
+     * Open a compiled vocab image once per path and share the mapping. The image
+     * is re-mapped when the file's modification time changes, e.g. after a new
+     * compile was moved into place.
+     */
+    public static VocabImage loadImageWithCache(Path imagePath) {
+        FileTime lastModified = lastModifiedOrNull(imagePath);
+        CachedImage cached = imageCache.compute(imagePath, (path, existing) -> {
+            if (existing != null && Objects.equals(existing.fileLastModified, lastModified)) {
+                return existing;
+            }
+            return new CachedImage(VocabImage.open(path), lastModified);
+        });
+        return cached.image;
+    }
+
     public static void clearCache() {
         cache.clear();
+        imageCache.clear();
+        VocabRegistry.clear();
     }
 
     public static int getCacheSize() {
         return cache.size();
     }
 
+    private static FileTime lastModifiedOrNull(Path path) {
+        try {
+            return Files.exists(path) ? Files.getLastModifiedTime(path) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static class CachedImage {
+        final VocabImage image;
+        final FileTime fileLastModified;
+
+        CachedImage(VocabImage image, FileTime fileLastModified) {
+            this.image = image;
+            this.fileLastModified = fileLastModified;
+        }
+    }
+
     private static class CachedVocab {
-        final List<String> vocabs;
+        final VocabRegistry.Entry entry;
         final String configHash;
         final FileTime fileLastModified;
         final String filePath;
 
-        CachedVocab(List<String> vocabs, Settings settings, Environment environment) {
-            this.vocabs = vocabs;
-            this.configHash = createCacheKey(settings, environment);
+        CachedVocab(VocabRegistry.Entry entry, String configHash, Settings settings, Environment environment) {
+            this.entry = entry;
+            this.configHash = configHash;
 
             // Track file modification time if a file is used
             Settings vocabConfig = settings.getAsSettings("vocab_config");
@@ -108,9 +155,8 @@ public class VocabCache {
             this.fileLastModified = lastModified;
         }
 
-        boolean isValid(Settings settings, Environment environment) {
+        boolean isValid(String currentConfigHash, Environment environment) {
             // Check if configuration has changed
-            String currentConfigHash = createCacheKey(settings, environment);
             if (!Objects.equals(this.configHash, currentConfigHash)) {
                 return false;
             }
@@ -7,6 +7,10 @@ import java.util.List;
 public class VocabConfig {
     private final boolean useVocab;
     private final List<String> vocabs;
+    private final VocabImage image;
+    // Fingerprint of the vocab content; known up front when the list came from
+    // the VocabRegistry, otherwise computed once on first use.
+    private volatile String vocabHash;
 
     // Lazily-initialized cached VocabStrategy; volatile for thread-safe
     // double-checked read. VocabStrategy.getOrCreate() itself is thread-safe
@@ -15,8 +19,29 @@ public class VocabConfig {
     private volatile VocabStrategy cachedStrategy;
 
     public VocabConfig(boolean useVocab, List<String> vocabs) {
+        this(useVocab, vocabs, null);
+    }
+
+    public VocabConfig(boolean useVocab, List<String> vocabs, String vocabHash) {
         this.useVocab = useVocab;
         this.vocabs = vocabs;
+        this.image = null;
+        this.vocabHash = vocabHash;
+    }
+
+    public VocabConfig(boolean useVocab, VocabRegistry.Entry entry) {
+        this(useVocab, entry.vocabs(), entry.fingerprint());
+    }
+
+    /**
+     * Config backed by a compiled, memory-mapped vocab image. The word list is
+     * never materialized; {@link #getVocabs()} returns an empty list.
+     */
+    public VocabConfig(boolean useVocab, VocabImage image) {
+        this.useVocab = useVocab;
+        this.vocabs = List.of();
+        this.image = image;
+        this.vocabHash = image.getFingerprint();
     }
 
     public boolean isUseVocab() {
@@ -27,29 +52,54 @@ public class VocabConfig {
         return vocabs;
     }
 
+    public VocabImage getImage() {
+        return image;
+    }
+
+    /**
+     * Content fingerprint of the vocab ({@link VocabFingerprint}), or
+     * {@code "disabled"} when there are no vocabs.
+     */
+    public String getVocabHash() {
+        String hash = vocabHash;
+        if (hash == null) {
+            hash = VocabFingerprint.of(vocabs);
+            vocabHash = hash;
+        }
+        return hash;
+    }
+
+    public boolean hasVocabs() {
+        return image != null || (vocabs != null && !vocabs.isEmpty());
+    }
+
     /**
      * Get or create a globally-cached VocabStrategy for this config's vocab list.
-     * The Aho-Corasick Trie is shared across all indexes and REST calls that use
-     * the same vocab list — building it is expensive (1-4 GB for millions of
-     * words), so this avoids duplicate construction and OOM.
+     * The vocab automaton is shared across all indexes and REST calls that use
+     * the same vocab list — building it is expensive (a few hundred MB for
+     * millions of words), so this avoids duplicate construction and OOM.
      *
      * @return a shared VocabStrategy, or null if vocab is disabled / empty.
      */
     public VocabStrategy getOrCreateStrategy() {
-        if (!useVocab || vocabs == null || vocabs.isEmpty()) {
+        if (!useVocab || !hasVocabs()) {
             return null;
         }
         VocabStrategy s = cachedStrategy;
         if (s != null) {
             return s;
         }
-        s = VocabStrategy.getOrCreate(vocabs);
+        s = image != null ? new VocabStrategy(image.getAutomaton()) : VocabStrategy.getOrCreate(getVocabHash(), vocabs);
         cachedStrategy = s;
         return s;
     }
 
     @Override
     public String toString() {
+        if (image != null) {
+            return String.format("VocabConfig{useVocab=%s, image=%s, vocabs=%d terms}",
+                    useVocab, image.getPath(), image.getAutomaton().getKeywordCount());
+        }
         return String.format("VocabConfig{useVocab=%s, vocabs=%d terms}",
                 useVocab, vocabs != null ? vocabs.size() : 0);
     }
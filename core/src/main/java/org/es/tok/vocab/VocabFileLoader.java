@@ -12,6 +12,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Stream;
 
@@ -28,27 +29,65 @@ public class VocabFileLoader {
     }
 
     public static List<String> loadVocabs(Settings settings, Environment environment, boolean useCache) {
+        return loadVocabEntry(settings, environment, useCache).vocabs();
+    }
+
+    /**
+     * Load the configured vocab list together with its fingerprint, which is
+     * computed while the words are read. With {@code useCache} the list is also
+     * registered in {@link VocabRegistry} and shared with other settings that
+     * load the same words.
+     */
+    public static VocabRegistry.Entry loadVocabEntry(Settings settings, Environment environment, boolean useCache) {
         if (useCache) {
-            return VocabCache.loadVocabsWithCache(settings, environment);
+            return VocabCache.loadVocabEntryWithCache(settings, environment);
         } else {
-            return loadVocabsInternal(settings, environment);
+            return loadVocabEntryInternal(settings, environment);
+        }
+    }
+
+    static boolean hasVocabImage(Settings settings) {
+        String image = settings.get("vocab_config.image");
+        return image != null && !image.trim().isEmpty();
+    }
+
+    /**
+     * Open the compiled vocab image named by {@code vocab_config.image}. An image
+     * already is the whole dictionary, so it cannot be combined with
+     * {@code list}, {@code file} or {@code size}; compile those into the image
+     * instead.
+     */
+    public static VocabImage loadVocabImage(Settings settings, Environment environment, boolean useCache) {
+        Settings vocabConfig = settings.getAsSettings("vocab_config");
+        if (!vocabConfig.getAsList("list").isEmpty() || vocabConfig.get("file") != null
+                || vocabConfig.get("size") != null) {
+            throw new IllegalArgumentException(
+                    "vocab_config.image cannot be combined with vocab_config.list, file or size");
+        }
+        Path imagePath = getVocabFileFullPath(vocabConfig.get("image").trim(), environment);
+        if (useCache) {
+            return VocabCache.loadImageWithCache(imagePath);
         }
+        return VocabImage.open(imagePath);
     }
 
-    static List<String> loadVocabsInternal(Settings settings, Environment environment) {
+    static VocabRegistry.Entry loadVocabEntryInternal(Settings settings, Environment environment) {
         boolean useVocab = settings.getAsBoolean("use_vocab", true);
         if (!useVocab) {
-            return new ArrayList<>();
+            return VocabRegistry.Entry.EMPTY;
         }
         Settings vocabConfig = settings.getAsSettings("vocab_config");
         if (vocabConfig == null || vocabConfig.isEmpty()) {
             // No vocab config provided — return empty list.
             // Default vocabs must be explicitly configured via vocab_config.file
-            // to avoid accidentally loading 2.68M words (which builds a ~1-4GB Trie).
-            return new ArrayList<>();
+            // to avoid accidentally loading 2.68M words (which builds a multi-hundred-MB automaton).
+            return VocabRegistry.Entry.EMPTY;
         }
-        List<String> vocabs = loadVocabsFromConfigInEnv(vocabConfig, environment);
-        return vocabs;
+        VocabCollector collector = loadVocabsFromConfigInEnv(vocabConfig, environment);
+        if (collector.vocabs.isEmpty()) {
+            return VocabRegistry.Entry.EMPTY;
+        }
+        return new VocabRegistry.Entry(collector.fingerprint.finish(), Collections.unmodifiableList(collector.vocabs));
     }
 
     /**
@@ -56,7 +95,7 @@ public class VocabFileLoader {
      * Uses double-checked locking to ensure vocabs are loaded only once
      * (thread-safe singleton).
      * This prevents OOM from concurrent REST requests each building their own
-     * Aho-Corasick trie.
+     * vocab automaton.
      */
     static List<String> loadDefaultVocabs() {
         List<String> cached = cachedDefaultVocabs;
@@ -148,75 +187,88 @@ public class VocabFileLoader {
         }
     }
 
-    private static List<String> loadVocabsFromConfigInEnv(Settings vocabConfig, Environment environment) {
-        List<String> allVocabs = new ArrayList<>();
-
-        // Handle case where no vocab_config is provided
-        if (vocabConfig == null) {
-            return allVocabs; // Return empty list
-        }
+    private static VocabCollector loadVocabsFromConfigInEnv(Settings vocabConfig, Environment environment) {
+        // The size limit keeps the first `size` words of list + file, so words
+        // past it are never read.
+        VocabCollector collector = new VocabCollector(vocabConfig.getAsInt("size", -1));
 
         // Load vocabs from "list"
-        List<String> listVocabs = vocabConfig.getAsList("list", Arrays.asList());
-        allVocabs.addAll(listVocabs);
+        for (String word : vocabConfig.getAsList("list", Arrays.asList())) {
+            collector.add(word);
+        }
 
         // Load vocabs from "file"
         String vocabFile = vocabConfig.get("file");
         if (vocabFile != null && !vocabFile.trim().isEmpty()) {
             Path filePath = getVocabFileFullPath(vocabFile, environment);
-            List<String> fileVocabs;
             if (Files.exists(filePath)) {
-                fileVocabs = loadVocabsFromFilePath(filePath);
+                try (BufferedReader reader = Files.newBufferedReader(filePath, StandardCharsets.UTF_8)) {
+                    collectVocabLines(reader, collector);
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to load vocab file: " + filePath, e);
+                }
             } else {
                 // Fallback: try loading from classpath (inside JAR)
-                fileVocabs = loadVocabsFromClasspathFile(vocabFile, -1);
-                if (fileVocabs.isEmpty()) {
+                boolean found = false;
+                try (InputStream is = VocabFileLoader.class.getResourceAsStream("/" + vocabFile)) {
+                    if (is != null) {
+                        found = collectVocabLines(
+                                new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8)), collector);
+                    }
+                } catch (IOException e) {
+                    found = false;
+                }
+                if (!found) {
                     throw new IllegalArgumentException(
                             "vocab file not exist: [%s] (also not found in classpath)".formatted(filePath));
                 }
             }
-            allVocabs.addAll(fileVocabs);
         }
 
-        // Apply size limit if specified
-        int size = vocabConfig.getAsInt("size", -1);
-        if (size >= 0 && size < allVocabs.size()) {
-            return allVocabs.subList(0, size);
-        }
-
-        return allVocabs;
+        return collector;
     }
 
     /**
-     * Load vocabs from classpath by filename, with optional size limit.
-     * Used as fallback when file is not found at plugin directory path.
+     * Feed the word of every {@code word[,score...]} line to {@code collector}
+     * until it is full. Returns whether the source held at least one word.
      */
-    static List<String> loadVocabsFromClasspathFile(String filename, int sizeLimit) {
-        try (InputStream is = VocabFileLoader.class.getResourceAsStream("/" + filename)) {
-            if (is == null) {
-                return new ArrayList<>();
+    private static boolean collectVocabLines(BufferedReader reader, VocabCollector collector) throws IOException {
+        boolean hasWord = false;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (hasWord && collector.isFull()) {
+                break;
             }
-            List<String> vocabs = new ArrayList<>();
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8))) {
-                String line;
-                int count = 0;
-                while ((line = reader.readLine()) != null) {
-                    if (sizeLimit >= 0 && count >= sizeLimit) {
-                        break;
-                    }
-                    String[] parts = line.split(",");
-                    if (parts.length > 0) {
-                        String word = parts[0].trim();
-                        if (!word.isEmpty()) {
-                            vocabs.add(word);
-                            count++;
-                        }
-                    }
-                }
+            int comma = line.indexOf(',');
+            String word = (comma >= 0 ? line.substring(0, comma) : line).trim();
+            if (!word.isEmpty()) {
+                hasWord = true;
+                collector.add(word);
             }
-            return vocabs;
-        } catch (IOException e) {
-            return new ArrayList<>();
+        }
+        return hasWord;
+    }
+
+    /** Accumulates words up to a size limit, fingerprinting them on the way. */
+    private static final class VocabCollector {
+        private final List<String> vocabs = new ArrayList<>();
+        private final VocabFingerprint fingerprint = new VocabFingerprint();
+        private final int sizeLimit;
+
+        private VocabCollector(int sizeLimit) {
+            this.sizeLimit = sizeLimit;
+        }
+
+        private boolean isFull() {
+            return sizeLimit >= 0 && vocabs.size() >= sizeLimit;
+        }
+
+        private void add(String word) {
+            if (isFull()) {
+                return;
+            }
+            vocabs.add(word);
+            fingerprint.add(word);
         }
     }
 
@@ -0,0 +1,59 @@
+package org.es.tok.vocab;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * Streaming vocab fingerprint: the first 8 bytes of the SHA-256 of all words
+ * joined by {@code \u001f}, rendered as hex. Words are fed one at a time so the
+ * fingerprint can be computed while a vocab source is being read.
+ */
+public final class VocabFingerprint {
+    public static final String DISABLED = "disabled";
+
+    private static final byte SEPARATOR = 0x1f;
+
+    private final MessageDigest digest;
+    private int count;
+
+    public VocabFingerprint() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static String of(List<String> words) {
+        if (words == null || words.isEmpty()) {
+            return DISABLED;
+        }
+        VocabFingerprint fingerprint = new VocabFingerprint();
+        for (String word : words) {
+            fingerprint.add(word);
+        }
+        return fingerprint.finish();
+    }
+
+    public void add(String word) {
+        if (count > 0) {
+            digest.update(SEPARATOR);
+        }
+        digest.update(String.valueOf(word).getBytes(StandardCharsets.UTF_8));
+        count++;
+    }
+
+    public String finish() {
+        if (count == 0) {
+            return DISABLED;
+        }
+        byte[] hash = digest.digest();
+        StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < 8; index++) {
+            builder.append(String.format("%02x", hash[index]));
+        }
+        return builder.toString();
+    }
+}
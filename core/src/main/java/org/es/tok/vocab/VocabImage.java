@@ -0,0 +1,194 @@
+package org.es.tok.vocab;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Compiled, versioned binary vocab dictionary.
+ *
+ * An image holds a fully built {@link VocabAutomaton} plus the fingerprint of
+ * the source word list. Opening an image memory-maps it read-only, so startup
+ * does not re-read or re-index the text vocab and the pages are shared by the
+ * OS page cache across JVMs on the same host.
+ *
+ * Layout (little-endian): a 64-byte header (magic, format version, keyword
+ * count, state count, 16-char fingerprint) followed by the automaton sections
+ * childStart, failure, outputLink, matchLength, rootNext and labels.
+ */
+public final class VocabImage {
+    public static final int FORMAT_VERSION = 1;
+
+    private static final long MAGIC = 0x434F564B4F545345L; // "ESTOKVOC" read little-endian
+    private static final int HEADER_BYTES = 64;
+    private static final int FINGERPRINT_OFFSET = 24;
+    private static final int FINGERPRINT_BYTES = 16;
+
+    private final Path path;
+    private final VocabAutomaton automaton;
+    private final String fingerprint;
+
+    private VocabImage(Path path, VocabAutomaton automaton, String fingerprint) {
+        this.path = path;
+        this.automaton = automaton;
+        this.fingerprint = fingerprint;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public VocabAutomaton getAutomaton() {
+        return automaton;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Compile a word list into an image at {@code target}. The image is written
+     * to a sibling temp file and moved into place, so nodes that still map the
+     * previous image keep reading a consistent file.
+     */
+    public static VocabImage compile(List<String> words, Path target) throws IOException {
+        VocabAutomaton automaton = VocabAutomaton.build(words);
+        String fingerprint = VocabFingerprint.of(words);
+        write(automaton, fingerprint, target);
+        return new VocabImage(target, automaton, fingerprint);
+    }
+
+    static void write(VocabAutomaton automaton, String fingerprint, Path target) throws IOException {
+        byte[] fingerprintBytes = fingerprint.getBytes(StandardCharsets.US_ASCII);
+        if (fingerprintBytes.length != FINGERPRINT_BYTES) {
+            throw new IllegalArgumentException("vocab image requires a non-empty vocab: [%s]".formatted(target));
+        }
+
+        int stateCount = automaton.getStateCount();
+        long size = imageSize(stateCount);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("vocab image too large: %d bytes".formatted(size));
+        }
+
+        Path absoluteTarget = target.toAbsolutePath();
+        if (absoluteTarget.getParent() != null) {
+            Files.createDirectories(absoluteTarget.getParent());
+        }
+        Path temp = Files.createTempFile(absoluteTarget.getParent(), absoluteTarget.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putLong(MAGIC);
+                buffer.putInt(FORMAT_VERSION);
+                buffer.putInt(automaton.getKeywordCount());
+                buffer.putInt(stateCount);
+                buffer.putInt(0);
+                buffer.put(fingerprintBytes);
+
+                int offset = HEADER_BYTES;
+                offset = putInts(buffer, offset, automaton.childStart());
+                offset = putInts(buffer, offset, automaton.failure());
+                offset = putInts(buffer, offset, automaton.outputLink());
+                offset = putInts(buffer, offset, automaton.matchLength());
+                offset = putInts(buffer, offset, automaton.rootNext());
+                CharBuffer labels = automaton.labels();
+                labels.rewind();
+                buffer.slice(offset, labels.remaining() * Character.BYTES)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .asCharBuffer()
+                        .put(labels);
+                buffer.force();
+            }
+            Files.move(temp, absoluteTarget, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Memory-map a compiled image. The returned automaton reads directly from the
+     * mapping; no dictionary data is copied onto the heap.
+     */
+    public static VocabImage open(Path path) {
+        if (!Files.exists(path)) {
+            throw new IllegalArgumentException("vocab image not exist: [%s]".formatted(path));
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES || fileSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("invalid vocab image size: [%s]".formatted(path));
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (buffer.getLong(0) != MAGIC) {
+                throw new IllegalArgumentException("not a vocab image: [%s]".formatted(path));
+            }
+            int formatVersion = buffer.getInt(8);
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IllegalArgumentException("unsupported vocab image version [%d] in [%s], expected [%d]"
+                        .formatted(formatVersion, path, FORMAT_VERSION));
+            }
+            int keywordCount = buffer.getInt(12);
+            int stateCount = buffer.getInt(16);
+            if (stateCount < 1 || imageSize(stateCount) != fileSize) {
+                throw new IllegalArgumentException("truncated or corrupt vocab image: [%s]".formatted(path));
+            }
+            byte[] fingerprintBytes = new byte[FINGERPRINT_BYTES];
+            buffer.get(FINGERPRINT_OFFSET, fingerprintBytes);
+            String fingerprint = new String(fingerprintBytes, StandardCharsets.US_ASCII);
+
+            int offset = HEADER_BYTES;
+            IntBuffer childStart = intView(buffer, offset, stateCount + 1);
+            offset += (stateCount + 1) * Integer.BYTES;
+            IntBuffer failure = intView(buffer, offset, stateCount);
+            offset += stateCount * Integer.BYTES;
+            IntBuffer outputLink = intView(buffer, offset, stateCount);
+            offset += stateCount * Integer.BYTES;
+            IntBuffer matchLength = intView(buffer, offset, stateCount);
+            offset += stateCount * Integer.BYTES;
+            IntBuffer rootNext = intView(buffer, offset, VocabAutomaton.ROOT_TABLE_SIZE);
+            offset += VocabAutomaton.ROOT_TABLE_SIZE * Integer.BYTES;
+            CharBuffer labels = buffer.slice(offset, stateCount * Character.BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .asCharBuffer();
+
+            VocabAutomaton automaton = new VocabAutomaton(rootNext, childStart, labels, failure, outputLink,
+                    matchLength, keywordCount);
+            return new VocabImage(path, automaton, fingerprint);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open vocab image: " + path, e);
+        }
+    }
+
+    private static long imageSize(int stateCount) {
+        return HEADER_BYTES
+                + (long) (stateCount + 1) * Integer.BYTES
+                + 3L * stateCount * Integer.BYTES
+                + (long) VocabAutomaton.ROOT_TABLE_SIZE * Integer.BYTES
+                + (long) stateCount * Character.BYTES;
+    }
+
+    private static int putInts(ByteBuffer buffer, int offset, IntBuffer values) {
+        values.rewind();
+        int length = values.remaining() * Integer.BYTES;
+        buffer.slice(offset, length).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(values);
+        return offset + length;
+    }
+
+    private static IntBuffer intView(ByteBuffer buffer, int offset, int count) {
+        return buffer.slice(offset, count * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+    }
+}
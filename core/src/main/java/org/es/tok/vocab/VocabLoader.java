@@ -3,8 +3,6 @@ package org.es.tok.vocab;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.env.Environment;
 
-import java.util.List;
-
 public class VocabLoader {
     public static VocabConfig loadVocabConfig(Settings settings, Environment environment) {
         return loadVocabConfig(settings, environment, false);
@@ -13,8 +11,12 @@ public class VocabLoader {
     public static VocabConfig loadVocabConfig(Settings settings, Environment environment, boolean useCache) {
         boolean useVocab = settings.getAsBoolean("use_vocab", true);
 
-        List<String> vocabs = VocabFileLoader.loadVocabs(settings, environment, useCache);
+        if (useVocab && VocabFileLoader.hasVocabImage(settings)) {
+            return new VocabConfig(true, VocabFileLoader.loadVocabImage(settings, environment, useCache));
+        }
+
+        VocabRegistry.Entry entry = VocabFileLoader.loadVocabEntry(settings, environment, useCache);
 
-        return new VocabConfig(useVocab, vocabs);
+        return new VocabConfig(useVocab, entry);
     }
 }
\ No newline at end of file
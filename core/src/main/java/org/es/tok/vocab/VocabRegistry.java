@@ -0,0 +1,112 @@
+package org.es.tok.vocab;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-level, content-addressed registry of loaded vocab lists.
+ *
+ * Every dictionary is registered under its {@link VocabFingerprint}, computed
+ * once while the words are streamed in. The fingerprint is then the identity
+ * used everywhere else (VocabCache entries, the shared VocabStrategy cache,
+ * AnalysisVersion), so nothing re-hashes or re-compares millions of words per
+ * request, and two settings that load the same words share one list.
+ *
+ * Only lists loaded with {@code use_cache} are registered, and the registry
+ * holds them weakly: a list stays registered while an analyzer or the vocab
+ * cache still uses it, and its fingerprint is dropped once nothing does.
+ */
+public final class VocabRegistry {
+    private static final ConcurrentHashMap<String, RegisteredVocabs> entries = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<List<String>> collected = new ReferenceQueue<>();
+
+    /** A registered vocab list and its fingerprint. */
+    public record Entry(String fingerprint, List<String> vocabs) {
+        public static final Entry EMPTY = new Entry(VocabFingerprint.DISABLED, List.of());
+
+        public boolean isEmpty() {
+            return vocabs.isEmpty();
+        }
+    }
+
+    private VocabRegistry() {
+    }
+
+    /**
+     * Register a list whose fingerprint was already computed. If the same content
+     * is registered already, the existing entry (and list instance) is returned.
+     */
+    public static Entry register(String fingerprint, List<String> vocabs) {
+        if (vocabs == null || vocabs.isEmpty()) {
+            return Entry.EMPTY;
+        }
+        expungeCollected();
+        List<String> registered = entries.compute(fingerprint, (key, existing) -> {
+            if (existing != null && existing.get() != null) {
+                return existing;
+            }
+            return new RegisteredVocabs(key, Collections.unmodifiableList(vocabs), collected);
+        }).get();
+        // A list that was collected after compute returned is registered again
+        return registered != null ? new Entry(fingerprint, registered) : register(fingerprint, vocabs);
+    }
+
+    public static Entry register(List<String> vocabs) {
+        if (vocabs == null || vocabs.isEmpty()) {
+            return Entry.EMPTY;
+        }
+        return register(VocabFingerprint.of(vocabs), vocabs);
+    }
+
+    /** The registered entry of {@code fingerprint}, or {@code null} if none is in use. */
+    public static Entry get(String fingerprint) {
+        RegisteredVocabs registered = entries.get(fingerprint);
+        List<String> vocabs = registered == null ? null : registered.get();
+        return vocabs == null ? null : new Entry(fingerprint, vocabs);
+    }
+
+    /** Fingerprints of all registered vocabs still in use, sorted. */
+    public static List<String> fingerprints() {
+        expungeCollected();
+        List<String> fingerprints = new ArrayList<>();
+        for (Map.Entry<String, RegisteredVocabs> entry : entries.entrySet()) {
+            if (entry.getValue().get() != null) {
+                fingerprints.add(entry.getKey());
+            }
+        }
+        Collections.sort(fingerprints);
+        return fingerprints;
+    }
+
+    public static int size() {
+        expungeCollected();
+        return entries.size();
+    }
+
+    public static void clear() {
+        entries.clear();
+    }
+
+    private static void expungeCollected() {
+        Reference<? extends List<String>> reference;
+        while ((reference = collected.poll()) != null) {
+            RegisteredVocabs registered = (RegisteredVocabs) reference;
+            entries.remove(registered.fingerprint, registered);
+        }
+    }
+
+    private static final class RegisteredVocabs extends WeakReference<List<String>> {
+        private final String fingerprint;
+
+        private RegisteredVocabs(String fingerprint, List<String> vocabs, ReferenceQueue<List<String>> queue) {
+            super(vocabs, queue);
+            this.fingerprint = fingerprint;
+        }
+    }
+}
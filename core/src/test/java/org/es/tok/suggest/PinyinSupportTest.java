@@ -1,7 +1,16 @@
 package org.es.tok.suggest;
 
+import com.github.houbb.pinyin.constant.enums.PinyinStyleEnum;
+import com.github.houbb.pinyin.support.tone.PinyinTones;
+import com.github.houbb.pinyin.util.PinyinHelper;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class PinyinSupportTest {
@@ -11,4 +20,124 @@ public class PinyinSupportTest {
         assertTrue(
                 PinyinSupport.prefixMatchScore("红警08", "红警HBK08") > 0.0f);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTransliterationReadsPolyphonesFromPhrases() {
+        PinyinSupport.PinyinKey key = PinyinSupport.pinyinKey("重庆火锅");
+        assertEquals("chongqinghuoguo", key.full());
+        assertEquals("cqhg", key.initials());
+        assertEquals(List.of("chong", "qing", "huo", "guo"), key.syllables());
+
+        PinyinSupport.PinyinKey mixed = PinyinSupport.pinyinKey("小米 Mi-10");
+        assertEquals(List.of("xiao", "mi", "mi", "10"), mixed.syllables());
+        assertEquals("xmmi10", mixed.initials());
+    }
+
+    @Test
+    public void testTransliterationMatchesPinyinHelper() {
+        List<String> phrases = new ArrayList<>(PinyinTones.defaults().phraseSet());
+        phrases.sort(null);
+        for (int index = 0; index < phrases.size(); index += 7) {
+            assertMatchesPinyinHelper(phrases.get(index));
+        }
+
+        String alphabet = "重庆行长银行长大乐音乐了解的地得一不小心着觉睡和〇㐀"
+                + "abcXYZ019 '-_.,!İKéбΣ　\t😀";
+        Random random = new Random(42);
+        for (int round = 0; round < 20000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = 1 + random.nextInt(10);
+            for (int index = 0; index < length; index++) {
+                if (random.nextInt(4) == 0) {
+                    text.append(phrases.get(random.nextInt(phrases.size())));
+                } else {
+                    text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            assertMatchesPinyinHelper(text.toString());
+        }
+    }
+
+    @Test
+    public void testPinyinKeyCacheCountsHitsAndMisses() {
+        PinyinKeyCache cache = new PinyinKeyCache(16);
+        PinyinSupport.PinyinKey first = cache.get("小米", PinyinTransliterator.get()::transliterate);
+        PinyinSupport.PinyinKey second = cache.get("小米", PinyinTransliterator.get()::transliterate);
+
+        assertSame(first, second);
+        PinyinSupport.PinyinKeyCacheStats stats = cache.stats();
+        assertEquals(1L, stats.hits());
+        assertEquals(1L, stats.misses());
+        assertEquals(1, stats.entries());
+        assertEquals(16, stats.capacity());
+        assertEquals(0.5d, stats.hitRate(), 0.0d);
+
+        cache.clear();
+        assertEquals(0L, cache.stats().hits());
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    public void testPrefixIndexBuildBypassesPinyinKeyMemo() {
+        PinyinSupport.clearPinyinKeyCache();
+        PinyinPrefixIndex index = PinyinPrefixIndex.build(List.of("重庆火锅", "小米手机"), new int[] {3, 5});
+
+        assertEquals(2, index.size());
+        assertEquals(0L, PinyinSupport.pinyinKeyCacheStats().misses());
+        assertEquals(0, PinyinSupport.pinyinKeyCacheStats().entries());
+    }
+
+    @Test
+    public void testPrefixIndexMergesSegmentsWithTheirPinyinKeys() {
+        SegmentTermsCache.SegmentTerms first = SegmentTermsCache.SegmentTerms.builder()
+                .add("重庆火锅", "重庆火锅", 3, PinyinSupport.uncachedPinyinKey("重庆火锅"))
+                .add("小米手机", "小米手机", 5, PinyinSupport.uncachedPinyinKey("小米手机"))
+                .build();
+        SegmentTermsCache.SegmentTerms second = SegmentTermsCache.SegmentTerms.builder()
+                .add("重庆火锅", "重庆火锅", 4, PinyinSupport.uncachedPinyinKey("重庆火锅"))
+                .build();
+        PinyinPrefixIndex.Builder builder = PinyinPrefixIndex.builder();
+        SegmentTermsCache.forEachMergedEntry(List.of(first, second), builder::add);
+        PinyinPrefixIndex index = builder.build();
+
+        assertEquals(2, index.size());
+        assertEquals("重庆火锅", index.surface(0));
+        assertEquals(7, index.docFreq(0));
+        assertEquals(0, index.fullPrefix("chongqing", 10)[0]);
+        assertEquals(1, index.initialsPrefix("xm", 10)[0]);
+        assertEquals(0, index.anchor("cq", 10)[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPinyinKeyCacheRejectsCapacityThatIsNotAPowerOfTwo() {
+        new PinyinKeyCache(1000);
+    }
+
+    private static void assertMatchesPinyinHelper(String text) {
+        if (text.isBlank()) {
+            return;
+        }
+        List<String> syllables = PinyinSupport.tokenizeSyllables(PinyinHelper.toPinyin(text, PinyinStyleEnum.NORMAL));
+        String full = String.join("", syllables);
+        String initials = PinyinSupport.normalizeInput(PinyinHelper.toPinyin(text, PinyinStyleEnum.FIRST_LETTER));
+        if (full.isEmpty()) {
+            full = PinyinSupport.normalizeInput(text);
+        }
+        if (initials.isEmpty() && !syllables.isEmpty()) {
+            StringBuilder builder = new StringBuilder();
+            for (String syllable : syllables) {
+                builder.append(syllable.charAt(0));
+            }
+            initials = builder.toString();
+        }
+
+        PinyinSupport.PinyinKey key = PinyinTransliterator.get().transliterate(text);
+        if (full.isEmpty() && initials.isEmpty()) {
+            assertTrue(text, key.isEmpty());
+            return;
+        }
+        assertEquals(text, syllables, key.syllables());
+        assertEquals(text, full, key.full());
+        assertEquals(text, initials, key.initials());
+    }
+}
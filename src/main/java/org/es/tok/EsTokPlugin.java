@@ -6,6 +6,7 @@ import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.IndexScopedSettings;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.settings.SettingsFilter;
 import org.elasticsearch.features.NodeFeature;
@@ -21,18 +22,29 @@ import org.elasticsearch.rest.RestController;
 import org.elasticsearch.rest.RestHandler;
 import org.es.tok.action.EsTokSuggestAction;
 import org.es.tok.action.EsTokEntityRelationsAction;
+import org.es.tok.action.EsTokMultiRelatedOwnersAction;
+import org.es.tok.action.EsTokMultiSuggestAction;
 import org.es.tok.action.EsTokRelatedOwnersAction;
 import org.es.tok.action.TransportEsTokEntityRelationsAction;
+import org.es.tok.action.TransportEsTokMultiRelatedOwnersAction;
+import org.es.tok.action.TransportEsTokMultiSuggestAction;
 import org.es.tok.action.TransportEsTokRelatedOwnersAction;
 import org.es.tok.action.TransportEsTokSuggestAction;
 import org.es.tok.analysis.EsTokAnalyzerProvider;
 import org.es.tok.query.EsTokConstraintsQueryBuilder;
 import org.es.tok.query.EsTokQueryStringQueryBuilder;
+import org.es.tok.relations.RelationResultCache;
 import org.es.tok.rest.RestInfoAction;
 import org.es.tok.rest.RestEntityRelationsAction;
+import org.es.tok.rest.RestMultiRelatedOwnersAction;
+import org.es.tok.rest.RestMultiSuggestAction;
 import org.es.tok.rest.RestRelatedOwnersAction;
 import org.es.tok.rest.RestSuggestAction;
+import org.es.tok.suggest.CachedShardSuggestService;
+import org.es.tok.suggest.LuceneIndexSuggester;
+import org.es.tok.suggest.OwnerTopicProfileCache;
 import org.es.tok.suggest.PinyinWarmupIndexListener;
+import org.es.tok.suggest.SharedAnalysisCache;
 import org.es.tok.tokenize.EsTokTokenizerFactory;
 import org.es.tok.rest.RestAnalyzeAction;
 
@@ -47,6 +59,11 @@ public class EsTokPlugin extends Plugin implements AnalysisPlugin, ActionPlugin,
     public static final String VERSION = "1.0.0";
 
     private final PinyinWarmupIndexListener pinyinWarmupIndexListener = new PinyinWarmupIndexListener();
+    // Node-wide caches sized from the node settings; assigned once in createComponents
+    private volatile CachedShardSuggestService suggestService;
+    private volatile SharedAnalysisCache analysisCache;
+    private volatile RelationResultCache relationCache;
+    private volatile OwnerTopicProfileCache profileCache;
 
     @Override
     public Map<String, AnalysisProvider<TokenizerFactory>> getTokenizers() {
@@ -74,17 +91,45 @@ public class EsTokPlugin extends Plugin implements AnalysisPlugin, ActionPlugin,
             final Supplier<DiscoveryNodes> nodesInCluster,
             final Predicate<NodeFeature> clusterSupportsFeature) {
         return List.of(
-                new RestInfoAction(pinyinWarmupIndexListener::businessWarmupSummary),
+                RestInfoAction.builder()
+                        .warmupSummary(pinyinWarmupIndexListener::businessWarmupSummary)
+                        .suggestCacheStats(() -> suggestService.cacheStats())
+                        .analysisCacheStats(() -> analysisCache.stats())
+                        .relationCacheStats(() -> relationCache.stats())
+                        .build(),
                 new RestAnalyzeAction(),
             new RestSuggestAction(),
             new RestRelatedOwnersAction(),
+            new RestMultiSuggestAction(),
+            new RestMultiRelatedOwnersAction(),
             new RestEntityRelationsAction());
     }
 
     @Override
     public java.util.Collection<?> createComponents(PluginServices services) {
         pinyinWarmupIndexListener.configureExecutor(services.threadPool().generic());
-        return List.of(pinyinWarmupIndexListener);
+        pinyinWarmupIndexListener.configureRewarm(services.environment().settings());
+        LuceneIndexSuggester.configureCaches(services.environment().settings());
+        suggestService = new CachedShardSuggestService(services.environment().settings());
+        analysisCache = new SharedAnalysisCache(services.environment().settings());
+        relationCache = new RelationResultCache(services.environment().settings());
+        profileCache = new OwnerTopicProfileCache(services.environment().settings());
+        pinyinWarmupIndexListener.configureProfileCache(profileCache);
+        return List.of(pinyinWarmupIndexListener, suggestService, analysisCache, relationCache, profileCache);
+    }
+
+    @Override
+    public List<Setting<?>> getSettings() {
+        return List.of(
+                CachedShardSuggestService.CACHE_SIZE_SETTING,
+                CachedShardSuggestService.CACHE_INDEX_SIZE_SETTING,
+                LuceneIndexSuggester.SEGMENT_CACHE_SIZE_SETTING,
+                LuceneIndexSuggester.READER_CACHE_SIZE_SETTING,
+                SharedAnalysisCache.CACHE_SIZE_SETTING,
+                RelationResultCache.CACHE_SIZE_SETTING,
+                RelationResultCache.CACHE_INDEX_SIZE_SETTING,
+                OwnerTopicProfileCache.CACHE_SIZE_SETTING,
+                PinyinWarmupIndexListener.REWARM_INTERVAL_SETTING);
     }
 
     @Override
@@ -92,12 +137,16 @@ public class EsTokPlugin extends Plugin implements AnalysisPlugin, ActionPlugin,
         return List.of(
             new ActionHandler(EsTokEntityRelationsAction.INSTANCE, TransportEsTokEntityRelationsAction.class),
             new ActionHandler(EsTokSuggestAction.INSTANCE, TransportEsTokSuggestAction.class),
-            new ActionHandler(EsTokRelatedOwnersAction.INSTANCE, TransportEsTokRelatedOwnersAction.class));
+            new ActionHandler(EsTokRelatedOwnersAction.INSTANCE, TransportEsTokRelatedOwnersAction.class),
+            new ActionHandler(EsTokMultiSuggestAction.INSTANCE, TransportEsTokMultiSuggestAction.class),
+            new ActionHandler(EsTokMultiRelatedOwnersAction.INSTANCE, TransportEsTokMultiRelatedOwnersAction.class));
     }
 
     @Override
     public void onIndexModule(IndexModule indexModule) {
         indexModule.addIndexEventListener(pinyinWarmupIndexListener);
+        indexModule.addIndexEventListener(analysisCache);
+        indexModule.addIndexEventListener(profileCache);
     }
 
     @Override
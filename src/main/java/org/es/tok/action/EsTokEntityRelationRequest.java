@@ -27,6 +27,7 @@ public class EsTokEntityRelationRequest extends BroadcastRequest<EsTokEntityRela
     private List<Long> mids = Collections.emptyList();
     private int size = 10;
     private int scanLimit = 128;
+    private boolean useCache = true;
 
     public EsTokEntityRelationRequest() {
         this(Strings.EMPTY_ARRAY);
@@ -49,6 +50,7 @@ public class EsTokEntityRelationRequest extends BroadcastRequest<EsTokEntityRela
         mids = List.copyOf(readMids);
         size = in.readVInt();
         scanLimit = in.readVInt();
+        useCache = in.readBoolean();
     }
 
     @Override
@@ -123,6 +125,15 @@ public class EsTokEntityRelationRequest extends BroadcastRequest<EsTokEntityRela
         return this;
     }
 
+    public boolean useCache() {
+        return useCache;
+    }
+
+    public EsTokEntityRelationRequest useCache(boolean useCache) {
+        this.useCache = useCache;
+        return this;
+    }
+
     public boolean sourceIsVideos() {
         return RELATED_VIDEOS_BY_VIDEOS.equals(relation) || RELATED_OWNERS_BY_VIDEOS.equals(relation);
     }
@@ -150,6 +161,7 @@ public class EsTokEntityRelationRequest extends BroadcastRequest<EsTokEntityRela
         }
         out.writeVInt(size);
         out.writeVInt(scanLimit);
+        out.writeBoolean(useCache);
     }
 
     public static boolean isSupportedRelation(String relation) {
@@ -17,6 +17,7 @@ public class EsTokEntityRelationResponse extends BaseBroadcastResponse implement
     private final List<Long> mids;
     private final List<EsTokRelatedVideoOption> videos;
     private final List<EsTokRelatedOwnerOption> owners;
+    private final int cacheHitCount;
 
     public EsTokEntityRelationResponse(StreamInput in) throws IOException {
         super(in);
@@ -30,6 +31,7 @@ public class EsTokEntityRelationResponse extends BaseBroadcastResponse implement
         mids = List.copyOf(readMids);
         videos = in.readCollectionAsList(EsTokRelatedVideoOption::new);
         owners = in.readCollectionAsList(EsTokRelatedOwnerOption::new);
+        cacheHitCount = in.readVInt();
     }
 
     public EsTokEntityRelationResponse(
@@ -38,6 +40,7 @@ public class EsTokEntityRelationResponse extends BaseBroadcastResponse implement
             List<Long> mids,
             List<EsTokRelatedVideoOption> videos,
             List<EsTokRelatedOwnerOption> owners,
+            int cacheHitCount,
             int totalShards,
             int successfulShards,
             int failedShards,
@@ -48,6 +51,7 @@ public class EsTokEntityRelationResponse extends BaseBroadcastResponse implement
         this.mids = List.copyOf(mids);
         this.videos = List.copyOf(videos);
         this.owners = List.copyOf(owners);
+        this.cacheHitCount = cacheHitCount;
     }
 
     public List<EsTokRelatedVideoOption> videos() {
@@ -58,6 +62,11 @@ public class EsTokEntityRelationResponse extends BaseBroadcastResponse implement
         return owners;
     }
 
+    /** Shards whose result came from the relation result cache. */
+    public int cacheHitCount() {
+        return cacheHitCount;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
@@ -69,6 +78,7 @@ public class EsTokEntityRelationResponse extends BaseBroadcastResponse implement
         }
         out.writeCollection(videos);
         out.writeCollection(owners);
+        out.writeVInt(cacheHitCount);
     }
 
     @Override
@@ -86,6 +96,7 @@ public class EsTokEntityRelationResponse extends BaseBroadcastResponse implement
         if (!mids.isEmpty()) {
             builder.field("mids", mids);
         }
+        builder.field("cache_hit_count", cacheHitCount);
         if (relation.startsWith("related_videos_")) {
             builder.startArray("videos");
             for (EsTokRelatedVideoOption video : videos) {
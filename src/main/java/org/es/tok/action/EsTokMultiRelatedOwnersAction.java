@@ -0,0 +1,12 @@
+package org.es.tok.action;
+
+import org.elasticsearch.action.ActionType;
+
+public class EsTokMultiRelatedOwnersAction extends ActionType<EsTokMultiResponse<EsTokRelatedOwnersResponse>> {
+    public static final EsTokMultiRelatedOwnersAction INSTANCE = new EsTokMultiRelatedOwnersAction();
+    public static final String NAME = "indices:data/read/es_tok/related_owners/multi";
+
+    private EsTokMultiRelatedOwnersAction() {
+        super(NAME);
+    }
+}
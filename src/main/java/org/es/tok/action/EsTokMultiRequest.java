@@ -0,0 +1,68 @@
+package org.es.tok.action;
+
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.ValidateActions;
+import org.elasticsearch.action.support.broadcast.BroadcastRequest;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A batch of broadcast requests against the same indices, executed with one
+ * request per node for the whole batch. Responses come back in item order.
+ */
+public class EsTokMultiRequest<Item extends BroadcastRequest<Item>> extends BroadcastRequest<EsTokMultiRequest<Item>> {
+    private final List<Item> items = new ArrayList<>();
+
+    public EsTokMultiRequest(String... indices) {
+        super(indices, EsTokSuggestRequest.DEFAULT_INDICES_OPTIONS);
+    }
+
+    public EsTokMultiRequest(StreamInput in, Writeable.Reader<Item> itemReader) throws IOException {
+        super(in);
+        items.addAll(in.readCollectionAsList(itemReader));
+    }
+
+    public EsTokMultiRequest<Item> add(Item item) {
+        items.add(item);
+        return this;
+    }
+
+    public List<Item> items() {
+        return items;
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException validationException = super.validate();
+        if (items.isEmpty()) {
+            validationException = ValidateActions.addValidationError("no requests added", validationException);
+        }
+        for (int index = 0; index < items.size(); index++) {
+            Item item = items.get(index);
+            if (Arrays.equals(item.indices(), indices()) == false) {
+                validationException = ValidateActions.addValidationError(
+                        "[" + index + "] indices must match the multi request indices",
+                        validationException);
+            }
+            ActionRequestValidationException itemException = item.validate();
+            if (itemException != null) {
+                for (String error : itemException.validationErrors()) {
+                    validationException = ValidateActions.addValidationError("[" + index + "] " + error, validationException);
+                }
+            }
+        }
+        return validationException;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeCollection(items);
+    }
+}
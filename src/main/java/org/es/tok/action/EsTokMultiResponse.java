@@ -0,0 +1,59 @@
+package org.es.tok.action;
+
+import org.elasticsearch.action.support.DefaultShardOperationFailedException;
+import org.elasticsearch.action.support.broadcast.BaseBroadcastResponse;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.xcontent.ToXContentObject;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.List;
+
+public class EsTokMultiResponse<R extends BaseBroadcastResponse & ToXContentObject> extends BaseBroadcastResponse
+        implements ToXContentObject {
+    private final List<R> responses;
+
+    public EsTokMultiResponse(StreamInput in, Writeable.Reader<R> responseReader) throws IOException {
+        super(in);
+        responses = in.readCollectionAsList(responseReader);
+    }
+
+    public EsTokMultiResponse(
+            List<R> responses,
+            int totalShards,
+            int successfulShards,
+            int failedShards,
+            List<DefaultShardOperationFailedException> shardFailures) {
+        super(totalShards, successfulShards, failedShards, shardFailures);
+        this.responses = List.copyOf(responses);
+    }
+
+    public List<R> responses() {
+        return responses;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeCollection(responses);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.startObject("_shards");
+        builder.field("total", getTotalShards());
+        builder.field("successful", getSuccessfulShards());
+        builder.field("failed", getFailedShards());
+        builder.endObject();
+        builder.startArray("responses");
+        for (R response : responses) {
+            response.toXContent(builder, params);
+        }
+        builder.endArray();
+        builder.endObject();
+        return builder;
+    }
+}
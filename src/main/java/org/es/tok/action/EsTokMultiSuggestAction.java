@@ -0,0 +1,12 @@
+package org.es.tok.action;
+
+import org.elasticsearch.action.ActionType;
+
+public class EsTokMultiSuggestAction extends ActionType<EsTokMultiResponse<EsTokSuggestResponse>> {
+    public static final EsTokMultiSuggestAction INSTANCE = new EsTokMultiSuggestAction();
+    public static final String NAME = "indices:data/read/es_tok/suggest/multi";
+
+    private EsTokMultiSuggestAction() {
+        super(NAME);
+    }
+}
@@ -22,6 +22,7 @@ public class EsTokRelatedOwnersRequest extends BroadcastRequest<EsTokRelatedOwne
     private int scanLimit = 128;
     private int maxFields = 8;
     private boolean usePinyin = false;
+    private boolean useCache = true;
 
     public EsTokRelatedOwnersRequest() {
         this(Strings.EMPTY_ARRAY);
@@ -40,6 +41,7 @@ public class EsTokRelatedOwnersRequest extends BroadcastRequest<EsTokRelatedOwne
         scanLimit = in.readVInt();
         maxFields = in.readVInt();
         usePinyin = in.readBoolean();
+        useCache = in.readBoolean();
     }
 
     @Override
@@ -113,6 +115,15 @@ public class EsTokRelatedOwnersRequest extends BroadcastRequest<EsTokRelatedOwne
         return this;
     }
 
+    public boolean useCache() {
+        return useCache;
+    }
+
+    public EsTokRelatedOwnersRequest useCache(boolean useCache) {
+        this.useCache = useCache;
+        return this;
+    }
+
     public List<String> limitedFields() {
         if (fields == null || fields.isEmpty()) {
             return List.of();
@@ -132,5 +143,6 @@ public class EsTokRelatedOwnersRequest extends BroadcastRequest<EsTokRelatedOwne
         out.writeVInt(scanLimit);
         out.writeVInt(maxFields);
         out.writeBoolean(usePinyin);
+        out.writeBoolean(useCache);
     }
 }
@@ -14,18 +14,21 @@ public class EsTokRelatedOwnersResponse extends BaseBroadcastResponse implements
     private final String text;
     private final List<String> fields;
     private final List<EsTokRelatedOwnerOption> owners;
+    private final int cacheHitCount;
 
     public EsTokRelatedOwnersResponse(StreamInput in) throws IOException {
         super(in);
         text = in.readString();
         fields = in.readStringCollectionAsList();
         owners = in.readCollectionAsList(EsTokRelatedOwnerOption::new);
+        cacheHitCount = in.readVInt();
     }
 
     public EsTokRelatedOwnersResponse(
             String text,
             List<String> fields,
             List<EsTokRelatedOwnerOption> owners,
+            int cacheHitCount,
             int totalShards,
             int successfulShards,
             int failedShards,
@@ -34,6 +37,12 @@ public class EsTokRelatedOwnersResponse extends BaseBroadcastResponse implements
         this.text = text;
         this.fields = List.copyOf(fields);
         this.owners = List.copyOf(owners);
+        this.cacheHitCount = cacheHitCount;
+    }
+
+    /** Shards whose result came from the relation result cache. */
+    public int cacheHitCount() {
+        return cacheHitCount;
     }
 
     @Override
@@ -42,6 +51,7 @@ public class EsTokRelatedOwnersResponse extends BaseBroadcastResponse implements
         out.writeString(text);
         out.writeStringCollection(fields);
         out.writeCollection(owners);
+        out.writeVInt(cacheHitCount);
     }
 
     @Override
@@ -54,6 +64,7 @@ public class EsTokRelatedOwnersResponse extends BaseBroadcastResponse implements
         builder.endObject();
         builder.field("text", text);
         builder.field("fields", fields);
+        builder.field("cache_hit_count", cacheHitCount);
         builder.startArray("owners");
         for (EsTokRelatedOwnerOption owner : owners) {
             owner.toXContent(builder, params);
@@ -2,8 +2,6 @@ package org.es.tok.action;
 
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.DefaultShardOperationFailedException;
-import org.elasticsearch.action.support.broadcast.BroadcastShardOperationFailedException;
-import org.elasticsearch.action.support.broadcast.TransportBroadcastAction;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ProjectState;
 import org.elasticsearch.cluster.block.ClusterBlockException;
@@ -11,39 +9,46 @@ import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.project.ProjectResolver;
 import org.elasticsearch.cluster.routing.ShardIterator;
-import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.injection.guice.Inject;
 import org.elasticsearch.tasks.Task;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
+import org.es.tok.relations.RelationResultCache;
 import org.es.tok.relations.SourceBackedEntityRelationsService;
+import org.es.tok.suggest.OwnerTopicProfileCache;
+import org.es.tok.suggest.SharedAnalysisCache;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReferenceArray;
 
-public class TransportEsTokEntityRelationsAction extends TransportBroadcastAction<
+public class TransportEsTokEntityRelationsAction extends TransportNodeBatchedBroadcastAction<
         EsTokEntityRelationRequest,
         EsTokEntityRelationResponse,
-        ShardEsTokEntityRelationRequest,
-        ShardEsTokEntityRelationResponse> {
+        TransportEsTokEntityRelationsAction.ShardRelationResult,
+        TransportEsTokEntityRelationsAction.NodeRelationResult,
+        Void> {
 
     private final ClusterService clusterService;
     private final IndicesService indicesService;
     private final IndexNameExpressionResolver indexNameExpressionResolver;
     private final ProjectResolver projectResolver;
     private final SourceBackedEntityRelationsService relationsService;
+    private final RelationResultCache resultCache;
 
     @Inject
     public TransportEsTokEntityRelationsAction(
@@ -52,7 +57,10 @@ public class TransportEsTokEntityRelationsAction extends TransportBroadcastActio
             ActionFilters actionFilters,
             ProjectResolver projectResolver,
             IndexNameExpressionResolver indexNameExpressionResolver,
-            IndicesService indicesService) {
+            IndicesService indicesService,
+            SharedAnalysisCache analysisCache,
+            OwnerTopicProfileCache profileCache,
+            RelationResultCache resultCache) {
         this(
                 clusterService,
                 transportService,
@@ -60,7 +68,8 @@ public class TransportEsTokEntityRelationsAction extends TransportBroadcastActio
                 projectResolver,
                 indexNameExpressionResolver,
                 indicesService,
-                new SourceBackedEntityRelationsService());
+                new SourceBackedEntityRelationsService(analysisCache, profileCache),
+                resultCache);
     }
 
     TransportEsTokEntityRelationsAction(
@@ -70,7 +79,8 @@ public class TransportEsTokEntityRelationsAction extends TransportBroadcastActio
             ProjectResolver projectResolver,
             IndexNameExpressionResolver indexNameExpressionResolver,
             IndicesService indicesService,
-            SourceBackedEntityRelationsService relationsService) {
+            SourceBackedEntityRelationsService relationsService,
+            RelationResultCache resultCache) {
         super(
                 EsTokEntityRelationsAction.NAME,
                 clusterService,
@@ -78,49 +88,57 @@ public class TransportEsTokEntityRelationsAction extends TransportBroadcastActio
                 actionFilters,
                 indexNameExpressionResolver,
                 EsTokEntityRelationRequest::new,
-                ShardEsTokEntityRelationRequest::new,
                 transportService.getThreadPool().executor(ThreadPool.Names.SEARCH));
         this.clusterService = clusterService;
         this.indicesService = indicesService;
         this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.projectResolver = projectResolver;
         this.relationsService = relationsService;
+        this.resultCache = resultCache;
     }
 
     @Override
     protected EsTokEntityRelationResponse newResponse(
             EsTokEntityRelationRequest request,
-            AtomicReferenceArray<?> shardsResponses,
-            ClusterState clusterState) {
-        int successfulShards = 0;
-        int failedShards = 0;
-        List<DefaultShardOperationFailedException> shardFailures = null;
+            int totalShards,
+            int successfulShards,
+            int failedShards,
+            List<NodeRelationResult> nodeResults,
+            List<DefaultShardOperationFailedException> shardFailures) {
+        int cacheHitCount = 0;
+        for (NodeRelationResult nodeResult : nodeResults) {
+            cacheHitCount += nodeResult.cacheHitCount();
+        }
+        MergedRelations merged = mergeNodeResults(request, nodeResults);
+        return new EsTokEntityRelationResponse(
+                request.relation(),
+                request.bvids(),
+                request.mids(),
+                merged.videos(),
+                merged.owners(),
+                cacheHitCount,
+                totalShards,
+                successfulShards,
+                failedShards,
+                shardFailures);
+    }
+
+    /** Finishes the aggregation of the node results and ranks and truncates the videos and owners. */
+    static MergedRelations mergeNodeResults(EsTokEntityRelationRequest request, List<NodeRelationResult> nodeResults) {
         Map<String, AggregatedVideo> aggregatedVideos = new HashMap<>();
         Map<Long, AggregatedOwner> aggregatedOwners = new HashMap<>();
-
-        for (int index = 0; index < shardsResponses.length(); index++) {
-            Object shardResponse = shardsResponses.get(index);
-            if (shardResponse == null) {
-                continue;
-            }
-            if (shardResponse instanceof BroadcastShardOperationFailedException exception) {
-                failedShards++;
-                if (shardFailures == null) {
-                    shardFailures = new ArrayList<>();
+        for (NodeRelationResult nodeResult : nodeResults) {
+            for (AggregatedVideo video : nodeResult.videos()) {
+                AggregatedVideo aggregated = aggregatedVideos.putIfAbsent(video.bvid, video);
+                if (aggregated != null) {
+                    aggregated.merge(video);
                 }
-                shardFailures.add(new DefaultShardOperationFailedException(exception));
-                continue;
-            }
-
-            successfulShards++;
-            ShardEsTokEntityRelationResponse response = (ShardEsTokEntityRelationResponse) shardResponse;
-            for (EsTokRelatedVideoOption video : response.videos()) {
-                aggregatedVideos.computeIfAbsent(video.bvid(), ignored -> new AggregatedVideo(video.bvid()))
-                        .add(video);
             }
-            for (EsTokRelatedOwnerOption owner : response.owners()) {
-                aggregatedOwners.computeIfAbsent(owner.mid(), AggregatedOwner::new)
-                        .add(owner);
+            for (AggregatedOwner owner : nodeResult.owners()) {
+                AggregatedOwner aggregated = aggregatedOwners.putIfAbsent(owner.mid, owner);
+                if (aggregated != null) {
+                    aggregated.merge(owner);
+                }
             }
         }
 
@@ -142,17 +160,7 @@ public class TransportEsTokEntityRelationsAction extends TransportBroadcastActio
                         .thenComparing(EsTokRelatedOwnerOption::name))
                 .limit(request.size())
                 .toList();
-
-        return new EsTokEntityRelationResponse(
-                request.relation(),
-                request.bvids(),
-                request.mids(),
-                videos,
-                owners,
-                shardsResponses.length(),
-                successfulShards,
-                failedShards,
-                shardFailures);
+        return new MergedRelations(videos, owners);
     }
 
     private static List<EsTokRelatedVideoOption> promoteSeedOwnerVideo(
@@ -189,35 +197,76 @@ public class TransportEsTokEntityRelationsAction extends TransportBroadcastActio
     }
 
     @Override
-    protected ShardEsTokEntityRelationRequest newShardRequest(int numShards, ShardRouting shard, EsTokEntityRelationRequest request) {
-        return new ShardEsTokEntityRelationRequest(shard.shardId(), request);
+    protected NodeRelationResult newNodeResult(EsTokEntityRelationRequest request, List<ShardRelationResult> shardResults) {
+        return aggregateShardResults(shardResults);
+    }
+
+    static NodeRelationResult aggregateShardResults(List<ShardRelationResult> shardResults) {
+        Map<String, AggregatedVideo> aggregatedVideos = new LinkedHashMap<>();
+        Map<Long, AggregatedOwner> aggregatedOwners = new LinkedHashMap<>();
+        int cacheHitCount = 0;
+        for (ShardRelationResult shardResult : shardResults) {
+            if (shardResult.cacheHit()) {
+                cacheHitCount++;
+            }
+            for (EsTokRelatedVideoOption video : shardResult.videos()) {
+                aggregatedVideos.computeIfAbsent(video.bvid(), ignored -> new AggregatedVideo(video.bvid()))
+                        .add(video);
+            }
+            for (EsTokRelatedOwnerOption owner : shardResult.owners()) {
+                aggregatedOwners.computeIfAbsent(owner.mid(), AggregatedOwner::new)
+                        .add(owner);
+            }
+        }
+        return new NodeRelationResult(List.copyOf(aggregatedVideos.values()), List.copyOf(aggregatedOwners.values()), cacheHitCount);
+    }
+
+    @Override
+    protected NodeRelationResult readNodeResult(StreamInput in) throws IOException {
+        return new NodeRelationResult(in);
     }
 
     @Override
-    protected ShardEsTokEntityRelationResponse readShardResponse(StreamInput in) throws IOException {
-        return new ShardEsTokEntityRelationResponse(in);
+    protected Void newNodeContext(EsTokEntityRelationRequest request) {
+        // Source analysis is shared node-wide through the analysis cache
+        return null;
     }
 
     @Override
-    protected ShardEsTokEntityRelationResponse shardOperation(ShardEsTokEntityRelationRequest request, Task task) throws IOException {
-        IndexService indexService = indicesService.indexServiceSafe(request.shardId().getIndex());
-        IndexShard indexShard = indexService.getShard(request.shardId().id());
+    protected ShardRelationResult shardOperation(
+            EsTokEntityRelationRequest request,
+            ShardId shardId,
+            Void context,
+            Task task) throws IOException {
+        IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
+        IndexShard indexShard = indexService.getShard(shardId.id());
         try (org.elasticsearch.index.engine.Engine.Searcher searcher = indexShard.acquireSearcher("es_tok_entity_relations")) {
-            SourceBackedEntityRelationsService.RelationResult result = relationsService.searchRelations(
-                    searcher,
-                    indexService,
+            RelationResultCache.CachedResult<SourceBackedEntityRelationsService.RelationResult> cached = resultCache.relations(
+                    searcher.getIndexReader(),
+                    indexService.index(),
                     request.relation(),
                     request.bvids(),
                     request.mids(),
                     request.size(),
-                    request.scanLimit());
+                    request.scanLimit(),
+                    request.useCache(),
+                    (bvids, mids) -> relationsService.searchRelations(
+                            searcher,
+                            indexService,
+                            shardId,
+                            request.relation(),
+                            bvids,
+                            mids,
+                            request.size(),
+                            request.scanLimit()));
+            SourceBackedEntityRelationsService.RelationResult result = cached.value();
             List<EsTokRelatedVideoOption> videos = result.videos().stream()
                     .map(video -> new EsTokRelatedVideoOption(video.bvid(), video.title(), video.ownerMid(), video.ownerName(), video.docFreq(), video.score(), 1))
                     .toList();
             List<EsTokRelatedOwnerOption> owners = result.owners().stream()
                     .map(owner -> new EsTokRelatedOwnerOption(owner.mid(), owner.name(), owner.docFreq(), owner.score(), 1))
                     .toList();
-            return new ShardEsTokEntityRelationResponse(request.shardId(), videos, owners);
+            return new ShardRelationResult(videos, owners, cached.cacheHit());
         }
     }
 
@@ -241,7 +290,51 @@ public class TransportEsTokEntityRelationsAction extends TransportBroadcastActio
         return state.blocks().indicesBlockedException(projectResolver.getProjectId(), ClusterBlockLevel.READ, concreteIndices);
     }
 
-    private static final class AggregatedVideo {
+    record ShardRelationResult(List<EsTokRelatedVideoOption> videos, List<EsTokRelatedOwnerOption> owners, boolean cacheHit) {
+    }
+
+    record MergedRelations(List<EsTokRelatedVideoOption> videos, List<EsTokRelatedOwnerOption> owners) {
+    }
+
+    /** Videos and owners of one node's shards, aggregated but not yet ranked or truncated. */
+    static final class NodeRelationResult implements Writeable {
+        private final List<AggregatedVideo> videos;
+        private final List<AggregatedOwner> owners;
+        private final int cacheHitCount;
+
+        NodeRelationResult(StreamInput in) throws IOException {
+            videos = in.readCollectionAsList(AggregatedVideo::new);
+            owners = in.readCollectionAsList(AggregatedOwner::new);
+            cacheHitCount = in.readVInt();
+        }
+
+        NodeRelationResult(List<AggregatedVideo> videos, List<AggregatedOwner> owners, int cacheHitCount) {
+            this.videos = videos;
+            this.owners = owners;
+            this.cacheHitCount = cacheHitCount;
+        }
+
+        List<AggregatedVideo> videos() {
+            return videos;
+        }
+
+        List<AggregatedOwner> owners() {
+            return owners;
+        }
+
+        int cacheHitCount() {
+            return cacheHitCount;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeCollection(videos);
+            out.writeCollection(owners);
+            out.writeVInt(cacheHitCount);
+        }
+    }
+
+    static final class AggregatedVideo implements Writeable {
         private final String bvid;
         private String title = "";
         private long ownerMid = -1L;
@@ -255,6 +348,29 @@ public class TransportEsTokEntityRelationsAction extends TransportBroadcastActio
             this.bvid = bvid;
         }
 
+        private AggregatedVideo(StreamInput in) throws IOException {
+            bvid = in.readString();
+            title = in.readString();
+            ownerMid = in.readLong();
+            ownerName = in.readString();
+            docFreq = in.readVInt();
+            score = in.readFloat();
+            bestScore = in.readFloat();
+            shardCount = in.readVInt();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(bvid);
+            out.writeString(title);
+            out.writeLong(ownerMid);
+            out.writeString(ownerName);
+            out.writeVInt(docFreq);
+            out.writeFloat(score);
+            out.writeFloat(bestScore);
+            out.writeVInt(shardCount);
+        }
+
         private void add(EsTokRelatedVideoOption option) {
             docFreq += option.docFreq();
             score += option.score();
@@ -267,20 +383,50 @@ public class TransportEsTokEntityRelationsAction extends TransportBroadcastActio
             }
         }
 
+        private void merge(AggregatedVideo other) {
+            docFreq += other.docFreq;
+            score += other.score;
+            shardCount += other.shardCount;
+            if (other.bestScore >= bestScore) {
+                bestScore = other.bestScore;
+                title = other.title;
+                ownerMid = other.ownerMid;
+                ownerName = other.ownerName;
+            }
+        }
+
         private EsTokRelatedVideoOption toOption() {
             return new EsTokRelatedVideoOption(bvid, title, ownerMid, ownerName, docFreq, score, shardCount);
         }
     }
 
-    private static final class AggregatedOwner {
+    static final class AggregatedOwner implements Writeable {
         private final long mid;
-        private final Map<String, Float> nameScores = new HashMap<>();
+        private final Map<String, Float> nameScores;
         private int docFreq;
         private float score;
         private int shardCount;
 
         private AggregatedOwner(long mid) {
             this.mid = mid;
+            this.nameScores = new HashMap<>();
+        }
+
+        private AggregatedOwner(StreamInput in) throws IOException {
+            mid = in.readVLong();
+            nameScores = new HashMap<>(in.readMap(StreamInput::readFloat));
+            docFreq = in.readVInt();
+            score = in.readFloat();
+            shardCount = in.readVInt();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(mid);
+            out.writeMap(nameScores, StreamOutput::writeFloat);
+            out.writeVInt(docFreq);
+            out.writeFloat(score);
+            out.writeVInt(shardCount);
         }
 
         private void add(EsTokRelatedOwnerOption option) {
@@ -290,6 +436,13 @@ public class TransportEsTokEntityRelationsAction extends TransportBroadcastActio
             nameScores.merge(option.name(), option.score(), Float::sum);
         }
 
+        private void merge(AggregatedOwner other) {
+            docFreq += other.docFreq;
+            score += other.score;
+            shardCount += other.shardCount;
+            other.nameScores.forEach((name, nameScore) -> nameScores.merge(name, nameScore, Float::sum));
+        }
+
         private EsTokRelatedOwnerOption toOption() {
             String displayName = nameScores.entrySet().stream()
                     .max(Map.Entry.<String, Float>comparingByValue().thenComparing(Map.Entry::getKey))
@@ -0,0 +1,214 @@
+package org.es.tok.action;
+
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.DefaultShardOperationFailedException;
+import org.elasticsearch.action.support.TransportActions;
+import org.elasticsearch.action.support.broadcast.BaseBroadcastResponse;
+import org.elasticsearch.action.support.broadcast.BroadcastRequest;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+import org.elasticsearch.xcontent.ToXContentObject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a batch of requests of one single-request action in one fan-out.
+ * <p>
+ * The items share their indices, so the coordinator resolves the target shards
+ * once and each node receives one request carrying every item. For every shard
+ * the node runs the items one after another through the single-request action,
+ * folds the shard results into a node result per item, and the coordinator
+ * finishes each item exactly as the single-request action would. A failure of
+ * one item on a shard is reported on that item only.
+ */
+public abstract class TransportEsTokMultiAction<
+        Item extends BroadcastRequest<Item>,
+        ItemResponse extends BaseBroadcastResponse & ToXContentObject,
+        ShardResult,
+        NodeResult extends Writeable,
+        NodeContext> extends TransportNodeBatchedBroadcastAction<
+                EsTokMultiRequest<Item>,
+                EsTokMultiResponse<ItemResponse>,
+                List<TransportEsTokMultiAction.ItemOutcome<ShardResult>>,
+                TransportEsTokMultiAction.MultiNodeResult<NodeResult>,
+                List<NodeContext>> {
+
+    private final TransportNodeBatchedBroadcastAction<Item, ItemResponse, ShardResult, NodeResult, NodeContext> itemAction;
+
+    protected TransportEsTokMultiAction(
+            String actionName,
+            ClusterService clusterService,
+            TransportService transportService,
+            ActionFilters actionFilters,
+            IndexNameExpressionResolver indexNameExpressionResolver,
+            Writeable.Reader<Item> itemReader,
+            TransportNodeBatchedBroadcastAction<Item, ItemResponse, ShardResult, NodeResult, NodeContext> itemAction) {
+        super(
+                actionName,
+                clusterService,
+                transportService,
+                actionFilters,
+                indexNameExpressionResolver,
+                in -> new EsTokMultiRequest<>(in, itemReader),
+                transportService.getThreadPool().executor(ThreadPool.Names.SEARCH));
+        this.itemAction = itemAction;
+    }
+
+    // Items carry the indices of the multi request, so the first item routes for all of them
+
+    @Override
+    protected List<ShardIterator> shards(ClusterState clusterState, EsTokMultiRequest<Item> request, String[] concreteIndices) {
+        return itemAction.shards(clusterState, request.items().get(0), concreteIndices);
+    }
+
+    @Override
+    protected ClusterBlockException checkGlobalBlock(ClusterState state, EsTokMultiRequest<Item> request) {
+        return itemAction.checkGlobalBlock(state, request.items().get(0));
+    }
+
+    @Override
+    protected ClusterBlockException checkRequestBlock(ClusterState state, EsTokMultiRequest<Item> request, String[] concreteIndices) {
+        return itemAction.checkRequestBlock(state, request.items().get(0), concreteIndices);
+    }
+
+    @Override
+    protected List<NodeContext> newNodeContext(EsTokMultiRequest<Item> request) {
+        List<NodeContext> contexts = new ArrayList<>(request.items().size());
+        for (Item item : request.items()) {
+            contexts.add(itemAction.newNodeContext(item));
+        }
+        return contexts;
+    }
+
+    @Override
+    protected List<ItemOutcome<ShardResult>> shardOperation(
+            EsTokMultiRequest<Item> request,
+            ShardId shardId,
+            List<NodeContext> contexts,
+            Task task) throws IOException {
+        List<Item> items = request.items();
+        List<ItemOutcome<ShardResult>> outcomes = new ArrayList<>(items.size());
+        for (int index = 0; index < items.size(); index++) {
+            if (task instanceof CancellableTask cancellableTask) {
+                cancellableTask.ensureNotCancelled();
+            }
+            try {
+                outcomes.add(new ItemOutcome<>(shardId, itemAction.shardOperation(items.get(index), shardId, contexts.get(index), task), null));
+            } catch (Exception e) {
+                outcomes.add(new ItemOutcome<>(shardId, null, e));
+            }
+        }
+        return outcomes;
+    }
+
+    @Override
+    protected MultiNodeResult<NodeResult> newNodeResult(
+            EsTokMultiRequest<Item> request,
+            List<List<ItemOutcome<ShardResult>>> shardResults) {
+        List<Item> items = request.items();
+        List<ItemNodeResult<NodeResult>> itemResults = new ArrayList<>(items.size());
+        for (int index = 0; index < items.size(); index++) {
+            List<ShardResult> successful = new ArrayList<>(shardResults.size());
+            List<DefaultShardOperationFailedException> failures = new ArrayList<>();
+            for (List<ItemOutcome<ShardResult>> outcomes : shardResults) {
+                ItemOutcome<ShardResult> outcome = outcomes.get(index);
+                if (outcome.failure() == null) {
+                    successful.add(outcome.result());
+                } else if (TransportActions.isShardNotAvailableException(outcome.failure()) == false) {
+                    ShardId shardId = outcome.shardId();
+                    failures.add(new DefaultShardOperationFailedException(shardId.getIndexName(), shardId.id(), outcome.failure()));
+                }
+            }
+            NodeResult nodeResult = successful.isEmpty() ? null : itemAction.newNodeResult(items.get(index), successful);
+            itemResults.add(new ItemNodeResult<>(successful.size(), nodeResult, failures));
+        }
+        return new MultiNodeResult<>(itemResults);
+    }
+
+    @Override
+    protected MultiNodeResult<NodeResult> readNodeResult(StreamInput in) throws IOException {
+        return new MultiNodeResult<>(in.readCollectionAsList(itemIn -> new ItemNodeResult<>(
+                itemIn.readVInt(),
+                itemIn.readOptionalWriteable(itemAction::readNodeResult),
+                itemIn.readCollectionAsList(DefaultShardOperationFailedException::readShardOperationFailed))));
+    }
+
+    /**
+     * Finishes every item from its node results. Shards that failed as a whole,
+     * for example because their node was unreachable, count as failed for
+     * every item.
+     */
+    @Override
+    protected EsTokMultiResponse<ItemResponse> newResponse(
+            EsTokMultiRequest<Item> request,
+            int totalShards,
+            int successfulShards,
+            int failedShards,
+            List<MultiNodeResult<NodeResult>> nodeResults,
+            List<DefaultShardOperationFailedException> shardFailures) {
+        List<Item> items = request.items();
+        List<ItemResponse> responses = new ArrayList<>(items.size());
+        for (int index = 0; index < items.size(); index++) {
+            int itemSuccessful = 0;
+            List<NodeResult> itemNodeResults = new ArrayList<>(nodeResults.size());
+            List<DefaultShardOperationFailedException> itemFailures = new ArrayList<>();
+            if (shardFailures != null) {
+                itemFailures.addAll(shardFailures);
+            }
+            for (MultiNodeResult<NodeResult> nodeResult : nodeResults) {
+                ItemNodeResult<NodeResult> itemResult = nodeResult.items().get(index);
+                itemSuccessful += itemResult.successfulShards();
+                if (itemResult.result() != null) {
+                    itemNodeResults.add(itemResult.result());
+                }
+                itemFailures.addAll(itemResult.shardFailures());
+            }
+            responses.add(itemAction.newResponse(
+                    items.get(index),
+                    totalShards,
+                    itemSuccessful,
+                    itemFailures.size(),
+                    itemNodeResults,
+                    itemFailures.isEmpty() ? null : itemFailures));
+        }
+        return new EsTokMultiResponse<>(responses, totalShards, successfulShards, failedShards, shardFailures);
+    }
+
+    record ItemOutcome<ShardResult>(ShardId shardId, ShardResult result, Exception failure) {
+    }
+
+    record ItemNodeResult<NodeResult extends Writeable>(
+            int successfulShards,
+            NodeResult result,
+            List<DefaultShardOperationFailedException> shardFailures) implements Writeable {
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(successfulShards);
+            out.writeOptionalWriteable(result);
+            out.writeCollection(shardFailures);
+        }
+    }
+
+    /** Per item node results, in item order. */
+    record MultiNodeResult<NodeResult extends Writeable>(List<ItemNodeResult<NodeResult>> items) implements Writeable {
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeCollection(items);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.es.tok.action;
+
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.injection.guice.Inject;
+import org.elasticsearch.transport.TransportService;
+
+public class TransportEsTokMultiRelatedOwnersAction extends TransportEsTokMultiAction<
+        EsTokRelatedOwnersRequest,
+        EsTokRelatedOwnersResponse,
+        TransportEsTokRelatedOwnersAction.ShardRelatedOwnersResult,
+        TransportEsTokRelatedOwnersAction.NodeRelatedOwnersResult,
+        TransportEsTokRelatedOwnersAction.RelatedOwnersNodeContext> {
+
+    @Inject
+    public TransportEsTokMultiRelatedOwnersAction(
+            ClusterService clusterService,
+            TransportService transportService,
+            ActionFilters actionFilters,
+            IndexNameExpressionResolver indexNameExpressionResolver,
+            TransportEsTokRelatedOwnersAction relatedOwnersAction) {
+        super(
+                EsTokMultiRelatedOwnersAction.NAME,
+                clusterService,
+                transportService,
+                actionFilters,
+                indexNameExpressionResolver,
+                EsTokRelatedOwnersRequest::new,
+                relatedOwnersAction);
+    }
+}
@@ -0,0 +1,32 @@
+package org.es.tok.action;
+
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.injection.guice.Inject;
+import org.elasticsearch.transport.TransportService;
+
+public class TransportEsTokMultiSuggestAction extends TransportEsTokMultiAction<
+        EsTokSuggestRequest,
+        EsTokSuggestResponse,
+        TransportEsTokSuggestAction.ShardSuggestResult,
+        TransportEsTokSuggestAction.NodeSuggestResult,
+        TransportEsTokSuggestAction.SuggestNodeContext> {
+
+    @Inject
+    public TransportEsTokMultiSuggestAction(
+            ClusterService clusterService,
+            TransportService transportService,
+            ActionFilters actionFilters,
+            IndexNameExpressionResolver indexNameExpressionResolver,
+            TransportEsTokSuggestAction suggestAction) {
+        super(
+                EsTokMultiSuggestAction.NAME,
+                clusterService,
+                transportService,
+                actionFilters,
+                indexNameExpressionResolver,
+                EsTokSuggestRequest::new,
+                suggestAction);
+    }
+}
@@ -2,8 +2,6 @@ package org.es.tok.action;
 
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.DefaultShardOperationFailedException;
-import org.elasticsearch.action.support.broadcast.BroadcastShardOperationFailedException;
-import org.elasticsearch.action.support.broadcast.TransportBroadcastAction;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ProjectState;
 import org.elasticsearch.cluster.block.ClusterBlockException;
@@ -11,17 +9,22 @@ import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.project.ProjectResolver;
 import org.elasticsearch.cluster.routing.ShardIterator;
-import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.injection.guice.Inject;
 import org.elasticsearch.tasks.Task;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportService;
+import org.es.tok.relations.RelationResultCache;
 import org.es.tok.suggest.PinyinSupport;
+import org.es.tok.suggest.SharedAnalysisCache;
 import org.es.tok.suggest.SourceBackedRelatedOwnersService;
 import org.es.tok.text.TextNormalization;
 
@@ -29,18 +32,20 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
-public class TransportEsTokRelatedOwnersAction extends TransportBroadcastAction<
+public class TransportEsTokRelatedOwnersAction extends TransportNodeBatchedBroadcastAction<
         EsTokRelatedOwnersRequest,
         EsTokRelatedOwnersResponse,
-        ShardEsTokRelatedOwnersRequest,
-        ShardEsTokRelatedOwnersResponse> {
+        TransportEsTokRelatedOwnersAction.ShardRelatedOwnersResult,
+        TransportEsTokRelatedOwnersAction.NodeRelatedOwnersResult,
+        TransportEsTokRelatedOwnersAction.RelatedOwnersNodeContext> {
     private static final float OWNER_INTENT_TOP_PROMOTION_MARGIN = 12000.0f;
     private static final double OWNER_INTENT_MIN_MATCH_SCORE = 4.5d;
     private static final double OWNER_INTENT_MIN_GAP_SCORE = 1.0d;
@@ -51,6 +56,7 @@ public class TransportEsTokRelatedOwnersAction extends TransportBroadcastAction<
     private final IndexNameExpressionResolver indexNameExpressionResolver;
     private final ProjectResolver projectResolver;
     private final SourceBackedRelatedOwnersService relatedOwnersService;
+    private final RelationResultCache resultCache;
 
     @Inject
     public TransportEsTokRelatedOwnersAction(
@@ -59,7 +65,9 @@ public class TransportEsTokRelatedOwnersAction extends TransportBroadcastAction<
             ActionFilters actionFilters,
             ProjectResolver projectResolver,
             IndexNameExpressionResolver indexNameExpressionResolver,
-            IndicesService indicesService) {
+            IndicesService indicesService,
+            SharedAnalysisCache analysisCache,
+            RelationResultCache resultCache) {
         this(
                 clusterService,
                 transportService,
@@ -67,7 +75,8 @@ public class TransportEsTokRelatedOwnersAction extends TransportBroadcastAction<
                 projectResolver,
                 indexNameExpressionResolver,
                 indicesService,
-                new SourceBackedRelatedOwnersService());
+                new SourceBackedRelatedOwnersService(analysisCache),
+                resultCache);
     }
 
     TransportEsTokRelatedOwnersAction(
@@ -77,7 +86,8 @@ public class TransportEsTokRelatedOwnersAction extends TransportBroadcastAction<
             ProjectResolver projectResolver,
             IndexNameExpressionResolver indexNameExpressionResolver,
             IndicesService indicesService,
-            SourceBackedRelatedOwnersService relatedOwnersService) {
+            SourceBackedRelatedOwnersService relatedOwnersService,
+            RelationResultCache resultCache) {
         super(
                 EsTokRelatedOwnersAction.NAME,
                 clusterService,
@@ -85,89 +95,116 @@ public class TransportEsTokRelatedOwnersAction extends TransportBroadcastAction<
                 actionFilters,
                 indexNameExpressionResolver,
                 EsTokRelatedOwnersRequest::new,
-                ShardEsTokRelatedOwnersRequest::new,
                 transportService.getThreadPool().executor(ThreadPool.Names.SEARCH));
             this.clusterService = clusterService;
         this.indicesService = indicesService;
             this.indexNameExpressionResolver = indexNameExpressionResolver;
         this.projectResolver = projectResolver;
         this.relatedOwnersService = relatedOwnersService;
+        this.resultCache = resultCache;
     }
 
     @Override
     protected EsTokRelatedOwnersResponse newResponse(
             EsTokRelatedOwnersRequest request,
-            AtomicReferenceArray<?> shardsResponses,
-            ClusterState clusterState) {
-        int successfulShards = 0;
-        int failedShards = 0;
-        List<DefaultShardOperationFailedException> shardFailures = null;
-        Map<Long, AggregatedOwner> aggregatedOwners = new HashMap<>();
+            int totalShards,
+            int successfulShards,
+            int failedShards,
+            List<NodeRelatedOwnersResult> nodeResults,
+            List<DefaultShardOperationFailedException> shardFailures) {
+        int cacheHitCount = 0;
+        for (NodeRelatedOwnersResult nodeResult : nodeResults) {
+            cacheHitCount += nodeResult.cacheHitCount();
+        }
+        return new EsTokRelatedOwnersResponse(
+                request.text(),
+                request.limitedFields(),
+                mergeNodeResults(request.text(), nodeResults, request.size()),
+                cacheHitCount,
+                totalShards,
+                successfulShards,
+                failedShards,
+                shardFailures);
+    }
 
-        for (int i = 0; i < shardsResponses.length(); i++) {
-            Object shardResponse = shardsResponses.get(i);
-            if (shardResponse == null) {
-                continue;
-            }
-            if (shardResponse instanceof BroadcastShardOperationFailedException exception) {
-                failedShards++;
-                if (shardFailures == null) {
-                    shardFailures = new ArrayList<>();
+    static List<EsTokRelatedOwnerOption> mergeNodeResults(String text, List<NodeRelatedOwnersResult> nodeResults, int size) {
+        Map<Long, AggregatedOwner> aggregatedOwners = new HashMap<>();
+        for (NodeRelatedOwnersResult nodeResult : nodeResults) {
+            for (AggregatedOwner owner : nodeResult.owners()) {
+                AggregatedOwner aggregated = aggregatedOwners.putIfAbsent(owner.mid, owner);
+                if (aggregated != null) {
+                    aggregated.merge(owner);
                 }
-                shardFailures.add(new DefaultShardOperationFailedException(exception));
-                continue;
-            }
-
-            ShardEsTokRelatedOwnersResponse response = (ShardEsTokRelatedOwnersResponse) shardResponse;
-            successfulShards++;
-            for (EsTokRelatedOwnerOption owner : response.owners()) {
-                aggregatedOwners.computeIfAbsent(owner.mid(), ignored -> new AggregatedOwner(owner.mid()))
-                        .add(owner);
             }
         }
 
         List<EsTokRelatedOwnerOption> merged = aggregatedOwners.values().stream()
                 .map(AggregatedOwner::toOption)
                 .toList();
-        merged = selectMergedOwners(request.text(), merged, request.size());
+        return selectMergedOwners(text, merged, size);
+    }
 
-        return new EsTokRelatedOwnersResponse(
-                request.text(),
-                request.limitedFields(),
-                merged,
-                shardsResponses.length(),
-                successfulShards,
-                failedShards,
-                shardFailures);
+    @Override
+    protected NodeRelatedOwnersResult newNodeResult(
+            EsTokRelatedOwnersRequest request,
+            List<ShardRelatedOwnersResult> shardResults) {
+        return aggregateShardResults(shardResults);
+    }
+
+    static NodeRelatedOwnersResult aggregateShardResults(List<ShardRelatedOwnersResult> shardResults) {
+        Map<Long, AggregatedOwner> aggregatedOwners = new LinkedHashMap<>();
+        int cacheHitCount = 0;
+        for (ShardRelatedOwnersResult shardResult : shardResults) {
+            if (shardResult.cacheHit()) {
+                cacheHitCount++;
+            }
+            for (EsTokRelatedOwnerOption owner : shardResult.owners()) {
+                aggregatedOwners.computeIfAbsent(owner.mid(), ignored -> new AggregatedOwner(owner.mid()))
+                        .add(owner);
+            }
+        }
+        return new NodeRelatedOwnersResult(List.copyOf(aggregatedOwners.values()), cacheHitCount);
     }
 
     @Override
-    protected ShardEsTokRelatedOwnersRequest newShardRequest(int numShards, ShardRouting shard, EsTokRelatedOwnersRequest request) {
-        return new ShardEsTokRelatedOwnersRequest(shard.shardId(), request);
+    protected NodeRelatedOwnersResult readNodeResult(StreamInput in) throws IOException {
+        return new NodeRelatedOwnersResult(in);
     }
 
     @Override
-    protected ShardEsTokRelatedOwnersResponse readShardResponse(StreamInput in) throws IOException {
-        return new ShardEsTokRelatedOwnersResponse(in);
+    protected RelatedOwnersNodeContext newNodeContext(EsTokRelatedOwnersRequest request) {
+        return new RelatedOwnersNodeContext(request);
     }
 
     @Override
-    protected ShardEsTokRelatedOwnersResponse shardOperation(ShardEsTokRelatedOwnersRequest request, Task task) throws IOException {
-        IndexService indexService = indicesService.indexServiceSafe(request.shardId().getIndex());
-        IndexShard indexShard = indexService.getShard(request.shardId().id());
-        List<String> searchFields = resolveSearchFields(indexService, request.fields(), request.usePinyin());
+    protected ShardRelatedOwnersResult shardOperation(
+            EsTokRelatedOwnersRequest request,
+            ShardId shardId,
+            RelatedOwnersNodeContext context,
+            Task task) throws IOException {
+        IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
+        IndexShard indexShard = indexService.getShard(shardId.id());
+        List<String> searchFields = context.searchFields(indexService);
         try (org.elasticsearch.index.engine.Engine.Searcher searcher = indexShard.acquireSearcher("es_tok_related_owners")) {
-            List<EsTokRelatedOwnerOption> owners = relatedOwnersService.searchRelatedOwners(
+            RelationResultCache.CachedResult<List<SourceBackedRelatedOwnersService.RelatedOwnerResult>> cached = resultCache.relatedOwners(
+                    searcher.getIndexReader(),
+                    indexService.index(),
+                    searchFields,
+                    request.text(),
+                    request.size(),
+                    request.scanLimit(),
+                    request.useCache(),
+                    () -> relatedOwnersService.searchRelatedOwners(
                             searcher,
                             indexService,
                             searchFields,
                             request.text(),
                             request.size(),
-                            request.scanLimit())
-                    .stream()
+                            request.scanLimit()));
+            List<EsTokRelatedOwnerOption> owners = cached.value().stream()
                     .map(result -> new EsTokRelatedOwnerOption(result.mid(), result.name(), result.docFreq(), result.score(), 1))
                     .toList();
-            return new ShardEsTokRelatedOwnersResponse(request.shardId(), owners);
+            return new ShardRelatedOwnersResult(owners, cached.cacheHit());
         }
     }
 
@@ -388,9 +425,58 @@ public class TransportEsTokRelatedOwnersAction extends TransportBroadcastAction<
         return score;
     }
 
-    private static final class AggregatedOwner {
+    /** Search fields resolved once per index for all shards of a node request. */
+    static final class RelatedOwnersNodeContext {
+        private final EsTokRelatedOwnersRequest request;
+        private final Map<Index, List<String>> searchFieldsByIndex = new ConcurrentHashMap<>();
+
+        private RelatedOwnersNodeContext(EsTokRelatedOwnersRequest request) {
+            this.request = request;
+        }
+
+        private List<String> searchFields(IndexService indexService) {
+            return searchFieldsByIndex.computeIfAbsent(
+                    indexService.index(),
+                    ignored -> resolveSearchFields(indexService, request.limitedFields(), request.usePinyin()));
+        }
+    }
+
+    record ShardRelatedOwnersResult(List<EsTokRelatedOwnerOption> owners, boolean cacheHit) {
+    }
+
+    /** Owners of one node's shards, aggregated but not yet scored or truncated. */
+    static final class NodeRelatedOwnersResult implements Writeable {
+        private final List<AggregatedOwner> owners;
+        private final int cacheHitCount;
+
+        NodeRelatedOwnersResult(StreamInput in) throws IOException {
+            owners = in.readCollectionAsList(AggregatedOwner::new);
+            cacheHitCount = in.readVInt();
+        }
+
+        NodeRelatedOwnersResult(List<AggregatedOwner> owners, int cacheHitCount) {
+            this.owners = owners;
+            this.cacheHitCount = cacheHitCount;
+        }
+
+        List<AggregatedOwner> owners() {
+            return owners;
+        }
+
+        int cacheHitCount() {
+            return cacheHitCount;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeCollection(owners);
+            out.writeVInt(cacheHitCount);
+        }
+    }
+
+    static final class AggregatedOwner implements Writeable {
         private final long mid;
-        private final Map<String, Float> nameScores = new HashMap<>();
+        private final Map<String, Float> nameScores;
         private int docFreq;
         private float score;
         private float maxScore;
@@ -398,6 +484,26 @@ public class TransportEsTokRelatedOwnersAction extends TransportBroadcastAction<
 
         private AggregatedOwner(long mid) {
             this.mid = mid;
+            this.nameScores = new HashMap<>();
+        }
+
+        private AggregatedOwner(StreamInput in) throws IOException {
+            mid = in.readVLong();
+            nameScores = new HashMap<>(in.readMap(StreamInput::readFloat));
+            docFreq = in.readVInt();
+            score = in.readFloat();
+            maxScore = in.readFloat();
+            shardCount = in.readVInt();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(mid);
+            out.writeMap(nameScores, StreamOutput::writeFloat);
+            out.writeVInt(docFreq);
+            out.writeFloat(score);
+            out.writeFloat(maxScore);
+            out.writeVInt(shardCount);
         }
 
         private void add(EsTokRelatedOwnerOption option) {
@@ -408,6 +514,14 @@ public class TransportEsTokRelatedOwnersAction extends TransportBroadcastAction<
             nameScores.merge(option.name(), option.score(), Float::sum);
         }
 
+        private void merge(AggregatedOwner other) {
+            docFreq += other.docFreq;
+            score += other.score;
+            maxScore = Math.max(maxScore, other.maxScore);
+            shardCount += other.shardCount;
+            other.nameScores.forEach((name, nameScore) -> nameScores.merge(name, nameScore, Float::sum));
+        }
+
         private String displayName() {
             return nameScores.entrySet().stream()
                     .max(Map.Entry.<String, Float>comparingByValue()
@@ -3,8 +3,6 @@ package org.es.tok.action;
 import org.apache.lucene.index.IndexReader;
 import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.DefaultShardOperationFailedException;
-import org.elasticsearch.action.support.broadcast.BroadcastShardOperationFailedException;
-import org.elasticsearch.action.support.broadcast.TransportBroadcastAction;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ProjectState;
 import org.elasticsearch.cluster.block.ClusterBlockException;
@@ -12,13 +10,16 @@ import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.project.ProjectResolver;
 import org.elasticsearch.cluster.routing.ShardIterator;
-import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.mapper.MappingLookup;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.injection.guice.Inject;
 import org.elasticsearch.tasks.Task;
@@ -28,6 +29,7 @@ import org.es.tok.suggest.CachedShardSuggestService;
 import org.es.tok.suggest.LuceneIndexSuggester;
 import org.es.tok.suggest.OwnerBackedSuggestService;
 import org.es.tok.suggest.PinyinSupport;
+import org.es.tok.suggest.SharedAnalysisCache;
 import org.es.tok.suggest.AutoSuggestTextVariants;
 import org.es.tok.suggest.SourceBackedAssociateSuggester;
 import org.es.tok.text.TopicQualityHeuristics;
@@ -36,23 +38,26 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class TransportEsTokSuggestAction extends TransportBroadcastAction<
+public class TransportEsTokSuggestAction extends TransportNodeBatchedBroadcastAction<
         EsTokSuggestRequest,
         EsTokSuggestResponse,
-        ShardEsTokSuggestRequest,
-        ShardEsTokSuggestResponse> {
+        TransportEsTokSuggestAction.ShardSuggestResult,
+        TransportEsTokSuggestAction.NodeSuggestResult,
+        TransportEsTokSuggestAction.SuggestNodeContext> {
 
     private final IndicesService indicesService;
     private final ProjectResolver projectResolver;
     private final CachedShardSuggestService suggestService;
     private final OwnerBackedSuggestService ownerSuggestService;
     private final SourceBackedAssociateSuggester associateSuggester;
+    private final SharedAnalysisCache analysisCache;
 
     @Inject
     public TransportEsTokSuggestAction(
@@ -61,7 +66,9 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
             ActionFilters actionFilters,
             ProjectResolver projectResolver,
             IndexNameExpressionResolver indexNameExpressionResolver,
-            IndicesService indicesService) {
+            IndicesService indicesService,
+            CachedShardSuggestService suggestService,
+            SharedAnalysisCache analysisCache) {
         this(
                 clusterService,
                 transportService,
@@ -69,9 +76,10 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
                 projectResolver,
                 indexNameExpressionResolver,
                 indicesService,
-                new CachedShardSuggestService(),
-                new OwnerBackedSuggestService(),
-                new SourceBackedAssociateSuggester());
+                suggestService,
+                new OwnerBackedSuggestService(analysisCache),
+                new SourceBackedAssociateSuggester(analysisCache),
+                analysisCache);
     }
 
     TransportEsTokSuggestAction(
@@ -83,7 +91,8 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
             IndicesService indicesService,
             CachedShardSuggestService suggestService,
             OwnerBackedSuggestService ownerSuggestService,
-            SourceBackedAssociateSuggester associateSuggester) {
+            SourceBackedAssociateSuggester associateSuggester,
+            SharedAnalysisCache analysisCache) {
         super(
                 EsTokSuggestAction.NAME,
                 clusterService,
@@ -91,75 +100,88 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
                 actionFilters,
                 indexNameExpressionResolver,
                 EsTokSuggestRequest::new,
-                ShardEsTokSuggestRequest::new,
                 transportService.getThreadPool().executor(ThreadPool.Names.SEARCH));
         this.indicesService = indicesService;
         this.projectResolver = projectResolver;
         this.suggestService = suggestService;
         this.ownerSuggestService = ownerSuggestService;
         this.associateSuggester = associateSuggester;
+        this.analysisCache = analysisCache;
     }
 
     @Override
     protected EsTokSuggestResponse newResponse(
             EsTokSuggestRequest request,
-            AtomicReferenceArray<?> shardsResponses,
-            ClusterState clusterState) {
-        int successfulShards = 0;
-        int failedShards = 0;
+            int totalShards,
+            int successfulShards,
+            int failedShards,
+            List<NodeSuggestResult> nodeResults,
+            List<DefaultShardOperationFailedException> shardFailures) {
         int cacheHitCount = 0;
-        List<DefaultShardOperationFailedException> shardFailures = null;
+        for (NodeSuggestResult nodeResult : nodeResults) {
+            cacheHitCount += nodeResult.cacheHitCount();
+        }
+        return new EsTokSuggestResponse(
+                request.text(),
+                responseMode(request.mode()),
+                request.limitedFields(),
+                mergeNodeResults(nodeResults, request.size()),
+                cacheHitCount,
+                totalShards,
+                successfulShards,
+                failedShards,
+                shardFailures);
+    }
+
+    /**
+     * Folds the options of a node's shards into partial aggregates. The
+     * coordinator finishes the same aggregation across nodes, so the result is
+     * identical to merging every shard on the coordinator.
+     */
+    @Override
+    protected NodeSuggestResult newNodeResult(EsTokSuggestRequest request, List<ShardSuggestResult> shardResults) {
         boolean ownerRequest = ownerSuggestService.supports(request.limitedFields())
             && shouldUseOwnerSuggest(normalizeMode(request.mode()));
-        Map<String, AggregatedOption> aggregatedOptions = new HashMap<>();
+        return aggregateShardResults(shardResults, ownerRequest);
+    }
 
-        for (int i = 0; i < shardsResponses.length(); i++) {
-            Object shardResponse = shardsResponses.get(i);
-            if (shardResponse == null) {
-                continue;
-            }
-            if (shardResponse instanceof BroadcastShardOperationFailedException exception) {
-                failedShards++;
-                if (shardFailures == null) {
-                    shardFailures = new ArrayList<>();
+    static List<EsTokSuggestOption> mergeNodeResults(List<NodeSuggestResult> nodeResults, int size) {
+        Map<String, AggregatedOption> aggregatedOptions = new HashMap<>();
+        for (NodeSuggestResult nodeResult : nodeResults) {
+            for (AggregatedOption option : nodeResult.options()) {
+                AggregatedOption aggregated = aggregatedOptions.putIfAbsent(option.text, option);
+                if (aggregated != null) {
+                    aggregated.merge(option);
                 }
-                shardFailures.add(new DefaultShardOperationFailedException(exception));
-                continue;
-            }
-
-            ShardEsTokSuggestResponse response = (ShardEsTokSuggestResponse) shardResponse;
-            successfulShards++;
-            if (response.cacheHit()) {
-                cacheHitCount++;
-            }
-            for (EsTokSuggestOption option : response.options()) {
-                AggregatedOption aggregated = aggregatedOptions.computeIfAbsent(
-                        option.text(),
-                        ignored -> new AggregatedOption(option.text(), option.type(), ownerRequest));
-                aggregated.add(option.docFreq(), option.score(), option.shardCount(), option.type());
             }
         }
 
-        List<EsTokSuggestOption> merged = aggregatedOptions.values().stream()
+        return aggregatedOptions.values().stream()
                 .map(AggregatedOption::toOption)
                 .sorted(Comparator
                 .comparingDouble(EsTokSuggestOption::score).reversed()
                 .thenComparing(Comparator.comparingInt(EsTokSuggestOption::docFreq).reversed())
                         .thenComparing(Comparator.comparingInt(EsTokSuggestOption::shardCount).reversed())
                         .thenComparing(EsTokSuggestOption::text))
-                .limit(request.size())
+                .limit(size)
                 .toList();
+    }
 
-        return new EsTokSuggestResponse(
-                request.text(),
-                responseMode(request.mode()),
-                request.limitedFields(),
-                merged,
-                cacheHitCount,
-                shardsResponses.length(),
-                successfulShards,
-                failedShards,
-                shardFailures);
+    static NodeSuggestResult aggregateShardResults(List<ShardSuggestResult> shardResults, boolean ownerRequest) {
+        int cacheHitCount = 0;
+        Map<String, AggregatedOption> aggregatedOptions = new LinkedHashMap<>();
+        for (ShardSuggestResult shardResult : shardResults) {
+            if (shardResult.cacheHit()) {
+                cacheHitCount++;
+            }
+            for (EsTokSuggestOption option : shardResult.options()) {
+                AggregatedOption aggregated = aggregatedOptions.computeIfAbsent(
+                        option.text(),
+                        ignored -> new AggregatedOption(option.text(), option.type(), ownerRequest));
+                aggregated.add(option.docFreq(), option.score(), option.shardCount(), option.type());
+            }
+        }
+        return new NodeSuggestResult(List.copyOf(aggregatedOptions.values()), cacheHitCount);
     }
 
     private static String responseMode(String mode) {
@@ -167,63 +189,53 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
     }
 
     @Override
-    protected ShardEsTokSuggestRequest newShardRequest(int numShards, ShardRouting shard, EsTokSuggestRequest request) {
-        return new ShardEsTokSuggestRequest(shard.shardId(), request);
+    protected NodeSuggestResult readNodeResult(StreamInput in) throws IOException {
+        return new NodeSuggestResult(in);
     }
 
     @Override
-    protected ShardEsTokSuggestResponse readShardResponse(StreamInput in) throws IOException {
-        return new ShardEsTokSuggestResponse(in);
+    protected SuggestNodeContext newNodeContext(EsTokSuggestRequest request) {
+        return new SuggestNodeContext(request, analysisCache);
     }
 
     @Override
-    protected ShardEsTokSuggestResponse shardOperation(ShardEsTokSuggestRequest request, Task task) throws IOException {
-        IndexService indexService = indicesService.indexServiceSafe(request.shardId().getIndex());
-        IndexShard indexShard = indexService.getShard(request.shardId().id());
-        List<String> suggestFields = resolveSuggestFields(indexService, request.fields(), request.usePinyin());
-        List<String> associateFields = resolveAssociateFields(indexService, request.fields());
+    protected ShardSuggestResult shardOperation(
+            EsTokSuggestRequest request,
+            ShardId shardId,
+            SuggestNodeContext context,
+            Task task) throws IOException {
+        IndexService indexService = indicesService.indexServiceSafe(shardId.getIndex());
+        IndexShard indexShard = indexService.getShard(shardId.id());
+        ResolvedFields resolvedFields = context.resolvedFields(indexService);
+        List<String> suggestFields = resolvedFields.suggestFields();
+        List<String> associateFields = resolvedFields.associateFields();
         try (Engine.Searcher searcher = indexShard.acquireSearcher("es_tok_suggest")) {
             IndexReader reader = searcher.getIndexReader();
             if (request.prewarmPinyin()) {
-                suggestService.prewarmFields(
+                CachedShardSuggestService.prewarmFields(
                     reader,
                     mergeWarmupFields(suggestFields, associateFields),
                     pinyinWarmupFields(suggestFields));
                 if (request.text() == null || request.text().isBlank()) {
-                    return new ShardEsTokSuggestResponse(request.shardId(), List.of(), false);
+                    return new ShardSuggestResult(List.of(), false);
                 }
             }
-            LuceneIndexSuggester.CompletionConfig completionConfig = new LuceneIndexSuggester.CompletionConfig(
-                request.size(),
-                request.scanLimit(),
-                request.minPrefixLength(),
-                request.minCandidateLength(),
-                request.allowCompactBigrams(),
-                request.usePinyin());
-            LuceneIndexSuggester.CorrectionConfig correctionConfig = new LuceneIndexSuggester.CorrectionConfig(
-                request.correctionRareDocFreq(),
-                effectiveCorrectionMinLength(request),
-                request.correctionMaxEdits(),
-                request.correctionPrefixLength(),
-                request.size(),
-                1,
-                0.5f,
-                request.usePinyin());
 
             ShardSuggestExecution execution = executeSuggest(
                 searcher,
                 indexService,
                 reader,
                 request,
+                context,
                 suggestFields,
                 associateFields,
-                completionConfig,
-                correctionConfig);
+                context.completionConfig,
+                context.correctionConfig);
 
             List<EsTokSuggestOption> options = execution.options().stream()
                 .map(candidate -> new EsTokSuggestOption(candidate.text(), candidate.docFreq(), candidate.score(), candidate.type(), 1))
                 .toList();
-            return new ShardEsTokSuggestResponse(request.shardId(), options, execution.cacheHit());
+            return new ShardSuggestResult(options, execution.cacheHit());
         }
     }
 
@@ -231,13 +243,14 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
             Engine.Searcher searcher,
             IndexService indexService,
             IndexReader reader,
-            ShardEsTokSuggestRequest request,
-                List<String> suggestFields,
+            EsTokSuggestRequest request,
+            SuggestNodeContext context,
+            List<String> suggestFields,
             List<String> associateFields,
             LuceneIndexSuggester.CompletionConfig completionConfig,
             LuceneIndexSuggester.CorrectionConfig correctionConfig) throws IOException {
         String mode = normalizeMode(request.mode());
-        if (ownerSuggestService.supports(request.fields())
+        if (ownerSuggestService.supports(request.limitedFields())
             && shouldUseOwnerSuggest(mode)) {
             if (request.usePinyin() && isAsciiAlphaNumericQuery(request.text())) {
                 CachedShardSuggestService.SuggestResult result = suggestService.suggest(
@@ -268,7 +281,7 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
                     mode),
                 false);
         }
-        String tokenText = TopicQualityHeuristics.sanitizeQueryText(request.text());
+        String tokenText = context.tokenText;
         if (tokenText.isBlank()) {
             return new ShardSuggestExecution(List.of(), false);
         }
@@ -288,6 +301,7 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
                 reader,
                 indexService,
                 request,
+                context,
                 tokenText,
                 suggestFields,
                 associateFields,
@@ -310,7 +324,8 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
             Engine.Searcher searcher,
             IndexReader reader,
             IndexService indexService,
-            ShardEsTokSuggestRequest request,
+            EsTokSuggestRequest request,
+            SuggestNodeContext context,
             String text,
             List<String> suggestFields,
             List<String> associateFields,
@@ -334,7 +349,7 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
         Map<String, AutoAccumulator> merged = new HashMap<>();
         mergeAutoOptions(merged, primary.options(), 1.0f);
         boolean cacheHit = primary.cacheHit();
-        List<String> fallbackTexts = AutoSuggestTextVariants.buildFallbackTexts(indexService, suggestFields, text);
+        List<String> fallbackTexts = context.fallbackTexts(indexService, suggestFields, text);
         for (int index = 0; index < fallbackTexts.size(); index++) {
             String fallbackText = fallbackTexts.get(index);
             ShardSuggestExecution fallback = executeAutoSuggestForText(
@@ -365,7 +380,7 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
             Engine.Searcher searcher,
             IndexService indexService,
             IndexReader reader,
-            ShardEsTokSuggestRequest request,
+            EsTokSuggestRequest request,
             String text,
             List<String> suggestFields,
             List<String> associateFields,
@@ -624,7 +639,7 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
         return prefixOptions.isEmpty() && !correctionOptions.isEmpty() && asciiOnly && hasWhitespace;
         }
 
-        private static int effectiveCorrectionMinLength(ShardEsTokSuggestRequest request) {
+        private static int effectiveCorrectionMinLength(EsTokSuggestRequest request) {
         if (!request.usePinyin() || !PinyinSupport.containsChinese(request.text())) {
             return request.correctionMinLength();
         }
@@ -748,9 +763,103 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
         return state.blocks().indicesBlockedException(projectResolver.getProjectId(), ClusterBlockLevel.READ, concreteIndices);
     }
 
-    private static final class AggregatedOption {
+    /**
+     * Per node request state shared by the shards of that node: the configs
+     * derived from the request, the sanitized text, the fields resolved for
+     * each index and the analyzed long-text fallbacks.
+     */
+    static final class SuggestNodeContext {
+        private final EsTokSuggestRequest request;
+        private final String tokenText;
+        private final LuceneIndexSuggester.CompletionConfig completionConfig;
+        private final LuceneIndexSuggester.CorrectionConfig correctionConfig;
+        private final Map<Index, ResolvedFields> fieldsByIndex = new ConcurrentHashMap<>();
+        private final Map<FallbackKey, List<String>> fallbackTexts = new ConcurrentHashMap<>();
+        private final SharedAnalysisCache analysisCache;
+
+        private SuggestNodeContext(EsTokSuggestRequest request, SharedAnalysisCache analysisCache) {
+            this.request = request;
+            this.analysisCache = analysisCache;
+            this.tokenText = TopicQualityHeuristics.sanitizeQueryText(request.text());
+            this.completionConfig = new LuceneIndexSuggester.CompletionConfig(
+                request.size(),
+                request.scanLimit(),
+                request.minPrefixLength(),
+                request.minCandidateLength(),
+                request.allowCompactBigrams(),
+                request.usePinyin());
+            this.correctionConfig = new LuceneIndexSuggester.CorrectionConfig(
+                request.correctionRareDocFreq(),
+                effectiveCorrectionMinLength(request),
+                request.correctionMaxEdits(),
+                request.correctionPrefixLength(),
+                request.size(),
+                1,
+                0.5f,
+                request.usePinyin());
+        }
+
+        private ResolvedFields resolvedFields(IndexService indexService) {
+            return fieldsByIndex.computeIfAbsent(indexService.index(), ignored -> new ResolvedFields(
+                resolveSuggestFields(indexService, request.limitedFields(), request.usePinyin()),
+                resolveAssociateFields(indexService, request.limitedFields())));
+        }
+
+        private List<String> fallbackTexts(IndexService indexService, List<String> suggestFields, String text) throws IOException {
+            FallbackKey key = new FallbackKey(indexService.index(), text);
+            List<String> cached = fallbackTexts.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            // Analysis is cheap to repeat, so racing shards may both compute it
+            List<String> computed = List.copyOf(AutoSuggestTextVariants.buildFallbackTexts(analysisCache, indexService, suggestFields, text));
+            fallbackTexts.putIfAbsent(key, computed);
+            return computed;
+        }
+    }
+
+    private record ResolvedFields(List<String> suggestFields, List<String> associateFields) {
+    }
+
+    private record FallbackKey(Index index, String text) {
+    }
+
+    record ShardSuggestResult(List<EsTokSuggestOption> options, boolean cacheHit) {
+    }
+
+    /** Options of one node's shards, aggregated but not yet scored or truncated. */
+    static final class NodeSuggestResult implements Writeable {
+        private final List<AggregatedOption> options;
+        private final int cacheHitCount;
+
+        NodeSuggestResult(StreamInput in) throws IOException {
+            options = in.readCollectionAsList(AggregatedOption::new);
+            cacheHitCount = in.readVInt();
+        }
+
+        NodeSuggestResult(List<AggregatedOption> options, int cacheHitCount) {
+            this.options = options;
+            this.cacheHitCount = cacheHitCount;
+        }
+
+        List<AggregatedOption> options() {
+            return options;
+        }
+
+        int cacheHitCount() {
+            return cacheHitCount;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeCollection(options);
+            out.writeVInt(cacheHitCount);
+        }
+    }
+
+    static final class AggregatedOption implements Writeable {
         private final String text;
-        private final Map<String, Float> typeScores = new HashMap<>();
+        private final Map<String, Float> typeScores;
         private final boolean ownerRequest;
         private int docFreq;
         private float score;
@@ -760,9 +869,31 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
         private AggregatedOption(String text, String type, boolean ownerRequest) {
             this.text = text;
             this.ownerRequest = ownerRequest;
+            this.typeScores = new HashMap<>();
             this.typeScores.put(type, 0.0f);
         }
 
+        private AggregatedOption(StreamInput in) throws IOException {
+            text = in.readString();
+            typeScores = new HashMap<>(in.readMap(StreamInput::readFloat));
+            ownerRequest = in.readBoolean();
+            docFreq = in.readVInt();
+            score = in.readFloat();
+            maxScore = in.readFloat();
+            shardCount = in.readVInt();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(text);
+            out.writeMap(typeScores, StreamOutput::writeFloat);
+            out.writeBoolean(ownerRequest);
+            out.writeVInt(docFreq);
+            out.writeFloat(score);
+            out.writeFloat(maxScore);
+            out.writeVInt(shardCount);
+        }
+
         private void add(int docFreq, float score, int shardCount, String type) {
             this.docFreq += docFreq;
             this.score += score;
@@ -771,6 +902,14 @@ public class TransportEsTokSuggestAction extends TransportBroadcastAction<
             this.typeScores.merge(type, score, Float::sum);
         }
 
+        private void merge(AggregatedOption other) {
+            docFreq += other.docFreq;
+            score += other.score;
+            maxScore = Math.max(maxScore, other.maxScore);
+            shardCount += other.shardCount;
+            other.typeScores.forEach((type, typeScore) -> typeScores.merge(type, typeScore, Float::sum));
+        }
+
         private float mergedScore() {
             if (!ownerRequest) {
                 return score;
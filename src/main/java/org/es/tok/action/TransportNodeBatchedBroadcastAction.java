@@ -0,0 +1,416 @@
+package org.es.tok.action;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionListenerResponseHandler;
+import org.elasticsearch.action.IndicesRequest;
+import org.elasticsearch.action.NoShardAvailableActionException;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.ChannelActionListener;
+import org.elasticsearch.action.support.DefaultShardOperationFailedException;
+import org.elasticsearch.action.support.HandledTransportAction;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.action.support.TransportActions;
+import org.elasticsearch.action.support.broadcast.BaseBroadcastResponse;
+import org.elasticsearch.action.support.broadcast.BroadcastRequest;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.block.ClusterBlockException;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.transport.AbstractTransportRequest;
+import org.elasticsearch.transport.TransportChannel;
+import org.elasticsearch.transport.TransportRequestOptions;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Broadcast action that sends one request per node instead of one per shard.
+ * <p>
+ * The coordinator picks one copy of every target shard the same way a search
+ * does, groups the copies by node and sends each node a single request listing
+ * its shards. The node runs those shards in parallel on the action executor
+ * against one context shared by the whole node request, folds the shard results
+ * into one node result and returns it together with the shard failures, so the
+ * coordinator merges one partial result per node rather than one per shard.
+ * <p>
+ * As in {@code TransportBroadcastAction}, a shard that fails, alone or with its
+ * whole node request, moves on to its next copy: the failed shards are grouped
+ * again by the node of their next copy and sent as new node requests. A shard
+ * is reported as failed only once it has no copies left.
+ */
+public abstract class TransportNodeBatchedBroadcastAction<
+        Request extends BroadcastRequest<Request>,
+        Response extends BaseBroadcastResponse,
+        ShardResult,
+        NodeResult extends Writeable,
+        NodeContext> extends HandledTransportAction<Request, Response> {
+
+    protected final ClusterService clusterService;
+    protected final TransportService transportService;
+    protected final IndexNameExpressionResolver indexNameExpressionResolver;
+    private final Writeable.Reader<Request> requestReader;
+    private final Executor executor;
+    private final String nodeActionName;
+
+    // The node handler has to exist as soon as the action does, before any node
+    // request can arrive; like TransportBroadcastAction it is registered here and
+    // only runs nodeOperation once the subclass is constructed and a request comes in.
+    @SuppressWarnings("this-escape")
+    protected TransportNodeBatchedBroadcastAction(
+            String actionName,
+            ClusterService clusterService,
+            TransportService transportService,
+            ActionFilters actionFilters,
+            IndexNameExpressionResolver indexNameExpressionResolver,
+            Writeable.Reader<Request> requestReader,
+            Executor executor) {
+        super(actionName, transportService, actionFilters, requestReader, executor);
+        this.clusterService = clusterService;
+        this.transportService = transportService;
+        this.indexNameExpressionResolver = indexNameExpressionResolver;
+        this.requestReader = requestReader;
+        this.executor = executor;
+        this.nodeActionName = actionName + "[n]";
+        transportService.registerRequestHandler(nodeActionName, executor, NodeRequest::new, this::nodeOperation);
+    }
+
+    /** Shard copies to target, one iterator per shard in preference order. */
+    protected abstract List<ShardIterator> shards(ClusterState clusterState, Request request, String[] concreteIndices);
+
+    protected abstract ClusterBlockException checkGlobalBlock(ClusterState state, Request request);
+
+    protected abstract ClusterBlockException checkRequestBlock(ClusterState state, Request request, String[] concreteIndices);
+
+    /** State shared by every shard of one node request; must be safe for concurrent use. */
+    protected abstract NodeContext newNodeContext(Request request);
+
+    protected abstract ShardResult shardOperation(Request request, ShardId shardId, NodeContext context, Task task) throws IOException;
+
+    /** Folds the successful shard results of one node into its node result. */
+    protected abstract NodeResult newNodeResult(Request request, List<ShardResult> shardResults);
+
+    protected abstract NodeResult readNodeResult(StreamInput in) throws IOException;
+
+    protected abstract Response newResponse(
+            Request request,
+            int totalShards,
+            int successfulShards,
+            int failedShards,
+            List<NodeResult> nodeResults,
+            List<DefaultShardOperationFailedException> shardFailures);
+
+    @Override
+    protected void doExecute(Task task, Request request, ActionListener<Response> listener) {
+        ClusterState clusterState = clusterService.state();
+        ClusterBlockException blockException = checkGlobalBlock(clusterState, request);
+        if (blockException != null) {
+            listener.onFailure(blockException);
+            return;
+        }
+        String[] concreteIndices = indexNameExpressionResolver.concreteIndexNames(clusterState, request);
+        blockException = checkRequestBlock(clusterState, request, concreteIndices);
+        if (blockException != null) {
+            listener.onFailure(blockException);
+            return;
+        }
+        List<ShardIterator> shardIterators = shards(clusterState, request, concreteIndices);
+        new AsyncNodeBatchedAction(task, request, clusterState, shardIterators, listener).start();
+    }
+
+    /**
+     * Moves every shard on to its next copy and groups the shards by the node
+     * holding that copy; shards without a copy left are returned under {@code null}.
+     */
+    static Map<String, List<ShardIterator>> groupShardsByNode(Collection<ShardIterator> shardIterators) {
+        Map<String, List<ShardIterator>> shardsByNode = new LinkedHashMap<>();
+        for (ShardIterator shardIterator : shardIterators) {
+            ShardRouting shard = shardIterator.nextOrNull();
+            String nodeId = shard == null ? null : shard.currentNodeId();
+            shardsByNode.computeIfAbsent(nodeId, ignored -> new ArrayList<>()).add(shardIterator);
+        }
+        return shardsByNode;
+    }
+
+    private void nodeOperation(NodeRequest nodeRequest, TransportChannel channel, Task task) {
+        ActionListener<NodeResponse> listener = new ChannelActionListener<>(channel);
+        Request request = nodeRequest.request;
+        List<ShardId> shardIds = nodeRequest.shardIds;
+        NodeContext context = newNodeContext(request);
+        AtomicReferenceArray<Object> results = new AtomicReferenceArray<>(shardIds.size());
+        CountDown pending = new CountDown(shardIds.size());
+        for (int index = 0; index < shardIds.size(); index++) {
+            int slot = index;
+            ShardId shardId = shardIds.get(index);
+            executor.execute(new AbstractRunnable() {
+                @Override
+                protected void doRun() throws Exception {
+                    if (task instanceof CancellableTask cancellableTask) {
+                        cancellableTask.ensureNotCancelled();
+                    }
+                    results.set(slot, shardOperation(request, shardId, context, task));
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    results.set(slot, e);
+                }
+
+                @Override
+                public void onAfter() {
+                    if (pending.countDown()) {
+                        ActionListener.completeWith(listener, () -> finishNode(request, shardIds, results));
+                    }
+                }
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private NodeResponse finishNode(Request request, List<ShardId> shardIds, AtomicReferenceArray<Object> results) {
+        List<ShardResult> shardResults = new ArrayList<>(shardIds.size());
+        List<ShardFailure> shardFailures = new ArrayList<>();
+        for (int index = 0; index < shardIds.size(); index++) {
+            Object result = results.get(index);
+            if (result instanceof Exception e) {
+                // Every failure goes back, shard not available ones included, so the coordinator can try the next copy
+                shardFailures.add(new ShardFailure(shardIds.get(index), e));
+            } else {
+                shardResults.add((ShardResult) result);
+            }
+        }
+        NodeResult nodeResult = shardResults.isEmpty() ? null : newNodeResult(request, shardResults);
+        return new NodeResponse(shardResults.size(), nodeResult, shardFailures);
+    }
+
+    private static DefaultShardOperationFailedException shardFailure(ShardId shardId, Exception e) {
+        return new DefaultShardOperationFailedException(shardId.getIndexName(), shardId.id(), e);
+    }
+
+    private final class AsyncNodeBatchedAction {
+        private final Task task;
+        private final Request request;
+        private final ClusterState clusterState;
+        private final ActionListener<Response> listener;
+        private final int totalShards;
+        private final List<ShardIterator> shardIterators;
+        private final ConcurrentLinkedQueue<NodeResult> nodeResults = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<DefaultShardOperationFailedException> shardFailures = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger successfulShards = new AtomicInteger();
+        // Shards that have neither succeeded nor run out of copies
+        private final AtomicInteger pendingShards;
+
+        private AsyncNodeBatchedAction(
+                Task task,
+                Request request,
+                ClusterState clusterState,
+                List<ShardIterator> shardIterators,
+                ActionListener<Response> listener) {
+            this.task = task;
+            this.request = request;
+            this.clusterState = clusterState;
+            this.listener = listener;
+            this.shardIterators = shardIterators;
+            this.totalShards = shardIterators.size();
+            this.pendingShards = new AtomicInteger(totalShards);
+        }
+
+        private void start() {
+            if (totalShards == 0) {
+                finish();
+                return;
+            }
+            sendToNextCopies(shardIterators, Map.of());
+        }
+
+        /** Sends every shard to its next copy, one request per node; {@code lastFailures} holds why the previous copies failed. */
+        private void sendToNextCopies(List<ShardIterator> shards, Map<ShardId, Exception> lastFailures) {
+            for (Map.Entry<String, List<ShardIterator>> entry : groupShardsByNode(shards).entrySet()) {
+                List<ShardIterator> nodeShards = entry.getValue();
+                if (entry.getKey() == null) {
+                    for (ShardIterator shard : nodeShards) {
+                        onShardExhausted(shard.shardId(), lastFailures.get(shard.shardId()));
+                    }
+                    continue;
+                }
+                DiscoveryNode node = clusterState.nodes().get(entry.getKey());
+                if (node == null) {
+                    onNodeFailure(nodeShards, new NoShardAvailableActionException(nodeShards.get(0).shardId()));
+                    continue;
+                }
+                List<ShardId> shardIds = new ArrayList<>(nodeShards.size());
+                for (ShardIterator shard : nodeShards) {
+                    shardIds.add(shard.shardId());
+                }
+                transportService.sendChildRequest(
+                        node,
+                        nodeActionName,
+                        new NodeRequest(request, shardIds),
+                        task,
+                        TransportRequestOptions.EMPTY,
+                        new ActionListenerResponseHandler<>(
+                                ActionListener.wrap(response -> onNodeResponse(nodeShards, response), e -> onNodeFailure(nodeShards, e)),
+                                NodeResponse::new,
+                                executor));
+            }
+        }
+
+        private void onNodeResponse(List<ShardIterator> nodeShards, NodeResponse response) {
+            successfulShards.addAndGet(response.successfulShards);
+            if (response.result != null) {
+                nodeResults.add(response.result);
+            }
+            if (response.shardFailures.isEmpty() == false) {
+                Map<ShardId, Exception> failures = new HashMap<>();
+                for (ShardFailure failure : response.shardFailures) {
+                    failures.put(failure.shardId(), failure.cause());
+                }
+                retry(nodeShards.stream().filter(shard -> failures.containsKey(shard.shardId())).toList(), failures);
+            }
+            onShardsDone(response.successfulShards);
+        }
+
+        private void onNodeFailure(List<ShardIterator> nodeShards, Exception e) {
+            Map<ShardId, Exception> failures = new HashMap<>();
+            for (ShardIterator shard : nodeShards) {
+                failures.put(shard.shardId(), e);
+            }
+            retry(nodeShards, failures);
+        }
+
+        private void retry(List<ShardIterator> shards, Map<ShardId, Exception> failures) {
+            if (task instanceof CancellableTask cancellableTask && cancellableTask.isCancelled()) {
+                for (ShardIterator shard : shards) {
+                    onShardExhausted(shard.shardId(), failures.get(shard.shardId()));
+                }
+                return;
+            }
+            sendToNextCopies(shards, failures);
+        }
+
+        private void onShardExhausted(ShardId shardId, Exception e) {
+            // Shards without an active copy count towards the total only, as in a broadcast
+            if (e != null && TransportActions.isShardNotAvailableException(e) == false) {
+                shardFailures.add(shardFailure(shardId, e));
+            }
+            onShardsDone(1);
+        }
+
+        private void onShardsDone(int shards) {
+            if (shards > 0 && pendingShards.addAndGet(-shards) == 0) {
+                finish();
+            }
+        }
+
+        private void finish() {
+            List<DefaultShardOperationFailedException> failures = List.copyOf(shardFailures);
+            ActionListener.completeWith(listener, () -> newResponse(
+                    request,
+                    totalShards,
+                    successfulShards.get(),
+                    failures.size(),
+                    List.copyOf(nodeResults),
+                    failures.isEmpty() ? null : failures));
+        }
+    }
+
+    private final class NodeRequest extends AbstractTransportRequest implements IndicesRequest {
+        private final Request request;
+        private final List<ShardId> shardIds;
+
+        private NodeRequest(StreamInput in) throws IOException {
+            super(in);
+            request = requestReader.read(in);
+            shardIds = in.readCollectionAsList(ShardId::new);
+        }
+
+        private NodeRequest(Request request, List<ShardId> shardIds) {
+            this.request = request;
+            this.shardIds = List.copyOf(shardIds);
+        }
+
+        @Override
+        public String[] indices() {
+            return request.indices();
+        }
+
+        @Override
+        public IndicesOptions indicesOptions() {
+            return request.indicesOptions();
+        }
+
+        @Override
+        public Task createTask(long id, String type, String action, TaskId parentTaskId, Map<String, String> headers) {
+            return new CancellableTask(id, type, action, "", parentTaskId, headers);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            request.writeTo(out);
+            out.writeCollection(shardIds);
+        }
+    }
+
+    private record ShardFailure(ShardId shardId, Exception cause) implements Writeable {
+        private ShardFailure(StreamInput in) throws IOException {
+            this(new ShardId(in), in.readException());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            shardId.writeTo(out);
+            out.writeException(cause);
+        }
+    }
+
+    private final class NodeResponse extends TransportResponse {
+        private final int successfulShards;
+        private final NodeResult result;
+        private final List<ShardFailure> shardFailures;
+
+        private NodeResponse(StreamInput in) throws IOException {
+            successfulShards = in.readVInt();
+            result = in.readOptionalWriteable(TransportNodeBatchedBroadcastAction.this::readNodeResult);
+            shardFailures = in.readCollectionAsList(ShardFailure::new);
+        }
+
+        private NodeResponse(
+                int successfulShards,
+                NodeResult result,
+                List<ShardFailure> shardFailures) {
+            this.successfulShards = successfulShards;
+            this.result = result;
+            this.shardFailures = shardFailures;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(successfulShards);
+            out.writeOptionalWriteable(result);
+            out.writeCollection(shardFailures);
+        }
+    }
+}
@@ -29,7 +29,7 @@ public class EsTokAnalyzer extends Analyzer {
     public EsTokAnalyzer(EsTokConfig config) {
         this.config = config;
 
-        // Use VocabConfig.getOrCreateStrategy() for global Trie sharing
+        // Use VocabConfig.getOrCreateStrategy() for global vocab automaton sharing
         this.vocabStrategy = config.getVocabConfig().getOrCreateStrategy();
         this.categStrategy = config.getCategConfig().isUseCateg()
                 ? new CategStrategy(config.getCategConfig().isSplitWord())
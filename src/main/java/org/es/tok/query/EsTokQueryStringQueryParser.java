@@ -21,6 +21,7 @@ import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.query.Operator;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.es.tok.suggest.LuceneIndexSuggester;
+import org.es.tok.suggest.TermStats;
 import org.es.tok.text.TextNormalization;
 
 import java.io.IOException;
@@ -64,6 +65,7 @@ public class EsTokQueryStringQueryParser {
     private LuceneIndexSuggester.CorrectionConfig correctionConfig;
     private List<String> suggestionFields = Collections.emptyList();
     private LuceneIndexSuggester suggester;
+    private TermStats termStats;
 
     public EsTokQueryStringQueryParser(
             SearchExecutionContext context,
@@ -274,6 +276,9 @@ public class EsTokQueryStringQueryParser {
             return null;
         }
 
+        if (maxFreq > 0) {
+            prefetchTermStats(fieldSpec.field(), analyzedTokens);
+        }
         Set<String> uniqueTerms = new LinkedHashSet<>();
         for (AnalyzedToken token : analyzedTokens) {
             if (token.isUsable() == false) {
@@ -457,10 +462,26 @@ public class EsTokQueryStringQueryParser {
         return tokens;
     }
 
+    private void prefetchTermStats(String field, List<AnalyzedToken> tokens) {
+        TermStats stats = getTermStats();
+        if (stats == null) {
+            return;
+        }
+        List<String> terms = new ArrayList<>(tokens.size());
+        for (AnalyzedToken token : tokens) {
+            terms.add(token.term());
+        }
+        try {
+            stats.prefetch(field, terms);
+        } catch (IOException exception) {
+            // exceedsMaxFreq looks the terms up again one by one
+        }
+    }
+
     private boolean exceedsMaxFreq(String field, String termText) {
         try {
-            IndexReader reader = context.getIndexReader();
-            return reader != null && reader.docFreq(new Term(field, termText)) > maxFreq;
+            TermStats stats = getTermStats();
+            return stats != null && stats.docFreq(field, termText) > maxFreq;
         } catch (IOException exception) {
             return false;
         }
@@ -481,11 +502,20 @@ public class EsTokQueryStringQueryParser {
 
     private LuceneIndexSuggester getSuggester() {
         if (suggester == null) {
-            suggester = new LuceneIndexSuggester(context.getIndexReader());
+            suggester = new LuceneIndexSuggester(getTermStats());
         }
         return suggester;
     }
 
+    /** Term statistics shared by the max_freq checks and corrections of this parse. */
+    private TermStats getTermStats() {
+        if (termStats == null) {
+            IndexReader reader = context.getIndexReader();
+            termStats = reader == null ? null : new TermStats(reader);
+        }
+        return termStats;
+    }
+
     static final class ParsedClause {
         private final String text;
         private final BooleanClause.Occur occur;
@@ -0,0 +1,239 @@
+package org.es.tok.relations;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.Index;
+import org.es.tok.suggest.SingleFlight;
+import org.es.tok.suggest.SourceBackedRelatedOwnersService;
+import org.es.tok.suggest.TinyLfuCache;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Node-wide cache of the shard results of entity relation and related owner
+ * requests.
+ * <p>
+ * A shard result only depends on the shard reader and the request, so entries
+ * are keyed by the reader cache key and a canonical form of the request: seed
+ * bvids and mids are deduplicated and sorted, so the same seeds in another
+ * order share one entry, and are computed in that canonical order. A refresh
+ * opens a new reader and therefore a new key; entries of a closed reader are
+ * dropped. Eviction and admission follow {@link TinyLfuCache} within a byte
+ * budget, so popular seeds stay cached and keep their access history across
+ * refreshes while one-off requests pass through.
+ * <p>
+ * Results also carry recency scores computed from the wall clock, and an index
+ * that stops refreshing keeps its reader indefinitely, so keys include the
+ * current {@link #RECENCY_BUCKET} as well. Recency decays over days of age, so
+ * a result is reused for at most an hour before it is computed again.
+ */
+public class RelationResultCache {
+
+    /** Node-wide budget of the relation result cache, absolute or as a share of the heap. */
+    public static final Setting<ByteSizeValue> CACHE_SIZE_SETTING = Setting.memorySizeSetting(
+            "es_tok.relations.cache.size",
+            "1%",
+            Setting.Property.NodeScope);
+    /** Budget of the results of a single index; defaults to the node-wide budget. */
+    public static final Setting<ByteSizeValue> CACHE_INDEX_SIZE_SETTING = Setting.memorySizeSetting(
+            "es_tok.relations.cache.index_size",
+            CACHE_SIZE_SETTING,
+            Setting.Property.NodeScope);
+
+    /** Span of wall clock time over which a result's recency scores are reused. */
+    static final Duration RECENCY_BUCKET = Duration.ofHours(1);
+
+    private static final long EXPECTED_ENTRY_BYTES = 2048;
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+    private static final long RESULT_OVERHEAD_BYTES = 64;
+
+    private final TinyLfuCache<CacheKey, Object> cache;
+    private final SingleFlight<CacheKey> inFlight = new SingleFlight<>();
+    private final Set<Object> listeningReaders = ConcurrentHashMap.newKeySet();
+    private final LongSupplier nowMillis;
+
+    public RelationResultCache() {
+        this(Settings.EMPTY);
+    }
+
+    public RelationResultCache(Settings settings) {
+        this(CACHE_SIZE_SETTING.get(settings), CACHE_INDEX_SIZE_SETTING.get(settings));
+    }
+
+    public RelationResultCache(ByteSizeValue maxSize, ByteSizeValue maxIndexSize) {
+        this(maxSize, maxIndexSize, System::currentTimeMillis);
+    }
+
+    RelationResultCache(ByteSizeValue maxSize, ByteSizeValue maxIndexSize, LongSupplier nowMillis) {
+        this.nowMillis = nowMillis;
+        this.cache = new TinyLfuCache<>(
+                maxSize.getBytes(),
+                maxIndexSize.getBytes(),
+                EXPECTED_ENTRY_BYTES,
+                RelationResultCache::estimateBytes,
+                CacheKey::popularityHash);
+    }
+
+    /** Result of {@code relation} on the shard {@code reader} of {@code index}, from the cache when possible. */
+    public CachedResult<SourceBackedEntityRelationsService.RelationResult> relations(
+            IndexReader reader,
+            Index index,
+            String relation,
+            List<String> bvids,
+            List<Long> mids,
+            int size,
+            int scanLimit,
+            boolean cacheEnabled,
+            RelationsLoader loader) throws IOException {
+        Objects.requireNonNull(relation, "relation");
+        List<String> canonicalBvids = canonical(bvids);
+        List<Long> canonicalMids = canonical(mids);
+        RelationsRequest request = new RelationsRequest(relation, canonicalBvids, canonicalMids, size, scanLimit);
+        return get(reader, index, request, cacheEnabled, () -> loader.load(canonicalBvids, canonicalMids));
+    }
+
+    /** Related owners of {@code text} on the shard {@code reader} of {@code index}, from the cache when possible. */
+    public CachedResult<List<SourceBackedRelatedOwnersService.RelatedOwnerResult>> relatedOwners(
+            IndexReader reader,
+            Index index,
+            List<String> fields,
+            String text,
+            int size,
+            int scanLimit,
+            boolean cacheEnabled,
+            SingleFlight.Loader<List<SourceBackedRelatedOwnersService.RelatedOwnerResult>> loader) throws IOException {
+        Objects.requireNonNull(text, "text");
+        RelatedOwnersRequest request = new RelatedOwnersRequest(fields == null ? List.of() : List.copyOf(fields), text, size, scanLimit);
+        return get(reader, index, request, cacheEnabled, loader);
+    }
+
+    public TinyLfuCache.Stats stats() {
+        return cache.stats();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> CachedResult<V> get(
+            IndexReader reader,
+            Index index,
+            Object request,
+            boolean cacheEnabled,
+            SingleFlight.Loader<V> loader) throws IOException {
+        CacheKey cacheKey = cacheEnabled ? createKey(reader, index, request) : null;
+        if (cacheKey == null) {
+            return new CachedResult<>(loader.load(), false);
+        }
+        Object cached = cache.get(cacheKey.index(), cacheKey);
+        if (cached != null) {
+            return new CachedResult<>((V) cached, true);
+        }
+
+        // Identical requests that miss together share one computation; only the caller that runs it reports a miss
+        boolean[] computedHere = new boolean[1];
+        Object result = inFlight.execute(cacheKey, () -> {
+            Object landed = cache.peek(cacheKey.index(), cacheKey);
+            if (landed != null) {
+                return landed;
+            }
+            computedHere[0] = true;
+            V computed = loader.load();
+            cache.put(cacheKey.index(), cacheKey, computed);
+            return computed;
+        });
+        return new CachedResult<>((V) result, computedHere[0] == false);
+    }
+
+    private CacheKey createKey(IndexReader reader, Index index, Object request) {
+        IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
+        if (cacheHelper == null || index == null) {
+            return null;
+        }
+        Object readerKey = cacheHelper.getKey();
+        String indexName = index.getName();
+        if (listeningReaders.add(readerKey)) {
+            // Results of a closed reader can never be hit again; drop them rather than wait for eviction
+            cacheHelper.addClosedListener(closedKey -> {
+                listeningReaders.remove(closedKey);
+                cache.invalidate(indexName, key -> key.readerKey() == closedKey);
+            });
+        }
+        return new CacheKey(readerKey, indexName, nowMillis.getAsLong() / RECENCY_BUCKET.toMillis(), request);
+    }
+
+    private static <T extends Comparable<T>> List<T> canonical(List<T> values) {
+        if (values == null || values.isEmpty()) {
+            return List.of();
+        }
+        TreeSet<T> sorted = new TreeSet<>();
+        for (T value : values) {
+            if (value != null) {
+                sorted.add(value);
+            }
+        }
+        return List.copyOf(sorted);
+    }
+
+    private static long estimateBytes(CacheKey key, Object value) {
+        long bytes = ENTRY_OVERHEAD_BYTES;
+        if (key.request() instanceof RelationsRequest request) {
+            for (String bvid : request.bvids()) {
+                bytes += RamUsageEstimator.sizeOf(bvid);
+            }
+            bytes += (long) request.mids().size() * Long.BYTES * 3;
+        } else if (key.request() instanceof RelatedOwnersRequest request) {
+            bytes += RamUsageEstimator.sizeOf(request.text());
+            for (String field : request.fields()) {
+                bytes += RamUsageEstimator.sizeOf(field);
+            }
+        }
+        if (value instanceof SourceBackedEntityRelationsService.RelationResult result) {
+            for (SourceBackedEntityRelationsService.RelatedVideoResult video : result.videos()) {
+                bytes += RESULT_OVERHEAD_BYTES
+                        + RamUsageEstimator.sizeOf(video.bvid())
+                        + RamUsageEstimator.sizeOf(video.title())
+                        + RamUsageEstimator.sizeOf(video.ownerName());
+            }
+            for (SourceBackedEntityRelationsService.RelatedOwnerResult owner : result.owners()) {
+                bytes += RESULT_OVERHEAD_BYTES + RamUsageEstimator.sizeOf(owner.name());
+            }
+        } else if (value instanceof List<?> owners) {
+            for (Object owner : owners) {
+                bytes += RESULT_OVERHEAD_BYTES
+                        + RamUsageEstimator.sizeOf(((SourceBackedRelatedOwnersService.RelatedOwnerResult) owner).name());
+            }
+        }
+        return bytes;
+    }
+
+    /** Computes a relation on the canonical seeds. */
+    @FunctionalInterface
+    public interface RelationsLoader {
+        SourceBackedEntityRelationsService.RelationResult load(List<String> bvids, List<Long> mids) throws IOException;
+    }
+
+    public record CachedResult<V>(V value, boolean cacheHit) {
+    }
+
+    private record CacheKey(Object readerKey, String index, long recencyBucket, Object request) {
+
+        /** The same request on a refreshed reader or in a later recency bucket shares the access history of the old one. */
+        private int popularityHash() {
+            return Objects.hash(index, request);
+        }
+    }
+
+    private record RelationsRequest(String relation, List<String> bvids, List<Long> mids, int size, int scanLimit) {
+    }
+
+    private record RelatedOwnersRequest(List<String> fields, String text, int size, int scanLimit) {
+    }
+}
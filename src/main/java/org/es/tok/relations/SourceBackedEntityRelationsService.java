@@ -1,11 +1,7 @@
 package org.es.tok.relations;
 
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.LongPoint;
-import org.apache.lucene.index.LeafReaderContext;
-import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
@@ -15,13 +11,18 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.MappedFieldType;
-import org.elasticsearch.index.mapper.SourceFieldMetrics;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.lookup.Source;
-import org.elasticsearch.search.lookup.SourceProvider;
 import org.es.tok.action.EsTokEntityRelationRequest;
+import org.es.tok.suggest.OwnerTopicProfileCache;
+import org.es.tok.suggest.OwnerTopicProfiles;
+import org.es.tok.suggest.SharedAnalysisCache;
+import org.es.tok.suggest.TermStats;
+import org.es.tok.suggest.VideoSignalReader;
 import org.es.tok.text.SourceValueUtils;
 import org.es.tok.text.TextNormalization;
 import org.es.tok.text.TopicQualityHeuristics;
@@ -44,14 +45,23 @@ public class SourceBackedEntityRelationsService {
     private static final String BVID_SOURCE_PATH = "bvid";
     private static final String TITLE_SOURCE_PATH = "title";
     private static final String OWNER_NAME_SOURCE_PATH = "owner.name";
-    private static final String OWNER_MID_SOURCE_PATH = "owner.mid";
-    private static final String STAT_SCORE_SOURCE_PATH = "stat_score";
-    private static final String STAT_VIEW_SOURCE_PATH = "stat.view";
-    private static final String INSERT_AT_SOURCE_PATH = "insert_at";
+
+    private final SharedAnalysisCache analysisCache;
+    private final OwnerTopicProfileCache profileCache;
+
+    public SourceBackedEntityRelationsService() {
+        this(new SharedAnalysisCache(), new OwnerTopicProfileCache());
+    }
+
+    public SourceBackedEntityRelationsService(SharedAnalysisCache analysisCache, OwnerTopicProfileCache profileCache) {
+        this.analysisCache = analysisCache;
+        this.profileCache = profileCache;
+    }
 
     public RelationResult searchRelations(
             Engine.Searcher searcher,
             IndexService indexService,
+            ShardId shardId,
             String relation,
             List<String> bvids,
             List<Long> mids,
@@ -59,13 +69,12 @@ public class SourceBackedEntityRelationsService {
             int scanLimit) throws IOException {
         RelationTuning.RelationProfile relationProfile = RelationTuning.profile(relation);
         List<FieldContext> topicFields = resolveTopicFields(indexService);
-        AnalysisCache analysisCache = new AnalysisCache();
-        SeedContext seedContext = loadSeedContext(searcher, indexService, relation, bvids, mids, scanLimit, topicFields, analysisCache);
+        SeedContext seedContext = loadSeedContext(searcher, indexService, shardId, relation, bvids, mids, scanLimit, topicFields);
         if (seedContext.isEmpty()) {
             return RelationResult.empty();
         }
 
-        seedContext.prepareQueryTerms(searcher, topicFields, relationProfile);
+        seedContext.prepareQueryTerms(new TermStats(searcher.getIndexReader()), topicFields, relationProfile);
         if (!seedContext.hasQueryTerms()) {
             return RelationResult.empty();
         }
@@ -90,11 +99,9 @@ public class SourceBackedEntityRelationsService {
             return RelationResult.empty();
         }
 
-        SourceProvider sourceProvider = SourceProvider.fromLookup(
-                indexService.mapperService().mappingLookup(),
-                null,
-                SourceFieldMetrics.NOOP);
-        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        VideoSignalReader signalReader = new VideoSignalReader(indexService, searcher.getIndexReader());
+        signalReader.prefetch(candidateScoreDocs);
+        signalReader.prefetchTokens(candidateScoreDocs);
         long nowEpochSeconds = Instant.now().getEpochSecond();
 
         RelationResult result = collectRelationResults(
@@ -105,10 +112,8 @@ public class SourceBackedEntityRelationsService {
                 candidateScoreDocs,
                 false,
                 size,
-                sourceProvider,
-                leaves,
-                nowEpochSeconds,
-                analysisCache);
+                signalReader,
+                nowEpochSeconds);
         if (!result.isEmpty() || !relationProfile.supportsRelaxedFallback()) {
             return result;
         }
@@ -121,10 +126,8 @@ public class SourceBackedEntityRelationsService {
                 candidateScoreDocs,
                 true,
                 size,
-                sourceProvider,
-                leaves,
-                nowEpochSeconds,
-                analysisCache);
+                signalReader,
+                nowEpochSeconds);
     }
 
     private RelationResult collectRelationResults(
@@ -135,34 +138,33 @@ public class SourceBackedEntityRelationsService {
             List<ScoreDoc> scoreDocs,
             boolean relaxedMode,
             int size,
-            SourceProvider sourceProvider,
-            List<LeafReaderContext> leaves,
-            long nowEpochSeconds,
-            AnalysisCache analysisCache) throws IOException {
+            VideoSignalReader signalReader,
+            long nowEpochSeconds) throws IOException {
         Map<String, VideoAccumulator> videos = new LinkedHashMap<>();
         Map<Long, OwnerAccumulator> owners = new LinkedHashMap<>();
         for (int rank = 0; rank < scoreDocs.size(); rank++) {
             ScoreDoc scoreDoc = scoreDocs.get(rank);
-            int leafIndex = ReaderUtil.subIndex(scoreDoc.doc, leaves);
-            LeafReaderContext leaf = leaves.get(leafIndex);
-            int leafDocId = scoreDoc.doc - leaf.docBase;
-            Source source = sourceProvider.getSource(leaf, leafDocId);
-
-            String bvid = normalizeIdentifier(source.extractValue(BVID_SOURCE_PATH, null));
-            long ownerMid = asLong(source.extractValue(OWNER_MID_SOURCE_PATH, null), -1L);
-            String ownerName = normalizeDisplay(source.extractValue(OWNER_NAME_SOURCE_PATH, null));
-            String title = normalizeDisplay(source.extractValue(TITLE_SOURCE_PATH, null));
-            if (bvid.isBlank() || ownerMid < 0L || title.isBlank()) {
+            // Owner checks come from doc values, so rejected hits never load their source
+            Long mid = signalReader.ownerMid(scoreDoc.doc);
+            long ownerMid = mid == null ? -1L : mid;
+            if (ownerMid < 0L) {
                 continue;
             }
-
-                if ((EsTokEntityRelationRequest.RELATED_OWNERS_BY_OWNERS.equals(relation)
+            if ((EsTokEntityRelationRequest.RELATED_OWNERS_BY_OWNERS.equals(relation)
                     || EsTokEntityRelationRequest.RELATED_OWNERS_BY_VIDEOS.equals(relation))
                     && seedContext.containsOwnerMid(ownerMid)) {
                 continue;
             }
 
-            DocSignals signals = computeSignals(relationProfile, relation, seedContext, topicFields, source, scoreDoc.score, rank, nowEpochSeconds, relaxedMode, analysisCache);
+            Source source = signalReader.source(scoreDoc.doc);
+            String bvid = normalizeIdentifier(source.extractValue(BVID_SOURCE_PATH, null));
+            String ownerName = normalizeDisplay(source.extractValue(OWNER_NAME_SOURCE_PATH, null));
+            String title = normalizeDisplay(source.extractValue(TITLE_SOURCE_PATH, null));
+            if (bvid.isBlank() || title.isBlank()) {
+                continue;
+            }
+
+            DocSignals signals = computeSignals(relationProfile, relation, seedContext, topicFields, signalReader, scoreDoc.doc, scoreDoc.score, rank, nowEpochSeconds, relaxedMode);
             if (signals.score() <= 0.0d) {
                 continue;
             }
@@ -232,12 +234,19 @@ public class SourceBackedEntityRelationsService {
     private SeedContext loadSeedContext(
             Engine.Searcher searcher,
             IndexService indexService,
+            ShardId shardId,
             String relation,
             List<String> bvids,
             List<Long> mids,
             int scanLimit,
-            List<FieldContext> topicFields,
-            AnalysisCache analysisCache) throws IOException {
+            List<FieldContext> topicFields) throws IOException {
+        if (EsTokEntityRelationRequest.RELATED_OWNERS_BY_OWNERS.equals(relation)
+                || EsTokEntityRelationRequest.RELATED_VIDEOS_BY_OWNERS.equals(relation)) {
+            SeedContext profiled = loadProfiledSeedContext(searcher, indexService, shardId, mids, scanLimit);
+            if (profiled != null) {
+                return profiled;
+            }
+        }
         Query seedQuery = buildSeedQuery(relation, bvids, mids);
         if (seedQuery == null) {
             return SeedContext.empty();
@@ -248,27 +257,69 @@ public class SourceBackedEntityRelationsService {
             return SeedContext.empty();
         }
 
-        SourceProvider sourceProvider = SourceProvider.fromLookup(
-                indexService.mapperService().mappingLookup(),
-                null,
-                SourceFieldMetrics.NOOP);
-        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        VideoSignalReader signalReader = new VideoSignalReader(indexService, searcher.getIndexReader());
+        signalReader.prefetch(topDocs.scoreDocs);
+        signalReader.prefetchTokens(topDocs.scoreDocs);
         SeedContext seedContext = new SeedContext();
         for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-            int leafIndex = ReaderUtil.subIndex(scoreDoc.doc, leaves);
-            LeafReaderContext leaf = leaves.get(leafIndex);
-            int leafDocId = scoreDoc.doc - leaf.docBase;
-            Source source = sourceProvider.getSource(leaf, leafDocId);
+            Source source = signalReader.source(scoreDoc.doc);
             String bvid = normalizeIdentifier(source.extractValue(BVID_SOURCE_PATH, null));
-            long ownerMid = asLong(source.extractValue(OWNER_MID_SOURCE_PATH, null), -1L);
+            Long mid = signalReader.ownerMid(scoreDoc.doc);
+            long ownerMid = mid == null ? -1L : mid;
             String ownerName = normalizeDisplay(source.extractValue(OWNER_NAME_SOURCE_PATH, null));
             String title = normalizeDisplay(source.extractValue(TITLE_SOURCE_PATH, null));
             seedContext.addBvid(bvid);
             seedContext.addOwnerMid(ownerMid);
             seedContext.addSeedOwner(ownerMid, ownerName);
             seedContext.addSeedVideo(bvid, title, ownerMid, ownerName);
-            seedContext.addInsertAt(asLong(source.extractValue(INSERT_AT_SOURCE_PATH, null), 0L));
-            seedContext.addTokens(extractTopicTokenWeights(topicFields, source, analysisCache));
+            seedContext.addInsertAt(signalReader.insertAt(scoreDoc.doc));
+            seedContext.addTokens(extractTopicTokenWeights(topicFields, signalReader, scoreDoc.doc));
+        }
+        return seedContext;
+    }
+
+    /**
+     * Seeds owner relations from the owner topic profiles built at warmup
+     * instead of scanning the seed owners' videos, or returns {@code null} when
+     * the reader has no profiles yet. Profiles cover all videos of an owner, so
+     * their token weights and support are scaled down to the number of videos
+     * the scan would have read, keeping query term selection on the same scale.
+     */
+    private SeedContext loadProfiledSeedContext(
+            Engine.Searcher searcher,
+            IndexService indexService,
+            ShardId shardId,
+            List<Long> mids,
+            int scanLimit) {
+        OwnerTopicProfiles.Spec spec = OwnerTopicProfiles.Spec.resolve(indexService.mapperService());
+        OwnerTopicProfiles profiles = spec == null ? null : profileCache.peek(shardId, searcher.getIndexReader(), spec);
+        if (profiles == null || mids == null) {
+            return null;
+        }
+        Map<Long, OwnerTopicProfiles.OwnerProfile> seedProfiles = new LinkedHashMap<>();
+        long videoCount = 0L;
+        for (Long mid : mids) {
+            OwnerTopicProfiles.OwnerProfile profile = mid == null || mid <= 0L ? null : profiles.profile(mid);
+            if (profile != null && seedProfiles.putIfAbsent(mid, profile) == null) {
+                videoCount += profile.videoCount();
+            }
+        }
+        if (seedProfiles.isEmpty()) {
+            return SeedContext.empty();
+        }
+        SeedContext seedContext = new SeedContext();
+        double sampleRatio = Math.min(1.0d, Math.max(scanLimit, 64) / (double) videoCount);
+        for (Map.Entry<Long, OwnerTopicProfiles.OwnerProfile> entry : seedProfiles.entrySet()) {
+            seedContext.addOwnerMid(entry.getKey());
+            for (long insertAt : entry.getValue().recentInsertAt()) {
+                seedContext.addInsertAt(insertAt);
+            }
+            for (OwnerTopicProfiles.TopicToken token : entry.getValue().tokens()) {
+                seedContext.addTokenStats(
+                        token.token(),
+                        token.weight() * sampleRatio,
+                        (int) Math.max(1L, Math.round(token.docSupport() * sampleRatio)));
+            }
         }
         return seedContext;
     }
@@ -366,14 +417,14 @@ public class SourceBackedEntityRelationsService {
             String relation,
             SeedContext seedContext,
             List<FieldContext> topicFields,
-            Source source,
+            VideoSignalReader signalReader,
+            int docId,
             float hitScore,
             int rank,
             long nowEpochSeconds,
-            boolean relaxedMode,
-            AnalysisCache analysisCache) throws IOException {
-        Set<String> candidateTokens = extractTopicTokens(topicFields, source, analysisCache);
-        Set<String> candidateSurfaceTokens = extractSurfaceTokens(topicFields, source, analysisCache);
+            boolean relaxedMode) throws IOException {
+        Set<String> candidateTokens = extractTopicTokens(topicFields, signalReader, docId);
+        Set<String> candidateSurfaceTokens = extractSurfaceTokens(topicFields, signalReader, docId);
         double overlapWeight = 0.0d;
         int overlapCount = 0;
         int strongOverlapCount = 0;
@@ -395,12 +446,12 @@ public class SourceBackedEntityRelationsService {
             }
         }
 
-        long ownerMid = asLong(source.extractValue(OWNER_MID_SOURCE_PATH, null), -1L);
-        boolean sameOwner = seedContext.containsOwnerMid(ownerMid);
+        Long mid = signalReader.ownerMid(docId);
+        boolean sameOwner = seedContext.containsOwnerMid(mid == null ? -1L : mid);
         double coverage = seedContext.totalQueryWeight() <= 0.0d ? 0.0d : overlapWeight / seedContext.totalQueryWeight();
         if (sameOwner && !relationProfile.acceptSameOwnerCandidate(overlapWeight, overlapCount, strongOverlapCount, coverage)) {
             if (EsTokEntityRelationRequest.RELATED_VIDEOS_BY_OWNERS.equals(relation)) {
-                return new DocSignals(sameOwnerVideoFallbackScore(seedContext, source, hitScore, nowEpochSeconds, rank));
+                return new DocSignals(sameOwnerVideoFallbackScore(seedContext, signalReader, docId, hitScore, nowEpochSeconds, rank));
             }
             return DocSignals.zero();
         }
@@ -424,9 +475,9 @@ public class SourceBackedEntityRelationsService {
         }
 
         double hitWeight = Math.log1p(Math.max(0.0d, hitScore)) / (1.0d + (rank * 0.045d));
-        double recency = recencyScore(nowEpochSeconds, seedContext.seedInsertAt, asLong(source.extractValue(INSERT_AT_SOURCE_PATH, null), 0L));
-        double quality = Math.log1p(Math.max(0.0d, asDouble(source.extractValue(STAT_SCORE_SOURCE_PATH, null))) * 2400.0d);
-        double influence = Math.log1p(Math.max(0L, asLong(source.extractValue(STAT_VIEW_SOURCE_PATH, null), 0L)));
+        double recency = recencyScore(nowEpochSeconds, seedContext.seedInsertAt, signalReader.insertAt(docId));
+        double quality = Math.log1p(Math.max(0.0d, signalReader.statScore(docId)) * 2400.0d);
+        double influence = Math.log1p(Math.max(0L, signalReader.viewCount(docId)));
 
         double score = relationProfile.score(
                 overlapWeight,
@@ -445,14 +496,15 @@ public class SourceBackedEntityRelationsService {
 
     private double sameOwnerVideoFallbackScore(
             SeedContext seedContext,
-            Source source,
+            VideoSignalReader signalReader,
+            int docId,
             float hitScore,
             long nowEpochSeconds,
-            int rank) {
+            int rank) throws IOException {
         double hitWeight = Math.log1p(Math.max(0.0d, hitScore)) / (1.0d + (rank * 0.045d));
-        double recency = recencyScore(nowEpochSeconds, seedContext.seedInsertAt, asLong(source.extractValue(INSERT_AT_SOURCE_PATH, null), 0L));
-        double quality = Math.log1p(Math.max(0.0d, asDouble(source.extractValue(STAT_SCORE_SOURCE_PATH, null))) * 2400.0d);
-        double influence = Math.log1p(Math.max(0L, asLong(source.extractValue(STAT_VIEW_SOURCE_PATH, null), 0L)));
+        double recency = recencyScore(nowEpochSeconds, seedContext.seedInsertAt, signalReader.insertAt(docId));
+        double quality = Math.log1p(Math.max(0.0d, signalReader.statScore(docId)) * 2400.0d);
+        double influence = Math.log1p(Math.max(0L, signalReader.viewCount(docId)));
         return 12.0d + (hitWeight * 1.5d) + (recency * 14.0d) + (quality * 4.0d) + (influence * 1.2d);
     }
 
@@ -476,9 +528,9 @@ public class SourceBackedEntityRelationsService {
 
     private List<FieldContext> resolveTopicFields(IndexService indexService) {
         List<FieldContext> resolved = new ArrayList<>();
-        addFieldContext(indexService, resolved, "title.words", 5.0d, 1.8d, 0.7d);
-        addFieldContext(indexService, resolved, "tags.words", 4.0d, 1.55d, 0.6d);
-        addFieldContext(indexService, resolved, "desc.words", 1.8d, 0.9d, 0.28d);
+        addFieldContext(indexService, resolved, "title.words", 1.8d, 0.7d);
+        addFieldContext(indexService, resolved, "tags.words", 1.55d, 0.6d);
+        addFieldContext(indexService, resolved, "desc.words", 0.9d, 0.28d);
         return resolved;
     }
 
@@ -486,69 +538,81 @@ public class SourceBackedEntityRelationsService {
             IndexService indexService,
             List<FieldContext> resolved,
             String field,
-            double seedWeight,
             double queryBoost,
             double prefixBoost) {
+        // Seed weights are shared with the owner topic profiles, which stand in for seed scans
+        double seedWeight = OwnerTopicProfiles.TOPIC_FIELD_WEIGHTS.get(field);
         MappedFieldType fieldType = indexService.mapperService().fieldType(field);
         if (fieldType == null) {
             return;
         }
-        resolved.add(new FieldContext(field, sourcePath(field), fieldType.getTextSearchInfo().searchAnalyzer(), seedWeight, queryBoost, prefixBoost));
+        resolved.add(new FieldContext(
+                indexService.index(),
+                field,
+                sourcePath(field),
+                fieldType.getTextSearchInfo().searchAnalyzer(),
+                seedWeight,
+                queryBoost,
+                prefixBoost));
     }
 
-    private Map<String, Double> extractTopicTokenWeights(List<FieldContext> fieldContexts, Source source, AnalysisCache analysisCache) throws IOException {
+    private Map<String, Double> extractTopicTokenWeights(
+            List<FieldContext> fieldContexts,
+            VideoSignalReader signalReader,
+            int docId) throws IOException {
         LinkedHashMap<String, Double> tokens = new LinkedHashMap<>();
         for (FieldContext fieldContext : fieldContexts) {
-            Object rawValue = source.extractValue(fieldContext.sourcePath(), null);
-            for (String value : SourceValueUtils.flattenStringValues(rawValue)) {
-                for (String token : analysisCache.analyze(fieldContext, value)) {
-                    if (!token.isBlank()) {
-                        tokens.merge(token, fieldContext.seedWeight(), Double::sum);
-                    }
-                }
+            for (Map.Entry<String, Integer> token : fieldTokens(fieldContext, signalReader, docId).entrySet()) {
+                tokens.merge(token.getKey(), fieldContext.seedWeight() * token.getValue(), Double::sum);
             }
         }
         return tokens;
     }
 
-    private Set<String> extractTopicTokens(List<FieldContext> fieldContexts, Source source, AnalysisCache analysisCache) throws IOException {
-        return extractTopicTokenWeights(fieldContexts, source, analysisCache).keySet();
+    private Set<String> extractTopicTokens(
+            List<FieldContext> fieldContexts,
+            VideoSignalReader signalReader,
+            int docId) throws IOException {
+        return extractTopicTokenWeights(fieldContexts, signalReader, docId).keySet();
     }
 
-    private Set<String> extractSurfaceTokens(List<FieldContext> fieldContexts, Source source, AnalysisCache analysisCache) throws IOException {
+    private Set<String> extractSurfaceTokens(
+            List<FieldContext> fieldContexts,
+            VideoSignalReader signalReader,
+            int docId) throws IOException {
         LinkedHashSet<String> tokens = new LinkedHashSet<>();
         for (FieldContext fieldContext : fieldContexts) {
             String sourcePath = fieldContext.sourcePath();
             if (!TITLE_SOURCE_PATH.equals(sourcePath) && !"tags".equals(sourcePath)) {
                 continue;
             }
-            Object rawValue = source.extractValue(sourcePath, null);
-            for (String value : SourceValueUtils.flattenStringValues(rawValue)) {
-                for (String token : analysisCache.analyze(fieldContext, value)) {
-                    if (!token.isBlank()) {
-                        tokens.add(token);
-                    }
-                }
-            }
+            tokens.addAll(fieldTokens(fieldContext, signalReader, docId).keySet());
         }
         return tokens;
     }
 
-    private static List<String> analyze(Analyzer analyzer, String field, String text) throws IOException {
-        if (text == null || text.isBlank()) {
-            return List.of();
-        }
-        List<String> tokens = new ArrayList<>();
-        try (TokenStream tokenStream = analyzer.tokenStream(field, text)) {
-            CharTermAttribute termAttribute = tokenStream.addAttribute(CharTermAttribute.class);
-            tokenStream.reset();
-            while (tokenStream.incrementToken()) {
-                String token = TextNormalization.normalizeLower(termAttribute.toString());
+    /**
+     * Tokens of one topic field of a document with their counts, in analysis
+     * order. Read from term vectors when the field stores them, otherwise
+     * analyzed from the source text.
+     */
+    private Map<String, Integer> fieldTokens(
+            FieldContext fieldContext,
+            VideoSignalReader signalReader,
+            int docId) throws IOException {
+        Map<String, Integer> stored = signalReader.storedTokens(docId, fieldContext.indexField(), TextNormalization::normalizeLower);
+        if (stored != null) {
+            return stored;
+        }
+        LinkedHashMap<String, Integer> tokens = new LinkedHashMap<>();
+        Object rawValue = signalReader.source(docId).extractValue(fieldContext.sourcePath(), null);
+        for (String value : SourceValueUtils.flattenStringValues(rawValue)) {
+            for (String term : analysisCache.analyze(fieldContext.index(), fieldContext.analyzer(), fieldContext.indexField(), value)) {
+                String token = TextNormalization.normalizeLower(term);
                 if (!token.isBlank()) {
-                    tokens.add(token);
+                    tokens.merge(token, 1, Integer::sum);
                 }
             }
-            tokenStream.end();
         }
         return tokens;
     }
@@ -693,14 +757,23 @@ public class SourceBackedEntityRelationsService {
     }
 
     private static List<TokenWeight> selectQueryTerms(
-            Engine.Searcher searcher,
+            TermStats termStats,
             List<FieldContext> fieldContexts,
             Map<String, Double> seedTerms,
             Map<String, Integer> tokenDocSupport,
             RelationTuning.RelationProfile relationProfile)
             throws IOException {
-        int docCount = Math.max(1, searcher.getIndexReader().numDocs());
+        int docCount = Math.max(1, termStats.reader().numDocs());
         boolean preferSupportedTokens = relationProfile.shouldPreferSupportedTokens(tokenDocSupport);
+        List<String> candidateTokens = new ArrayList<>(seedTerms.size());
+        for (String token : seedTerms.keySet()) {
+            if (TopicQualityHeuristics.isCandidateRelationToken(token)) {
+                candidateTokens.add(token);
+            }
+        }
+        for (FieldContext fieldContext : fieldContexts) {
+            termStats.prefetch(fieldContext.indexField(), candidateTokens);
+        }
         List<TokenWeight> weighted = new ArrayList<>();
         for (Map.Entry<String, Double> entry : seedTerms.entrySet()) {
             String token = entry.getKey();
@@ -713,7 +786,7 @@ public class SourceBackedEntityRelationsService {
             }
             long docFrequency = 0L;
             for (FieldContext fieldContext : fieldContexts) {
-                docFrequency += searcher.getIndexReader().docFreq(new Term(fieldContext.indexField(), token));
+                docFrequency += termStats.docFreq(fieldContext.indexField(), token);
             }
             double rarityBoost = 1.0d + (Math.log1p((double) docCount / (1.0d + docFrequency)) / 4.0d);
             double supportBoost = relationProfile.supportSignalBoost(supportCount);
@@ -771,35 +844,8 @@ public class SourceBackedEntityRelationsService {
         return TextNormalization.trimToEmpty(value);
     }
 
-    private static long asLong(Object value, long defaultValue) {
-        if (value == null) {
-            return defaultValue;
-        }
-        if (value instanceof Number number) {
-            return number.longValue();
-        }
-        try {
-            return Long.parseLong(value.toString());
-        } catch (NumberFormatException ignored) {
-            return defaultValue;
-        }
-    }
-
-    private static double asDouble(Object value) {
-        if (value == null) {
-            return 0.0d;
-        }
-        if (value instanceof Number number) {
-            return number.doubleValue();
-        }
-        try {
-            return Double.parseDouble(value.toString());
-        } catch (NumberFormatException ignored) {
-            return 0.0d;
-        }
-    }
-
     private record FieldContext(
+            Index index,
             String indexField,
             String sourcePath,
             Analyzer analyzer,
@@ -839,24 +885,6 @@ public class SourceBackedEntityRelationsService {
         }
     }
 
-    private static final class AnalysisCache {
-        private final Map<String, List<String>> analyzedTexts = new HashMap<>();
-
-        private List<String> analyze(FieldContext fieldContext, String text) throws IOException {
-            if (text == null || text.isBlank()) {
-                return List.of();
-            }
-            String cacheKey = fieldContext.indexField() + "\u0000" + text;
-            List<String> cached = analyzedTexts.get(cacheKey);
-            if (cached != null) {
-                return cached;
-            }
-            List<String> analyzed = List.copyOf(SourceBackedEntityRelationsService.analyze(fieldContext.analyzer(), fieldContext.indexField(), text));
-            analyzedTexts.put(cacheKey, analyzed);
-            return analyzed;
-        }
-    }
-
     private static final class SeedContext {
         private final LinkedHashSet<String> seedBvids = new LinkedHashSet<>();
         private final LinkedHashSet<String> seedBvidKeys = new LinkedHashSet<>();
@@ -914,13 +942,17 @@ public class SourceBackedEntityRelationsService {
 
         private void addTokens(Map<String, Double> tokens) {
             for (Map.Entry<String, Double> entry : tokens.entrySet()) {
-                tokenSeedWeights.merge(entry.getKey(), entry.getValue(), Double::sum);
-                tokenDocSupport.merge(entry.getKey(), 1, Integer::sum);
+                addTokenStats(entry.getKey(), entry.getValue(), 1);
             }
         }
 
-        private void prepareQueryTerms(Engine.Searcher searcher, List<FieldContext> fieldContexts, RelationTuning.RelationProfile relationProfile) throws IOException {
-            queryTerms = Collections.unmodifiableList(selectQueryTerms(searcher, fieldContexts, tokenSeedWeights, tokenDocSupport, relationProfile));
+        private void addTokenStats(String token, double weight, int docSupport) {
+            tokenSeedWeights.merge(token, weight, Double::sum);
+            tokenDocSupport.merge(token, docSupport, Integer::sum);
+        }
+
+        private void prepareQueryTerms(TermStats termStats, List<FieldContext> fieldContexts, RelationTuning.RelationProfile relationProfile) throws IOException {
+            queryTerms = Collections.unmodifiableList(selectQueryTerms(termStats, fieldContexts, tokenSeedWeights, tokenDocSupport, relationProfile));
             LinkedHashMap<String, TokenWeight> tokenWeights = new LinkedHashMap<>();
             double total = 0.0d;
             for (TokenWeight tokenWeight : queryTerms) {
@@ -69,6 +69,7 @@ public class RestEntityRelationsAction extends BaseRestHandler {
         putString(payload, "mid", request.param("mid"));
         putInt(payload, "size", request.param("size"));
         putInt(payload, "scan_limit", request.param("scan_limit"));
+        putBoolean(payload, "cache", request.param("cache"));
         if (request.hasContent()) {
             payload.putAll(request.contentParser().map());
         }
@@ -86,6 +87,9 @@ public class RestEntityRelationsAction extends BaseRestHandler {
         if (payload.containsKey("scan_limit")) {
             request.scanLimit(asInt(payload.get("scan_limit"), 128));
         }
+        if (payload.containsKey("cache")) {
+            request.useCache(asBoolean(payload.get("cache"), true));
+        }
         return request;
     }
 
@@ -156,6 +160,12 @@ public class RestEntityRelationsAction extends BaseRestHandler {
         }
     }
 
+    private static void putBoolean(Map<String, Object> payload, String key, String value) {
+        if (value != null) {
+            payload.put(key, Boolean.parseBoolean(value));
+        }
+    }
+
     private static int asInt(Object value, int defaultValue) {
         if (value == null) {
             return defaultValue;
@@ -165,4 +175,14 @@ public class RestEntityRelationsAction extends BaseRestHandler {
         }
         return Integer.parseInt(value.toString());
     }
-}
\ No newline at end of file
+
+    private static boolean asBoolean(Object value, boolean defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Boolean bool) {
+            return bool;
+        }
+        return Boolean.parseBoolean(value.toString());
+    }
+}
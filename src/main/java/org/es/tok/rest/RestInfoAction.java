@@ -3,6 +3,7 @@ package org.es.tok.rest;
 import org.elasticsearch.client.internal.node.NodeClient;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.Table;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.rest.RestRequest;
 import org.elasticsearch.rest.RestResponse;
 import org.elasticsearch.rest.action.cat.AbstractCatAction;
@@ -12,54 +13,73 @@ import org.es.tok.config.EsTokConfig;
 import org.es.tok.config.EsTokConfigLoader;
 import org.es.tok.core.facade.EsTokEngine;
 import org.es.tok.core.model.AnalysisVersion;
+import org.es.tok.suggest.PinyinSupport;
 import org.es.tok.suggest.PinyinWarmupIndexListener;
+import org.es.tok.suggest.TinyLfuCache;
+import org.es.tok.vocab.VocabRegistry;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.function.Supplier;
 
 import static org.elasticsearch.rest.RestRequest.Method.GET;
 
 public class RestInfoAction extends AbstractCatAction {
 
+    private static final TinyLfuCache.Stats EMPTY_CACHE_STATS = new TinyLfuCache.Stats(0, 0, 0, 0, 0, 0, 0);
+
     private final Supplier<PinyinWarmupIndexListener.WarmupSummary> warmupSummarySupplier;
+    private final Supplier<TinyLfuCache.Stats> suggestCacheStatsSupplier;
+    private final Supplier<TinyLfuCache.Stats> analysisCacheStatsSupplier;
+    private final Supplier<TinyLfuCache.Stats> relationCacheStatsSupplier;
 
-    public RestInfoAction() {
-        this(() -> new PinyinWarmupIndexListener.WarmupSummary(0, 0, 0, 0));
+    private RestInfoAction(Builder builder) {
+        this.warmupSummarySupplier = builder.warmupSummarySupplier;
+        this.suggestCacheStatsSupplier = builder.suggestCacheStatsSupplier;
+        this.analysisCacheStatsSupplier = builder.analysisCacheStatsSupplier;
+        this.relationCacheStatsSupplier = builder.relationCacheStatsSupplier;
     }
 
-    public RestInfoAction(Supplier<PinyinWarmupIndexListener.WarmupSummary> warmupSummarySupplier) {
-        this.warmupSummarySupplier = warmupSummarySupplier;
+    /** A builder whose stats sources all report nothing until they are set. */
+    public static Builder builder() {
+        return new Builder();
     }
 
     InfoSnapshot buildInfoSnapshot(String path) {
-        AnalysisVersion version = resolveDiagnosticVersion();
         PinyinWarmupIndexListener.WarmupSummary warmupSummary = warmupSummarySupplier.get();
+        List<String> fingerprints = VocabRegistry.fingerprints();
+        String status;
+        String description;
         if (path.endsWith("/version")) {
-            return new InfoSnapshot(
-                    "es_tok",
-                    EsTokPlugin.VERSION,
-                    EsTokPlugin.VERSION,
-                    version.getAnalysisHash(),
-                    version.getVocabHash(),
-                    version.getRulesHash(),
-                    warmupSummary.readyShards(),
-                    warmupSummary.totalShards(),
-                    warmupSummary.runningShards(),
-                    warmupSummary.queuedShards(),
-                    "ES-TOK plugin");
+            status = EsTokPlugin.VERSION;
+            description = "ES-TOK plugin";
+        } else if (warmupSummary.isReady()) {
+            status = "Ready";
+            description = "ES-TOK plugin";
+        } else {
+            status = "Warming " + warmupSummary.readyShards() + "/" + warmupSummary.totalShards();
+            description = "ES-TOK plugin warmup in progress";
         }
         return new InfoSnapshot(
                 "es_tok",
-                warmupSummary.isReady() ? "Ready" : "Warming " + warmupSummary.readyShards() + "/" + warmupSummary.totalShards(),
+                status,
                 EsTokPlugin.VERSION,
-                version.getAnalysisHash(),
-                version.getVocabHash(),
-                version.getRulesHash(),
-                warmupSummary.readyShards(),
-                warmupSummary.totalShards(),
-                warmupSummary.runningShards(),
-                warmupSummary.queuedShards(),
-                warmupSummary.isReady() ? "ES-TOK plugin" : "ES-TOK plugin warmup in progress");
+                resolveDiagnosticVersion(),
+                fingerprints.isEmpty() ? "none" : String.join(",", fingerprints),
+                warmupSummary,
+                PinyinSupport.pinyinKeyCacheStats(),
+                suggestCacheStatsSupplier.get(),
+                analysisCacheStatsSupplier.get(),
+                relationCacheStatsSupplier.get(),
+                description);
+    }
+
+    private static String formatHitRate(PinyinSupport.PinyinKeyCacheStats stats) {
+        return formatHitRate(stats.hitRate());
+    }
+
+    private static String formatHitRate(double hitRate) {
+        return String.format(Locale.ROOT, "%.1f%%", hitRate * 100.0d);
     }
 
     private AnalysisVersion resolveDiagnosticVersion() {
@@ -95,13 +115,25 @@ public class RestInfoAction extends AbstractCatAction {
         table.addCell(snapshot.plugin());
         table.addCell(snapshot.status());
         table.addCell(snapshot.pluginVersion());
-        table.addCell(snapshot.analysisHash());
-        table.addCell(snapshot.vocabHash());
-        table.addCell(snapshot.rulesHash());
-        table.addCell(snapshot.warmupReadyShards());
-        table.addCell(snapshot.warmupTotalShards());
-        table.addCell(snapshot.warmupRunningShards());
-        table.addCell(snapshot.warmupQueuedShards());
+        table.addCell(snapshot.version().getAnalysisHash());
+        table.addCell(snapshot.version().getVocabHash());
+        table.addCell(snapshot.version().getRulesHash());
+        table.addCell(snapshot.registeredVocabs());
+        PinyinWarmupIndexListener.WarmupSummary warmup = snapshot.warmup();
+        table.addCell(warmup.readyShards());
+        table.addCell(warmup.totalShards());
+        table.addCell(warmup.runningShards());
+        table.addCell(warmup.queuedShards());
+        table.addCell(warmup.rewarms());
+        table.addCell(warmup.coalescedRefreshes());
+        table.addCell(warmup.rewarmTime());
+        table.addCell(warmup.lastRewarmTime());
+        table.addCell(snapshot.pinyinKeyCache().hits());
+        table.addCell(snapshot.pinyinKeyCache().misses());
+        table.addCell(formatHitRate(snapshot.pinyinKeyCache()));
+        addCacheCells(table, snapshot.suggestCache(), false);
+        addCacheCells(table, snapshot.analysisCache(), true);
+        addCacheCells(table, snapshot.relationCache(), false);
         table.addCell(snapshot.description());
         table.endRow();
         return channel -> {
@@ -113,6 +145,17 @@ public class RestInfoAction extends AbstractCatAction {
         };
     }
 
+    private static void addCacheCells(Table table, TinyLfuCache.Stats stats, boolean withHitRate) {
+        table.addCell(stats.hits());
+        table.addCell(stats.misses());
+        if (withHitRate) {
+            table.addCell(formatHitRate(stats.hitRate()));
+        }
+        table.addCell(stats.evictions());
+        table.addCell(stats.entries());
+        table.addCell(ByteSizeValue.ofBytes(stats.weightedBytes()));
+    }
+
     @Override
     protected void documentation(StringBuilder sb) {
         sb.append("/_cat/es_tok\n");
@@ -129,10 +172,34 @@ public class RestInfoAction extends AbstractCatAction {
         table.addCell("analysis_hash", "desc:diagnostic analysis hash");
         table.addCell("vocab_hash", "desc:diagnostic vocab hash");
         table.addCell("rules_hash", "desc:diagnostic rules hash");
+        table.addCell("vocab_registry", "desc:fingerprints of vocabs loaded on this node");
         table.addCell("warmup_ready_shards", "desc:ready business shards");
         table.addCell("warmup_total_shards", "desc:tracked business shards");
         table.addCell("warmup_running_shards", "desc:business shards currently warming");
         table.addCell("warmup_queued_shards", "desc:business shards queued for warmup");
+        table.addCell("rewarm_count", "desc:background re-warms after a refresh or merge changed a shard reader");
+        table.addCell("rewarm_coalesced_refreshes", "desc:refreshes folded into a later re-warm");
+        table.addCell("rewarm_time", "desc:total time spent re-warming");
+        table.addCell("rewarm_last_time", "desc:duration of the latest re-warm");
+        table.addCell("pinyin_key_cache_hits", "desc:pinyin key lookups served from the node memo");
+        table.addCell("pinyin_key_cache_misses", "desc:pinyin key lookups that transliterated the surface");
+        table.addCell("pinyin_key_cache_hit_rate", "desc:share of pinyin key lookups served from the node memo");
+        table.addCell("suggest_cache_hits", "desc:shard suggest requests served from the result cache");
+        table.addCell("suggest_cache_misses", "desc:shard suggest requests computed on the reader");
+        table.addCell("suggest_cache_evictions", "desc:cached suggest results evicted to admit new ones");
+        table.addCell("suggest_cache_entries", "desc:cached suggest results");
+        table.addCell("suggest_cache_memory", "desc:estimated heap held by cached suggest results");
+        table.addCell("analysis_cache_hits", "desc:text analyses served from the node analysis cache");
+        table.addCell("analysis_cache_misses", "desc:text analyses that ran the analyzer");
+        table.addCell("analysis_cache_hit_rate", "desc:share of text analyses served from the node analysis cache");
+        table.addCell("analysis_cache_evictions", "desc:cached analyses evicted to admit new ones");
+        table.addCell("analysis_cache_entries", "desc:cached analyses");
+        table.addCell("analysis_cache_memory", "desc:estimated heap held by cached analyses");
+        table.addCell("relation_cache_hits", "desc:shard relation and related owner requests served from the result cache");
+        table.addCell("relation_cache_misses", "desc:shard relation and related owner requests computed on the reader");
+        table.addCell("relation_cache_evictions", "desc:cached relation results evicted to admit new ones");
+        table.addCell("relation_cache_entries", "desc:cached relation results");
+        table.addCell("relation_cache_memory", "desc:estimated heap held by cached relation results");
         table.addCell("description", "desc:plugin description");
         table.endHeaders();
         return table;
@@ -142,13 +209,48 @@ public class RestInfoAction extends AbstractCatAction {
             String plugin,
             String status,
             String pluginVersion,
-            String analysisHash,
-            String vocabHash,
-            String rulesHash,
-            int warmupReadyShards,
-            int warmupTotalShards,
-            int warmupRunningShards,
-            int warmupQueuedShards,
+            AnalysisVersion version,
+            String registeredVocabs,
+            PinyinWarmupIndexListener.WarmupSummary warmup,
+            PinyinSupport.PinyinKeyCacheStats pinyinKeyCache,
+            TinyLfuCache.Stats suggestCache,
+            TinyLfuCache.Stats analysisCache,
+            TinyLfuCache.Stats relationCache,
             String description) {
     }
-}
\ No newline at end of file
+
+    public static final class Builder {
+        private Supplier<PinyinWarmupIndexListener.WarmupSummary> warmupSummarySupplier =
+                () -> new PinyinWarmupIndexListener.WarmupSummary(0, 0, 0, 0);
+        private Supplier<TinyLfuCache.Stats> suggestCacheStatsSupplier = () -> EMPTY_CACHE_STATS;
+        private Supplier<TinyLfuCache.Stats> analysisCacheStatsSupplier = () -> EMPTY_CACHE_STATS;
+        private Supplier<TinyLfuCache.Stats> relationCacheStatsSupplier = () -> EMPTY_CACHE_STATS;
+
+        private Builder() {
+        }
+
+        public Builder warmupSummary(Supplier<PinyinWarmupIndexListener.WarmupSummary> supplier) {
+            this.warmupSummarySupplier = supplier;
+            return this;
+        }
+
+        public Builder suggestCacheStats(Supplier<TinyLfuCache.Stats> supplier) {
+            this.suggestCacheStatsSupplier = supplier;
+            return this;
+        }
+
+        public Builder analysisCacheStats(Supplier<TinyLfuCache.Stats> supplier) {
+            this.analysisCacheStatsSupplier = supplier;
+            return this;
+        }
+
+        public Builder relationCacheStats(Supplier<TinyLfuCache.Stats> supplier) {
+            this.relationCacheStatsSupplier = supplier;
+            return this;
+        }
+
+        public RestInfoAction build() {
+            return new RestInfoAction(this);
+        }
+    }
+}
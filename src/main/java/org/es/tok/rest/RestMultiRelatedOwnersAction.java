@@ -0,0 +1,66 @@
+package org.es.tok.rest;
+
+import org.elasticsearch.client.internal.node.NodeClient;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.action.RestBuilderListener;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.es.tok.action.EsTokMultiRelatedOwnersAction;
+import org.es.tok.action.EsTokMultiRequest;
+import org.es.tok.action.EsTokMultiResponse;
+import org.es.tok.action.EsTokRelatedOwnersRequest;
+import org.es.tok.action.EsTokRelatedOwnersResponse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+
+/**
+ * Newline-delimited batch of {@code related_owners_by_tokens} requests. Each
+ * line is one request body; URL parameters apply to every line as defaults.
+ */
+public class RestMultiRelatedOwnersAction extends BaseRestHandler {
+
+    @Override
+    public List<Route> routes() {
+        return List.of(
+                new Route(GET, "/_es_tok/related_owners_by_tokens/_multi"),
+                new Route(POST, "/_es_tok/related_owners_by_tokens/_multi"),
+                new Route(GET, "/{index}/_es_tok/related_owners_by_tokens/_multi"),
+                new Route(POST, "/{index}/_es_tok/related_owners_by_tokens/_multi"));
+    }
+
+    @Override
+    public String getName() {
+        return "es_tok_multi_related_owners_action";
+    }
+
+    @Override
+    public boolean supportsBulkContent() {
+        return true;
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+        String[] indices = RestSuggestAction.resolveIndices(request);
+        EsTokMultiRequest<EsTokRelatedOwnersRequest> multiRequest = new EsTokMultiRequest<>(indices);
+        List<Map<String, Object>> payloads = RestMultiSuggestAction.parseMultiPayloads(
+                RestMultiSuggestAction.requiredBody(request),
+                RestRelatedOwnersAction.paramPayload(request));
+        for (Map<String, Object> payload : payloads) {
+            multiRequest.add(RestRelatedOwnersAction.buildRequest(payload, indices));
+        }
+        return channel -> client.execute(EsTokMultiRelatedOwnersAction.INSTANCE, multiRequest, new RestBuilderListener<>(channel) {
+            @Override
+            public RestResponse buildResponse(EsTokMultiResponse<EsTokRelatedOwnersResponse> response, XContentBuilder builder)
+                    throws Exception {
+                response.toXContent(builder, request);
+                return new RestResponse(response.getStatus(), builder);
+            }
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package org.es.tok.rest;
+
+import org.elasticsearch.client.internal.node.NodeClient;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.action.RestBuilderListener;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.json.JsonXContent;
+import org.es.tok.action.EsTokMultiRequest;
+import org.es.tok.action.EsTokMultiResponse;
+import org.es.tok.action.EsTokMultiSuggestAction;
+import org.es.tok.action.EsTokSuggestRequest;
+import org.es.tok.action.EsTokSuggestResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+
+/**
+ * Newline-delimited batch of {@code related_tokens_by_tokens} requests. Each
+ * line is one request body; URL parameters apply to every line as defaults.
+ */
+public class RestMultiSuggestAction extends BaseRestHandler {
+
+    @Override
+    public List<Route> routes() {
+        return List.of(
+                new Route(GET, "/_es_tok/related_tokens_by_tokens/_multi"),
+                new Route(POST, "/_es_tok/related_tokens_by_tokens/_multi"),
+                new Route(GET, "/{index}/_es_tok/related_tokens_by_tokens/_multi"),
+                new Route(POST, "/{index}/_es_tok/related_tokens_by_tokens/_multi"));
+    }
+
+    @Override
+    public String getName() {
+        return "es_tok_multi_suggest_action";
+    }
+
+    @Override
+    public boolean supportsBulkContent() {
+        return true;
+    }
+
+    @Override
+    protected RestChannelConsumer prepareRequest(RestRequest request, NodeClient client) throws IOException {
+        String[] indices = RestSuggestAction.resolveIndices(request);
+        EsTokMultiRequest<EsTokSuggestRequest> multiRequest = new EsTokMultiRequest<>(indices);
+        for (Map<String, Object> payload : parseMultiPayloads(requiredBody(request), RestSuggestAction.paramPayload(request))) {
+            multiRequest.add(RestSuggestAction.buildRequest(payload, indices));
+        }
+        return channel -> client.execute(EsTokMultiSuggestAction.INSTANCE, multiRequest, new RestBuilderListener<>(channel) {
+            @Override
+            public RestResponse buildResponse(EsTokMultiResponse<EsTokSuggestResponse> response, XContentBuilder builder)
+                    throws Exception {
+                response.toXContent(builder, request);
+                return new RestResponse(response.getStatus(), builder);
+            }
+        });
+    }
+
+    static String requiredBody(RestRequest request) {
+        if (request.hasContent() == false) {
+            throw new IllegalArgumentException("request body is required for [%s]".formatted(request.path()));
+        }
+        return request.content().utf8ToString();
+    }
+
+    /**
+     * One payload per non-blank line of {@code content}, each laid over a copy
+     * of {@code defaults}.
+     */
+    static List<Map<String, Object>> parseMultiPayloads(String content, Map<String, Object> defaults) {
+        List<Map<String, Object>> payloads = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            Map<String, Object> payload = new LinkedHashMap<>(defaults);
+            payload.putAll(XContentHelper.convertToMap(JsonXContent.jsonXContent, line, false));
+            payloads.add(payload);
+        }
+        return payloads;
+    }
+}
@@ -49,6 +49,15 @@ public class RestRelatedOwnersAction extends BaseRestHandler {
     }
 
     static Map<String, Object> extractPayload(RestRequest request) throws IOException {
+        Map<String, Object> payload = paramPayload(request);
+        if (request.hasContent()) {
+            payload.putAll(request.contentParser().map());
+        }
+        return payload;
+    }
+
+    /** Request fields given as URL parameters. */
+    static Map<String, Object> paramPayload(RestRequest request) {
         Map<String, Object> payload = new LinkedHashMap<>();
         putString(payload, "text", request.param("text"));
         putString(payload, "fields", request.param("fields"));
@@ -56,9 +65,7 @@ public class RestRelatedOwnersAction extends BaseRestHandler {
         putInt(payload, "scan_limit", request.param("scan_limit"));
         putInt(payload, "max_fields", request.param("max_fields"));
         putBoolean(payload, "use_pinyin", request.param("use_pinyin"));
-        if (request.hasContent()) {
-            payload.putAll(request.contentParser().map());
-        }
+        putBoolean(payload, "cache", request.param("cache"));
         return payload;
     }
 
@@ -78,6 +85,9 @@ public class RestRelatedOwnersAction extends BaseRestHandler {
         if (payload.containsKey("use_pinyin")) {
             request.usePinyin(asBoolean(payload.get("use_pinyin"), false));
         }
+        if (payload.containsKey("cache")) {
+            request.useCache(asBoolean(payload.get("cache"), true));
+        }
         return request;
     }
 
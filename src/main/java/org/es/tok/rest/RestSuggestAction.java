@@ -55,6 +55,15 @@ public class RestSuggestAction extends BaseRestHandler {
     }
 
     static Map<String, Object> extractPayload(RestRequest request) throws IOException {
+        Map<String, Object> payload = paramPayload(request);
+        if (request.hasContent()) {
+            payload.putAll(request.contentParser().map());
+        }
+        return payload;
+    }
+
+    /** Request fields given as URL parameters. */
+    static Map<String, Object> paramPayload(RestRequest request) {
         Map<String, Object> payload = new LinkedHashMap<>();
         putString(payload, "text", request.param("text"));
         putString(payload, "mode", request.param("mode"));
@@ -72,10 +81,6 @@ public class RestSuggestAction extends BaseRestHandler {
         putInt(payload, "correction_min_length", request.param("correction_min_length"));
         putInt(payload, "correction_max_edits", request.param("correction_max_edits"));
         putInt(payload, "correction_prefix_length", request.param("correction_prefix_length"));
-
-        if (request.hasContent()) {
-            payload.putAll(request.contentParser().map());
-        }
         return payload;
     }
 
@@ -1,9 +1,8 @@
 package org.es.tok.suggest;
 
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.es.tok.text.TextNormalization;
@@ -27,14 +26,18 @@ public final class AutoSuggestTextVariants {
         return options.size() < Math.min(2, requestedSize);
     }
 
-    public static List<String> buildFallbackTexts(IndexService indexService, List<String> suggestFields, String text) throws IOException {
+    public static List<String> buildFallbackTexts(
+            SharedAnalysisCache analysisCache,
+            IndexService indexService,
+            List<String> suggestFields,
+            String text) throws IOException {
         if (text == null || text.isBlank()) {
             return List.of();
         }
         LinkedHashSet<String> variants = new LinkedHashSet<>();
         String collapsed = TextNormalization.collapseWhitespace(text);
         String compacted = TextNormalization.compactWhitespaceAroundCjk(collapsed);
-        for (String analyzedVariant : analyzedFallbackTexts(indexService, suggestFields, compacted)) {
+        for (String analyzedVariant : analyzedFallbackTexts(analysisCache, indexService, suggestFields, compacted)) {
             variants.add(analyzedVariant);
         }
         if (!compacted.equals(collapsed)) {
@@ -69,6 +72,7 @@ public final class AutoSuggestTextVariants {
     }
 
     private static List<String> analyzedFallbackTexts(
+            SharedAnalysisCache analysisCache,
             IndexService indexService,
             List<String> suggestFields,
             String text) throws IOException {
@@ -76,7 +80,12 @@ public final class AutoSuggestTextVariants {
         if (analyzer == null) {
             return List.of();
         }
-        List<String> tokens = analyzeFallbackTokens(analyzer, fallbackAnalyzeField(suggestFields), text);
+        List<String> tokens = analyzeFallbackTokens(
+                analysisCache,
+                indexService == null ? null : indexService.index(),
+                analyzer,
+                fallbackAnalyzeField(suggestFields),
+                text);
         if (tokens.isEmpty()) {
             return List.of();
         }
@@ -117,21 +126,21 @@ public final class AutoSuggestTextVariants {
         return suggestFields.get(0);
     }
 
-    private static List<String> analyzeFallbackTokens(Analyzer analyzer, String field, String text) throws IOException {
+    private static List<String> analyzeFallbackTokens(
+            SharedAnalysisCache analysisCache,
+            Index index,
+            Analyzer analyzer,
+            String field,
+            String text) throws IOException {
         if (analyzer == null || text == null || text.isBlank()) {
             return List.of();
         }
         LinkedHashSet<String> tokens = new LinkedHashSet<>();
-        try (TokenStream tokenStream = analyzer.tokenStream(field, text)) {
-            CharTermAttribute termAttribute = tokenStream.addAttribute(CharTermAttribute.class);
-            tokenStream.reset();
-            while (tokenStream.incrementToken()) {
-                String token = TextNormalization.normalizeLower(termAttribute.toString());
-                if (!token.isBlank()) {
-                    tokens.add(token);
-                }
+        for (String term : analysisCache.analyze(index, analyzer, field, text)) {
+            String token = TextNormalization.normalizeLower(term);
+            if (!token.isBlank()) {
+                tokens.add(token);
             }
-            tokenStream.end();
         }
         return List.copyOf(tokens);
     }
@@ -1,33 +1,57 @@
 package org.es.tok.suggest;
 
+import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 
 import java.io.IOException;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CachedShardSuggestService {
 
-    private final int maxEntries;
-    private final Map<CacheKey, List<LuceneIndexSuggester.SuggestionOption>> cache;
+    /** Node-wide budget of the suggestion result cache, absolute or as a share of the heap. */
+    public static final Setting<ByteSizeValue> CACHE_SIZE_SETTING = Setting.memorySizeSetting(
+            "es_tok.suggest.cache.size",
+            "1%",
+            Setting.Property.NodeScope);
+    /** Budget of the results of a single index; defaults to the node-wide budget. */
+    public static final Setting<ByteSizeValue> CACHE_INDEX_SIZE_SETTING = Setting.memorySizeSetting(
+            "es_tok.suggest.cache.index_size",
+            CACHE_SIZE_SETTING,
+            Setting.Property.NodeScope);
+
+    static final String UNKNOWN_INDEX = "_na_";
+    private static final long EXPECTED_ENTRY_BYTES = 1024;
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+    private static final long OPTION_BYTES = RamUsageEstimator.shallowSizeOfInstance(LuceneIndexSuggester.SuggestionOption.class)
+            + RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
+    private final TinyLfuCache<CacheKey, List<LuceneIndexSuggester.SuggestionOption>> cache;
+    private final SingleFlight<CacheKey> inFlight = new SingleFlight<>();
+    private final Set<Object> listeningReaders = ConcurrentHashMap.newKeySet();
 
     public CachedShardSuggestService() {
-        this(1024);
+        this(Settings.EMPTY);
     }
 
-    public CachedShardSuggestService(int maxEntries) {
-        if (maxEntries < 1) {
-            throw new IllegalArgumentException("maxEntries must be >= 1");
-        }
-        this.maxEntries = maxEntries;
-        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<CacheKey, List<LuceneIndexSuggester.SuggestionOption>> eldest) {
-                return size() > CachedShardSuggestService.this.maxEntries;
-            }
-        };
+    public CachedShardSuggestService(Settings settings) {
+        this(CACHE_SIZE_SETTING.get(settings), CACHE_INDEX_SIZE_SETTING.get(settings));
+    }
+
+    public CachedShardSuggestService(ByteSizeValue maxSize, ByteSizeValue maxIndexSize) {
+        this.cache = new TinyLfuCache<>(
+                maxSize.getBytes(),
+                maxIndexSize.getBytes(),
+                EXPECTED_ENTRY_BYTES,
+                CachedShardSuggestService::estimateBytes,
+                CacheKey::popularityHash);
     }
 
     public SuggestResult suggest(
@@ -50,15 +74,36 @@ public class CachedShardSuggestService {
             default -> config;
         };
         CacheKey cacheKey = cacheEnabled ? createKey(reader, mode, fields, text, configKey) : null;
-        if (cacheKey != null) {
-            synchronized (cache) {
-                List<LuceneIndexSuggester.SuggestionOption> cached = cache.get(cacheKey);
-                if (cached != null) {
-                    return new SuggestResult(cached, true);
-                }
-            }
+        if (cacheKey == null) {
+            return new SuggestResult(compute(reader, mode, fields, text, config, correctionConfig), false);
+        }
+        List<LuceneIndexSuggester.SuggestionOption> cached = cache.get(cacheKey.index(), cacheKey);
+        if (cached != null) {
+            return new SuggestResult(cached, true);
         }
 
+        // Identical requests that miss together share one computation; only the caller that runs it reports a miss
+        boolean[] computedHere = new boolean[1];
+        List<LuceneIndexSuggester.SuggestionOption> options = inFlight.execute(cacheKey, () -> {
+            List<LuceneIndexSuggester.SuggestionOption> landed = cache.peek(cacheKey.index(), cacheKey);
+            if (landed != null) {
+                return landed;
+            }
+            computedHere[0] = true;
+            List<LuceneIndexSuggester.SuggestionOption> computed = compute(reader, mode, fields, text, config, correctionConfig);
+            cache.put(cacheKey.index(), cacheKey, computed);
+            return computed;
+        });
+        return new SuggestResult(options, computedHere[0] == false);
+    }
+
+    private static List<LuceneIndexSuggester.SuggestionOption> compute(
+            IndexReader reader,
+            String mode,
+            List<String> fields,
+            String text,
+            LuceneIndexSuggester.CompletionConfig config,
+            LuceneIndexSuggester.CorrectionConfig correctionConfig) throws IOException {
         LuceneIndexSuggester suggester = new LuceneIndexSuggester(reader);
         List<LuceneIndexSuggester.SuggestionOption> computed = switch (mode) {
             case "prefix" -> suggester.suggestPrefixCompletions(fields, text, config).stream()
@@ -79,18 +124,11 @@ public class CachedShardSuggestService {
                 case "auto" -> suggester.suggestAuto(fields, text, config, correctionConfig);
             default -> throw new IllegalArgumentException("Unsupported suggest mode: " + mode);
         };
-        List<LuceneIndexSuggester.SuggestionOption> immutable = List.copyOf(computed);
-
-        if (cacheKey != null) {
-            synchronized (cache) {
-                cache.put(cacheKey, immutable);
-            }
-        }
-
-        return new SuggestResult(immutable, false);
+        return List.copyOf(computed);
     }
 
-    public void prewarmFields(
+    /** Builds the completion and pinyin indices of {@code reader}; they live in per-segment caches, not in this service. */
+    public static void prewarmFields(
             IndexReader reader,
             List<String> completionFields,
             List<String> pinyinFields) throws IOException {
@@ -102,6 +140,10 @@ public class CachedShardSuggestService {
         suggester.prewarmPinyinIndices(pinyinFields);
     }
 
+    public TinyLfuCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
     private CacheKey createKey(
             IndexReader reader,
             String mode,
@@ -112,7 +154,34 @@ public class CachedShardSuggestService {
         if (cacheHelper == null) {
             return null;
         }
-        return new CacheKey(cacheHelper.getKey(), mode, List.copyOf(fields), text, config);
+        Object readerKey = cacheHelper.getKey();
+        String index = indexName(reader);
+        if (listeningReaders.add(readerKey)) {
+            // Results of a closed reader can never be hit again; drop them rather than wait for eviction
+            cacheHelper.addClosedListener(closedKey -> {
+                listeningReaders.remove(closedKey);
+                cache.invalidate(index, key -> key.readerKey() == closedKey);
+            });
+        }
+        return new CacheKey(readerKey, index, mode, List.copyOf(fields), text, config);
+    }
+
+    private static String indexName(IndexReader reader) {
+        ElasticsearchDirectoryReader shardReader = reader instanceof DirectoryReader directoryReader
+                ? ElasticsearchDirectoryReader.getElasticsearchDirectoryReader(directoryReader)
+                : null;
+        return shardReader == null ? UNKNOWN_INDEX : shardReader.shardId().getIndexName();
+    }
+
+    private static long estimateBytes(CacheKey key, List<LuceneIndexSuggester.SuggestionOption> options) {
+        long bytes = ENTRY_OVERHEAD_BYTES + RamUsageEstimator.sizeOf(key.text());
+        for (String field : key.fields()) {
+            bytes += RamUsageEstimator.sizeOf(field);
+        }
+        for (LuceneIndexSuggester.SuggestionOption option : options) {
+            bytes += OPTION_BYTES + RamUsageEstimator.sizeOf(option.text());
+        }
+        return bytes;
     }
 
     public record SuggestResult(List<LuceneIndexSuggester.SuggestionOption> options, boolean cacheHit) {
@@ -120,14 +189,20 @@ public class CachedShardSuggestService {
 
     private record CacheKey(
             Object readerKey,
+            String index,
             String mode,
             List<String> fields,
             String text,
             Object config) {
+
+        /** The same request on a refreshed reader shares the access history of the old one. */
+        private int popularityHash() {
+            return Objects.hash(index, mode, fields, text, config);
+        }
     }
 
     private record AutoConfigKey(
             LuceneIndexSuggester.CompletionConfig completionConfig,
             LuceneIndexSuggester.CorrectionConfig correctionConfig) {
     }
-}
\ No newline at end of file
+}
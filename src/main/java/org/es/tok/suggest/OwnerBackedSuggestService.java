@@ -1,10 +1,6 @@
 package org.es.tok.suggest;
 
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
-import org.apache.lucene.index.LeafReaderContext;
-import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
@@ -13,12 +9,11 @@ import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TopDocs;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.MappedFieldType;
-import org.elasticsearch.index.mapper.SourceFieldMetrics;
 import org.elasticsearch.search.lookup.Source;
-import org.elasticsearch.search.lookup.SourceProvider;
 import org.es.tok.text.TextNormalization;
 import org.es.tok.text.TopicQualityHeuristics;
 import org.es.tok.suggest.LuceneIndexSuggester.SuggestionOption;
@@ -38,12 +33,18 @@ public class OwnerBackedSuggestService {
 
     private static final String OWNER_NAME_KEYWORD_FIELD = "owner.name.keyword";
     private static final String OWNER_NAME_SOURCE_PATH = "owner.name";
-    private static final String OWNER_MID_SOURCE_PATH = "owner.mid";
     private static final String TITLE_SOURCE_PATH = "title";
     private static final String TAGS_SOURCE_PATH = "tags";
-    private static final String STAT_SCORE_SOURCE_PATH = "stat_score";
-    private static final String STAT_VIEW_SOURCE_PATH = "stat.view";
-    private static final String INSERT_AT_SOURCE_PATH = "insert_at";
+
+    private final SharedAnalysisCache analysisCache;
+
+    public OwnerBackedSuggestService() {
+        this(new SharedAnalysisCache());
+    }
+
+    public OwnerBackedSuggestService(SharedAnalysisCache analysisCache) {
+        this.analysisCache = analysisCache;
+    }
 
     public boolean supports(Collection<String> fields) {
         if (fields == null || fields.isEmpty()) {
@@ -87,10 +88,7 @@ public class OwnerBackedSuggestService {
 
         int hitLimit = Math.max(512, size * 96);
 
-        SourceProvider sourceProvider = SourceProvider.fromLookup(
-                indexService.mapperService().mappingLookup(),
-                null,
-                SourceFieldMetrics.NOOP);
+        VideoSignalReader signalReader = new VideoSignalReader(indexService, searcher.getIndexReader());
         Map<Long, OwnerAccumulator> owners = new LinkedHashMap<>();
         long nowEpochSeconds = Instant.now().getEpochSecond();
         List<String> queryVariants = ownerQueryVariants(text);
@@ -103,7 +101,7 @@ public class OwnerBackedSuggestService {
             String queryVariant = queryVariants.get(index);
             exactPrefixMatchCounts.add(collectExactPrefixOwnerMatches(
                     searcher,
-                    sourceProvider,
+                    signalReader,
                     nowEpochSeconds,
                     queryVariant,
                     queryVariant,
@@ -113,7 +111,6 @@ public class OwnerBackedSuggestService {
                     index == 0 ? 6.0d : 4.4d));
         }
 
-        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
         for (int index = 0; index < queryVariants.size(); index++) {
             String queryVariant = queryVariants.get(index);
             int exactPrefixMatchCount = exactPrefixMatchCounts.get(index);
@@ -133,13 +130,10 @@ public class OwnerBackedSuggestService {
 
             double fallbackWeight = exactPrefixMatchCount > 0 ? 0.18d : 1.0d;
             double branchWeight = index == 0 ? fallbackWeight : fallbackWeight * 0.72d;
+            signalReader.prefetch(variantTopDocs.scoreDocs);
             for (int rank = 0; rank < variantTopDocs.scoreDocs.length; rank++) {
                 ScoreDoc scoreDoc = variantTopDocs.scoreDocs[rank];
-                int leafIndex = ReaderUtil.subIndex(scoreDoc.doc, leaves);
-                LeafReaderContext leaf = leaves.get(leafIndex);
-                int leafDocId = scoreDoc.doc - leaf.docBase;
-                Source source = sourceProvider.getSource(leaf, leafDocId);
-                collectOwnerHit(owners, scoreDoc.doc, source, queryVariant, nowEpochSeconds, scoreDoc.score, rank, true, type, branchWeight);
+                collectOwnerHit(owners, scoreDoc.doc, signalReader, queryVariant, nowEpochSeconds, scoreDoc.score, rank, true, type, branchWeight);
             }
         }
 
@@ -165,15 +159,12 @@ public class OwnerBackedSuggestService {
             return List.of();
         }
 
-        SourceProvider sourceProvider = SourceProvider.fromLookup(
-                indexService.mapperService().mappingLookup(),
-                null,
-                SourceFieldMetrics.NOOP);
+        VideoSignalReader signalReader = new VideoSignalReader(indexService, searcher.getIndexReader());
         Map<Long, OwnerAccumulator> owners = new LinkedHashMap<>();
         long nowEpochSeconds = Instant.now().getEpochSecond();
 
         for (SuggestionOption candidate : candidates) {
-            collectCandidateOwnerMatches(searcher, sourceProvider, nowEpochSeconds, queryText, candidate, owners, type);
+            collectCandidateOwnerMatches(searcher, signalReader, nowEpochSeconds, queryText, candidate, owners, type);
         }
 
         if (owners.isEmpty()) {
@@ -190,18 +181,19 @@ public class OwnerBackedSuggestService {
     private boolean collectOwnerHit(
             Map<Long, OwnerAccumulator> owners,
             int docId,
-            Source source,
+            VideoSignalReader signalReader,
             String queryText,
             long nowEpochSeconds,
             float hitScore,
             int rank,
             boolean useQueryRankSignal,
             String type,
-            double branchWeight) {
-        Long mid = asLong(source.extractValue(OWNER_MID_SOURCE_PATH, null));
+            double branchWeight) throws IOException {
+        Long mid = signalReader.ownerMid(docId);
         if (mid == null) {
             return false;
         }
+        Source source = signalReader.source(docId);
         String displayOwnerName = asString(source.extractValue(OWNER_NAME_SOURCE_PATH, null));
         if (displayOwnerName == null || displayOwnerName.isBlank()) {
             return false;
@@ -221,9 +213,9 @@ public class OwnerBackedSuggestService {
             return false;
         }
 
-        double statScore = asDouble(source.extractValue(STAT_SCORE_SOURCE_PATH, null));
-        long viewCount = asLong(source.extractValue(STAT_VIEW_SOURCE_PATH, null), 0L);
-        long insertAt = asLong(source.extractValue(INSERT_AT_SOURCE_PATH, null), 0L);
+        double statScore = signalReader.statScore(docId);
+        long viewCount = signalReader.viewCount(docId);
+        long insertAt = signalReader.insertAt(docId);
         boolean asciiLiteralPrefix = containsAsciiLiteralPrefix(ownerName, PinyinSupport.normalizeInput(queryText));
         double topicalAffinity = ownerTopicAffinitySignal(
                 queryText,
@@ -265,7 +257,7 @@ public class OwnerBackedSuggestService {
 
     private void collectCandidateOwnerMatches(
             Engine.Searcher searcher,
-            SourceProvider sourceProvider,
+            VideoSignalReader signalReader,
             long nowEpochSeconds,
             String queryText,
             SuggestionOption candidate,
@@ -277,20 +269,16 @@ public class OwnerBackedSuggestService {
             return;
         }
 
-        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        signalReader.prefetch(topDocs.scoreDocs);
         for (int rank = 0; rank < topDocs.scoreDocs.length; rank++) {
             ScoreDoc scoreDoc = topDocs.scoreDocs[rank];
-            int leafIndex = ReaderUtil.subIndex(scoreDoc.doc, leaves);
-            LeafReaderContext leaf = leaves.get(leafIndex);
-            int leafDocId = scoreDoc.doc - leaf.docBase;
-            Source source = sourceProvider.getSource(leaf, leafDocId);
-            collectOwnerHit(owners, scoreDoc.doc, source, queryText, nowEpochSeconds, scoreDoc.score, rank, false, type, 1.0d);
+            collectOwnerHit(owners, scoreDoc.doc, signalReader, queryText, nowEpochSeconds, scoreDoc.score, rank, false, type, 1.0d);
         }
     }
 
     private int collectExactPrefixOwnerMatches(
             Engine.Searcher searcher,
-            SourceProvider sourceProvider,
+            VideoSignalReader signalReader,
             long nowEpochSeconds,
             String queryText,
             String text,
@@ -304,19 +292,15 @@ public class OwnerBackedSuggestService {
         }
 
         int matchedOwnerCount = 0;
-        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
         for (String variant : variants) {
             TopDocs topDocs = searcher.search(new PrefixQuery(new Term(OWNER_NAME_KEYWORD_FIELD, variant)), hitLimit);
             if (topDocs.scoreDocs.length == 0) {
                 continue;
             }
+            signalReader.prefetch(topDocs.scoreDocs);
             for (int rank = 0; rank < topDocs.scoreDocs.length; rank++) {
                 ScoreDoc scoreDoc = topDocs.scoreDocs[rank];
-                int leafIndex = ReaderUtil.subIndex(scoreDoc.doc, leaves);
-                LeafReaderContext leaf = leaves.get(leafIndex);
-                int leafDocId = scoreDoc.doc - leaf.docBase;
-                Source source = sourceProvider.getSource(leaf, leafDocId);
-                if (collectOwnerHit(owners, scoreDoc.doc, source, queryText, nowEpochSeconds, scoreDoc.score + 1.0f, rank, false, type, branchWeight)) {
+                if (collectOwnerHit(owners, scoreDoc.doc, signalReader, queryText, nowEpochSeconds, scoreDoc.score + 1.0f, rank, false, type, branchWeight)) {
                     matchedOwnerCount++;
                 }
             }
@@ -445,7 +429,7 @@ public class OwnerBackedSuggestService {
             }
             MappedFieldType fieldType = indexService.mapperService().fieldType(field);
             Analyzer analyzer = fieldType != null ? fieldType.getTextSearchInfo().searchAnalyzer() : Lucene.KEYWORD_ANALYZER;
-            resolved.put(field, new FieldContext(field, analyzer));
+            resolved.put(field, new FieldContext(indexService.index(), field, analyzer));
         }
         return List.copyOf(resolved.values());
     }
@@ -453,7 +437,7 @@ public class OwnerBackedSuggestService {
     private LinkedHashSet<String> analyzeSeedTerms(List<FieldContext> fieldContexts, String text) throws IOException {
         LinkedHashSet<String> seedTerms = new LinkedHashSet<>();
         for (FieldContext fieldContext : fieldContexts) {
-            for (String token : analyze(fieldContext.analyzer(), fieldContext.indexField(), text)) {
+            for (String token : analyze(fieldContext, text)) {
                 if (!token.isBlank()) {
                     seedTerms.add(token);
                 }
@@ -493,21 +477,13 @@ public class OwnerBackedSuggestService {
         return query.clauses().isEmpty() ? null : query;
     }
 
-    private static List<String> analyze(Analyzer analyzer, String field, String text) throws IOException {
-        if (text == null || text.isBlank()) {
-            return List.of();
-        }
+    private List<String> analyze(FieldContext fieldContext, String text) throws IOException {
         List<String> tokens = new ArrayList<>();
-        try (TokenStream tokenStream = analyzer.tokenStream(field, text)) {
-            CharTermAttribute termAttribute = tokenStream.addAttribute(CharTermAttribute.class);
-            tokenStream.reset();
-            while (tokenStream.incrementToken()) {
-                String normalized = TextNormalization.normalizeLower(termAttribute.toString());
-                if (!normalized.isBlank()) {
-                    tokens.add(normalized);
-                }
+        for (String term : analysisCache.analyze(fieldContext.index(), fieldContext.analyzer(), fieldContext.indexField(), text)) {
+            String normalized = TextNormalization.normalizeLower(term);
+            if (!normalized.isBlank()) {
+                tokens.add(normalized);
             }
-            tokenStream.end();
         }
         return tokens;
     }
@@ -737,7 +713,7 @@ public class OwnerBackedSuggestService {
         return field;
     }
 
-    private record FieldContext(String indexField, Analyzer analyzer) {
+    private record FieldContext(Index index, String indexField, Analyzer analyzer) {
     }
 
     private static boolean shouldUseAnalyzedFallback(String text, int exactOwnerCount, int requestedSize) {
@@ -813,38 +789,6 @@ public class OwnerBackedSuggestService {
         return value == null ? null : value.toString();
     }
 
-    private static Long asLong(Object value) {
-        return asLong(value, null);
-    }
-
-    private static Long asLong(Object value, Long defaultValue) {
-        if (value == null) {
-            return defaultValue;
-        }
-        if (value instanceof Number number) {
-            return number.longValue();
-        }
-        try {
-            return Long.parseLong(value.toString());
-        } catch (NumberFormatException ignored) {
-            return defaultValue;
-        }
-    }
-
-    private static double asDouble(Object value) {
-        if (value == null) {
-            return 0.0d;
-        }
-        if (value instanceof Number number) {
-            return number.doubleValue();
-        }
-        try {
-            return Double.parseDouble(value.toString());
-        } catch (NumberFormatException ignored) {
-            return 0.0d;
-        }
-    }
-
     private static final class OwnerAccumulator {
         private static final Comparator<OwnerAccumulator> ORDER = Comparator
                 .comparingDouble(OwnerAccumulator::score).reversed()
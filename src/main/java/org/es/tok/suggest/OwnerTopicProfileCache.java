@@ -0,0 +1,285 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.Accountable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.IndexEventListener;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.cluster.IndexRemovalReason;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Node-wide cache of {@link OwnerTopicProfiles}: the profiles of each segment
+ * core, the correction of each core for its deletes, and the latest profiles
+ * merged for each shard.
+ * <p>
+ * All three are weighed against one budget, {@link #CACHE_SIZE_SETTING}, and
+ * each index caches into its own region. Segment entries follow the admission
+ * policy of {@link TinyLfuCache}. A shard's merged profiles replace the ones
+ * of its previous reader and are admitted without that check: queries look
+ * for them as soon as the warmup that built them ends, and the next warmup
+ * starts from them, so they outlive the reader they were merged for. Entries
+ * of a segment core are dropped when it closes, a shard's when it closes, and
+ * a region when its index is removed from the node.
+ */
+public class OwnerTopicProfileCache implements IndexEventListener {
+
+    /** Node-wide budget of the owner topic profiles, absolute or as a share of the heap. */
+    public static final Setting<ByteSizeValue> CACHE_SIZE_SETTING = Setting.memorySizeSetting(
+            "es_tok.relations.owner_profiles.cache.size",
+            "1%",
+            Setting.Property.NodeScope);
+
+    private static final long EXPECTED_ENTRY_BYTES = 256 * 1024;
+
+    private final TinyLfuCache<CacheKey, Accountable> cache;
+    private final SingleFlight<CacheKey> loads = new SingleFlight<>();
+    private final Set<Object> listeningCores = ConcurrentHashMap.newKeySet();
+
+    public OwnerTopicProfileCache() {
+        this(Settings.EMPTY);
+    }
+
+    public OwnerTopicProfileCache(Settings settings) {
+        this(CACHE_SIZE_SETTING.get(settings));
+    }
+
+    public OwnerTopicProfileCache(ByteSizeValue maxSize) {
+        this.cache = new TinyLfuCache<>(
+                maxSize.getBytes(),
+                maxSize.getBytes(),
+                EXPECTED_ENTRY_BYTES,
+                (key, value) -> value.ramBytesUsed(),
+                CacheKey::popularityHash);
+    }
+
+    /**
+     * Builds, or returns the cached, profiles of {@code reader} of the shard
+     * {@code shardId}. Only segments not seen before are read, and only the
+     * owners of segments that changed since the shard's previous reader are
+     * merged again.
+     */
+    public OwnerTopicProfiles build(ShardId shardId, IndexReader reader, OwnerTopicProfiles.Spec spec) throws IOException {
+        String region = shardId.getIndex().getUUID();
+        IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
+        if (cacheHelper == null) {
+            return OwnerTopicProfiles.merge(leaves(region, reader, spec), null, null, null);
+        }
+        Object readerKey = cacheHelper.getKey();
+        CacheKey key = new CacheKey(shardId, spec, Kind.SHARD);
+        OwnerTopicProfiles cached = (OwnerTopicProfiles) cache.get(region, key);
+        if (cached != null && cached.readerKey() == readerKey) {
+            return cached;
+        }
+        return loads.execute(new CacheKey(readerKey, spec, Kind.READER), () -> {
+            OwnerTopicProfiles previous = (OwnerTopicProfiles) cache.peek(region, key);
+            if (previous != null && previous.readerKey() == readerKey) {
+                return previous;
+            }
+            List<OwnerTopicProfiles.LeafProfiles> leaves = leaves(region, reader, spec);
+            Set<Long> changed = previous == null ? null : changedOwners(region, previous, leaves, spec);
+            OwnerTopicProfiles built = OwnerTopicProfiles.merge(leaves, previous, changed, readerKey);
+            cache.putWithoutAdmission(region, key, built);
+            return built;
+        });
+    }
+
+    /** Profiles of {@code reader} if {@link #build} ran on it last for its shard, otherwise {@code null}. */
+    public OwnerTopicProfiles peek(ShardId shardId, IndexReader reader, OwnerTopicProfiles.Spec spec) {
+        IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
+        if (cacheHelper == null) {
+            return null;
+        }
+        OwnerTopicProfiles cached = (OwnerTopicProfiles) cache.get(
+                shardId.getIndex().getUUID(),
+                new CacheKey(shardId, spec, Kind.SHARD));
+        return cached != null && cached.readerKey() == cacheHelper.getKey() ? cached : null;
+    }
+
+    public TinyLfuCache.Stats stats() {
+        return cache.stats();
+    }
+
+    void clear() {
+        cache.clear();
+    }
+
+    @Override
+    public void afterIndexShardClosed(ShardId shardId, IndexShard indexShard, Settings indexSettings) {
+        cache.invalidate(shardId.getIndex().getUUID(), key -> key.kind() == Kind.SHARD && key.key().equals(shardId));
+    }
+
+    @Override
+    public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
+        cache.invalidate(index.getUUID(), key -> true);
+    }
+
+    private List<OwnerTopicProfiles.LeafProfiles> leaves(String region, IndexReader reader, OwnerTopicProfiles.Spec spec)
+            throws IOException {
+        List<OwnerTopicProfiles.LeafProfiles> leaves = new ArrayList<>(reader.leaves().size());
+        for (LeafReaderContext leaf : reader.leaves()) {
+            leaves.add(leafProfiles(region, leaf.reader(), spec));
+        }
+        return leaves;
+    }
+
+    private OwnerTopicProfiles.LeafProfiles leafProfiles(String region, LeafReader reader, OwnerTopicProfiles.Spec spec)
+            throws IOException {
+        IndexReader.CacheHelper coreCacheHelper = reader.getCoreCacheHelper();
+        if (coreCacheHelper == null) {
+            // Without a core key nothing can be cached, so the segment is built with this reader's deletes applied
+            return new OwnerTopicProfiles.LeafProfiles(null, OwnerTopicProfiles.buildSegment(reader, spec, reader.getLiveDocs()), null);
+        }
+        Object coreKey = coreCacheHelper.getKey();
+        OwnerTopicProfiles.SegmentProfiles segment = segment(region, reader, coreCacheHelper, spec);
+        OwnerTopicProfiles.Deletes deletes = reader.getLiveDocs() == null ? null : deletes(region, reader, coreKey, segment, spec);
+        return new OwnerTopicProfiles.LeafProfiles(new OwnerTopicProfiles.LeafId(coreKey, reader.numDeletedDocs()), segment, deletes);
+    }
+
+    private OwnerTopicProfiles.SegmentProfiles segment(
+            String region,
+            LeafReader reader,
+            IndexReader.CacheHelper coreCacheHelper,
+            OwnerTopicProfiles.Spec spec) throws IOException {
+        CacheKey key = new CacheKey(coreCacheHelper.getKey(), spec, Kind.SEGMENT);
+        OwnerTopicProfiles.SegmentProfiles cached = (OwnerTopicProfiles.SegmentProfiles) cache.get(region, key);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.execute(key, () -> {
+            OwnerTopicProfiles.SegmentProfiles landed = (OwnerTopicProfiles.SegmentProfiles) cache.peek(region, key);
+            if (landed != null) {
+                return landed;
+            }
+            OwnerTopicProfiles.SegmentProfiles built = OwnerTopicProfiles.buildSegment(reader, spec, null);
+            listenForClose(region, coreCacheHelper);
+            cache.put(region, key, built);
+            return built;
+        });
+    }
+
+    /**
+     * Correction of {@code segment} for the deletes of {@code reader}. Deletes
+     * of a core only ever grow, so one correction is cached per core and
+     * extended with the videos deleted since it was computed.
+     */
+    private OwnerTopicProfiles.Deletes deletes(
+            String region,
+            LeafReader reader,
+            Object coreKey,
+            OwnerTopicProfiles.SegmentProfiles segment,
+            OwnerTopicProfiles.Spec spec) throws IOException {
+        CacheKey key = new CacheKey(coreKey, spec, Kind.DELETES);
+        OwnerTopicProfiles.Deletes cached = (OwnerTopicProfiles.Deletes) cache.get(region, key);
+        if (cached != null && cached.numDeletedDocs() == reader.numDeletedDocs()) {
+            return cached;
+        }
+        OwnerTopicProfiles.Deletes loaded = loads.execute(key, () -> {
+            OwnerTopicProfiles.Deletes landed = (OwnerTopicProfiles.Deletes) cache.peek(region, key);
+            if (landed != null && landed.numDeletedDocs() == reader.numDeletedDocs()) {
+                return landed;
+            }
+            OwnerTopicProfiles.Deletes built = OwnerTopicProfiles.applyDeletes(landed, reader, segment, spec);
+            if (landed == null || landed.numDeletedDocs() < built.numDeletedDocs()) {
+                cache.put(region, key, built);
+            }
+            return built;
+        });
+        // A concurrent load may have been for another reader of the core
+        return loaded.numDeletedDocs() == reader.numDeletedDocs()
+                ? loaded
+                : OwnerTopicProfiles.applyDeletes(null, reader, segment, spec);
+    }
+
+    /**
+     * Owners whose profiles may differ from {@code previous}: those of added
+     * and removed segments and those with videos deleted since. {@code null}
+     * when they cannot be told, and all owners have to be merged.
+     */
+    private Set<Long> changedOwners(
+            String region,
+            OwnerTopicProfiles previous,
+            List<OwnerTopicProfiles.LeafProfiles> leaves,
+            OwnerTopicProfiles.Spec spec) {
+        if (previous.leaves() == null) {
+            return null;
+        }
+        Map<Object, Integer> previousDeletes = new HashMap<>();
+        for (OwnerTopicProfiles.LeafId leafId : previous.leaves()) {
+            previousDeletes.put(leafId.coreKey(), leafId.numDeletedDocs());
+        }
+        Set<Long> changed = new HashSet<>();
+        for (OwnerTopicProfiles.LeafProfiles leaf : leaves) {
+            if (leaf.id() == null) {
+                return null;
+            }
+            Integer numDeletedDocs = previousDeletes.remove(leaf.id().coreKey());
+            if (numDeletedDocs == null) {
+                changed.addAll(leaf.segment().profiles().keySet());
+            } else if (numDeletedDocs != leaf.id().numDeletedDocs()) {
+                if (leaf.deletes() == null || leaf.deletes().previousNumDeletedDocs() != numDeletedDocs) {
+                    return null;
+                }
+                changed.addAll(leaf.deletes().changed());
+            }
+        }
+        for (Object removedCore : previousDeletes.keySet()) {
+            OwnerTopicProfiles.SegmentProfiles removed = (OwnerTopicProfiles.SegmentProfiles) cache.peek(
+                    region,
+                    new CacheKey(removedCore, spec, Kind.SEGMENT));
+            if (removed == null) {
+                return null;
+            }
+            changed.addAll(removed.profiles().keySet());
+        }
+        return changed;
+    }
+
+    private void listenForClose(String region, IndexReader.CacheHelper coreCacheHelper) {
+        if (listeningCores.add(coreCacheHelper.getKey())) {
+            coreCacheHelper.addClosedListener(closedKey -> {
+                listeningCores.remove(closedKey);
+                cache.invalidate(region, key -> key.kind() != Kind.SHARD && key.key() == closedKey);
+            });
+        }
+    }
+
+    private enum Kind {
+        /** Latest merged profiles of the shard {@link CacheKey#key}. */
+        SHARD,
+        /** Profiles of the segment core {@link CacheKey#key}. */
+        SEGMENT,
+        /** Correction of the segment core {@link CacheKey#key} for its deletes. */
+        DELETES,
+        /** A merge in flight for the reader {@link CacheKey#key}; never cached. */
+        READER
+    }
+
+    /**
+     * Shards compare by id and are as popular as the queries on them; segment
+     * cores and readers compare by identity, and so does their popularity.
+     */
+    private record CacheKey(Object key, OwnerTopicProfiles.Spec spec, Kind kind) {
+
+        private int popularityHash() {
+            int keyHash = kind == Kind.SHARD ? key.hashCode() : System.identityHashCode(key);
+            return Objects.hash(keyHash, spec, kind);
+        }
+    }
+}
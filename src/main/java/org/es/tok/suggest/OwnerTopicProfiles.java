@@ -0,0 +1,775 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PostingsEnum;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.mapper.MapperService;
+import org.es.tok.text.TextNormalization;
+import org.es.tok.text.TopicQualityHeuristics;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Topic profile of every owner of a shard reader: the top topic tokens of the
+ * owner's videos with their weight and doc support, the video count, view and
+ * stat score totals, and the latest insert times.
+ * <p>
+ * Relations seeded by owners otherwise rebuild this footprint per request by
+ * loading and analyzing the sources of the owners' videos. Profiles are built
+ * from the postings of the topic fields and the {@code owner.mid} doc values
+ * instead, one term at a time, so every (owner, token) aggregate is final once
+ * its term has been read and only the top {@link #MAX_TOKENS} tokens per owner
+ * are kept. Segment cores are immutable, so profiles are built over all docs
+ * of a segment, deleted or not, and cached per core; a refresh only reads the
+ * segments it added. Deletes are applied as a correction per core: the videos
+ * deleted since the last correction are looked up in the doc values and in the
+ * postings of their owners' top tokens, which still hold deleted docs, and
+ * their share is subtracted. The reader-level profiles start from the previous
+ * reader's and only merge again the owners of segments that were added,
+ * merged away or had videos deleted.
+ * <p>
+ * Token weights are exact per segment for the tokens kept; a token outside a
+ * segment's top tokens does not contribute that segment's share to the merge,
+ * and deleting videos does not bring such a token back. A deleted video's
+ * insert time leaves the recent insert times without being replaced by an
+ * older one.
+ * <p>
+ * Segment and shard profiles are cached by {@link OwnerTopicProfileCache},
+ * which builds them at warmup; query paths only peek at it and fall back to
+ * scanning when the reader has not been warmed yet.
+ */
+public final class OwnerTopicProfiles implements Accountable {
+    /** Topic fields and the weight of one occurrence of a token in each, as used to seed relations. */
+    public static final Map<String, Double> TOPIC_FIELD_WEIGHTS = topicFieldWeights();
+
+    static final int MAX_TOKENS = 48;
+    static final int RECENT_INSERTS = 16;
+
+    private static final long MAP_ENTRY_BYTES = 64;
+    private static final long PROFILE_BYTES = 96;
+    private static final long TOKEN_BYTES = 48;
+    private static final long INSERT_AT_BYTES = 24;
+    private static final long LEAF_BYTES = 32;
+    private static final long RAW_TERM_BYTES = 48;
+
+    private final Map<Long, OwnerProfile> profiles;
+    /** Segments merged, or {@code null} when one of them has no core key and the profiles cannot be reused. */
+    private final List<LeafId> leaves;
+    /** Key of the reader the profiles were merged for, {@code null} when it has none. */
+    private final Object readerKey;
+    private final long ramBytesUsed;
+
+    private OwnerTopicProfiles(Map<Long, OwnerProfile> profiles, List<LeafId> leaves, Object readerKey) {
+        this.profiles = profiles;
+        this.leaves = leaves;
+        this.readerKey = readerKey;
+        this.ramBytesUsed = ramBytesUsed(profiles) + (leaves == null ? 0 : LEAF_BYTES * leaves.size());
+    }
+
+    /** Profile of the owner {@code mid}, or {@code null} when the reader has no live video of theirs. */
+    public OwnerProfile profile(long mid) {
+        return profiles.get(mid);
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return ramBytesUsed;
+    }
+
+    List<LeafId> leaves() {
+        return leaves;
+    }
+
+    Object readerKey() {
+        return readerKey;
+    }
+
+    /**
+     * Merges the profiles of the segments of a reader. With the profiles of an
+     * earlier reader of the shard and the owners {@code changed} since, only
+     * those owners are merged again.
+     */
+    static OwnerTopicProfiles merge(List<LeafProfiles> leaves, OwnerTopicProfiles previous, Set<Long> changed, Object readerKey) {
+        List<LeafId> leafIds = new ArrayList<>(leaves.size());
+        for (LeafProfiles leaf : leaves) {
+            if (leaf.id() == null) {
+                leafIds = null;
+                break;
+            }
+            leafIds.add(leaf.id());
+        }
+        Map<Long, OwnerProfile> profiles;
+        if (previous == null || changed == null || changed.size() * 2L > previous.size()) {
+            profiles = mergeAll(leaves);
+        } else {
+            profiles = new HashMap<>(previous.profiles);
+            for (Long mid : changed) {
+                ProfileMerger merger = new ProfileMerger();
+                for (LeafProfiles leaf : leaves) {
+                    OwnerProfile profile = leaf.profile(mid);
+                    if (profile != null) {
+                        merger.add(profile);
+                    }
+                }
+                if (merger.videoCount > 0) {
+                    profiles.put(mid, merger.toProfile());
+                } else {
+                    profiles.remove(mid);
+                }
+            }
+        }
+        return new OwnerTopicProfiles(profiles, leafIds == null ? null : List.copyOf(leafIds), readerKey);
+    }
+
+    private static Map<Long, OwnerProfile> mergeAll(List<LeafProfiles> leaves) {
+        Map<Long, ProfileMerger> mergers = new HashMap<>();
+        for (LeafProfiles leaf : leaves) {
+            for (Long mid : leaf.segment().profiles().keySet()) {
+                OwnerProfile profile = leaf.profile(mid);
+                if (profile != null) {
+                    mergers.computeIfAbsent(mid, ignored -> new ProfileMerger()).add(profile);
+                }
+            }
+        }
+        Map<Long, OwnerProfile> profiles = new HashMap<>(mergers.size() * 2);
+        for (Map.Entry<Long, ProfileMerger> entry : mergers.entrySet()) {
+            profiles.put(entry.getKey(), entry.getValue().toProfile());
+        }
+        return profiles;
+    }
+
+    private static long ramBytesUsed(Map<Long, OwnerProfile> profiles) {
+        long bytes = RamUsageEstimator.NUM_BYTES_OBJECT_HEADER;
+        for (OwnerProfile profile : profiles.values()) {
+            bytes += MAP_ENTRY_BYTES + PROFILE_BYTES + INSERT_AT_BYTES * profile.recentInsertAt().size();
+            for (TopicToken token : profile.tokens()) {
+                bytes += TOKEN_BYTES + RamUsageEstimator.sizeOf(token.token());
+            }
+        }
+        return bytes;
+    }
+
+    /** Profiles of the videos of {@code reader}, of all of them when {@code liveDocs} is {@code null}. */
+    static SegmentProfiles buildSegment(LeafReader reader, Spec spec, Bits liveDocs) throws IOException {
+        int[] ownerOrds = new int[reader.maxDoc()];
+        Arrays.fill(ownerOrds, -1);
+        List<Long> mids = new ArrayList<>();
+        List<OwnerBuilder> owners = new ArrayList<>();
+        Map<Long, Integer> ordsByMid = new HashMap<>();
+        SortedNumericDocValues midValues = DocValues.getSortedNumeric(reader, VideoSignalReader.OWNER_MID_FIELD);
+        for (int doc = midValues.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = midValues.nextDoc()) {
+            long mid = midValues.nextValue();
+            if (mid <= 0L || (liveDocs != null && liveDocs.get(doc) == false)) {
+                continue;
+            }
+            Integer ord = ordsByMid.get(mid);
+            if (ord == null) {
+                ord = owners.size();
+                ordsByMid.put(mid, ord);
+                mids.add(mid);
+                owners.add(new OwnerBuilder());
+            }
+            ownerOrds[doc] = ord;
+            owners.get(ord).videoCount++;
+        }
+        if (owners.isEmpty()) {
+            return new SegmentProfiles(Map.of(), Map.of());
+        }
+
+        readSignal(reader, VideoSignalReader.INSERT_AT_FIELD, spec.insertAtType(), ownerOrds, owners,
+                (owner, value) -> owner.addInsertAt((long) value));
+        readSignal(reader, VideoSignalReader.STAT_VIEW_FIELD, spec.viewType(), ownerOrds, owners,
+                (owner, value) -> owner.totalViews += (long) value);
+        readSignal(reader, VideoSignalReader.STAT_SCORE_FIELD, spec.statScoreType(), ownerOrds, owners,
+                (owner, value) -> owner.statScoreSum += value);
+        Map<String, List<BytesRef>> rawTerms = new HashMap<>();
+        readTopicTokens(reader, spec, ownerOrds, owners, rawTerms);
+
+        Map<Long, OwnerProfile> profiles = new HashMap<>(owners.size() * 2);
+        Set<String> keptTokens = new HashSet<>();
+        for (int ord = 0; ord < owners.size(); ord++) {
+            OwnerProfile profile = owners.get(ord).toProfile();
+            profiles.put(mids.get(ord), profile);
+            for (TopicToken token : profile.tokens()) {
+                keptTokens.add(token.token());
+            }
+        }
+        rawTerms.keySet().retainAll(keptTokens);
+        return new SegmentProfiles(profiles, rawTerms);
+    }
+
+    /**
+     * Subtracts from {@code segment} the videos deleted in {@code reader} that
+     * {@code previous}, a correction for fewer deletes of the same core, has
+     * not subtracted yet.
+     */
+    static Deletes applyDeletes(Deletes previous, LeafReader reader, SegmentProfiles segment, Spec spec) throws IOException {
+        Bits liveDocs = reader.getLiveDocs();
+        if (previous != null && (previous.numDeletedDocs() > reader.numDeletedDocs() || stillDeleted(previous.docs(), liveDocs) == false)) {
+            previous = null;
+        }
+        int[] known = previous == null ? new int[0] : previous.docs();
+        int[] docs = new int[reader.numDeletedDocs()];
+        int[] added = new int[docs.length - known.length];
+        int docCount = 0;
+        int addedCount = 0;
+        for (int doc = 0, next = 0; doc < reader.maxDoc() && docCount < docs.length; doc++) {
+            if (liveDocs.get(doc)) {
+                continue;
+            }
+            docs[docCount++] = doc;
+            if (next < known.length && known[next] == doc) {
+                next++;
+            } else if (addedCount < added.length) {
+                added[addedCount++] = doc;
+            }
+        }
+
+        Map<Long, DeletedVideos> deleted = new HashMap<>();
+        DeletedVideos[] ownerOfDoc = new DeletedVideos[addedCount];
+        SortedNumericDocValues midValues = DocValues.getSortedNumeric(reader, VideoSignalReader.OWNER_MID_FIELD);
+        for (int index = 0; index < addedCount; index++) {
+            if (midValues.advanceExact(added[index]) == false) {
+                continue;
+            }
+            long mid = midValues.nextValue();
+            if (segment.profiles().containsKey(mid)) {
+                ownerOfDoc[index] = deleted.computeIfAbsent(mid, ignored -> new DeletedVideos());
+                ownerOfDoc[index].add(added[index]);
+            }
+        }
+        readDeletedSignal(reader, VideoSignalReader.INSERT_AT_FIELD, spec.insertAtType(), added, ownerOfDoc,
+                (videos, value) -> videos.insertAts.add((long) value));
+        readDeletedSignal(reader, VideoSignalReader.STAT_VIEW_FIELD, spec.viewType(), added, ownerOfDoc,
+                (videos, value) -> videos.totalViews += (long) value);
+        readDeletedSignal(reader, VideoSignalReader.STAT_SCORE_FIELD, spec.statScoreType(), added, ownerOfDoc,
+                (videos, value) -> videos.statScoreSum += value);
+
+        List<TermsEnum> termsEnums = new ArrayList<>();
+        List<Double> fieldWeights = new ArrayList<>();
+        for (TopicField topicField : spec.topicFields()) {
+            Terms terms = reader.terms(topicField.field());
+            if (terms != null) {
+                termsEnums.add(terms.iterator());
+                fieldWeights.add(topicField.weight());
+            }
+        }
+        Map<Long, OwnerProfile> profiles = previous == null ? new HashMap<>() : new HashMap<>(previous.profiles());
+        for (Map.Entry<Long, DeletedVideos> entry : deleted.entrySet()) {
+            OwnerProfile profile = profiles.get(entry.getKey());
+            if (profile == null) {
+                profile = segment.profiles().get(entry.getKey());
+            }
+            profiles.put(entry.getKey(), entry.getValue().subtractFrom(profile, segment, termsEnums, fieldWeights));
+        }
+        return new Deletes(
+                docs.length,
+                docs,
+                previous == null ? 0 : previous.numDeletedDocs(),
+                Set.copyOf(deleted.keySet()),
+                profiles);
+    }
+
+    private static boolean stillDeleted(int[] docs, Bits liveDocs) {
+        for (int doc : docs) {
+            if (liveDocs.get(doc)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void readDeletedSignal(
+            LeafReader reader,
+            String field,
+            IndexNumericFieldData.NumericType type,
+            int[] docs,
+            DeletedVideos[] ownerOfDoc,
+            ObjDoubleConsumer<DeletedVideos> consumer) throws IOException {
+        if (type == null) {
+            return;
+        }
+        SortedNumericDocValues values = DocValues.getSortedNumeric(reader, field);
+        for (int index = 0; index < ownerOfDoc.length; index++) {
+            if (ownerOfDoc[index] != null && values.advanceExact(docs[index])) {
+                consumer.accept(ownerOfDoc[index], VideoSignalReader.decode(type, values.nextValue()).doubleValue());
+            }
+        }
+    }
+
+    private static void readSignal(
+            LeafReader reader,
+            String field,
+            IndexNumericFieldData.NumericType type,
+            int[] ownerOrds,
+            List<OwnerBuilder> owners,
+            ObjDoubleConsumer<OwnerBuilder> consumer) throws IOException {
+        if (type == null) {
+            return;
+        }
+        SortedNumericDocValues values = DocValues.getSortedNumeric(reader, field);
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            if (ownerOrds[doc] >= 0) {
+                consumer.accept(owners.get(ownerOrds[doc]), VideoSignalReader.decode(type, values.nextValue()).doubleValue());
+            }
+        }
+    }
+
+    /**
+     * Walks the terms of all topic fields together in term order. For each
+     * term the postings of the fields holding it are merged by doc, so a
+     * document counts once towards a token's support however many topic fields
+     * contain it, and its weight sums the field weight times the frequency in
+     * every one of them.
+     */
+    private static void readTopicTokens(
+            LeafReader reader,
+            Spec spec,
+            int[] ownerOrds,
+            List<OwnerBuilder> owners,
+            Map<String, List<BytesRef>> rawTerms) throws IOException {
+        List<TermsEnum> termsEnums = new ArrayList<>();
+        List<Double> fieldWeights = new ArrayList<>();
+        for (TopicField topicField : spec.topicFields()) {
+            Terms terms = reader.terms(topicField.field());
+            if (terms != null) {
+                termsEnums.add(terms.iterator());
+                fieldWeights.add(topicField.weight());
+            }
+        }
+        int fieldCount = termsEnums.size();
+        BytesRef[] currentTerms = new BytesRef[fieldCount];
+        for (int field = 0; field < fieldCount; field++) {
+            currentTerms[field] = termsEnums.get(field).next();
+        }
+        PostingsEnum[] postings = new PostingsEnum[fieldCount];
+        boolean[] onTerm = new boolean[fieldCount];
+        double[] termWeights = new double[owners.size()];
+        int[] termSupport = new int[owners.size()];
+        int[] touched = new int[owners.size()];
+        while (true) {
+            BytesRef term = null;
+            for (int field = 0; field < fieldCount; field++) {
+                if (currentTerms[field] != null && (term == null || currentTerms[field].compareTo(term) < 0)) {
+                    term = currentTerms[field];
+                }
+            }
+            if (term == null) {
+                return;
+            }
+            for (int field = 0; field < fieldCount; field++) {
+                onTerm[field] = currentTerms[field] != null && currentTerms[field].bytesEquals(term);
+            }
+            String termText = term.utf8ToString();
+            String token = TextNormalization.normalizeLower(termText);
+            if (token.isBlank() == false && TopicQualityHeuristics.isCandidateRelationToken(token)) {
+                if (token.equals(termText) == false) {
+                    rawTerms.computeIfAbsent(token, ignored -> new ArrayList<>()).add(BytesRef.deepCopyOf(term));
+                }
+                int touchedCount = 0;
+                for (int field = 0; field < fieldCount; field++) {
+                    if (onTerm[field]) {
+                        postings[field] = termsEnums.get(field).postings(postings[field], PostingsEnum.FREQS);
+                        postings[field].nextDoc();
+                    }
+                }
+                while (true) {
+                    int doc = DocIdSetIterator.NO_MORE_DOCS;
+                    for (int field = 0; field < fieldCount; field++) {
+                        if (onTerm[field]) {
+                            doc = Math.min(doc, postings[field].docID());
+                        }
+                    }
+                    if (doc == DocIdSetIterator.NO_MORE_DOCS) {
+                        break;
+                    }
+                    double weight = 0.0d;
+                    for (int field = 0; field < fieldCount; field++) {
+                        if (onTerm[field] && postings[field].docID() == doc) {
+                            weight += fieldWeights.get(field) * postings[field].freq();
+                            postings[field].nextDoc();
+                        }
+                    }
+                    int ord = ownerOrds[doc];
+                    if (ord < 0) {
+                        continue;
+                    }
+                    if (termSupport[ord]++ == 0) {
+                        touched[touchedCount++] = ord;
+                    }
+                    termWeights[ord] += weight;
+                }
+                for (int index = 0; index < touchedCount; index++) {
+                    int ord = touched[index];
+                    owners.get(ord).tokens.offer(token, termWeights[ord], termSupport[ord]);
+                    termWeights[ord] = 0.0d;
+                    termSupport[ord] = 0;
+                }
+            }
+            for (int field = 0; field < fieldCount; field++) {
+                if (onTerm[field]) {
+                    currentTerms[field] = termsEnums.get(field).next();
+                }
+            }
+        }
+    }
+
+    private static Map<String, Double> topicFieldWeights() {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        weights.put("title.words", 5.0d);
+        weights.put("tags.words", 4.0d);
+        weights.put("desc.words", 1.8d);
+        return Collections.unmodifiableMap(weights);
+    }
+
+    /**
+     * What profiles are built from: the mapped topic fields with their weights
+     * and the doc value types of the numeric signals ({@code null} when a
+     * signal has no numeric doc values and is left out of the aggregates).
+     */
+    public record Spec(
+            List<TopicField> topicFields,
+            IndexNumericFieldData.NumericType insertAtType,
+            IndexNumericFieldData.NumericType viewType,
+            IndexNumericFieldData.NumericType statScoreType) {
+
+        public Spec {
+            topicFields = List.copyOf(topicFields);
+        }
+
+        /**
+         * Spec of an index, or {@code null} when profiles cannot be built for
+         * it: {@code owner.mid} has no numeric doc values or no topic field is
+         * mapped.
+         */
+        public static Spec resolve(MapperService mapperService) {
+            if (VideoSignalReader.docValueType(mapperService, VideoSignalReader.OWNER_MID_FIELD) == null) {
+                return null;
+            }
+            List<TopicField> topicFields = new ArrayList<>();
+            for (Map.Entry<String, Double> entry : TOPIC_FIELD_WEIGHTS.entrySet()) {
+                if (mapperService.fieldType(entry.getKey()) != null) {
+                    topicFields.add(new TopicField(entry.getKey(), entry.getValue()));
+                }
+            }
+            if (topicFields.isEmpty()) {
+                return null;
+            }
+            return new Spec(
+                    topicFields,
+                    VideoSignalReader.docValueType(mapperService, VideoSignalReader.INSERT_AT_FIELD),
+                    VideoSignalReader.docValueType(mapperService, VideoSignalReader.STAT_VIEW_FIELD),
+                    VideoSignalReader.docValueType(mapperService, VideoSignalReader.STAT_SCORE_FIELD));
+        }
+    }
+
+    public record TopicField(String field, double weight) {
+    }
+
+    /**
+     * @param tokens         top tokens by weight, heaviest first
+     * @param recentInsertAt latest insert times, newest first
+     */
+    public record OwnerProfile(
+            int videoCount,
+            long totalViews,
+            double statScoreSum,
+            List<Long> recentInsertAt,
+            List<TopicToken> tokens) {
+
+        public long latestInsertAt() {
+            return recentInsertAt.isEmpty() ? 0L : recentInsertAt.get(0);
+        }
+    }
+
+    /** Summed weight of a token over the owner's videos and the number of videos containing it. */
+    public record TopicToken(String token, double weight, int docSupport) {
+    }
+
+    private static final Comparator<TopicToken> BY_WEIGHT = Comparator
+            .comparingDouble(TopicToken::weight).reversed()
+            .thenComparing(TopicToken::token);
+
+    private static final class OwnerBuilder {
+        private int videoCount;
+        private long totalViews;
+        private double statScoreSum;
+        private final long[] recentInsertAt = new long[RECENT_INSERTS];
+        private int insertCount;
+        private final TopTokens tokens = new TopTokens();
+
+        private void addInsertAt(long insertAt) {
+            addRecent(recentInsertAt, insertCount, insertAt);
+            insertCount = Math.min(RECENT_INSERTS, insertCount + 1);
+        }
+
+        private OwnerProfile toProfile() {
+            List<Long> recent = new ArrayList<>(insertCount);
+            for (int index = 0; index < insertCount; index++) {
+                recent.add(recentInsertAt[index]);
+            }
+            return new OwnerProfile(videoCount, totalViews, statScoreSum, List.copyOf(recent), tokens.toList());
+        }
+    }
+
+    /** Inserts {@code value} into the descending {@code values[0, size)}, dropping the smallest when full. */
+    private static void addRecent(long[] values, int size, long value) {
+        int index = Math.min(size, values.length - 1);
+        if (size == values.length && value <= values[index]) {
+            return;
+        }
+        while (index > 0 && values[index - 1] < value) {
+            values[index] = values[index - 1];
+            index--;
+        }
+        values[index] = value;
+    }
+
+    /** The {@link #MAX_TOKENS} heaviest tokens offered, tracking the lightest kept one to reject most offers cheaply. */
+    private static final class TopTokens {
+        private final String[] tokens = new String[MAX_TOKENS];
+        private final double[] weights = new double[MAX_TOKENS];
+        private final int[] support = new int[MAX_TOKENS];
+        private int size;
+        private int lightest;
+
+        private void offer(String token, double weight, int docSupport) {
+            if (size < MAX_TOKENS) {
+                tokens[size] = token;
+                weights[size] = weight;
+                support[size] = docSupport;
+                size++;
+                if (size == MAX_TOKENS) {
+                    lightest = lightest();
+                }
+                return;
+            }
+            if (weight <= weights[lightest]) {
+                return;
+            }
+            tokens[lightest] = token;
+            weights[lightest] = weight;
+            support[lightest] = docSupport;
+            lightest = lightest();
+        }
+
+        private int lightest() {
+            int lightest = 0;
+            for (int index = 1; index < size; index++) {
+                if (weights[index] < weights[lightest]) {
+                    lightest = index;
+                }
+            }
+            return lightest;
+        }
+
+        /** Kept tokens heaviest first; terms that normalize to the same token are summed. */
+        private List<TopicToken> toList() {
+            Map<String, TopicToken> merged = new LinkedHashMap<>();
+            for (int index = 0; index < size; index++) {
+                TopicToken token = new TopicToken(tokens[index], weights[index], support[index]);
+                merged.merge(tokens[index], token, (left, right) -> new TopicToken(
+                        left.token(),
+                        left.weight() + right.weight(),
+                        left.docSupport() + right.docSupport()));
+            }
+            return merged.values().stream().sorted(BY_WEIGHT).toList();
+        }
+    }
+
+    private static final class ProfileMerger {
+        private int videoCount;
+        private long totalViews;
+        private double statScoreSum;
+        private final long[] recentInsertAt = new long[RECENT_INSERTS];
+        private int insertCount;
+        private final Map<String, TopicToken> tokens = new HashMap<>();
+
+        private void add(OwnerProfile profile) {
+            videoCount += profile.videoCount();
+            totalViews += profile.totalViews();
+            statScoreSum += profile.statScoreSum();
+            for (long insertAt : profile.recentInsertAt()) {
+                addRecent(recentInsertAt, insertCount, insertAt);
+                insertCount = Math.min(RECENT_INSERTS, insertCount + 1);
+            }
+            for (TopicToken token : profile.tokens()) {
+                tokens.merge(token.token(), token, (left, right) -> new TopicToken(
+                        left.token(),
+                        left.weight() + right.weight(),
+                        left.docSupport() + right.docSupport()));
+            }
+        }
+
+        private OwnerProfile toProfile() {
+            List<Long> recent = new ArrayList<>(insertCount);
+            for (int index = 0; index < insertCount; index++) {
+                recent.add(recentInsertAt[index]);
+            }
+            List<TopicToken> top = tokens.values().stream().sorted(BY_WEIGHT).limit(MAX_TOKENS).toList();
+            return new OwnerProfile(videoCount, totalViews, statScoreSum, List.copyOf(recent), top);
+        }
+    }
+
+    /** Videos of one owner deleted from a segment, and what they add up to. */
+    private static final class DeletedVideos {
+        private int[] docs = new int[4];
+        private int videoCount;
+        private long totalViews;
+        private double statScoreSum;
+        private final List<Long> insertAts = new ArrayList<>();
+
+        private void add(int doc) {
+            if (videoCount == docs.length) {
+                docs = Arrays.copyOf(docs, videoCount * 2);
+            }
+            docs[videoCount++] = doc;
+        }
+
+        /**
+         * {@code profile} without these videos. Their share of each token is
+         * read from the postings of the token's terms in every topic field.
+         */
+        private OwnerProfile subtractFrom(
+                OwnerProfile profile,
+                SegmentProfiles segment,
+                List<TermsEnum> termsEnums,
+                List<Double> fieldWeights) throws IOException {
+            List<Long> recent = new ArrayList<>(profile.recentInsertAt());
+            for (Long insertAt : insertAts) {
+                recent.remove(insertAt);
+            }
+            List<TopicToken> tokens = new ArrayList<>(profile.tokens().size());
+            PostingsEnum postings = null;
+            for (TopicToken token : profile.tokens()) {
+                double weight = token.weight();
+                int docSupport = token.docSupport();
+                for (BytesRef term : segment.terms(token.token())) {
+                    boolean[] containing = new boolean[videoCount];
+                    for (int field = 0; field < termsEnums.size(); field++) {
+                        if (termsEnums.get(field).seekExact(term) == false) {
+                            continue;
+                        }
+                        postings = termsEnums.get(field).postings(postings, PostingsEnum.FREQS);
+                        for (int index = 0; index < videoCount; index++) {
+                            int doc = postings.docID() < docs[index] ? postings.advance(docs[index]) : postings.docID();
+                            if (doc == docs[index]) {
+                                weight -= fieldWeights.get(field) * postings.freq();
+                                containing[index] = true;
+                            }
+                        }
+                    }
+                    for (boolean contained : containing) {
+                        if (contained) {
+                            docSupport--;
+                        }
+                    }
+                }
+                if (docSupport > 0) {
+                    tokens.add(new TopicToken(token.token(), weight, docSupport));
+                }
+            }
+            tokens.sort(BY_WEIGHT);
+            return new OwnerProfile(
+                    Math.max(0, profile.videoCount() - videoCount),
+                    profile.totalViews() - totalViews,
+                    profile.statScoreSum() - statScoreSum,
+                    List.copyOf(recent),
+                    List.copyOf(tokens));
+        }
+    }
+
+    /**
+     * Owner profiles of all videos of a segment, deleted or not, and the terms
+     * of the kept tokens that are not the token itself.
+     */
+    record SegmentProfiles(
+            Map<Long, OwnerProfile> profiles,
+            Map<String, List<BytesRef>> rawTerms,
+            long ramBytesUsed) implements Accountable {
+
+        private SegmentProfiles(Map<Long, OwnerProfile> profiles, Map<String, List<BytesRef>> rawTerms) {
+            this(profiles, rawTerms, OwnerTopicProfiles.ramBytesUsed(profiles) + rawTermBytes(rawTerms));
+        }
+
+        private List<BytesRef> terms(String token) {
+            List<BytesRef> raw = rawTerms.get(token);
+            if (raw == null) {
+                return List.of(new BytesRef(token));
+            }
+            List<BytesRef> terms = new ArrayList<>(raw.size() + 1);
+            terms.add(new BytesRef(token));
+            terms.addAll(raw);
+            return terms;
+        }
+
+        private static long rawTermBytes(Map<String, List<BytesRef>> rawTerms) {
+            long bytes = 0;
+            for (List<BytesRef> terms : rawTerms.values()) {
+                for (BytesRef term : terms) {
+                    bytes += RAW_TERM_BYTES + term.length;
+                }
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * Profiles of the segment's owners changed by its {@code numDeletedDocs}
+     * deletes (sorted {@code docs}), with a video count of 0 for owners left
+     * without videos; {@code changed} are the owners changed since the
+     * correction for {@code previousNumDeletedDocs} deletes.
+     */
+    record Deletes(
+            int numDeletedDocs,
+            int[] docs,
+            int previousNumDeletedDocs,
+            Set<Long> changed,
+            Map<Long, OwnerProfile> profiles) implements Accountable {
+
+        @Override
+        public long ramBytesUsed() {
+            return OwnerTopicProfiles.ramBytesUsed(profiles) + RamUsageEstimator.sizeOf(docs) + MAP_ENTRY_BYTES * changed.size();
+        }
+    }
+
+    /** A segment of a reader: its core and how many of its docs the reader deletes. */
+    record LeafId(Object coreKey, int numDeletedDocs) {
+    }
+
+    record LeafProfiles(LeafId id, SegmentProfiles segment, Deletes deletes) {
+
+        /** Profile of {@code mid} in the segment with the reader's deletes applied, {@code null} without live videos. */
+        private OwnerProfile profile(Long mid) {
+            OwnerProfile corrected = deletes == null ? null : deletes.profiles().get(mid);
+            if (corrected != null) {
+                return corrected.videoCount() == 0 ? null : corrected;
+            }
+            return segment.profiles().get(mid);
+        }
+    }
+}
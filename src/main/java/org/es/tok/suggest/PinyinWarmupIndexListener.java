@@ -3,6 +3,9 @@ package org.es.tok.suggest;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.IndexReader;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.engine.Engine;
@@ -10,7 +13,10 @@ import org.elasticsearch.index.mapper.MappingLookup;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.shard.IndexEventListener;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.IndexShardState;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.cluster.IndexRemovalReason;
+import org.elasticsearch.threadpool.Scheduler;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -24,9 +30,31 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public final class PinyinWarmupIndexListener implements IndexEventListener, Closeable {
 
+    /**
+     * How often a warmed shard is checked for a new reader, which is then
+     * re-warmed in the background; refreshes within one interval are warmed
+     * once. {@code 0}, the default, disables re-warming.
+     * <p>
+     * Segment structures are reused, but every re-warm still merges the
+     * reader-level pinyin, literal prefix and correction indexes and the owner
+     * profiles over the whole dictionary of the shard, so its CPU cost grows
+     * with the dictionary rather than with the refresh. On indexes refreshed
+     * every second, an interval of a few seconds keeps a generic thread busy
+     * all the time; intervals of a minute or more bound that cost while still
+     * moving the first query after a refresh off the slow path most of the
+     * time.
+     */
+    public static final Setting<TimeValue> REWARM_INTERVAL_SETTING = Setting.timeSetting(
+            "es_tok.suggest.rewarm_interval",
+            TimeValue.ZERO,
+            TimeValue.ZERO,
+            Setting.Property.NodeScope);
+
     private static final int WARMUP_PENDING = 0;
     private static final int WARMUP_RUNNING = 1;
     private static final int WARMUP_COMPLETE = 2;
@@ -40,13 +68,28 @@ public final class PinyinWarmupIndexListener implements IndexEventListener, Clos
     private final Map<String, List<String>> warmupFieldsByIndex = new ConcurrentHashMap<>();
     private final Set<String> queuedWarmups = ConcurrentHashMap.newKeySet();
     private final Map<String, WarmupState> warmupStates = new ConcurrentHashMap<>();
+    private final Map<String, RewarmState> rewarmStates = new ConcurrentHashMap<>();
     private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final LongAdder rewarms = new LongAdder();
+    private final LongAdder coalescedRefreshes = new LongAdder();
+    private final LongAdder rewarmNanos = new LongAdder();
+    private final AtomicLong lastRewarmNanos = new AtomicLong();
     private volatile Executor warmupExecutor = Runnable::run;
+    private volatile TimeValue rewarmInterval = REWARM_INTERVAL_SETTING.get(Settings.EMPTY);
+    private volatile OwnerTopicProfileCache profileCache;
 
     public void configureExecutor(Executor warmupExecutor) {
         this.warmupExecutor = Objects.requireNonNull(warmupExecutor, "warmupExecutor");
     }
 
+    public void configureRewarm(Settings settings) {
+        this.rewarmInterval = REWARM_INTERVAL_SETTING.get(settings);
+    }
+
+    public void configureProfileCache(OwnerTopicProfileCache profileCache) {
+        this.profileCache = Objects.requireNonNull(profileCache, "profileCache");
+    }
+
     @Override
     public void afterIndexCreated(IndexService indexService) {
         String indexName = indexName(indexService.getIndexSettings());
@@ -69,6 +112,21 @@ public final class PinyinWarmupIndexListener implements IndexEventListener, Clos
         warmupFieldsByIndex.remove(removedIndexName);
         queuedWarmups.removeIf(shardKey -> shardKey.startsWith(removedIndexName + "["));
         warmupStates.keySet().removeIf(shardKey -> shardKey.startsWith(removedIndexName + "["));
+        rewarmStates.entrySet().removeIf(entry -> {
+            if (entry.getKey().startsWith("[" + removedIndexName + "]")) {
+                entry.getValue().cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public void beforeIndexShardClosed(ShardId shardId, IndexShard indexShard, Settings indexSettings) {
+        RewarmState rewarmState = rewarmStates.remove(shardId.toString());
+        if (rewarmState != null) {
+            rewarmState.cancel();
+        }
     }
 
     @Override
@@ -111,6 +169,8 @@ public final class PinyinWarmupIndexListener implements IndexEventListener, Clos
         }
         queuedWarmups.clear();
         warmupStates.clear();
+        rewarmStates.values().forEach(RewarmState::cancel);
+        rewarmStates.clear();
     }
 
     static List<String> discoverWarmupFields(IndexService indexService) {
@@ -171,7 +231,15 @@ public final class PinyinWarmupIndexListener implements IndexEventListener, Clos
                 queuedShards++;
             }
         }
-        return new WarmupSummary(totalShards, readyShards, runningShards, queuedShards);
+        return new WarmupSummary(
+                totalShards,
+                readyShards,
+                runningShards,
+                queuedShards,
+                rewarms.sum(),
+                coalescedRefreshes.sum(),
+                TimeValue.timeValueNanos(rewarmNanos.sum()),
+                TimeValue.timeValueNanos(lastRewarmNanos.get()));
     }
 
     private void runAsyncWarmup(
@@ -201,15 +269,17 @@ public final class PinyinWarmupIndexListener implements IndexEventListener, Clos
             throws IOException {
         try (Engine.Searcher searcher = indexShard.acquireSearcher("es_tok_pinyin_warmup")) {
             IndexReader reader = searcher.getIndexReader();
+            long refreshCount = indexShard.refreshStats().getTotal();
             List<String> completionFields = completionWarmupFields(warmupFields);
             List<String> pinyinFields = pinyinWarmupFields(warmupFields);
-            CachedShardSuggestService suggestService = new CachedShardSuggestService();
+            OwnerTopicProfiles.Spec profileSpec = OwnerTopicProfiles.Spec.resolve(indexShard.mapperService());
             long startedAt = System.nanoTime();
-            suggestService.prewarmFields(reader, completionFields, pinyinFields);
+            prewarm(reader, warmupFields, indexShard.shardId(), null);
             long completionFinishedAt = System.nanoTime();
+            buildProfiles(indexShard.shardId(), reader, profileSpec);
             long finishedAt = System.nanoTime();
             LOGGER.info(
-                "es_tok warmup shard={} trigger={} completion_fields={} pinyin_fields={} completion_ms={} pinyin_ms={} total_ms={}",
+                "es_tok warmup shard={} trigger={} completion_fields={} pinyin_fields={} completion_ms={} owner_profiles_ms={} total_ms={}",
                     indexShard.shardId(),
                     trigger,
                 completionFields,
@@ -218,6 +288,7 @@ public final class PinyinWarmupIndexListener implements IndexEventListener, Clos
                     nanosToMillis(finishedAt - completionFinishedAt),
                     nanosToMillis(finishedAt - startedAt));
             warmupState.complete();
+            scheduleRewarm(indexShard, new RewarmState(warmupFields, indexShard.shardId(), profileSpec, readerKey(reader), refreshCount), shardKey);
         } catch (IOException exception) {
             queuedWarmups.remove(shardKey);
             warmupStates.remove(shardKey, warmupState);
@@ -231,6 +302,96 @@ public final class PinyinWarmupIndexListener implements IndexEventListener, Clos
         }
     }
 
+    /**
+     * Checks the shard for a new reader every {@link #REWARM_INTERVAL_SETTING}
+     * on the warmup executor. Fixed-delay scheduling never overlaps two checks
+     * of a shard, so refreshes that land while a re-warm runs are folded into
+     * the next one.
+     */
+    private void scheduleRewarm(IndexShard indexShard, RewarmState rewarmState, String shardKey) {
+        TimeValue interval = rewarmInterval;
+        if (closed.get() || interval.millis() <= 0) {
+            return;
+        }
+        RewarmState previous = rewarmStates.put(shardKey, rewarmState);
+        if (previous != null) {
+            previous.cancel();
+        }
+        try {
+            rewarmState.cancellable = indexShard.getThreadPool().scheduleWithFixedDelay(
+                    () -> checkForNewReader(indexShard, shardKey, rewarmState),
+                    interval,
+                    warmupExecutor);
+            if (rewarmStates.get(shardKey) != rewarmState) {
+                // Closed or replaced before the schedule was recorded
+                rewarmState.cancel();
+            }
+        } catch (RuntimeException exception) {
+            rewarmStates.remove(shardKey, rewarmState);
+            if (!closed.get()) {
+                LOGGER.debug("failed to schedule es_tok re-warm for shard {}", indexShard.shardId(), exception);
+            }
+        }
+    }
+
+    private void checkForNewReader(IndexShard indexShard, String shardKey, RewarmState rewarmState) {
+        if (closed.get() || rewarmStates.get(shardKey) != rewarmState || indexShard.state() != IndexShardState.STARTED) {
+            return;
+        }
+        try (Engine.Searcher searcher = indexShard.acquireSearcher("es_tok_pinyin_rewarm")) {
+            long refreshCount = indexShard.refreshStats().getTotal();
+            long tookNanos = rewarmIfChanged(rewarmState, searcher.getIndexReader(), refreshCount);
+            if (tookNanos >= 0) {
+                LOGGER.debug("es_tok re-warm shard={} fields={} took_ms={}", indexShard.shardId(), rewarmState.warmupFields, nanosToMillis(tookNanos));
+            }
+        } catch (IOException | RuntimeException exception) {
+            if (!closed.get()) {
+                LOGGER.debug("failed to re-warm es_tok suggest structures for shard {}", indexShard.shardId(), exception);
+            }
+        }
+    }
+
+    /**
+     * Warms {@code reader} unless it is the reader warmed last, returning how
+     * long that took or {@code -1} when the reader was unchanged. Structures
+     * are cached per segment, so only the segments the refresh added are read
+     * and the per-reader indexes are merged from the cached segment terms.
+     */
+    long rewarmIfChanged(RewarmState rewarmState, IndexReader reader, long refreshCount) throws IOException {
+        Object readerKey = readerKey(reader);
+        if (readerKey == null || readerKey == rewarmState.readerKey) {
+            return -1;
+        }
+        long startedAt = System.nanoTime();
+        prewarm(reader, rewarmState.warmupFields, rewarmState.shardId, rewarmState.profileSpec);
+        long tookNanos = System.nanoTime() - startedAt;
+        coalescedRefreshes.add(Math.max(0, refreshCount - rewarmState.refreshCount - 1));
+        rewarms.increment();
+        rewarmNanos.add(tookNanos);
+        lastRewarmNanos.set(tookNanos);
+        rewarmState.readerKey = readerKey;
+        rewarmState.refreshCount = refreshCount;
+        return tookNanos;
+    }
+
+    private void prewarm(IndexReader reader, List<String> warmupFields, ShardId shardId, OwnerTopicProfiles.Spec profileSpec)
+            throws IOException {
+        CachedShardSuggestService.prewarmFields(reader, completionWarmupFields(warmupFields), pinyinWarmupFields(warmupFields));
+        buildProfiles(shardId, reader, profileSpec);
+    }
+
+    private void buildProfiles(ShardId shardId, IndexReader reader, OwnerTopicProfiles.Spec profileSpec) throws IOException {
+        OwnerTopicProfileCache cache = profileCache;
+        if (cache != null && profileSpec != null) {
+            cache.build(shardId, reader, profileSpec);
+        }
+    }
+
+    private static Object readerKey(IndexReader reader) {
+        IndexReader.CacheHelper cacheHelper = reader.getReaderCacheHelper();
+        return cacheHelper == null ? null : cacheHelper.getKey();
+    }
+
     private static boolean shouldPrewarmField(String field, Set<String> mappedFields) {
         if (mappedFields.contains(field) == false) {
             return false;
@@ -294,7 +455,26 @@ public final class PinyinWarmupIndexListener implements IndexEventListener, Clos
         return indexName != null && indexName.startsWith(".") == false;
     }
 
-    public record WarmupSummary(int totalShards, int readyShards, int runningShards, int queuedShards) {
+    /**
+     * @param rewarms            re-warms of shards whose reader changed after their first warmup
+     * @param coalescedRefreshes refreshes whose reader was replaced before it was re-warmed
+     * @param rewarmTime         total time spent re-warming
+     * @param lastRewarmTime     duration of the latest re-warm
+     */
+    public record WarmupSummary(
+            int totalShards,
+            int readyShards,
+            int runningShards,
+            int queuedShards,
+            long rewarms,
+            long coalescedRefreshes,
+            TimeValue rewarmTime,
+            TimeValue lastRewarmTime) {
+
+        public WarmupSummary(int totalShards, int readyShards, int runningShards, int queuedShards) {
+            this(totalShards, readyShards, runningShards, queuedShards, 0, 0, TimeValue.ZERO, TimeValue.ZERO);
+        }
+
         public boolean isReady() {
             return totalShards == 0 || readyShards >= totalShards;
         }
@@ -304,6 +484,43 @@ public final class PinyinWarmupIndexListener implements IndexEventListener, Clos
         }
     }
 
+    /**
+     * The reader a shard was last warmed on and its refresh count at the time;
+     * {@code profileSpec} is null when the index has no owner topic profiles.
+     */
+    static final class RewarmState {
+        private final List<String> warmupFields;
+        private final ShardId shardId;
+        private final OwnerTopicProfiles.Spec profileSpec;
+        private volatile Object readerKey;
+        private volatile long refreshCount;
+        private volatile Scheduler.Cancellable cancellable;
+
+        RewarmState(List<String> warmupFields, Object readerKey, long refreshCount) {
+            this(warmupFields, null, null, readerKey, refreshCount);
+        }
+
+        RewarmState(
+                List<String> warmupFields,
+                ShardId shardId,
+                OwnerTopicProfiles.Spec profileSpec,
+                Object readerKey,
+                long refreshCount) {
+            this.warmupFields = warmupFields;
+            this.shardId = shardId;
+            this.profileSpec = profileSpec;
+            this.readerKey = readerKey;
+            this.refreshCount = refreshCount;
+        }
+
+        private void cancel() {
+            Scheduler.Cancellable scheduled = cancellable;
+            if (scheduled != null) {
+                scheduled.cancel();
+            }
+        }
+    }
+
     private static final class WarmupState {
         private final AtomicInteger phase = new AtomicInteger(WARMUP_PENDING);
         private final CompletableFuture<Void> completion = new CompletableFuture<>();
@@ -0,0 +1,123 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.shard.IndexEventListener;
+import org.elasticsearch.indices.cluster.IndexRemovalReason;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Node-wide cache of analyzed text, shared by the services that analyze
+ * titles, tags and descriptions of source documents and query texts.
+ * <p>
+ * Entries map an analyzer, field and text to the terms the analyzer emits, in
+ * order and as emitted; callers apply their own normalization. The analyzer is
+ * part of the key by identity, so a reloaded analyzer never sees terms of the
+ * one it replaced, and each index caches into its own region, which is dropped
+ * when the index is removed from the node. Eviction and admission follow
+ * {@link TinyLfuCache}, so popular texts stay cached while one-off texts pass
+ * through.
+ */
+public class SharedAnalysisCache implements IndexEventListener {
+
+    /** Node-wide budget of the analysis cache, absolute or as a share of the heap. */
+    public static final Setting<ByteSizeValue> CACHE_SIZE_SETTING = Setting.memorySizeSetting(
+            "es_tok.analysis.cache.size",
+            "0.5%",
+            Setting.Property.NodeScope);
+
+    private static final long EXPECTED_ENTRY_BYTES = 512;
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+    private static final long TERM_OVERHEAD_BYTES = RamUsageEstimator.NUM_BYTES_OBJECT_REF;
+
+    private final TinyLfuCache<Key, List<String>> cache;
+
+    public SharedAnalysisCache() {
+        this(Settings.EMPTY);
+    }
+
+    public SharedAnalysisCache(Settings settings) {
+        this(CACHE_SIZE_SETTING.get(settings));
+    }
+
+    public SharedAnalysisCache(ByteSizeValue maxSize) {
+        this.cache = new TinyLfuCache<>(
+                maxSize.getBytes(),
+                maxSize.getBytes(),
+                EXPECTED_ENTRY_BYTES,
+                SharedAnalysisCache::estimateBytes,
+                Key::popularityHash);
+    }
+
+    /**
+     * Terms {@code analyzer} emits for {@code text} in {@code field}. Texts of
+     * an unknown index ({@code index} is null) are analyzed without caching.
+     */
+    public List<String> analyze(Index index, Analyzer analyzer, String field, String text) throws IOException {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        if (index == null) {
+            return analyze(analyzer, field, text);
+        }
+        Key key = new Key(analyzer, field, text);
+        String region = index.getUUID();
+        List<String> cached = cache.get(region, key);
+        if (cached != null) {
+            return cached;
+        }
+        // Analysis is cheap to repeat, so racing callers may both compute it
+        List<String> analyzed = analyze(analyzer, field, text);
+        cache.put(region, key, analyzed);
+        return analyzed;
+    }
+
+    public TinyLfuCache.Stats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
+        cache.invalidate(index.getUUID(), key -> true);
+    }
+
+    private static List<String> analyze(Analyzer analyzer, String field, String text) throws IOException {
+        List<String> terms = new ArrayList<>();
+        try (TokenStream tokenStream = analyzer.tokenStream(field, text)) {
+            CharTermAttribute termAttribute = tokenStream.addAttribute(CharTermAttribute.class);
+            tokenStream.reset();
+            while (tokenStream.incrementToken()) {
+                terms.add(termAttribute.toString());
+            }
+            tokenStream.end();
+        }
+        return List.copyOf(terms);
+    }
+
+    private static long estimateBytes(Key key, List<String> terms) {
+        long bytes = ENTRY_OVERHEAD_BYTES + RamUsageEstimator.sizeOf(key.text());
+        for (String term : terms) {
+            bytes += TERM_OVERHEAD_BYTES + RamUsageEstimator.sizeOf(term);
+        }
+        return bytes;
+    }
+
+    /** Analyzers compare by identity; the field and text are what make a text popular. */
+    private record Key(Analyzer analyzer, String field, String text) {
+
+        private int popularityHash() {
+            return Objects.hash(field, text);
+        }
+    }
+}
@@ -1,10 +1,6 @@
 package org.es.tok.suggest;
 
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
-import org.apache.lucene.index.LeafReaderContext;
-import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
@@ -12,12 +8,10 @@ import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.MappedFieldType;
-import org.elasticsearch.index.mapper.SourceFieldMetrics;
-import org.elasticsearch.search.lookup.Source;
-import org.elasticsearch.search.lookup.SourceProvider;
 import org.es.tok.text.SourceValueUtils;
 import org.es.tok.text.TextNormalization;
 import org.es.tok.text.TopicQualityHeuristics;
@@ -38,6 +32,16 @@ import java.util.Set;
 public class SourceBackedAssociateSuggester {
     private static final int MAX_ASSOCIATE_SEED_TERMS = 8;
 
+    private final SharedAnalysisCache analysisCache;
+
+    public SourceBackedAssociateSuggester() {
+        this(new SharedAnalysisCache());
+    }
+
+    public SourceBackedAssociateSuggester(SharedAnalysisCache analysisCache) {
+        this.analysisCache = analysisCache;
+    }
+
     public List<SuggestionOption> suggestAssociate(
             Engine.Searcher searcher,
             IndexService indexService,
@@ -78,19 +82,12 @@ public class SourceBackedAssociateSuggester {
             return List.of();
         }
 
-        SourceProvider sourceProvider = SourceProvider.fromLookup(
-                indexService.mapperService().mappingLookup(),
-                null,
-                SourceFieldMetrics.NOOP);
+        VideoSignalReader signalReader = new VideoSignalReader(indexService, searcher.getIndexReader());
+        signalReader.prefetchTokens(topDocs.scoreDocs);
         Map<String, AssociateAccumulator> candidates = new HashMap<>();
-        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
         for (int rank = 0; rank < topDocs.scoreDocs.length; rank++) {
             ScoreDoc scoreDoc = topDocs.scoreDocs[rank];
-            int leafIndex = ReaderUtil.subIndex(scoreDoc.doc, leaves);
-            LeafReaderContext leaf = leaves.get(leafIndex);
-            int leafDocId = scoreDoc.doc - leaf.docBase;
-            Source source = sourceProvider.getSource(leaf, leafDocId);
-            collectCandidatesFromSource(candidates, fieldContexts, source, seedTerms, queryProfile, scoreDoc.score, rank);
+            collectCandidatesFromSource(candidates, fieldContexts, signalReader, scoreDoc.doc, seedTerms, queryProfile, scoreDoc.score, rank);
         }
 
         return candidates.values().stream()
@@ -103,7 +100,7 @@ public class SourceBackedAssociateSuggester {
     private LinkedHashSet<String> analyzeSeedTerms(List<FieldContext> fieldContexts, String text) throws IOException {
         LinkedHashSet<String> seedTerms = new LinkedHashSet<>();
         for (FieldContext fieldContext : fieldContexts) {
-            for (String seedTerm : analyze(fieldContext.analyzer(), fieldContext.indexField(), text)) {
+            for (String seedTerm : analyze(fieldContext, text)) {
                 if (TopicQualityHeuristics.isUsefulAssociateSeedTerm(seedTerm)) {
                     seedTerms.add(seedTerm);
                 }
@@ -202,7 +199,8 @@ public class SourceBackedAssociateSuggester {
     private void collectCandidatesFromSource(
             Map<String, AssociateAccumulator> candidates,
             List<FieldContext> fieldContexts,
-            Source source,
+            VideoSignalReader signalReader,
+            int docId,
             Set<String> seedTerms,
             AssociateQueryProfile queryProfile,
             float hitScore,
@@ -211,9 +209,19 @@ public class SourceBackedAssociateSuggester {
         Set<String> seenInDoc = new LinkedHashSet<>();
         Map<String, Set<String>> tokenFields = new LinkedHashMap<>();
         for (FieldContext fieldContext : fieldContexts) {
-            Object rawValue = source.extractValue(fieldContext.sourcePath(), null);
+            Map<String, Integer> storedTokens = signalReader.storedTokens(
+                    docId,
+                    fieldContext.indexField(),
+                    TextNormalization::normalizeAnalyzedToken);
+            if (storedTokens != null) {
+                for (String token : storedTokens.keySet()) {
+                    tokenFields.computeIfAbsent(token, ignored -> new LinkedHashSet<>()).add(fieldContext.indexField());
+                }
+                continue;
+            }
+            Object rawValue = signalReader.source(docId).extractValue(fieldContext.sourcePath(), null);
             for (String value : SourceValueUtils.flattenStringValues(rawValue)) {
-                for (String token : analyze(fieldContext.analyzer(), fieldContext.indexField(), value)) {
+                for (String token : analyze(fieldContext, value)) {
                     tokenFields.computeIfAbsent(token, ignored -> new LinkedHashSet<>()).add(fieldContext.indexField());
                 }
             }
@@ -247,7 +255,7 @@ public class SourceBackedAssociateSuggester {
                 fieldType = indexService.mapperService().fieldType(sourcePath);
             }
             Analyzer analyzer = fieldType != null ? fieldType.getTextSearchInfo().searchAnalyzer() : Lucene.KEYWORD_ANALYZER;
-            resolved.put(field, new FieldContext(field, sourcePath, analyzer));
+            resolved.put(field, new FieldContext(indexService.index(), field, sourcePath, analyzer));
         }
         return List.copyOf(resolved.values());
     }
@@ -280,21 +288,13 @@ public class SourceBackedAssociateSuggester {
         return parts;
     }
 
-    private static List<String> analyze(Analyzer analyzer, String field, String text) throws IOException {
-        if (text == null || text.isBlank()) {
-            return List.of();
-        }
+    private List<String> analyze(FieldContext fieldContext, String text) throws IOException {
         List<String> tokens = new ArrayList<>();
-        try (TokenStream tokenStream = analyzer.tokenStream(field, text)) {
-            CharTermAttribute termAttribute = tokenStream.addAttribute(CharTermAttribute.class);
-            tokenStream.reset();
-            while (tokenStream.incrementToken()) {
-                String normalized = TextNormalization.normalizeAnalyzedToken(termAttribute.toString());
-                if (!normalized.isEmpty()) {
-                    tokens.add(normalized);
-                }
+        for (String term : analysisCache.analyze(fieldContext.index(), fieldContext.analyzer(), fieldContext.indexField(), text)) {
+            String normalized = TextNormalization.normalizeAnalyzedToken(term);
+            if (!normalized.isEmpty()) {
+                tokens.add(normalized);
             }
-            tokenStream.end();
         }
         return tokens;
     }
@@ -347,7 +347,7 @@ public class SourceBackedAssociateSuggester {
 
         return codePointLength >= 2;
     }
-    private record FieldContext(String indexField, String sourcePath, Analyzer analyzer) {
+    private record FieldContext(Index index, String indexField, String sourcePath, Analyzer analyzer) {
     }
 
     private static final class AssociateQueryProfile {
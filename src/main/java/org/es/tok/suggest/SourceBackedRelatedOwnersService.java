@@ -1,9 +1,6 @@
 package org.es.tok.suggest;
 
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.analysis.TokenStream;
-import org.apache.lucene.index.LeafReaderContext;
-import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
@@ -13,14 +10,12 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.MappedFieldType;
-import org.elasticsearch.index.mapper.SourceFieldMetrics;
 import org.elasticsearch.search.lookup.Source;
-import org.elasticsearch.search.lookup.SourceProvider;
 import org.es.tok.text.SourceValueUtils;
 import org.es.tok.text.TextNormalization;
 import org.es.tok.text.TopicQualityHeuristics;
@@ -45,23 +40,26 @@ public class SourceBackedRelatedOwnersService {
     private static final int OWNER_INTENT_ANCHOR_LIMIT = 4;
 
     private static final String OWNER_NAME_SOURCE_PATH = "owner.name";
-    private static final String OWNER_MID_SOURCE_PATH = "owner.mid";
-    private static final String STAT_SCORE_SOURCE_PATH = "stat_score";
-    private static final String STAT_VIEW_SOURCE_PATH = "stat.view";
-    private static final String INSERT_AT_SOURCE_PATH = "insert_at";
 
     private final SourceBackedAssociateSuggester associateSuggester;
     private final OwnerBackedSuggestService ownerSuggestService;
+    private final SharedAnalysisCache analysisCache;
 
     public SourceBackedRelatedOwnersService() {
-        this(new SourceBackedAssociateSuggester(), new OwnerBackedSuggestService());
+        this(new SharedAnalysisCache());
+    }
+
+    public SourceBackedRelatedOwnersService(SharedAnalysisCache analysisCache) {
+        this(new SourceBackedAssociateSuggester(analysisCache), new OwnerBackedSuggestService(analysisCache), analysisCache);
     }
 
     SourceBackedRelatedOwnersService(
             SourceBackedAssociateSuggester associateSuggester,
-            OwnerBackedSuggestService ownerSuggestService) {
+            OwnerBackedSuggestService ownerSuggestService,
+            SharedAnalysisCache analysisCache) {
         this.associateSuggester = associateSuggester;
         this.ownerSuggestService = ownerSuggestService;
+        this.analysisCache = analysisCache;
     }
 
     public List<RelatedOwnerResult> searchRelatedOwners(
@@ -87,13 +85,11 @@ public class SourceBackedRelatedOwnersService {
             sanitizedText,
             size);
 
-        SourceProvider sourceProvider = SourceProvider.fromLookup(
-                indexService.mapperService().mappingLookup(),
-                null,
-                SourceFieldMetrics.NOOP);
+        VideoSignalReader signalReader = new VideoSignalReader(indexService, searcher.getIndexReader());
         Map<Long, RelatedOwnerAccumulator> owners = new LinkedHashMap<>();
-        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
         long nowEpochSeconds = RelatedOwnerQueryTuning.nowEpochSeconds();
+        // Query variants share most of their seed terms
+        TermStats termStats = new TermStats(searcher.getIndexReader());
         for (QueryVariant queryVariant : relatedOwnerTopicVariants(sanitizedText)) {
             LinkedHashSet<String> seedTerms = analyzeSeedTerms(fieldContexts, queryVariant.text());
             if (seedTerms.isEmpty()) {
@@ -106,7 +102,7 @@ public class SourceBackedRelatedOwnersService {
             if (selectedTerms.isEmpty()) {
                 continue;
             }
-            List<SeedTermProfile> seedTermProfiles = buildSeedTermProfiles(searcher, fieldContexts, selectedTerms);
+            List<SeedTermProfile> seedTermProfiles = buildSeedTermProfiles(termStats, fieldContexts, selectedTerms);
             if (seedTermProfiles.isEmpty()) {
                 continue;
             }
@@ -130,13 +126,11 @@ public class SourceBackedRelatedOwnersService {
             if (topDocs == null || topDocs.scoreDocs.length == 0) {
                 continue;
             }
+            signalReader.prefetch(topDocs.scoreDocs);
+            signalReader.prefetchTokens(topDocs.scoreDocs);
             for (int rank = 0; rank < topDocs.scoreDocs.length; rank++) {
                 ScoreDoc scoreDoc = topDocs.scoreDocs[rank];
-                int leafIndex = ReaderUtil.subIndex(scoreDoc.doc, leaves);
-                LeafReaderContext leaf = leaves.get(leafIndex);
-                int leafDocId = scoreDoc.doc - leaf.docBase;
-                Source source = sourceProvider.getSource(leaf, leafDocId);
-                collectOwnerHit(owners, scoreDoc.doc, source, fieldContexts, seedTermProfiles, nowEpochSeconds, scoreDoc.score, rank);
+                collectOwnerHit(owners, scoreDoc.doc, signalReader, fieldContexts, seedTermProfiles, nowEpochSeconds, scoreDoc.score, rank);
             }
         }
         if (owners.isEmpty()) {
@@ -275,26 +269,27 @@ public class SourceBackedRelatedOwnersService {
     private void collectOwnerHit(
             Map<Long, RelatedOwnerAccumulator> owners,
             int docId,
-            Source source,
+            VideoSignalReader signalReader,
             List<FieldContext> fieldContexts,
             List<SeedTermProfile> seedTermProfiles,
             long nowEpochSeconds,
             float hitScore,
             int rank) throws IOException {
-        Long mid = asLong(source.extractValue(OWNER_MID_SOURCE_PATH, null));
+        Long mid = signalReader.ownerMid(docId);
         if (mid == null) {
             return;
         }
 
+        Source source = signalReader.source(docId);
         String ownerName = normalizeOwnerName(asString(source.extractValue(OWNER_NAME_SOURCE_PATH, null)));
         if (ownerName.isBlank()) {
             return;
         }
 
-        double statScore = asDouble(source.extractValue(STAT_SCORE_SOURCE_PATH, null));
-        long viewCount = asLong(source.extractValue(STAT_VIEW_SOURCE_PATH, null), 0L);
-        long insertAt = asLong(source.extractValue(INSERT_AT_SOURCE_PATH, null), 0L);
-        SeedTermMatch seedTermMatch = matchSeedTerms(fieldContexts, source, seedTermProfiles);
+        double statScore = signalReader.statScore(docId);
+        long viewCount = signalReader.viewCount(docId);
+        long insertAt = signalReader.insertAt(docId);
+        SeedTermMatch seedTermMatch = matchSeedTerms(fieldContexts, signalReader, docId, seedTermProfiles);
         RelatedOwnerDocSignals docSignals = RelatedOwnerQueryTuning.docSignals(
             nowEpochSeconds,
             hitScore,
@@ -325,7 +320,7 @@ public class SourceBackedRelatedOwnersService {
                 fieldType = indexService.mapperService().fieldType(sourcePath);
             }
             Analyzer analyzer = fieldType != null ? fieldType.getTextSearchInfo().searchAnalyzer() : Lucene.KEYWORD_ANALYZER;
-            resolved.put(field, new FieldContext(field, sourcePath, analyzer));
+            resolved.put(field, new FieldContext(indexService.index(), field, sourcePath, analyzer));
         }
         return List.copyOf(resolved.values());
     }
@@ -410,7 +405,7 @@ public class SourceBackedRelatedOwnersService {
     private LinkedHashSet<String> analyzeSeedTerms(List<FieldContext> fieldContexts, String text) throws IOException {
         LinkedHashSet<String> seedTerms = new LinkedHashSet<>();
         for (FieldContext fieldContext : fieldContexts) {
-            for (String token : analyze(fieldContext.analyzer(), fieldContext.indexField(), text)) {
+            for (String token : analyze(fieldContext, text)) {
                 if (!token.isBlank()) {
                     seedTerms.add(token);
                 }
@@ -419,21 +414,13 @@ public class SourceBackedRelatedOwnersService {
         return TopicQualityHeuristics.filterOwnerSeedTerms(seedTerms);
     }
 
-    private static List<String> analyze(Analyzer analyzer, String field, String text) throws IOException {
-        if (text == null || text.isBlank()) {
-            return List.of();
-        }
+    private List<String> analyze(FieldContext fieldContext, String text) throws IOException {
         List<String> tokens = new ArrayList<>();
-        try (TokenStream tokenStream = analyzer.tokenStream(field, text)) {
-            CharTermAttribute termAttribute = tokenStream.addAttribute(CharTermAttribute.class);
-            tokenStream.reset();
-            while (tokenStream.incrementToken()) {
-                String normalized = TextNormalization.normalizeLower(termAttribute.toString());
-                if (!normalized.isBlank()) {
-                    tokens.add(normalized);
-                }
+        for (String term : analysisCache.analyze(fieldContext.index(), fieldContext.analyzer(), fieldContext.indexField(), text)) {
+            String normalized = TextNormalization.normalizeLower(term);
+            if (!normalized.isBlank()) {
+                tokens.add(normalized);
             }
-            tokenStream.end();
         }
         return tokens;
     }
@@ -468,19 +455,19 @@ public class SourceBackedRelatedOwnersService {
     }
 
     private static List<SeedTermProfile> buildSeedTermProfiles(
-            Engine.Searcher searcher,
+            TermStats termStats,
             List<FieldContext> fieldContexts,
             List<String> selectedTerms) throws IOException {
         if (selectedTerms.isEmpty()) {
             return List.of();
         }
-        int maxDoc = Math.max(1, searcher.getIndexReader().maxDoc());
+        int maxDoc = Math.max(1, termStats.reader().maxDoc());
         List<SeedTermProfile> weighted = new ArrayList<>(selectedTerms.size());
         for (int index = 0; index < selectedTerms.size(); index++) {
             String term = selectedTerms.get(index);
             float baseBoost = RelatedOwnerQueryTuning.seedTermBoost(term, index);
             boolean strongSignal = RelatedOwnerQueryTuning.isStrongSeedTerm(term);
-            double specificityWeight = specificityWeight(searcher, fieldContexts, term, maxDoc);
+            double specificityWeight = specificityWeight(termStats, fieldContexts, term, maxDoc);
             double rankingWeight = baseBoost * specificityWeight;
             weighted.add(new SeedTermProfile(
                     term,
@@ -516,7 +503,7 @@ public class SourceBackedRelatedOwnersService {
     }
 
     private static double specificityWeight(
-            Engine.Searcher searcher,
+            TermStats termStats,
             List<FieldContext> fieldContexts,
             String term,
             int maxDoc) throws IOException {
@@ -526,7 +513,7 @@ public class SourceBackedRelatedOwnersService {
             if (!seenFields.add(fieldContext.indexField())) {
                 continue;
             }
-            totalDocFreq += Math.max(0, searcher.getIndexReader().docFreq(new Term(fieldContext.indexField(), term)));
+            totalDocFreq += Math.max(0, termStats.docFreq(fieldContext.indexField(), term));
         }
         if (totalDocFreq <= 0) {
             return 2.4d;
@@ -537,7 +524,8 @@ public class SourceBackedRelatedOwnersService {
 
     private SeedTermMatch matchSeedTerms(
             List<FieldContext> fieldContexts,
-            Source source,
+            VideoSignalReader signalReader,
+            int docId,
             List<SeedTermProfile> seedTermProfiles) throws IOException {
         if (seedTermProfiles.isEmpty()) {
             return SeedTermMatch.empty();
@@ -548,12 +536,27 @@ public class SourceBackedRelatedOwnersService {
         }
 
         for (FieldContext fieldContext : fieldContexts) {
-            Object rawValue = source.extractValue(fieldContext.sourcePath(), null);
+            Map<String, Integer> storedTokens = signalReader.storedTokens(
+                    docId,
+                    fieldContext.indexField(),
+                    TextNormalization::normalizeLower);
+            if (storedTokens != null) {
+                for (String token : storedTokens.keySet()) {
+                    unmatchedProfiles.remove(token);
+                }
+                if (unmatchedProfiles.isEmpty()) {
+                    break;
+                }
+                continue;
+            }
+            Object rawValue = signalReader.source(docId).extractValue(fieldContext.sourcePath(), null);
             for (String value : SourceValueUtils.flattenStringValues(rawValue)) {
                 if (value == null || value.isBlank() || unmatchedProfiles.isEmpty()) {
                     continue;
                 }
-                consumeMatchingTerms(fieldContext.analyzer(), fieldContext.indexField(), value, unmatchedProfiles);
+                for (String token : analyze(fieldContext, value)) {
+                    unmatchedProfiles.remove(token);
+                }
                 if (unmatchedProfiles.isEmpty()) {
                     break;
                 }
@@ -579,27 +582,6 @@ public class SourceBackedRelatedOwnersService {
         return new SeedTermMatch(matchedTerms, Math.min(1.0d, coverage), matchedTerms.size(), matchedStrongTermCount);
     }
 
-    private static void consumeMatchingTerms(
-            Analyzer analyzer,
-            String field,
-            String text,
-            Map<String, SeedTermProfile> unmatchedProfiles) throws IOException {
-        try (TokenStream tokenStream = analyzer.tokenStream(field, text)) {
-            CharTermAttribute termAttribute = tokenStream.addAttribute(CharTermAttribute.class);
-            tokenStream.reset();
-            while (tokenStream.incrementToken()) {
-                String normalized = TextNormalization.normalizeLower(termAttribute.toString());
-                if (!normalized.isBlank()) {
-                    unmatchedProfiles.remove(normalized);
-                    if (unmatchedProfiles.isEmpty()) {
-                        break;
-                    }
-                }
-            }
-            tokenStream.end();
-        }
-    }
-
     private static boolean isUsefulExpansionTerm(String candidate, LinkedHashSet<String> seedTerms) {
         if (candidate == null || candidate.isBlank() || seedTerms.contains(candidate)) {
             return false;
@@ -643,39 +625,7 @@ public class SourceBackedRelatedOwnersService {
         return value == null ? null : value.toString();
     }
 
-    private static Long asLong(Object value, Long defaultValue) {
-        if (value == null) {
-            return defaultValue;
-        }
-        if (value instanceof Number number) {
-            return number.longValue();
-        }
-        try {
-            return Long.parseLong(value.toString());
-        } catch (NumberFormatException ignored) {
-            return defaultValue;
-        }
-    }
-
-    private static Long asLong(Object value) {
-        return asLong(value, null);
-    }
-
-    private static double asDouble(Object value) {
-        if (value == null) {
-            return 0.0d;
-        }
-        if (value instanceof Number number) {
-            return number.doubleValue();
-        }
-        try {
-            return Double.parseDouble(value.toString());
-        } catch (NumberFormatException ignored) {
-            return 0.0d;
-        }
-    }
-
-    private record FieldContext(String indexField, String sourcePath, Analyzer analyzer) {
+    private record FieldContext(Index index, String indexField, String sourcePath, Analyzer analyzer) {
     }
 
     private record QueryVariant(String text) {
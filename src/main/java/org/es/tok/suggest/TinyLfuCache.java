@@ -0,0 +1,401 @@
+package org.es.tok.suggest;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Concurrent result cache bounded by estimated bytes, split into regions (one
+ * per index) that each have their own budget under a node-wide one.
+ * <p>
+ * Reads never lock: a lookup is a {@link ConcurrentHashMap} get that marks the
+ * entry as referenced and counts the access in a {@link FrequencySketch}.
+ * Writes lock only their region. When a region is over budget, victims are
+ * picked in insertion order with a second chance for referenced entries
+ * (CLOCK), and the TinyLFU admission policy only lets the new entry in if its
+ * key was requested more often than the victim's; otherwise the new entry is
+ * dropped. One-off queries therefore cannot flush hot entries out of the cache.
+ * A region that pushes the node over its budget evicts from its own entries
+ * first and then from the largest other region, under the same admission
+ * policy; an entry that would leave the node over budget is dropped.
+ * <p>
+ * Access frequency is tracked by a popularity hash supplied by the caller, so
+ * keys that differ only in a version (such as the reader they were computed
+ * on) share their history.
+ */
+public final class TinyLfuCache<K, V> {
+
+    private final long maxBytes;
+    private final long maxRegionBytes;
+    private final ToLongBiFunction<K, V> weigher;
+    private final ToIntFunction<K> popularityHash;
+    private final FrequencySketch sketch;
+    private final Map<String, Region<K, V>> regions = new ConcurrentHashMap<>();
+    private final AtomicLong weightedBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * @param maxBytes       node-wide budget
+     * @param maxRegionBytes budget of each region, at most {@code maxBytes}
+     * @param expectedEntryBytes typical entry weight, used to size the frequency sketch
+     * @param weigher        estimated bytes held by an entry
+     * @param popularityHash hash of the part of a key whose access frequency counts
+     */
+    public TinyLfuCache(
+            long maxBytes,
+            long maxRegionBytes,
+            long expectedEntryBytes,
+            ToLongBiFunction<K, V> weigher,
+            ToIntFunction<K> popularityHash) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Cache budget must be positive [%s]".formatted(maxBytes));
+        }
+        if (maxRegionBytes < 1) {
+            throw new IllegalArgumentException("Cache region budget must be positive [%s]".formatted(maxRegionBytes));
+        }
+        if (expectedEntryBytes < 1) {
+            throw new IllegalArgumentException("Expected cache entry size must be positive [%s]".formatted(expectedEntryBytes));
+        }
+        this.maxBytes = maxBytes;
+        this.maxRegionBytes = Math.min(maxRegionBytes, maxBytes);
+        this.weigher = Objects.requireNonNull(weigher, "weigher");
+        this.popularityHash = Objects.requireNonNull(popularityHash, "popularityHash");
+        this.sketch = new FrequencySketch(maxBytes / expectedEntryBytes);
+    }
+
+    public V get(String region, K key) {
+        sketch.increment(popularityHash.applyAsInt(key));
+        Region<K, V> entries = regions.get(region);
+        Node<K, V> node = entries == null ? null : entries.map.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (node.referenced == false) {
+            node.referenced = true;
+        }
+        hits.increment();
+        return node.value;
+    }
+
+    /** Looks up {@code key} without counting the access or marking the entry as referenced. */
+    public V peek(String region, K key) {
+        Region<K, V> entries = regions.get(region);
+        Node<K, V> node = entries == null ? null : entries.map.get(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Caches {@code value} unless the admission policy prefers the entries it
+     * would displace, or it alone is larger than a region's budget.
+     */
+    public void put(String region, K key, V value) {
+        put(region, key, value, true);
+    }
+
+    /**
+     * Caches {@code value} whatever the popularity of the entries it displaces,
+     * for an entry known to be needed before its key had a chance to be
+     * requested. It is still dropped when it alone is larger than a region's
+     * budget, or when the other regions cannot make room for it.
+     */
+    public void putWithoutAdmission(String region, K key, V value) {
+        put(region, key, value, false);
+    }
+
+    private void put(String region, K key, V value, boolean admission) {
+        long weight = weigher.applyAsLong(key, value);
+        if (weight > maxRegionBytes) {
+            rejections.increment();
+            return;
+        }
+        Region<K, V> entries = regions.computeIfAbsent(region, ignored -> new Region<>());
+        Node<K, V> node = new Node<>(key, value, weight);
+        entries.lock.lock();
+        try {
+            Node<K, V> existing = entries.map.get(key);
+            long released = existing == null ? 0 : existing.weight;
+            int candidateFrequency = admission ? sketch.frequency(popularityHash.applyAsInt(key)) : Integer.MAX_VALUE;
+            while (entries.weightedBytes - released + weight > maxRegionBytes
+                    || weightedBytes.get() - released + weight > maxBytes) {
+                Node<K, V> victim = nextVictim(entries, existing);
+                if (victim == null) {
+                    if (entries.weightedBytes - released + weight > maxRegionBytes
+                            || evictFromLargestOtherRegion(entries, candidateFrequency) == false) {
+                        rejections.increment();
+                        return;
+                    }
+                    continue;
+                }
+                if (candidateFrequency <= sketch.frequency(popularityHash.applyAsInt(victim.key))) {
+                    // The victim stays where it was found, ahead of the rest of the clock
+                    entries.clock.addFirst(victim);
+                    rejections.increment();
+                    return;
+                }
+                remove(entries, victim);
+                evictions.increment();
+            }
+            if (reserve(weight, released) == false) {
+                rejections.increment();
+                return;
+            }
+            if (existing != null) {
+                remove(entries, existing);
+                compactClock(entries);
+            }
+            entries.map.put(key, node);
+            entries.clock.addLast(node);
+            entries.weightedBytes += weight;
+        } finally {
+            entries.lock.unlock();
+        }
+    }
+
+    /**
+     * Evicts the next victim of the region holding the most bytes other than
+     * {@code entries}, unless it is at least as popular as the candidate.
+     * {@code false} when nothing was evicted.
+     */
+    private boolean evictFromLargestOtherRegion(Region<K, V> entries, int candidateFrequency) {
+        Region<K, V> largest = null;
+        for (Region<K, V> region : regions.values()) {
+            if (region != entries && (largest == null || region.weightedBytes > largest.weightedBytes)) {
+                largest = region;
+            }
+        }
+        // The lock is only tried, so two regions evicting from each other cannot deadlock
+        if (largest == null || largest.lock.tryLock() == false) {
+            return false;
+        }
+        try {
+            Node<K, V> victim = nextVictim(largest, null);
+            if (victim == null) {
+                return false;
+            }
+            if (candidateFrequency <= sketch.frequency(popularityHash.applyAsInt(victim.key))) {
+                largest.clock.addFirst(victim);
+                return false;
+            }
+            remove(largest, victim);
+            evictions.increment();
+            return true;
+        } finally {
+            largest.lock.unlock();
+        }
+    }
+
+    /**
+     * Adds {@code weight} to the node's bytes if they stay within budget once
+     * {@code released} bytes are freed; regions insert concurrently, so the
+     * check and the add are one atomic step.
+     */
+    private boolean reserve(long weight, long released) {
+        while (true) {
+            long current = weightedBytes.get();
+            if (current - released + weight > maxBytes) {
+                return false;
+            }
+            if (weightedBytes.compareAndSet(current, current + weight)) {
+                return true;
+            }
+        }
+    }
+
+    /** Drops the entries of {@code region} whose key matches {@code stale}. */
+    public void invalidate(String region, Predicate<K> stale) {
+        Region<K, V> entries = regions.get(region);
+        if (entries != null) {
+            invalidate(entries, stale);
+        }
+    }
+
+    public void clear() {
+        for (Region<K, V> entries : regions.values()) {
+            invalidate(entries, key -> true);
+        }
+    }
+
+    public Stats stats() {
+        long entries = 0;
+        for (Region<K, V> region : regions.values()) {
+            entries += region.map.size();
+        }
+        return new Stats(
+                hits.sum(),
+                misses.sum(),
+                evictions.sum(),
+                rejections.sum(),
+                entries,
+                weightedBytes.get(),
+                maxBytes);
+    }
+
+    private void invalidate(Region<K, V> entries, Predicate<K> stale) {
+        entries.lock.lock();
+        try {
+            for (Node<K, V> node : entries.map.values()) {
+                if (stale.test(node.key)) {
+                    remove(entries, node);
+                }
+            }
+            compactClock(entries);
+        } finally {
+            entries.lock.unlock();
+        }
+    }
+
+    /**
+     * Next entry in clock order that is not referenced, clearing the reference
+     * bit of the entries it passes. Removed entries left in the clock are
+     * discarded on the way; {@code skip} is the entry being replaced.
+     */
+    private static <K, V> Node<K, V> nextVictim(Region<K, V> entries, Node<K, V> skip) {
+        int budget = entries.clock.size() * 2;
+        while (budget-- > 0) {
+            Node<K, V> node = entries.clock.pollFirst();
+            if (node == null) {
+                return null;
+            }
+            if (node.removed) {
+                continue;
+            }
+            if (node == skip || node.referenced) {
+                node.referenced = false;
+                entries.clock.addLast(node);
+                continue;
+            }
+            return node;
+        }
+        return null;
+    }
+
+    /** Drops removed entries from the clock once they outnumber the live ones. */
+    private static <K, V> void compactClock(Region<K, V> entries) {
+        if (entries.clock.size() > entries.map.size() * 2 + 16) {
+            entries.clock.removeIf(node -> node.removed);
+        }
+    }
+
+    private void remove(Region<K, V> entries, Node<K, V> node) {
+        if (node.removed || entries.map.remove(node.key, node) == false) {
+            return;
+        }
+        node.removed = true;
+        entries.weightedBytes -= node.weight;
+        weightedBytes.addAndGet(-node.weight);
+    }
+
+    public record Stats(
+            long hits,
+            long misses,
+            long evictions,
+            long rejections,
+            long entries,
+            long weightedBytes,
+            long maxBytes) {
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0d : hits / (double) lookups;
+        }
+    }
+
+    private static final class Region<K, V> {
+        private final Map<K, Node<K, V>> map = new ConcurrentHashMap<>();
+        private final ArrayDeque<Node<K, V>> clock = new ArrayDeque<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        /** Written under {@link #lock}; read without it to pick regions to evict from. */
+        private volatile long weightedBytes;
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final long weight;
+        private volatile boolean referenced;
+        private boolean removed;
+
+        private Node(K key, V value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Count-min sketch of 4-bit counters, four per 64-bit word, with periodic
+     * halving so old popularity fades. Increments race without locks; a lost
+     * increment only makes an estimate slightly low.
+     */
+    static final class FrequencySketch {
+        private static final long[] SEEDS = {
+                0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int tableMask;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(long expectedEntries) {
+            int size = (int) Math.min(1 << 24, Math.max(64, Long.highestOneBit(Math.max(1, expectedEntries) - 1) << 1));
+            this.table = new long[size];
+            this.tableMask = size - 1;
+            this.sampleSize = size * 10;
+        }
+
+        int frequency(int hash) {
+            int frequency = Integer.MAX_VALUE;
+            for (int depth = 0; depth < 4; depth++) {
+                int index = indexOf(hash, depth);
+                int offset = counterOffset(hash, depth);
+                frequency = Math.min(frequency, (int) ((table[index] >>> offset) & 0xF));
+            }
+            return frequency;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int depth = 0; depth < 4; depth++) {
+                int index = indexOf(hash, depth);
+                int offset = counterOffset(hash, depth);
+                long word = table[index];
+                if (((word >>> offset) & 0xF) != 0xF) {
+                    table[index] = word + (1L << offset);
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            for (int index = 0; index < table.length; index++) {
+                table[index] = (table[index] >>> 1) & RESET_MASK;
+            }
+            additions = additions >>> 1;
+        }
+
+        private int indexOf(int hash, int depth) {
+            long mixed = (hash + SEEDS[depth]) * SEEDS[depth];
+            mixed ^= mixed >>> 32;
+            return (int) mixed & tableMask;
+        }
+
+        /** Which of the sixteen 4-bit counters of the word this depth uses. */
+        private static int counterOffset(int hash, int depth) {
+            return (((hash >>> (depth << 3)) & 3) + (depth << 2)) << 2;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.sandbox.document.HalfFloatPoint;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.mapper.SourceFieldMetrics;
+import org.elasticsearch.search.lookup.Source;
+import org.elasticsearch.search.lookup.SourceProvider;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Per request reader of the numeric signals of candidate videos: owner mid,
+ * stat score, view count and insert time.
+ * <p>
+ * A signal whose field is mapped as a number with doc values is read from doc
+ * values, so a hit can be scored or rejected on these signals without loading
+ * and parsing its source. {@link #prefetch} reads a batch of hits in doc id
+ * order, walking each leaf once with one iterator per field. Signals whose
+ * field has no doc values, and the text fields callers still need, come from
+ * {@link #source}, which keeps the source of the last document it loaded.
+ * Topic tokens of fields that store term vectors come from
+ * {@link #storedTokens} without analyzing the source text.
+ * <p>
+ * Not thread safe; create one per request and searcher.
+ */
+public final class VideoSignalReader {
+    public static final String OWNER_MID_FIELD = "owner.mid";
+    public static final String STAT_SCORE_FIELD = "stat_score";
+    public static final String STAT_VIEW_FIELD = "stat.view";
+    public static final String INSERT_AT_FIELD = "insert_at";
+
+    private static final int OWNER_MID = 0;
+    private static final int STAT_SCORE = 1;
+    private static final int STAT_VIEW = 2;
+    private static final int INSERT_AT = 3;
+    private static final String[] FIELDS = { OWNER_MID_FIELD, STAT_SCORE_FIELD, STAT_VIEW_FIELD, INSERT_AT_FIELD };
+
+    private final List<LeafReaderContext> leaves;
+    private final SourceProvider sourceProvider;
+    private final TermVectorTokens termVectorTokens;
+    private final IndexNumericFieldData.NumericType[] docValueTypes = new IndexNumericFieldData.NumericType[FIELDS.length];
+    private final boolean anyDocValues;
+    private final Map<Integer, Number[]> docValues = new HashMap<>();
+    private int sourceDoc = -1;
+    private Source source;
+
+    public VideoSignalReader(IndexService indexService, IndexReader reader) {
+        this(
+                reader,
+                SourceProvider.fromLookup(indexService.mapperService().mappingLookup(), null, SourceFieldMetrics.NOOP),
+                indexService.mapperService()::fieldType);
+    }
+
+    VideoSignalReader(IndexReader reader, SourceProvider sourceProvider, Function<String, MappedFieldType> fieldTypes) {
+        this.leaves = reader.leaves();
+        this.termVectorTokens = new TermVectorTokens(reader);
+        this.sourceProvider = sourceProvider;
+        boolean anyDocValues = false;
+        for (int signal = 0; signal < FIELDS.length; signal++) {
+            docValueTypes[signal] = docValueType(fieldTypes.apply(FIELDS[signal]));
+            anyDocValues |= docValueTypes[signal] != null;
+        }
+        this.anyDocValues = anyDocValues;
+    }
+
+    /** Reads the doc value signals of {@code hits} in doc id order. */
+    public void prefetch(ScoreDoc[] hits) throws IOException {
+        prefetch(Arrays.asList(hits));
+    }
+
+    public void prefetch(Collection<ScoreDoc> hits) throws IOException {
+        if (anyDocValues == false || hits.isEmpty()) {
+            return;
+        }
+        int[] docs = new int[hits.size()];
+        int size = 0;
+        for (ScoreDoc hit : hits) {
+            if (docValues.containsKey(hit.doc) == false) {
+                docs[size++] = hit.doc;
+            }
+        }
+        readDocValues(Arrays.copyOf(docs, size));
+    }
+
+    /** Loads the term vectors of {@code hits} in doc id order, for {@link #storedTokens}. */
+    public void prefetchTokens(ScoreDoc[] hits) throws IOException {
+        termVectorTokens.prefetch(hits);
+    }
+
+    public void prefetchTokens(Collection<ScoreDoc> hits) throws IOException {
+        termVectorTokens.prefetch(hits);
+    }
+
+    /**
+     * Indexed tokens of {@code field} in {@code doc} and their frequencies, or
+     * {@code null} when the field stores no term vectors and the source text
+     * has to be analyzed instead. See {@link TermVectorTokens#tokens}.
+     */
+    public Map<String, Integer> storedTokens(int doc, String field, UnaryOperator<String> normalizer) throws IOException {
+        return termVectorTokens.tokens(doc, field, normalizer);
+    }
+
+    /** Source of {@code doc}, loaded on first use and kept until another document is asked for. */
+    public Source source(int doc) throws IOException {
+        if (doc != sourceDoc) {
+            LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+            source = sourceProvider.getSource(leaf, doc - leaf.docBase);
+            sourceDoc = doc;
+        }
+        return source;
+    }
+
+    /** Owner mid of {@code doc}, or {@code null} when the document has none. */
+    public Long ownerMid(int doc) throws IOException {
+        return asLong(value(doc, OWNER_MID), null);
+    }
+
+    public double statScore(int doc) throws IOException {
+        Object value = value(doc, STAT_SCORE);
+        if (value == null) {
+            return 0.0d;
+        }
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        try {
+            return Double.parseDouble(value.toString());
+        } catch (NumberFormatException ignored) {
+            return 0.0d;
+        }
+    }
+
+    public long viewCount(int doc) throws IOException {
+        return asLong(value(doc, STAT_VIEW), 0L);
+    }
+
+    public long insertAt(int doc) throws IOException {
+        return asLong(value(doc, INSERT_AT), 0L);
+    }
+
+    private Object value(int doc, int signal) throws IOException {
+        if (docValueTypes[signal] == null) {
+            return source(doc).extractValue(FIELDS[signal], null);
+        }
+        Number[] values = docValues.get(doc);
+        if (values == null) {
+            readDocValues(new int[] { doc });
+            values = docValues.get(doc);
+        }
+        return values[signal];
+    }
+
+    private void readDocValues(int[] docs) throws IOException {
+        Arrays.sort(docs);
+        int index = 0;
+        while (index < docs.length) {
+            LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(docs[index], leaves));
+            int leafEnd = leaf.docBase + leaf.reader().maxDoc();
+            int end = index;
+            while (end < docs.length && docs[end] < leafEnd) {
+                docValues.put(docs[end], new Number[FIELDS.length]);
+                end++;
+            }
+            for (int signal = 0; signal < FIELDS.length; signal++) {
+                IndexNumericFieldData.NumericType type = docValueTypes[signal];
+                if (type == null) {
+                    continue;
+                }
+                SortedNumericDocValues values = DocValues.getSortedNumeric(leaf.reader(), FIELDS[signal]);
+                for (int doc = index; doc < end; doc++) {
+                    if (values.advanceExact(docs[doc] - leaf.docBase)) {
+                        docValues.get(docs[doc])[signal] = decode(type, values.nextValue());
+                    }
+                }
+            }
+            index = end;
+        }
+    }
+
+    /** Numeric type of {@code field} when it is mapped as a number with doc values, otherwise {@code null}. */
+    static IndexNumericFieldData.NumericType docValueType(MapperService mapperService, String field) {
+        return docValueType(mapperService.fieldType(field));
+    }
+
+    static IndexNumericFieldData.NumericType docValueType(MappedFieldType fieldType) {
+        if (fieldType instanceof NumberFieldMapper.NumberFieldType numberFieldType && numberFieldType.hasDocValues()) {
+            return numberFieldType.numericType();
+        }
+        return null;
+    }
+
+    /** Decodes the sortable long a number field keeps in doc values; multi-valued fields yield their smallest value. */
+    static Number decode(IndexNumericFieldData.NumericType type, long value) {
+        return switch (type) {
+            case HALF_FLOAT -> HalfFloatPoint.sortableShortToHalfFloat((short) value);
+            case FLOAT -> NumericUtils.sortableIntToFloat((int) value);
+            case DOUBLE -> NumericUtils.sortableLongToDouble(value);
+            default -> value;
+        };
+    }
+
+    private static Long asLong(Object value, Long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException ignored) {
+            return defaultValue;
+        }
+    }
+}
@@ -11,12 +11,11 @@ import org.es.tok.extra.HantToHansConverter;
 import org.es.tok.suggest.PinyinSupport;
 import org.es.tok.strategy.CategStrategy;
 import org.es.tok.strategy.NgramStrategy;
-import org.es.tok.strategy.TokenStrategy;
+import org.es.tok.strategy.TokenBuffer;
 import org.es.tok.strategy.VocabStrategy;
 
 import java.io.IOException;
 import java.util.ArrayDeque;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
 
@@ -30,9 +29,15 @@ public final class EsTokTokenizer extends Tokenizer {
     private final EsTokConfig config;
     private final EsTokEngine engine;
 
-    private String inputText;
-    private Iterator<TokenStrategy.TokenInfo> tokenIterator;
-    private final Queue<TokenStrategy.TokenInfo> pendingTokens = new ArrayDeque<>();
+    // Reused across documents: terms are copied straight from the buffer into
+    // the term attribute, so indexing allocates no per-token objects.
+    private final TokenBuffer tokenBuffer = new TokenBuffer();
+    private final StringBuilder inputBuilder = new StringBuilder();
+    private final char[] readBuffer = new char[8192];
+    private int nextToken;
+    private final Queue<String> pendingPinyinTerms = new ArrayDeque<>();
+    private int pinyinStartOffset;
+    private int pinyinEndOffset;
     private boolean isInitialized = false;
 
     // New constructor using EsTokConfig
@@ -42,9 +47,14 @@ public final class EsTokTokenizer extends Tokenizer {
             throw new IllegalArgumentException("Must use at least one strategy: use_vocab, use_categ");
         }
 
-        VocabStrategy vocabStrategy = config.getVocabConfig().isUseVocab()
-                ? new VocabStrategy(config.getVocabConfig().getVocabs())
-                : null;
+        VocabStrategy vocabStrategy = null;
+        if (config.getVocabConfig().isUseVocab()) {
+            // Shared per vocab fingerprint; an empty vocab still gets a (no-op)
+            // strategy so that use_vocab alone remains a valid config.
+            vocabStrategy = config.getVocabConfig().hasVocabs()
+                    ? config.getVocabConfig().getOrCreateStrategy()
+                    : new VocabStrategy(List.of());
+        }
         CategStrategy categStrategy = config.getCategConfig().isUseCateg()
                 ? new CategStrategy(config.getCategConfig().isSplitWord())
                 : null;
@@ -83,19 +93,32 @@ public final class EsTokTokenizer extends Tokenizer {
             initialize();
         }
 
-        while (pendingTokens.isEmpty() && tokenIterator != null && tokenIterator.hasNext()) {
-            enqueueToken(tokenIterator.next());
+        if (!pendingPinyinTerms.isEmpty()) {
+            String pinyinTerm = pendingPinyinTerms.poll();
+            clearAttributes();
+
+            termAtt.append(pinyinTerm);
+            offsetAtt.setOffset(pinyinStartOffset, pinyinEndOffset);
+            posIncrAtt.setPositionIncrement(1);
+            typeAtt.setType("pinyin");
+            groupAtt.setGroup("pinyin");
+
+            return true;
         }
 
-        if (!pendingTokens.isEmpty()) {
-            TokenStrategy.TokenInfo token = pendingTokens.poll();
+        if (nextToken < tokenBuffer.size()) {
+            int token = nextToken++;
             clearAttributes();
 
-            termAtt.copyBuffer(token.getText().toCharArray(), 0, token.getText().length());
-            offsetAtt.setOffset(token.getStartOffset(), token.getEndOffset());
+            termAtt.copyBuffer(tokenBuffer.chars(), tokenBuffer.termOffset(token), tokenBuffer.termLength(token));
+            offsetAtt.setOffset(tokenBuffer.startOffset(token), tokenBuffer.endOffset(token));
             posIncrAtt.setPositionIncrement(1);
-            typeAtt.setType(token.getType());
-            groupAtt.setGroup(token.getGroup());
+            typeAtt.setType(tokenBuffer.typeName(token));
+            groupAtt.setGroup(tokenBuffer.groupName(token));
+
+            if (config.getExtraConfig().isEmitPinyinTerms()) {
+                enqueuePinyinTerms(token);
+            }
 
             return true;
         }
@@ -108,43 +131,36 @@ public final class EsTokTokenizer extends Tokenizer {
             return;
         }
 
-        StringBuilder sb = new StringBuilder();
-        char[] buffer = new char[8192];
+        inputBuilder.setLength(0);
         int numChars;
 
-        while ((numChars = input.read(buffer)) != -1) {
-            sb.append(buffer, 0, numChars);
+        while ((numChars = input.read(readBuffer)) != -1) {
+            inputBuilder.append(readBuffer, 0, numChars);
         }
 
-        inputText = sb.toString();
-        tokenIterator = engine.analyzeToTokenInfos(inputText).iterator();
+        engine.analyze(inputBuilder, tokenBuffer);
+        nextToken = 0;
         isInitialized = true;
     }
 
-    private void enqueueToken(TokenStrategy.TokenInfo token) {
-        pendingTokens.add(token);
-        if (!config.getExtraConfig().isEmitPinyinTerms()) {
-            return;
-        }
-
-        List<String> pinyinTerms = PinyinSupport.precomputedSuggestionTerms(token.getText());
-        for (String pinyinTerm : pinyinTerms) {
-            pendingTokens.add(new TokenStrategy.TokenInfo(
-                    pinyinTerm,
-                    token.getStartOffset(),
-                    token.getEndOffset(),
-                    "pinyin",
-                    token.getPosition(),
-                    "pinyin"));
-        }
+    private void enqueuePinyinTerms(int token) {
+        List<String> pinyinTerms = PinyinSupport.precomputedSuggestionTerms(tokenBuffer.termToString(token));
+        pendingPinyinTerms.addAll(pinyinTerms);
+        pinyinStartOffset = tokenBuffer.startOffset(token);
+        pinyinEndOffset = tokenBuffer.endOffset(token);
     }
 
     @Override
     public void reset() throws IOException {
         super.reset();
         isInitialized = false;
-        tokenIterator = null;
-        inputText = null;
-        pendingTokens.clear();
+        nextToken = 0;
+        pendingPinyinTerms.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        tokenBuffer.trim();
     }
-}
\ No newline at end of file
+}
@@ -28,8 +28,8 @@ public class EsTokTokenizerFactory extends AbstractTokenizerFactory {
         // Load config with cache enabled for better performance
         this.config = EsTokConfigLoader.loadConfig(settings, environment, true);
 
-        // Use global VocabStrategy cache — all indexes share the same Trie
-        // for the same vocab list, avoiding duplicate multi-GB Trie construction.
+        // Use global VocabStrategy cache — all indexes share the same automaton
+        // for the same vocab list, avoiding duplicate multi-hundred-MB construction.
         this.vocabStrategy = config.getVocabConfig().getOrCreateStrategy();
         this.categStrategy = config.getCategConfig().isUseCateg()
                 ? new CategStrategy(config.getCategConfig().isSplitWord())
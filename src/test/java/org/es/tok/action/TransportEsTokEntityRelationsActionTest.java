@@ -0,0 +1,78 @@
+package org.es.tok.action;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransportEsTokEntityRelationsActionTest {
+
+    @Test
+    public void testNodeMergedRelationsMatchShardByShardMerge() throws Exception {
+        EsTokEntityRelationRequest request = new EsTokEntityRelationRequest("videos")
+                .relation(EsTokEntityRelationRequest.RELATED_VIDEOS_BY_VIDEOS)
+                .size(8);
+        TransportEsTokEntityRelationsAction.ShardRelationResult shard0 = new TransportEsTokEntityRelationsAction.ShardRelationResult(
+                List.of(
+                        video("BV1", "飓风实验室", 1L, "影视飓风", 3, 6.0f),
+                        video("BV2", "城市夜景", 2L, "飓多多StormCrew", 1, 2.0f)),
+                List.of(new EsTokRelatedOwnerOption(1L, "影视飓风", 3, 6.0f, 1)),
+                false);
+        TransportEsTokEntityRelationsAction.ShardRelationResult shard1 = new TransportEsTokEntityRelationsAction.ShardRelationResult(
+                List.of(video("BV1", "飓风实验室 4K", 1L, "影视飓风Tim", 2, 8.0f)),
+                List.of(new EsTokRelatedOwnerOption(1L, "影视飓风Tim", 2, 8.0f, 1)),
+                true);
+        TransportEsTokEntityRelationsAction.ShardRelationResult shard2 = new TransportEsTokEntityRelationsAction.ShardRelationResult(
+                List.of(video("BV2", "城市夜景", 2L, "飓多多StormCrew", 4, 5.0f)),
+                List.of(new EsTokRelatedOwnerOption(2L, "飓多多StormCrew", 4, 5.0f, 1)),
+                false);
+
+        TransportEsTokEntityRelationsAction.MergedRelations perShard = TransportEsTokEntityRelationsAction.mergeNodeResults(
+                request,
+                List.of(
+                        TransportEsTokEntityRelationsAction.aggregateShardResults(List.of(shard0)),
+                        TransportEsTokEntityRelationsAction.aggregateShardResults(List.of(shard1)),
+                        TransportEsTokEntityRelationsAction.aggregateShardResults(List.of(shard2))));
+        TransportEsTokEntityRelationsAction.NodeRelationResult node0 = roundTrip(
+                TransportEsTokEntityRelationsAction.aggregateShardResults(List.of(shard0, shard1)));
+        TransportEsTokEntityRelationsAction.MergedRelations perNode = TransportEsTokEntityRelationsAction.mergeNodeResults(
+                request,
+                List.of(node0, roundTrip(TransportEsTokEntityRelationsAction.aggregateShardResults(List.of(shard2)))));
+
+        assertEquals(perShard, perNode);
+        assertEquals(1, node0.cacheHitCount());
+        // Scores and doc freqs add up across shards; the best scoring shard names the video and owner
+        assertEquals(video("BV1", "飓风实验室 4K", 1L, "影视飓风Tim", 5, 14.0f, 2), perNode.videos().get(0));
+        assertEquals(video("BV2", "城市夜景", 2L, "飓多多StormCrew", 5, 7.0f, 2), perNode.videos().get(1));
+        assertEquals(new EsTokRelatedOwnerOption(1L, "影视飓风Tim", 5, 14.0f, 2), perNode.owners().get(0));
+        assertEquals(new EsTokRelatedOwnerOption(2L, "飓多多StormCrew", 4, 5.0f, 1), perNode.owners().get(1));
+    }
+
+    private static EsTokRelatedVideoOption video(String bvid, String title, long ownerMid, String ownerName, int docFreq, float score) {
+        return video(bvid, title, ownerMid, ownerName, docFreq, score, 1);
+    }
+
+    private static EsTokRelatedVideoOption video(
+            String bvid,
+            String title,
+            long ownerMid,
+            String ownerName,
+            int docFreq,
+            float score,
+            int shardCount) {
+        return new EsTokRelatedVideoOption(bvid, title, ownerMid, ownerName, docFreq, score, shardCount);
+    }
+
+    private static TransportEsTokEntityRelationsAction.NodeRelationResult roundTrip(
+            TransportEsTokEntityRelationsAction.NodeRelationResult result) throws Exception {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            result.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                return new TransportEsTokEntityRelationsAction.NodeRelationResult(in);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.es.tok.action;
 
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.junit.Test;
 
 import java.util.List;
@@ -34,4 +36,55 @@ public class TransportEsTokRelatedOwnersActionTest {
         assertEquals(75677695L, merged.get(0).mid());
         assertEquals("红警V神", merged.get(0).name());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testNodeMergedOwnersMatchShardByShardMerge() throws Exception {
+        List<EsTokRelatedOwnerOption> shard0 = List.of(
+                new EsTokRelatedOwnerOption(1L, "影视飓风", 5, 900.0f, 1),
+                new EsTokRelatedOwnerOption(2L, "飓多多StormCrew", 2, 300.0f, 1));
+        List<EsTokRelatedOwnerOption> shard1 = List.of(
+                new EsTokRelatedOwnerOption(1L, "影视飓风", 3, 700.0f, 1));
+        List<EsTokRelatedOwnerOption> shard2 = List.of(
+                new EsTokRelatedOwnerOption(1L, "影视飓风Tim", 1, 200.0f, 1),
+                new EsTokRelatedOwnerOption(2L, "飓多多StormCrew", 4, 500.0f, 1));
+
+        List<EsTokRelatedOwnerOption> perShard = TransportEsTokRelatedOwnersAction.mergeNodeResults(
+                "影视飓风",
+                List.of(
+                        TransportEsTokRelatedOwnersAction.aggregateShardResults(List.of(computed(shard0))),
+                        TransportEsTokRelatedOwnersAction.aggregateShardResults(List.of(cached(shard1))),
+                        TransportEsTokRelatedOwnersAction.aggregateShardResults(List.of(computed(shard2)))),
+                8);
+        TransportEsTokRelatedOwnersAction.NodeRelatedOwnersResult node0 = roundTrip(
+                TransportEsTokRelatedOwnersAction.aggregateShardResults(List.of(computed(shard0), cached(shard1))));
+        List<EsTokRelatedOwnerOption> perNode = TransportEsTokRelatedOwnersAction.mergeNodeResults(
+                "影视飓风",
+                List.of(
+                        node0,
+                        roundTrip(TransportEsTokRelatedOwnersAction.aggregateShardResults(List.of(computed(shard2))))),
+                8);
+
+        assertEquals(perShard, perNode);
+        assertEquals(3, perNode.get(0).shardCount());
+        assertEquals("影视飓风", perNode.get(0).name());
+        assertEquals(1, node0.cacheHitCount());
+    }
+
+    private static TransportEsTokRelatedOwnersAction.ShardRelatedOwnersResult computed(List<EsTokRelatedOwnerOption> owners) {
+        return new TransportEsTokRelatedOwnersAction.ShardRelatedOwnersResult(owners, false);
+    }
+
+    private static TransportEsTokRelatedOwnersAction.ShardRelatedOwnersResult cached(List<EsTokRelatedOwnerOption> owners) {
+        return new TransportEsTokRelatedOwnersAction.ShardRelatedOwnersResult(owners, true);
+    }
+
+    private static TransportEsTokRelatedOwnersAction.NodeRelatedOwnersResult roundTrip(
+            TransportEsTokRelatedOwnersAction.NodeRelatedOwnersResult result) throws Exception {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            result.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                return new TransportEsTokRelatedOwnersAction.NodeRelatedOwnersResult(in);
+            }
+        }
+    }
+}
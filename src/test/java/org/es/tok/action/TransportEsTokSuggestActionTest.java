@@ -0,0 +1,84 @@
+package org.es.tok.action;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransportEsTokSuggestActionTest {
+
+    @Test
+    public void testNodeMergedOptionsMatchShardByShardMerge() throws Exception {
+        List<EsTokSuggestOption> shard0 = List.of(
+                new EsTokSuggestOption("影视飓风", 5, 9.0f, "prefix", 1),
+                new EsTokSuggestOption("影视前线", 2, 3.0f, "prefix", 1));
+        List<EsTokSuggestOption> shard1 = List.of(
+                new EsTokSuggestOption("影视飓风", 3, 4.0f, "correction", 1));
+        List<EsTokSuggestOption> shard2 = List.of(
+                new EsTokSuggestOption("影视前线", 4, 7.0f, "prefix", 1),
+                new EsTokSuggestOption("影视风云", 1, 1.0f, "associate", 1));
+
+        for (boolean ownerRequest : new boolean[] {false, true}) {
+            List<EsTokSuggestOption> perShard = TransportEsTokSuggestAction.mergeNodeResults(
+                    List.of(
+                            TransportEsTokSuggestAction.aggregateShardResults(List.of(computed(shard0)), ownerRequest),
+                            TransportEsTokSuggestAction.aggregateShardResults(List.of(cached(shard1)), ownerRequest),
+                            TransportEsTokSuggestAction.aggregateShardResults(List.of(computed(shard2)), ownerRequest)),
+                    8);
+            TransportEsTokSuggestAction.NodeSuggestResult node0 = roundTrip(
+                    TransportEsTokSuggestAction.aggregateShardResults(List.of(computed(shard0), cached(shard1)), ownerRequest));
+            List<EsTokSuggestOption> perNode = TransportEsTokSuggestAction.mergeNodeResults(
+                    List.of(
+                            node0,
+                            roundTrip(TransportEsTokSuggestAction.aggregateShardResults(List.of(computed(shard2)), ownerRequest))),
+                    8);
+
+            assertEquals(perShard, perNode);
+            assertEquals(1, node0.cacheHitCount());
+        }
+    }
+
+    @Test
+    public void testMergedOptionsRankAndTruncate() {
+        List<EsTokSuggestOption> shard0 = List.of(
+                new EsTokSuggestOption("影视飓风", 5, 9.0f, "prefix", 1),
+                new EsTokSuggestOption("影视前线", 2, 3.0f, "prefix", 1));
+        List<EsTokSuggestOption> shard1 = List.of(
+                new EsTokSuggestOption("影视飓风", 3, 4.0f, "correction", 1),
+                new EsTokSuggestOption("影视风云", 1, 1.0f, "associate", 1));
+
+        List<EsTokSuggestOption> summed = TransportEsTokSuggestAction.mergeNodeResults(
+                List.of(TransportEsTokSuggestAction.aggregateShardResults(List.of(computed(shard0), computed(shard1)), false)),
+                2);
+        assertEquals(List.of(
+                new EsTokSuggestOption("影视飓风", 8, 13.0f, "prefix", 2),
+                new EsTokSuggestOption("影视前线", 2, 3.0f, "prefix", 1)), summed);
+
+        // Owner requests keep the best shard score and only a share of the rest
+        List<EsTokSuggestOption> owners = TransportEsTokSuggestAction.mergeNodeResults(
+                List.of(TransportEsTokSuggestAction.aggregateShardResults(List.of(computed(shard0), computed(shard1)), true)),
+                1);
+        assertEquals(9.0f + 4.0f * 0.08f, owners.get(0).score(), 1e-5f);
+    }
+
+    private static TransportEsTokSuggestAction.ShardSuggestResult computed(List<EsTokSuggestOption> options) {
+        return new TransportEsTokSuggestAction.ShardSuggestResult(options, false);
+    }
+
+    private static TransportEsTokSuggestAction.ShardSuggestResult cached(List<EsTokSuggestOption> options) {
+        return new TransportEsTokSuggestAction.ShardSuggestResult(options, true);
+    }
+
+    private static TransportEsTokSuggestAction.NodeSuggestResult roundTrip(
+            TransportEsTokSuggestAction.NodeSuggestResult result) throws Exception {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            result.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                return new TransportEsTokSuggestAction.NodeSuggestResult(in);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.es.tok.action;
+
+import org.elasticsearch.cluster.routing.RecoverySource;
+import org.elasticsearch.cluster.routing.ShardIterator;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+public class TransportNodeBatchedBroadcastActionTest {
+    private static final Index INDEX = new Index("videos", "videos-uuid");
+
+    @Test
+    public void testGroupShardsByNodeMovesFailedShardsToTheirNextCopy() {
+        ShardId shard0 = new ShardId(INDEX, 0);
+        ShardId shard1 = new ShardId(INDEX, 1);
+        ShardId shard2 = new ShardId(INDEX, 2);
+        ShardIterator copies0 = new ShardIterator(shard0, List.of(started(shard0, "node1", true), started(shard0, "node2", false)));
+        ShardIterator copies1 = new ShardIterator(shard1, List.of(started(shard1, "node1", true), started(shard1, "node3", false)));
+        ShardIterator copies2 = new ShardIterator(shard2, List.of(started(shard2, "node2", true)));
+        ShardIterator unassigned = new ShardIterator(new ShardId(INDEX, 3), List.of());
+
+        Map<String, List<ShardIterator>> first = TransportNodeBatchedBroadcastAction.groupShardsByNode(
+                List.of(copies0, copies1, copies2, unassigned));
+        assertEquals(3, first.size());
+        assertEquals(List.of(copies0, copies1), first.get("node1"));
+        assertEquals(List.of(copies2), first.get("node2"));
+        assertEquals(List.of(unassigned), first.get(null));
+
+        // node1 failed: its shards are regrouped by their next copies
+        Map<String, List<ShardIterator>> retry = TransportNodeBatchedBroadcastAction.groupShardsByNode(first.get("node1"));
+        assertEquals(Set.of("node2", "node3"), retry.keySet());
+        assertEquals(List.of(copies0), retry.get("node2"));
+        assertEquals(List.of(copies1), retry.get("node3"));
+
+        // Copies run out after the last one failed
+        Map<String, List<ShardIterator>> exhausted = TransportNodeBatchedBroadcastAction.groupShardsByNode(
+                List.of(copies0, copies2));
+        assertEquals(1, exhausted.size());
+        assertEquals(List.of(copies0, copies2), exhausted.get(null));
+    }
+
+    private static ShardRouting started(ShardId shardId, String nodeId, boolean primary) {
+        RecoverySource recoverySource = primary
+                ? RecoverySource.EmptyStoreRecoverySource.INSTANCE
+                : RecoverySource.PeerRecoverySource.INSTANCE;
+        return ShardRouting.newUnassigned(
+                        shardId,
+                        primary,
+                        recoverySource,
+                        new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "test"),
+                        ShardRouting.Role.DEFAULT)
+                .initialize(nodeId, null, ShardRouting.UNAVAILABLE_EXPECTED_SHARD_SIZE)
+                .moveToStarted(ShardRouting.UNAVAILABLE_EXPECTED_SHARD_SIZE);
+    }
+}
@@ -0,0 +1,106 @@
+package org.es.tok.core.analysis;
+
+import org.es.tok.strategy.CategStrategy;
+import org.es.tok.strategy.TokenBuffer;
+import org.es.tok.strategy.TokenStrategy.TokenInfo;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The categ scanner is table driven; these tests pin it to the named-group
+ * regex it replaced, so indexed terms stay the same.
+ */
+public class CategStrategyTest {
+    private static final String[] GROUP_NAMES = { "arab", "eng", "cjk", "lang", "dash", "ws", "mask", "nord" };
+    private static final Pattern LEGACY_CATEG = Pattern.compile(
+            "(?<arab>[\\d]+)|(?<eng>[a-zA-Z]+)"
+                    + "|(?<cjk>[\\u2e80-\\u2fdf\\u3040-\\u30FF\\u4E00-\\u9FFF\\uf900-\\ufaff〇]+)"
+                    + "|(?<lang>[\\u0391-\\u03c9\\u0410-\\u044f\\u0e01-\\u0e5b]+)"
+                    + "|(?<dash>[\\-\\+\\_\\.]+)|(?<ws>[\\s]+)|(?<mask>[▂]+)"
+                    + "|(?<nord>[^[\\d]+[a-zA-Z]+[\\u2e80-\\u2fdf\\u3040-\\u30FF\\u4E00-\\u9FFF\\uf900-\\ufaff〇]+"
+                    + "[\\u0391-\\u03c9\\u0410-\\u044f\\u0e01-\\u0e5b]+[\\-\\+\\_\\.]+[\\s]+[▂]+]+)");
+
+    // Range edges and their neighbours, lone surrogates and a supplementary CJK ideograph.
+    private static final char[] EDGE_CHARS = {
+            '/', '0', '9', ':', '@', 'A', 'Z', '[', '`', 'a', 'z', '{',
+            '\u2e7f', '\u2e80', '\u2fdf', '\u2fe0', '\u3006', '\u3007', '\u3008',
+            '\u303f', '\u3040', '\u30ff', '\u3100', '\u4dff', '\u4e00', '\u9fff', '\ua000',
+            '\uf8ff', '\uf900', '\ufaff', '\ufb00',
+            '\u0390', '\u0391', '\u03c9', '\u03ca', '\u040f', '\u0410', '\u044f', '\u0450',
+            '\u0e00', '\u0e01', '\u0e5b', '\u0e5c',
+            '-', '+', '_', '.', ',', ' ', '\t', '\n', '\u000b', '\f', '\r', '\u00a0', '\u3000',
+            '\u2581', '\u2582', '\u2583', '\ud83d', '\ude00', '\ud840', '\udc00', '\uffff' };
+
+    @Test
+    public void testEveryBmpUnitMatchesLegacyRegex() {
+        for (int unit = 0; unit <= Character.MAX_VALUE; unit++) {
+            Matcher matcher = LEGACY_CATEG.matcher(String.valueOf((char) unit));
+            String expected = matcher.find() ? legacyType(matcher) : "none";
+            assertEquals("U+%04X".formatted(unit), expected,
+                    TokenBuffer.typeName(CategStrategy.typeOf(unit)));
+        }
+    }
+
+    @Test
+    public void testSupplementaryCodePointsStayNord() {
+        assertEquals("nord", TokenBuffer.typeName(CategStrategy.typeOf(0x20000)));
+        assertEquals("nord", TokenBuffer.typeName(CategStrategy.typeOf(0x1F600)));
+        assertEquals(List.of("abc@0:3:eng", "𠀀😀@3:7:nord", "中@7:8:cjk"),
+                describe(new CategStrategy(true).tokenize("abc𠀀😀中")));
+    }
+
+    @Test
+    public void testRandomTextMatchesLegacyRegex() {
+        Random random = new Random(20260605L);
+        for (int round = 0; round < 2000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(24);
+            for (int index = 0; index < length; index++) {
+                text.append(EDGE_CHARS[random.nextInt(EDGE_CHARS.length)]);
+            }
+            boolean splitWord = random.nextBoolean();
+            assertEquals(text.toString(), legacyTokens(text.toString(), splitWord),
+                    describe(new CategStrategy(splitWord).tokenize(text.toString())));
+        }
+    }
+
+    private static List<String> legacyTokens(String text, boolean splitWord) {
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = LEGACY_CATEG.matcher(text);
+        while (matcher.find()) {
+            String type = legacyType(matcher);
+            if (splitWord && (type.equals("cjk") || type.equals("lang"))) {
+                for (int index = matcher.start(); index < matcher.end(); index++) {
+                    tokens.add(text.substring(index, index + 1) + "@" + index + ":" + (index + 1) + ":" + type);
+                }
+            } else {
+                tokens.add(matcher.group() + "@" + matcher.start() + ":" + matcher.end() + ":" + type);
+            }
+        }
+        return tokens;
+    }
+
+    private static String legacyType(Matcher matcher) {
+        for (int group = 1; group <= GROUP_NAMES.length; group++) {
+            if (matcher.start(group) != -1) {
+                return GROUP_NAMES[group - 1];
+            }
+        }
+        return "none";
+    }
+
+    private static List<String> describe(List<TokenInfo> tokens) {
+        List<String> described = new ArrayList<>();
+        for (TokenInfo token : tokens) {
+            described.add(token.getText() + "@" + token.getStartOffset() + ":" + token.getEndOffset() + ":" + token.getType());
+        }
+        return described;
+    }
+}
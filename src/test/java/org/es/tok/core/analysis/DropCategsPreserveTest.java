@@ -737,7 +737,7 @@ public class DropCategsPreserveTest {
     public void testLang_cyrillicDroppedAtBoundary() throws IOException {
         // Cyrillic Д,и are "lang" type → dropped at boundary.
         // Vocab must be registered lowercase since ignoreCase only lowercases
-        // the input text, not the Trie keywords.
+        // the input text, not the automaton keywords.
         EsTokConfig config = productionConfig("диv2");
         Set<String> tokens = tokenSet(config, "Диv2");
 
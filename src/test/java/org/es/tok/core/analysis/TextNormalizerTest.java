@@ -0,0 +1,89 @@
+package org.es.tok.core.analysis;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.es.tok.extra.HantToHansConverter;
+import org.es.tok.extra.TextNormalizer;
+import org.es.tok.strategy.TokenBuffer;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The fused normalizer must produce exactly what toLowerCase() followed by the
+ * per-char hants.json lookup produced, including length-changing forms.
+ */
+public class TextNormalizerTest {
+    private static final String ALPHABET = "aZ09 -_.繁體測試們個國國語言自然"
+            + "İΣΑσАÀß㑮㒓㓄▂"
+            + "𐐀𐐨😀\ud801";
+
+    @Test
+    public void testMatchesLegacyConversion() throws Exception {
+        HantToHansConverter converter = HantToHansConverter.getInstance();
+        Map<String, String> hants = loadHants();
+        Random random = new Random(20260607L);
+        TokenBuffer buffer = new TokenBuffer();
+        for (int round = 0; round < 3000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int index = 0; index < length; index++) {
+                text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            boolean lowerCase = random.nextBoolean();
+            boolean hant = random.nextBoolean();
+
+            TextNormalizer.of(lowerCase, hant ? converter : null).normalize(text, buffer);
+
+            String expected = lowerCase ? text.toString().toLowerCase() : text.toString();
+            if (hant) {
+                expected = legacyConvert(expected, hants);
+            }
+            assertEquals(text.toString(), expected, new String(buffer.chars(), 0, buffer.inputLength()));
+        }
+    }
+
+    @Test
+    public void testLongerFormsShiftTheInput() throws Exception {
+        TokenBuffer buffer = new TokenBuffer();
+        TextNormalizer.of(true, HantToHansConverter.getInstance()).normalize("AİB㑮體", buffer);
+
+        assertEquals("ai\u0307b" + legacyConvert("㑮", loadHants()) + "体",
+                new String(buffer.chars(), 0, buffer.inputLength()));
+    }
+
+    @Test
+    public void testLocaleSensitiveLowerCaseFallsBack() {
+        Locale previous = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr"));
+            TokenBuffer buffer = new TokenBuffer();
+            TextNormalizer.of(true, null).normalize("TITLE", buffer);
+
+            assertEquals("TITLE".toLowerCase(), new String(buffer.chars(), 0, buffer.inputLength()));
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+
+    private static String legacyConvert(String text, Map<String, String> hants) {
+        StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < text.length(); index++) {
+            String ch = text.substring(index, index + 1);
+            builder.append(hants.getOrDefault(ch, ch));
+        }
+        return builder.toString();
+    }
+
+    private static Map<String, String> loadHants() throws Exception {
+        try (InputStream inputStream = HantToHansConverter.class.getResourceAsStream("/hants.json")) {
+            return new ObjectMapper().readValue(inputStream, new TypeReference<Map<String, String>>() {
+            });
+        }
+    }
+}
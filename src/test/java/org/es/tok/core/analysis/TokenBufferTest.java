@@ -0,0 +1,78 @@
+package org.es.tok.core.analysis;
+
+import org.es.tok.strategy.TokenBuffer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TokenBufferTest {
+
+    @Test
+    public void testSortIsStableByOffsetThenTerm() {
+        TokenBuffer buffer = new TokenBuffer();
+        buffer.reset("abcab");
+        buffer.add(3, 5, TokenBuffer.TYPE_VOCAB, TokenBuffer.GROUP_VOCAB, 0);
+        buffer.add(0, 2, TokenBuffer.TYPE_VOCAB, TokenBuffer.GROUP_VOCAB, 1);
+        buffer.add(0, 2, TokenBuffer.TYPE_ENG, TokenBuffer.GROUP_CATEG, 2);
+        buffer.add(0, 1, TokenBuffer.TYPE_ENG, TokenBuffer.GROUP_CATEG, 3);
+        buffer.add(2, 3, TokenBuffer.TYPE_ENG, TokenBuffer.GROUP_CATEG, 4);
+
+        buffer.sortByOffset();
+
+        assertEquals("a@0:1:3 ab@0:2:1 ab@0:2:2 c@2:3:4 ab@3:5:0", describe(buffer));
+    }
+
+    @Test
+    public void testDropDuplicatesKeepsFirstOfSameTermAndOffsets() {
+        TokenBuffer buffer = new TokenBuffer();
+        buffer.reset("t-ara");
+        buffer.add(0, 5, TokenBuffer.TYPE_VOCAB, TokenBuffer.GROUP_VOCAB, 0);
+        int termOffset = buffer.reserveTerm(4);
+        "tara".getChars(0, 4, buffer.chars(), termOffset);
+        buffer.addSynthesized(0, 5, TokenBuffer.TYPE_VOCAB_CONCAT, TokenBuffer.GROUP_VOCAB, 1, termOffset, 4);
+        buffer.add(0, 5, TokenBuffer.TYPE_NORD, TokenBuffer.GROUP_CATEG, 2);
+        buffer.add(0, 1, TokenBuffer.TYPE_ENG, TokenBuffer.GROUP_CATEG, 3);
+
+        buffer.dropDuplicates();
+
+        assertEquals("t-ara@0:5:0 tara@0:5:1 t@0:1:3", describe(buffer));
+    }
+
+    @Test
+    public void testBufferIsReusableAcrossInputs() {
+        TokenBuffer buffer = new TokenBuffer();
+        StringBuilder text = new StringBuilder();
+        for (int index = 0; index < 500; index++) {
+            text.append("ab ");
+        }
+        buffer.reset(text);
+        for (int index = 0; index < 500; index++) {
+            buffer.add(index * 3, index * 3 + 2, TokenBuffer.TYPE_ENG, TokenBuffer.GROUP_CATEG, index);
+        }
+        assertEquals(500, buffer.size());
+
+        buffer.reset("xy");
+        buffer.add(0, 2, TokenBuffer.TYPE_ENG, TokenBuffer.GROUP_CATEG, 0);
+        buffer.markRemoved(0);
+        buffer.add(1, 2, TokenBuffer.TYPE_ENG, TokenBuffer.GROUP_CATEG, 1);
+        buffer.compact();
+
+        assertEquals("y@1:2:1", describe(buffer));
+        assertEquals("eng", buffer.typeName(0));
+        assertEquals("categ", buffer.groupName(0));
+    }
+
+    private static String describe(TokenBuffer buffer) {
+        StringBuilder builder = new StringBuilder();
+        for (int index = 0; index < buffer.size(); index++) {
+            if (index > 0) {
+                builder.append(' ');
+            }
+            builder.append(buffer.termToString(index))
+                    .append('@').append(buffer.startOffset(index))
+                    .append(':').append(buffer.endOffset(index))
+                    .append(':').append(buffer.position(index));
+        }
+        return builder.toString();
+    }
+}
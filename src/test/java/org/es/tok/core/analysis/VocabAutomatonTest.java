@@ -0,0 +1,93 @@
+package org.es.tok.core.analysis;
+
+import org.es.tok.strategy.TokenStrategy;
+import org.es.tok.strategy.VocabStrategy;
+import org.es.tok.vocab.VocabAutomaton;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VocabAutomatonTest {
+
+    @Test
+    public void testMatchesOverlappingAndNestedVocabs() {
+        VocabAutomaton automaton = VocabAutomaton.build(List.of("自然", "自然语言", "语言", "语言处理", "言"));
+
+        Set<String> matches = match(automaton, "自然语言处理");
+
+        assertEquals(Set.of("0:2", "0:4", "2:4", "2:6", "3:4"), matches);
+    }
+
+    @Test
+    public void testTrimsSkipsBlankAndCollapsesDuplicateWords() {
+        VocabAutomaton automaton = VocabAutomaton.build(Arrays.asList(" abc ", "abc", "", "   ", null, "bc"));
+
+        assertEquals(2, automaton.getKeywordCount());
+        assertEquals(Set.of("0:3", "1:3"), match(automaton, "abc"));
+    }
+
+    @Test
+    public void testMatchesAgreeWithBruteForceSubstringSearch() {
+        Random random = new Random(20240611L);
+        String alphabet = "ab-中文字言";
+        for (int round = 0; round < 500; round++) {
+            List<String> words = new ArrayList<>();
+            int wordCount = 1 + random.nextInt(40);
+            for (int index = 0; index < wordCount; index++) {
+                words.add(randomText(random, alphabet, 1 + random.nextInt(5)));
+            }
+            String text = randomText(random, alphabet, random.nextInt(80));
+
+            Set<String> expected = new TreeSet<>();
+            Set<String> vocab = new HashSet<>(words);
+            for (int start = 0; start < text.length(); start++) {
+                for (int end = start + 1; end <= text.length(); end++) {
+                    if (vocab.contains(text.substring(start, end))) {
+                        expected.add(start + ":" + end);
+                    }
+                }
+            }
+
+            assertEquals(words + " / " + text, expected, match(VocabAutomaton.build(words), text));
+        }
+    }
+
+    @Test
+    public void testVocabStrategyKeepsBoundaryFilteringAndConcatTokens() {
+        VocabStrategy strategy = new VocabStrategy(List.of("est", "t-ara"));
+
+        List<TokenStrategy.TokenInfo> tokens = strategy.tokenize("testing t-ara");
+        List<String> texts = new ArrayList<>();
+        for (TokenStrategy.TokenInfo token : tokens) {
+            texts.add(token.getText() + "@" + token.getStartOffset() + ":" + token.getEndOffset());
+        }
+
+        assertTrue(texts.contains("t-ara@8:13"));
+        assertTrue(texts.contains("tara@8:13"));
+        assertEquals(2, texts.size());
+    }
+
+    private static Set<String> match(VocabAutomaton automaton, String text) {
+        Set<String> matches = new TreeSet<>();
+        char[] chars = text.toCharArray();
+        automaton.match(chars, 0, chars.length, (start, end) -> matches.add(start + ":" + end));
+        return matches;
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int index = 0; index < length; index++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+}
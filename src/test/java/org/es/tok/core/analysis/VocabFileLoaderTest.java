@@ -1,8 +1,12 @@
 package org.es.tok.core.analysis;
 
 import org.elasticsearch.common.settings.Settings;
+import org.es.tok.vocab.VocabCache;
+import org.es.tok.vocab.VocabConfig;
+import org.es.tok.vocab.VocabFingerprint;
 import org.es.tok.vocab.VocabLoader;
 import org.es.tok.vocab.VocabFileLoader;
+import org.es.tok.vocab.VocabRegistry;
 import org.junit.Test;
 
 import java.nio.file.Files;
@@ -11,6 +15,8 @@ import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class VocabFileLoaderTest {
@@ -41,4 +47,55 @@ public class VocabFileLoaderTest {
             Files.deleteIfExists(vocabFile);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFingerprintIsComputedWhileLoadingListAndFile() throws Exception {
+        Path vocabFile = Files.createTempFile("es-tok-vocab", ".txt");
+        try {
+            Files.writeString(vocabFile, "自然语言,10\n语言处理,9\n处理技术,8\n");
+            Settings settings = Settings.builder()
+                .put("use_vocab", true)
+                .putList("vocab_config.list", "深度学习")
+                .put("vocab_config.file", vocabFile.toString())
+                .put("vocab_config.size", 3)
+                .build();
+
+            VocabConfig config = VocabLoader.loadVocabConfig(settings, null, false);
+
+            List<String> expected = List.of("深度学习", "自然语言", "语言处理");
+            assertEquals(expected, config.getVocabs());
+            assertEquals(VocabFingerprint.of(expected), config.getVocabHash());
+            // Only cached loads are shared through the registry
+            assertNull(VocabRegistry.get(config.getVocabHash()));
+
+            VocabConfig cached = VocabLoader.loadVocabConfig(settings, null, true);
+            assertEquals(config.getVocabHash(), cached.getVocabHash());
+            assertSame(cached.getVocabs(), VocabRegistry.get(cached.getVocabHash()).vocabs());
+        } finally {
+            VocabCache.clearCache();
+            Files.deleteIfExists(vocabFile);
+        }
+    }
+
+    @Test
+    public void testSameVocabContentSharesRegistryEntry() throws Exception {
+        Path vocabFile = Files.createTempFile("es-tok-vocab", ".txt");
+        try {
+            Files.writeString(vocabFile, "红警,3\n星际,2\n");
+            VocabConfig fromFile = VocabLoader.loadVocabConfig(Settings.builder()
+                .put("use_vocab", true)
+                .put("vocab_config.file", vocabFile.toString())
+                .build(), null, true);
+            VocabConfig fromList = VocabLoader.loadVocabConfig(Settings.builder()
+                .put("use_vocab", true)
+                .putList("vocab_config.list", "红警", "星际")
+                .build(), null, true);
+
+            assertEquals(fromFile.getVocabHash(), fromList.getVocabHash());
+            assertSame(fromFile.getVocabs(), fromList.getVocabs());
+            assertSame(fromFile.getOrCreateStrategy(), fromList.getOrCreateStrategy());
+        } finally {
+            Files.deleteIfExists(vocabFile);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.es.tok.core.analysis;
+
+import org.elasticsearch.common.settings.Settings;
+import org.es.tok.strategy.TokenStrategy;
+import org.es.tok.strategy.VocabStrategy;
+import org.es.tok.vocab.VocabConfig;
+import org.es.tok.vocab.VocabFingerprint;
+import org.es.tok.vocab.VocabImage;
+import org.es.tok.vocab.VocabLoader;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class VocabImageTest {
+    private static final List<String> VOCABS = List.of("自然语言", "语言处理", "处理技术", "deep learning", "t-ara");
+
+    @Test
+    public void testCompiledImageMatchesLikeInMemoryVocab() throws Exception {
+        Path image = Files.createTempFile("es-tok-vocab", ".bin");
+        try {
+            VocabImage.compile(VOCABS, image);
+            VocabImage opened = VocabImage.open(image);
+
+            assertTrue(opened.getAutomaton().isMapped());
+            assertEquals(0L, opened.getAutomaton().ramBytesUsed());
+            assertEquals(VocabFingerprint.of(VOCABS), opened.getFingerprint());
+
+            String text = "自然语言处理技术 deep learning t-ara";
+            assertEquals(
+                    describe(new VocabStrategy(VOCABS).tokenize(text)),
+                    describe(new VocabStrategy(opened.getAutomaton()).tokenize(text)));
+        } finally {
+            Files.deleteIfExists(image);
+        }
+    }
+
+    @Test
+    public void testVocabLoaderUsesImageSetting() throws Exception {
+        Path image = Files.createTempFile("es-tok-vocab", ".bin");
+        try {
+            VocabImage.compile(VOCABS, image);
+            Settings settings = Settings.builder()
+                    .put("use_vocab", true)
+                    .put("vocab_config.image", image.toString())
+                    .build();
+
+            VocabConfig config = VocabLoader.loadVocabConfig(settings, null, false);
+
+            assertNotNull(config.getImage());
+            assertTrue(config.getVocabs().isEmpty());
+            assertEquals(VOCABS.size(), config.getImage().getAutomaton().getKeywordCount());
+            assertNotNull(config.getOrCreateStrategy());
+        } finally {
+            Files.deleteIfExists(image);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpenRejectsNonImageFile() throws Exception {
+        Path notImage = Files.createTempFile("es-tok-vocab", ".txt");
+        try {
+            Files.writeString(notImage, "自然语言,10\n".repeat(20));
+            VocabImage.open(notImage);
+        } finally {
+            Files.deleteIfExists(notImage);
+        }
+    }
+
+    private static List<String> describe(List<TokenStrategy.TokenInfo> tokens) {
+        return tokens.stream()
+                .map(token -> token.getText() + "@" + token.getStartOffset() + ":" + token.getEndOffset()
+                        + ":" + token.getType())
+                .collect(Collectors.toList());
+    }
+}
@@ -1042,4 +1042,190 @@ public class AnalyzeRulesTest {
         assertTrue(rules.shouldExclude("走了", allTokenTexts));
         assertFalse(rules.shouldExclude("安静", allTokenTexts));
     }
+
+    @Test
+    public void testPatternsOutsideAutomatonSubset() {
+        AnalyzeRules rules = new AnalyzeRules(
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Arrays.asList("(?i)abc", "(\\w)\\1+", "foo(?=bar).*", "^\\d{2,3}$"),
+                Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList());
+        assertTrue(rules.shouldExclude("ABC"));
+        assertTrue(rules.shouldExclude("aaaa"));
+        assertTrue(rules.shouldExclude("foobar"));
+        assertTrue(rules.shouldExclude("123"));
+        assertFalse(rules.shouldExclude("abd"));
+        assertFalse(rules.shouldExclude("ab"));
+        assertFalse(rules.shouldExclude("foobaz"));
+        assertFalse(rules.shouldExclude("1234"));
+    }
+
+    @Test
+    public void testCompileIsIdempotent() {
+        AnalyzeRules rules = new AnalyzeRules(
+                Arrays.asList("bad"), Arrays.asList("pre_"), Arrays.asList("_suf"), Arrays.asList("mid"),
+                Arrays.asList("^\\d+$"),
+                Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList());
+        assertSame(rules, rules.compile());
+        assertSame(rules, rules.compile());
+        assertTrue(rules.shouldExclude("bad"));
+        assertTrue(rules.shouldExclude("pre_x"));
+        assertTrue(rules.shouldExclude("x_suf"));
+        assertTrue(rules.shouldExclude("amidst"));
+        assertTrue(rules.shouldExclude("42"));
+        assertFalse(rules.shouldExclude("good"));
+    }
+
+    @Test
+    public void testLargeRuleSetsMatchLinearScan() {
+        Random random = new Random(7);
+        for (int round = 0; round < 5; round++) {
+            AnalyzeRules rules = randomRules(random, 500);
+            List<String> tokens = randomTokens(random, 2000);
+            Set<String> allTokenTexts = new HashSet<>(tokens);
+            for (String token : tokens) {
+                assertEquals(token, linearShouldExclude(rules, token, allTokenTexts),
+                        rules.shouldExclude(token, allTokenTexts));
+            }
+        }
+    }
+
+    @Test
+    public void testSupplementarySuffixes() {
+        AnalyzeRules rules = new AnalyzeRules(
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Arrays.asList("\uD83D\uDE00"),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Arrays.asList("\uD801\uDC28"));
+        assertTrue(rules.shouldExclude("ok\uD83D\uDE00"));
+        assertFalse(rules.shouldExclude("\uD83D\uDE00ok"));
+
+        Set<String> allTokenTexts = new HashSet<>(Arrays.asList("安静", "安静\uD801\uDC28"));
+        assertTrue(rules.shouldExclude("安静\uD801\uDC28", allTokenTexts));
+        assertFalse(rules.shouldExclude("安静", allTokenTexts));
+    }
+
+    // ===== Linear scan reference for large rule sets =====
+
+    private static final String RANDOM_CJK = "的了是不在有人这中大为上个国我以要他时来用们生到作地于出就分对成会可主发年动同工也能下过子说产种面而方后多定行学法所民得经";
+    private static final String RANDOM_LATIN = "abcdefghijklmnopqrstuvwxyz0123456789_-";
+
+    /** Scans every rule for every token, as the rules were applied before they were compiled. */
+    private static boolean linearShouldExclude(AnalyzeRules rules, String token, Set<String> allTokenTexts) {
+        if (token == null || token.isEmpty()) {
+            return false;
+        }
+        if (linearMatches(token, rules.getIncludeTokens(), rules.getIncludePrefixes(), rules.getIncludeSuffixes(),
+                rules.getIncludeContains(), rules.getIncludePatterns())) {
+            return false;
+        }
+        if (linearMatches(token, rules.getExcludeTokens(), rules.getExcludePrefixes(), rules.getExcludeSuffixes(),
+                rules.getExcludeContains(), rules.getExcludePatterns())) {
+            return true;
+        }
+        for (String prefix : rules.getDecludePrefixes()) {
+            if (token.length() > prefix.length() && token.startsWith(prefix)
+                    && allTokenTexts.contains(token.substring(prefix.length()))) {
+                return true;
+            }
+        }
+        for (String suffix : rules.getDecludeSuffixes()) {
+            if (token.length() > suffix.length() && token.endsWith(suffix)
+                    && allTokenTexts.contains(token.substring(0, token.length() - suffix.length()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean linearMatches(String token, Collection<String> tokens, List<String> prefixes,
+            List<String> suffixes, List<String> contains, List<String> patterns) {
+        return tokens.contains(token)
+                || prefixes.stream().anyMatch(token::startsWith)
+                || suffixes.stream().anyMatch(token::endsWith)
+                || contains.stream().anyMatch(token::contains)
+                || patterns.stream().anyMatch(pattern -> linearPatternMatches(pattern, token));
+    }
+
+    private static boolean linearPatternMatches(String pattern, String token) {
+        try {
+            return pattern != null && !pattern.isEmpty() && token.matches(pattern);
+        } catch (java.util.regex.PatternSyntaxException e) {
+            // Skipped, like AnalyzeRules does
+            return false;
+        }
+    }
+
+    /**
+     * Rule set with {@code rulesPerKind} tokens, prefixes, suffixes and contains
+     * rules each for exclude, a tenth as many for include and declude, and
+     * regex patterns that mostly translate to automata plus a few that do not.
+     */
+    private static AnalyzeRules randomRules(Random random, int rulesPerKind) {
+        int minorKind = Math.max(1, rulesPerKind / 10);
+        List<String> excludePatterns = new ArrayList<>();
+        List<String> includePatterns = new ArrayList<>();
+        for (int index = 0; index < minorKind; index++) {
+            String word = randomWord(random, RANDOM_CJK, 1, 2);
+            excludePatterns.add(switch (index % 5) {
+                case 0 -> word + "\\d{1,3}";
+                case 1 -> "[a-z]{2,4}" + word;
+                case 2 -> "(?:" + word + "|" + randomWord(random, RANDOM_LATIN, 2, 3) + ")[_-]?\\w+";
+                case 3 -> "^" + randomWord(random, RANDOM_LATIN, 1, 2) + "\\d+$";
+                default -> ".*" + word + ".*" + randomWord(random, RANDOM_CJK, 1, 1);
+            });
+            includePatterns.add(index % 20 == 0 ? "(?i)" + randomWord(random, RANDOM_LATIN, 3, 4) : word + "[^\\s]{3}");
+        }
+        excludePatterns.add("(\\w)\\1+");
+        return new AnalyzeRules(
+                randomWords(random, rulesPerKind, RANDOM_CJK, 1, 3),
+                randomWords(random, rulesPerKind, RANDOM_CJK + RANDOM_LATIN, 2, 4),
+                randomWords(random, rulesPerKind, RANDOM_CJK + RANDOM_LATIN, 2, 4),
+                randomWords(random, rulesPerKind, RANDOM_CJK, 3, 4),
+                excludePatterns,
+                randomWords(random, minorKind, RANDOM_CJK, 2, 3),
+                randomWords(random, minorKind, RANDOM_CJK, 3, 4),
+                randomWords(random, minorKind, RANDOM_CJK, 3, 4),
+                randomWords(random, minorKind, RANDOM_CJK, 4, 5),
+                includePatterns,
+                randomWords(random, minorKind, RANDOM_CJK, 1, 1),
+                randomWords(random, minorKind, RANDOM_CJK, 1, 1));
+    }
+
+    private static List<String> randomTokens(Random random, int count) {
+        List<String> tokens = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            tokens.add(index % 4 == 0 ? randomWord(random, RANDOM_LATIN, 2, 8) : randomWord(random, RANDOM_CJK, 1, 6));
+        }
+        return tokens;
+    }
+
+    private static List<String> randomWords(Random random, int count, String alphabet, int minLength, int maxLength) {
+        List<String> words = new ArrayList<>(count);
+        for (int index = 0; index < count; index++) {
+            words.add(randomWord(random, alphabet, minLength, maxLength));
+        }
+        return words;
+    }
+
+    private static String randomWord(Random random, String alphabet, int minLength, int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        StringBuilder word = new StringBuilder(length);
+        for (int index = 0; index < length; index++) {
+            word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return word.toString();
+    }
 }
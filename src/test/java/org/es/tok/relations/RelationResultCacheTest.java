@@ -0,0 +1,113 @@
+package org.es.tok.relations;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.Index;
+import org.es.tok.suggest.SourceBackedRelatedOwnersService;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RelationResultCacheTest {
+    private static final Index INDEX = new Index("videos", "videos-uuid");
+    private static final SourceBackedEntityRelationsService.RelationResult RESULT = new SourceBackedEntityRelationsService.RelationResult(
+            List.of(new SourceBackedEntityRelationsService.RelatedVideoResult("BV1", "zebra", 7L, "owner", 2, 3.0f)),
+            List.of());
+
+    @Test
+    public void testSeedsInAnyOrderShareOneCanonicalEntry() throws Exception {
+        RelationResultCache cache = new RelationResultCache(ByteSizeValue.ofMb(1), ByteSizeValue.ofMb(1));
+        List<List<String>> loadedSeeds = new ArrayList<>();
+        RelationResultCache.RelationsLoader loader = (bvids, mids) -> {
+            loadedSeeds.add(bvids);
+            return RESULT;
+        };
+        try (Directory directory = indexWithOneDocument(); DirectoryReader reader = DirectoryReader.open(directory)) {
+            RelationResultCache.CachedResult<SourceBackedEntityRelationsService.RelationResult> first = cache.relations(
+                    reader, INDEX, "related_videos_by_videos", List.of("BV2", "BV1", "BV2"), List.of(), 10, 128, true, loader);
+            RelationResultCache.CachedResult<SourceBackedEntityRelationsService.RelationResult> second = cache.relations(
+                    reader, INDEX, "related_videos_by_videos", List.of("BV1", "BV2"), List.of(), 10, 128, true, loader);
+            RelationResultCache.CachedResult<SourceBackedEntityRelationsService.RelationResult> otherSize = cache.relations(
+                    reader, INDEX, "related_videos_by_videos", List.of("BV1", "BV2"), List.of(), 5, 128, true, loader);
+
+            assertFalse(first.cacheHit());
+            assertTrue(second.cacheHit());
+            assertSame(RESULT, second.value());
+            assertFalse(otherSize.cacheHit());
+            assertEquals(List.of(List.of("BV1", "BV2"), List.of("BV1", "BV2")), loadedSeeds);
+            assertEquals(2L, cache.stats().entries());
+        }
+    }
+
+    @Test
+    public void testDisabledCacheAlwaysComputes() throws Exception {
+        RelationResultCache cache = new RelationResultCache(ByteSizeValue.ofMb(1), ByteSizeValue.ofMb(1));
+        AtomicInteger loads = new AtomicInteger();
+        try (Directory directory = indexWithOneDocument(); DirectoryReader reader = DirectoryReader.open(directory)) {
+            for (int attempt = 0; attempt < 2; attempt++) {
+                RelationResultCache.CachedResult<List<SourceBackedRelatedOwnersService.RelatedOwnerResult>> result = cache.relatedOwners(
+                        reader, INDEX, List.of("title.words"), "zebra", 10, 128, false, () -> {
+                            loads.incrementAndGet();
+                            return List.of(new SourceBackedRelatedOwnersService.RelatedOwnerResult(7L, "owner", 1, 1.0f));
+                        });
+                assertFalse(result.cacheHit());
+            }
+        }
+        assertEquals(2, loads.get());
+        assertEquals(0L, cache.stats().entries());
+    }
+
+    @Test
+    public void testResultsAreRecomputedInTheNextRecencyBucket() throws Exception {
+        AtomicLong nowMillis = new AtomicLong(RelationResultCache.RECENCY_BUCKET.toMillis() * 100);
+        RelationResultCache cache = new RelationResultCache(ByteSizeValue.ofMb(1), ByteSizeValue.ofMb(1), nowMillis::get);
+        AtomicInteger loads = new AtomicInteger();
+        RelationResultCache.RelationsLoader loader = (bvids, mids) -> {
+            loads.incrementAndGet();
+            return RESULT;
+        };
+        try (Directory directory = indexWithOneDocument(); DirectoryReader reader = DirectoryReader.open(directory)) {
+            assertFalse(cache.relations(reader, INDEX, "related_owners_by_videos", List.of("BV1"), List.of(), 10, 128, true, loader).cacheHit());
+            nowMillis.addAndGet(RelationResultCache.RECENCY_BUCKET.toMillis() - 1);
+            assertTrue(cache.relations(reader, INDEX, "related_owners_by_videos", List.of("BV1"), List.of(), 10, 128, true, loader).cacheHit());
+            // The reader is unchanged, but the recency scores of the cached result are now stale
+            nowMillis.incrementAndGet();
+            assertFalse(cache.relations(reader, INDEX, "related_owners_by_videos", List.of("BV1"), List.of(), 10, 128, true, loader).cacheHit());
+        }
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testClosedReaderDropsItsResults() throws Exception {
+        RelationResultCache cache = new RelationResultCache(ByteSizeValue.ofMb(1), ByteSizeValue.ofMb(1));
+        try (Directory directory = indexWithOneDocument()) {
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                cache.relatedOwners(reader, INDEX, List.of("title.words"), "zebra", 10, 128, true, List::of);
+                assertEquals(1L, cache.stats().entries());
+            }
+            assertEquals(0L, cache.stats().entries());
+        }
+    }
+
+    private static Directory indexWithOneDocument() throws Exception {
+        Directory directory = new ByteBuffersDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+            writer.addDocument(new Document());
+        }
+        return directory;
+    }
+}
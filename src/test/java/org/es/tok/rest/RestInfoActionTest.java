@@ -1,54 +1,111 @@
 package org.es.tok.rest;
 
+import org.elasticsearch.core.TimeValue;
 import org.es.tok.suggest.PinyinWarmupIndexListener;
+import org.es.tok.suggest.TinyLfuCache;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 public class RestInfoActionTest {
 
     @Test
     public void testReadySnapshotUsesSharedVersionFieldNames() {
-        RestInfoAction action = new RestInfoAction(() -> new PinyinWarmupIndexListener.WarmupSummary(8, 8, 0, 0));
+        RestInfoAction action = RestInfoAction.builder()
+                .warmupSummary(() -> new PinyinWarmupIndexListener.WarmupSummary(8, 8, 0, 0))
+                .build();
         RestInfoAction.InfoSnapshot snapshot = action.buildInfoSnapshot("/_cat/es_tok");
 
         assertEquals("es_tok", snapshot.plugin());
         assertEquals("Ready", snapshot.status());
         assertEquals("1.0.0", snapshot.pluginVersion());
-        assertNotNull(snapshot.analysisHash());
-        assertEquals("disabled", snapshot.vocabHash());
-        assertEquals("disabled", snapshot.rulesHash());
-        assertEquals(8, snapshot.warmupReadyShards());
-        assertEquals(8, snapshot.warmupTotalShards());
-        assertEquals(0, snapshot.warmupRunningShards());
-        assertEquals(0, snapshot.warmupQueuedShards());
+        assertNotNull(snapshot.version().getAnalysisHash());
+        assertEquals("disabled", snapshot.version().getVocabHash());
+        assertEquals("disabled", snapshot.version().getRulesHash());
+        assertEquals(8, snapshot.warmup().readyShards());
+        assertEquals(8, snapshot.warmup().totalShards());
+        assertEquals(0, snapshot.warmup().runningShards());
+        assertEquals(0, snapshot.warmup().queuedShards());
+        assertTrue(snapshot.pinyinKeyCache().hits() >= 0);
+        assertTrue(snapshot.pinyinKeyCache().misses() >= 0);
+        assertTrue(snapshot.pinyinKeyCache().hitRate() >= 0.0d);
     }
 
     @Test
     public void testVersionSnapshotSwitchesStatusToPluginVersion() {
-        RestInfoAction action = new RestInfoAction(() -> new PinyinWarmupIndexListener.WarmupSummary(8, 8, 0, 0));
+        RestInfoAction action = RestInfoAction.builder()
+                .warmupSummary(() -> new PinyinWarmupIndexListener.WarmupSummary(8, 8, 0, 0))
+                .build();
         RestInfoAction.InfoSnapshot ready = action.buildInfoSnapshot("/_cat/es_tok");
         RestInfoAction.InfoSnapshot version = action.buildInfoSnapshot("/_cat/es_tok/version");
 
         assertEquals(version.pluginVersion(), version.status());
         assertNotEquals(ready.status(), version.status());
-        assertEquals(ready.analysisHash(), version.analysisHash());
-        assertEquals(ready.vocabHash(), version.vocabHash());
-        assertEquals(ready.rulesHash(), version.rulesHash());
+        assertEquals(ready.version().getAnalysisHash(), version.version().getAnalysisHash());
+        assertEquals(ready.version().getVocabHash(), version.version().getVocabHash());
+        assertEquals(ready.version().getRulesHash(), version.version().getRulesHash());
     }
 
     @Test
     public void testReadySnapshotShowsWarmupProgressWhenBusinessShardsStillWarming() {
-        RestInfoAction action = new RestInfoAction(() -> new PinyinWarmupIndexListener.WarmupSummary(8, 3, 2, 3));
+        RestInfoAction action = RestInfoAction.builder()
+                .warmupSummary(() -> new PinyinWarmupIndexListener.WarmupSummary(8, 3, 2, 3))
+                .build();
         RestInfoAction.InfoSnapshot snapshot = action.buildInfoSnapshot("/_cat/es_tok");
 
         assertEquals("Warming 3/8", snapshot.status());
-        assertEquals(3, snapshot.warmupReadyShards());
-        assertEquals(8, snapshot.warmupTotalShards());
-        assertEquals(2, snapshot.warmupRunningShards());
-        assertEquals(3, snapshot.warmupQueuedShards());
+        assertEquals(3, snapshot.warmup().readyShards());
+        assertEquals(8, snapshot.warmup().totalShards());
+        assertEquals(2, snapshot.warmup().runningShards());
+        assertEquals(3, snapshot.warmup().queuedShards());
         assertEquals("ES-TOK plugin warmup in progress", snapshot.description());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSnapshotReportsSuggestCacheStats() {
+        RestInfoAction action = RestInfoAction.builder()
+                .warmupSummary(() -> new PinyinWarmupIndexListener.WarmupSummary(8, 8, 0, 0))
+                .suggestCacheStats(() -> new TinyLfuCache.Stats(30, 10, 2, 5, 5, 4096, 1 << 20))
+                .build();
+        RestInfoAction.InfoSnapshot snapshot = action.buildInfoSnapshot("/_cat/es_tok");
+
+        assertEquals(30L, snapshot.suggestCache().hits());
+        assertEquals(10L, snapshot.suggestCache().misses());
+        assertEquals(2L, snapshot.suggestCache().evictions());
+        assertEquals(5L, snapshot.suggestCache().entries());
+        assertEquals(4096L, snapshot.suggestCache().weightedBytes());
+    }
+
+    @Test
+    public void testSnapshotReportsAnalysisCacheStats() {
+        RestInfoAction action = RestInfoAction.builder()
+                .warmupSummary(() -> new PinyinWarmupIndexListener.WarmupSummary(8, 8, 0, 0))
+                .analysisCacheStats(() -> new TinyLfuCache.Stats(90, 10, 3, 0, 40, 2048, 1 << 20))
+                .build();
+        RestInfoAction.InfoSnapshot snapshot = action.buildInfoSnapshot("/_cat/es_tok");
+
+        assertEquals(90L, snapshot.analysisCache().hits());
+        assertEquals(10L, snapshot.analysisCache().misses());
+        assertEquals(0.9d, snapshot.analysisCache().hitRate(), 0.0d);
+        assertEquals(3L, snapshot.analysisCache().evictions());
+        assertEquals(40L, snapshot.analysisCache().entries());
+        assertEquals(2048L, snapshot.analysisCache().weightedBytes());
+    }
+
+    @Test
+    public void testSnapshotReportsRewarmStats() {
+        RestInfoAction action = RestInfoAction.builder()
+                .warmupSummary(() -> new PinyinWarmupIndexListener.WarmupSummary(
+                        8, 8, 0, 0, 12, 30, TimeValue.timeValueMillis(900), TimeValue.timeValueMillis(40)))
+                .build();
+        RestInfoAction.InfoSnapshot snapshot = action.buildInfoSnapshot("/_cat/es_tok");
+
+        assertEquals(12L, snapshot.warmup().rewarms());
+        assertEquals(30L, snapshot.warmup().coalescedRefreshes());
+        assertEquals(TimeValue.timeValueMillis(900), snapshot.warmup().rewarmTime());
+        assertEquals(TimeValue.timeValueMillis(40), snapshot.warmup().lastRewarmTime());
+    }
+}
@@ -0,0 +1,60 @@
+package org.es.tok.rest;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.es.tok.action.EsTokMultiRequest;
+import org.es.tok.action.EsTokSuggestRequest;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RestMultiSuggestActionTest {
+
+    @Test
+    public void testEachLineOverridesUrlDefaults() {
+        String content = """
+                {"text": "黑神", "mode": "prefix"}
+
+                {"text": "原神", "size": 3, "fields": ["title.suggest"]}
+                """;
+
+        List<Map<String, Object>> payloads = RestMultiSuggestAction.parseMultiPayloads(
+                content,
+                Map.of("fields", "title.suggest,tags.suggest", "size", 5));
+
+        assertEquals(2, payloads.size());
+        EsTokSuggestRequest first = RestSuggestAction.buildRequest(payloads.get(0), new String[] { "videos" });
+        EsTokSuggestRequest second = RestSuggestAction.buildRequest(payloads.get(1), new String[] { "videos" });
+        assertEquals("黑神", first.text());
+        assertEquals(List.of("title.suggest", "tags.suggest"), first.fields());
+        assertEquals(5, first.size());
+        assertEquals("原神", second.text());
+        assertEquals(List.of("title.suggest"), second.fields());
+        assertEquals(3, second.size());
+    }
+
+    @Test
+    public void testMultiRequestRoundTripAndItemValidation() throws Exception {
+        EsTokMultiRequest<EsTokSuggestRequest> request = new EsTokMultiRequest<>("videos");
+        request.add(new EsTokSuggestRequest("videos").text("黑神").fields(List.of("title.suggest")));
+        request.add(new EsTokSuggestRequest("videos").text("原神").fields(List.of("title.suggest")).size(3));
+        assertNull(request.validate());
+
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            request.writeTo(out);
+            EsTokMultiRequest<EsTokSuggestRequest> read = new EsTokMultiRequest<>(out.bytes().streamInput(), EsTokSuggestRequest::new);
+            assertEquals(2, read.items().size());
+            assertEquals("原神", read.items().get(1).text());
+            assertEquals(3, read.items().get(1).size());
+        }
+
+        request.add(new EsTokSuggestRequest("videos").fields(List.of("title.suggest")));
+        assertNotNull(request.validate());
+        assertTrue(request.validate().validationErrors().contains("[2] text cannot be empty"));
+    }
+}
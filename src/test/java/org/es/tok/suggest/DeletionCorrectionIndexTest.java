@@ -0,0 +1,31 @@
+package org.es.tok.suggest;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeletionCorrectionIndexTest {
+
+    @Test
+    public void testFindsTermsWithinEditDistanceAnywhereInToken() {
+        DeletionCorrectionIndex index = DeletionCorrectionIndex.build(List.of("影视飓风", "原神", "黑神话悟空"));
+
+        assertTrue(index.candidates("影视剧风", 1).contains("影视飓风"));
+        assertTrue(index.candidates("元神", 1).contains("原神"));
+        assertTrue(index.candidates("影视风", 1).contains("影视飓风"));
+        assertTrue(index.candidates("影视飓风啊", 1).contains("影视飓风"));
+        assertFalse(index.candidates("元申", 1).contains("原神"));
+    }
+
+    @Test
+    public void testSecondEditNeedsMaxEditsOfTwo() {
+        DeletionCorrectionIndex index = DeletionCorrectionIndex.build(List.of("影视飓风", "原神"));
+
+        assertFalse(index.candidates("英视剧风", 1).contains("影视飓风"));
+        assertEquals(List.of("影视飓风"), index.candidates("英视剧风", 2));
+    }
+}
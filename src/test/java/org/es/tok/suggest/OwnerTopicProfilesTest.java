@@ -0,0 +1,196 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.shard.ShardId;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class OwnerTopicProfilesTest {
+    private static final OwnerTopicProfiles.Spec SPEC = new OwnerTopicProfiles.Spec(
+            List.of(new OwnerTopicProfiles.TopicField("title.words", 5.0d), new OwnerTopicProfiles.TopicField("tags.words", 4.0d)),
+            IndexNumericFieldData.NumericType.LONG,
+            IndexNumericFieldData.NumericType.LONG,
+            null);
+
+    private static final ShardId SHARD = shard("videos");
+
+    private OwnerTopicProfileCache cache = new OwnerTopicProfileCache();
+
+    @Test
+    public void testProfilesAggregateOwnerVideosAcrossSegments() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE))) {
+                writer.addDocument(video("1", 7L, 100L, 10L, "zebra github", "zebra"));
+                writer.addDocument(video("2", 8L, 150L, 5L, "apple", "apple"));
+                writer.commit();
+                writer.addDocument(video("3", 7L, 300L, 20L, "zebra 2024", "github"));
+                writer.addDocument(video("4", 7L, 200L, 1L, "ignored", "ignored"));
+                writer.deleteDocuments(new Term("id", "4"));
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                assertEquals(2, reader.leaves().size());
+                assertNull(cache.peek(SHARD, reader, SPEC));
+
+                OwnerTopicProfiles profiles = cache.build(SHARD, reader, SPEC);
+                assertSame(profiles, cache.peek(SHARD, reader, SPEC));
+                assertEquals(2, profiles.size());
+
+                OwnerTopicProfiles.OwnerProfile owner = profiles.profile(7L);
+                assertEquals(2, owner.videoCount());
+                assertEquals(30L, owner.totalViews());
+                assertEquals(List.of(300L, 100L), owner.recentInsertAt());
+                assertEquals(300L, owner.latestInsertAt());
+                // zebra: title and tags of video 1 plus the title of video 3, counted once per video
+                assertEquals(new OwnerTopicProfiles.TopicToken("zebra", 14.0d, 2), owner.tokens().get(0));
+                assertEquals(new OwnerTopicProfiles.TopicToken("github", 9.0d, 2), owner.tokens().get(1));
+                // Numbers and deleted videos never become topic tokens
+                assertEquals(2, owner.tokens().size());
+
+                assertEquals(List.of(new OwnerTopicProfiles.TopicToken("apple", 9.0d, 1)), profiles.profile(8L).tokens());
+                assertNull(profiles.profile(9L));
+            }
+        }
+    }
+
+    @Test
+    public void testDeletesAreSubtractedFromCachedSegments() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory();
+                IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE))) {
+            writer.addDocument(video("1", 7L, 100L, 10L, "zebra github", "zebra"));
+            writer.addDocument(video("2", 8L, 150L, 5L, "apple", "apple"));
+            writer.addDocument(video("5", 7L, 400L, 7L, "kiwi zebra", "kiwi"));
+            writer.commit();
+            writer.addDocument(video("3", 7L, 300L, 20L, "zebra 2024", "github"));
+            writer.commit();
+
+            DirectoryReader first = DirectoryReader.open(writer);
+            OwnerTopicProfiles before = cache.build(SHARD, first, SPEC);
+            assertEquals(3, before.profile(7L).videoCount());
+            assertEquals(new OwnerTopicProfiles.TopicToken("zebra", 19.0d, 3), before.profile(7L).tokens().get(0));
+
+            writer.deleteDocuments(new Term("id", "5"));
+            DirectoryReader second = DirectoryReader.openIfChanged(first, writer);
+            first.close();
+            OwnerTopicProfiles afterDelete = cache.build(SHARD, second, SPEC);
+            OwnerTopicProfiles.OwnerProfile owner = afterDelete.profile(7L);
+            assertEquals(2, owner.videoCount());
+            assertEquals(30L, owner.totalViews());
+            assertEquals(List.of(300L, 100L), owner.recentInsertAt());
+            assertEquals(List.of(
+                    new OwnerTopicProfiles.TopicToken("zebra", 14.0d, 2),
+                    new OwnerTopicProfiles.TopicToken("github", 9.0d, 2)), owner.tokens());
+            // Owners without deleted videos keep the previous reader's merged profiles
+            assertSame(before.profile(8L), afterDelete.profile(8L));
+
+            writer.deleteDocuments(new Term("id", "2"));
+            DirectoryReader third = DirectoryReader.openIfChanged(second, writer);
+            second.close();
+            OwnerTopicProfiles afterSecondDelete = cache.build(SHARD, third, SPEC);
+            assertNull(afterSecondDelete.profile(8L));
+            assertSame(owner, afterSecondDelete.profile(7L));
+
+            // Corrections add up to what a build from scratch sees
+            cache.clear();
+            OwnerTopicProfiles rebuilt = cache.build(SHARD, third, SPEC);
+            assertEquals(rebuilt.profile(7L), afterSecondDelete.profile(7L));
+            assertEquals(1, rebuilt.size());
+            third.close();
+        }
+    }
+
+    @Test
+    public void testProfilesStayWithinTheCacheBudget() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+                writer.addDocument(video("1", 7L, 100L, 10L, "zebra github", "zebra"));
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                cache = new OwnerTopicProfileCache(ByteSizeValue.ofBytes(64));
+                OwnerTopicProfiles profiles = cache.build(SHARD, reader, SPEC);
+                assertEquals(new OwnerTopicProfiles.TopicToken("zebra", 9.0d, 1), profiles.profile(7L).tokens().get(0));
+                // Neither the segment nor the shard profiles fit, so nothing is cached
+                assertNull(cache.peek(SHARD, reader, SPEC));
+                assertEquals(0L, cache.stats().weightedBytes());
+
+                cache = new OwnerTopicProfileCache(ByteSizeValue.ofMb(1));
+                profiles = cache.build(SHARD, reader, SPEC);
+                assertSame(profiles, cache.peek(SHARD, reader, SPEC));
+                assertEquals(2L, cache.stats().entries());
+                assertTrue(cache.stats().weightedBytes() > profiles.ramBytesUsed());
+            }
+            // The shard's profiles outlive the reader, and only go with the shard
+            assertEquals(1L, cache.stats().entries());
+            cache.afterIndexShardClosed(SHARD, null, Settings.EMPTY);
+            assertEquals(0L, cache.stats().entries());
+        }
+    }
+
+    @Test
+    public void testNewReaderProfilesAreFoundInAFullCache() throws Exception {
+        List<ShardId> others = List.of(shard("a"), shard("b"), shard("c"));
+        try (Directory directory = new ByteBuffersDirectory();
+                IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE))) {
+            writer.addDocument(video("1", 7L, 100L, 10L, "zebra github", "zebra"));
+            writer.commit();
+            DirectoryReader first = DirectoryReader.open(writer);
+            cache.build(SHARD, first, SPEC);
+            long shardBytes = cache.stats().weightedBytes();
+
+            // Exactly room for the three other shards, which are all queried more often than the new reader
+            cache = new OwnerTopicProfileCache(ByteSizeValue.ofBytes(shardBytes * others.size()));
+            for (ShardId shardId : others) {
+                cache.build(shardId, first, SPEC);
+                for (int query = 0; query < 5; query++) {
+                    assertTrue(cache.peek(shardId, first, SPEC) != null);
+                }
+            }
+            assertEquals(shardBytes * others.size(), cache.stats().weightedBytes());
+
+            writer.addDocument(video("2", 8L, 150L, 5L, "apple", "apple"));
+            DirectoryReader second = DirectoryReader.openIfChanged(first, writer);
+            first.close();
+            OwnerTopicProfiles profiles = cache.build(SHARD, second, SPEC);
+            assertEquals(2, profiles.size());
+            assertSame(profiles, cache.peek(SHARD, second, SPEC));
+            assertTrue(cache.stats().weightedBytes() <= cache.stats().maxBytes());
+            second.close();
+        }
+    }
+
+    private static ShardId shard(String indexName) {
+        return new ShardId(new Index(indexName, indexName + "-uuid"), 0);
+    }
+
+    private static Document video(String id, long mid, long insertAt, long views, String title, String tags) {
+        Document document = new Document();
+        document.add(new StringField("id", id, Field.Store.NO));
+        document.add(new SortedNumericDocValuesField(VideoSignalReader.OWNER_MID_FIELD, mid));
+        document.add(new SortedNumericDocValuesField(VideoSignalReader.INSERT_AT_FIELD, insertAt));
+        document.add(new SortedNumericDocValuesField(VideoSignalReader.STAT_VIEW_FIELD, views));
+        document.add(new TextField("title.words", title, Field.Store.NO));
+        document.add(new TextField("tags.words", tags, Field.Store.NO));
+        return document;
+    }
+}
@@ -1,5 +1,13 @@
 package org.es.tok.suggest;
 
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
 import org.junit.Test;
 
 import java.util.List;
@@ -43,4 +51,36 @@ public class PinyinWarmupIndexListenerTest {
         assertFalse(PinyinWarmupIndexListener.shouldWarmIndex(".security-7"));
         assertFalse(PinyinWarmupIndexListener.shouldWarmIndex(null));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRewarmsOnlyReadersNotWarmedYet() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory();
+                IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new KeywordAnalyzer()))) {
+            addDocument(writer, "影视飓风");
+            PinyinWarmupIndexListener listener = new PinyinWarmupIndexListener();
+            try (DirectoryReader first = DirectoryReader.open(writer)) {
+                PinyinWarmupIndexListener.RewarmState rewarmState = new PinyinWarmupIndexListener.RewarmState(
+                        List.of("title.suggest"),
+                        first.getReaderCacheHelper().getKey(),
+                        1);
+                assertEquals(-1L, listener.rewarmIfChanged(rewarmState, first, 1));
+
+                addDocument(writer, "影视剧");
+                try (DirectoryReader second = DirectoryReader.openIfChanged(first, writer)) {
+                    assertTrue(listener.rewarmIfChanged(rewarmState, second, 4) >= 0);
+                    assertEquals(-1L, listener.rewarmIfChanged(rewarmState, second, 4));
+                }
+            }
+
+            PinyinWarmupIndexListener.WarmupSummary summary = listener.businessWarmupSummary();
+            assertEquals(1L, summary.rewarms());
+            assertEquals(2L, summary.coalescedRefreshes());
+        }
+    }
+
+    private static void addDocument(IndexWriter writer, String title) throws Exception {
+        Document document = new Document();
+        document.add(new TextField("title.suggest", title, TextField.Store.NO));
+        writer.addDocument(document);
+    }
+}
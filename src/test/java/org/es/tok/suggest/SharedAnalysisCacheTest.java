@@ -0,0 +1,71 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.Index;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class SharedAnalysisCacheTest {
+    private static final Index INDEX = new Index("videos", "videos-uuid");
+
+    @Test
+    public void testRepeatedTextIsServedFromCache() throws Exception {
+        SharedAnalysisCache cache = new SharedAnalysisCache(ByteSizeValue.ofMb(1));
+        try (Analyzer analyzer = new StandardAnalyzer()) {
+            List<String> first = cache.analyze(INDEX, analyzer, "title.words", "Zebra GitHub github");
+            List<String> second = cache.analyze(INDEX, analyzer, "title.words", "Zebra GitHub github");
+
+            assertEquals(List.of("zebra", "github", "github"), first);
+            assertEquals(first, second);
+            assertEquals(1L, cache.stats().hits());
+            assertEquals(1L, cache.stats().misses());
+            assertEquals(1L, cache.stats().entries());
+        }
+    }
+
+    @Test
+    public void testAnalyzersAndFieldsDoNotShareEntries() throws Exception {
+        SharedAnalysisCache cache = new SharedAnalysisCache(ByteSizeValue.ofMb(1));
+        try (Analyzer analyzer = new StandardAnalyzer(); Analyzer reloaded = new StandardAnalyzer()) {
+            cache.analyze(INDEX, analyzer, "title.words", "zebra");
+            cache.analyze(INDEX, reloaded, "title.words", "zebra");
+            cache.analyze(INDEX, analyzer, "tags.words", "zebra");
+
+            assertEquals(0L, cache.stats().hits());
+            assertEquals(3L, cache.stats().entries());
+        }
+    }
+
+    @Test
+    public void testRemovedIndexDropsItsEntries() throws Exception {
+        SharedAnalysisCache cache = new SharedAnalysisCache(ByteSizeValue.ofMb(1));
+        Index other = new Index("owners", "owners-uuid");
+        try (Analyzer analyzer = new StandardAnalyzer()) {
+            cache.analyze(INDEX, analyzer, "title.words", "zebra");
+            cache.analyze(other, analyzer, "title.words", "zebra");
+
+            cache.afterIndexRemoved(INDEX, null, null);
+
+            assertEquals(1L, cache.stats().entries());
+            cache.analyze(other, analyzer, "title.words", "zebra");
+            assertEquals(1L, cache.stats().hits());
+        }
+    }
+
+    @Test
+    public void testTextsWithoutIndexAreNotCached() throws Exception {
+        SharedAnalysisCache cache = new SharedAnalysisCache(ByteSizeValue.ofMb(1));
+        try (Analyzer analyzer = new StandardAnalyzer()) {
+            assertEquals(List.of("zebra"), cache.analyze(null, analyzer, "title.words", "zebra"));
+            assertEquals(List.of(), cache.analyze(INDEX, analyzer, "title.words", "  "));
+
+            assertEquals(0L, cache.stats().misses());
+            assertEquals(0L, cache.stats().entries());
+        }
+    }
+}
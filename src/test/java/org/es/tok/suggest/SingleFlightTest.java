@@ -0,0 +1,81 @@
+package org.es.tok.suggest;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> flights.execute("影视", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                awaitUninterruptibly(release);
+                return "影视飓风";
+            })));
+            assertTrue(loading.await(10, TimeUnit.SECONDS));
+            for (int caller = 1; caller < callers; caller++) {
+                results.add(executor.submit(() -> flights.execute("影视", () -> {
+                    loads.incrementAndGet();
+                    return "recomputed";
+                })));
+            }
+            while (flights.coalescedCount() < callers - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("影视飓风", result.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailureIsSharedAndNotRemembered() throws Exception {
+        SingleFlight<String> flights = new SingleFlight<>();
+        try {
+            flights.execute("key", () -> {
+                throw new IOException("term dictionary unavailable");
+            });
+            fail("expected the loader failure");
+        } catch (IOException e) {
+            assertEquals("term dictionary unavailable", e.getMessage());
+        }
+
+        assertEquals("loaded", flights.execute("key", () -> "loaded"));
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
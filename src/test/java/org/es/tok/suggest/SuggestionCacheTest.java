@@ -8,10 +8,12 @@ import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.store.ByteBuffersDirectory;
 import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.junit.Test;
 
 import java.util.List;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -22,7 +24,7 @@ public class SuggestionCacheTest {
         try (Directory directory = new ByteBuffersDirectory()) {
             writeDocuments(directory, "github copilot", "github actions", "gitlab runner");
             try (DirectoryReader reader = DirectoryReader.open(directory)) {
-                CachedShardSuggestService service = new CachedShardSuggestService(8);
+                CachedShardSuggestService service = new CachedShardSuggestService(ByteSizeValue.ofKb(64), ByteSizeValue.ofKb(64));
                 LuceneIndexSuggester.CompletionConfig config = new LuceneIndexSuggester.CompletionConfig(5, 32, 1, 1, true);
 
                 CachedShardSuggestService.SuggestResult first = service.suggest(
@@ -53,7 +55,7 @@ public class SuggestionCacheTest {
     public void testReaderChangeInvalidatesCacheKey() throws Exception {
         try (Directory directory = new ByteBuffersDirectory()) {
             writeDocuments(directory, "github copilot", "github actions");
-            CachedShardSuggestService service = new CachedShardSuggestService(8);
+            CachedShardSuggestService service = new CachedShardSuggestService(ByteSizeValue.ofKb(64), ByteSizeValue.ofKb(64));
             LuceneIndexSuggester.CompletionConfig config = new LuceneIndexSuggester.CompletionConfig(5, 32, 1, 1, true);
 
             try (DirectoryReader reader = DirectoryReader.open(directory)) {
@@ -89,7 +91,7 @@ public class SuggestionCacheTest {
         try (Directory directory = new ByteBuffersDirectory()) {
             writeDocuments(directory, "github copilot", "github actions");
             try (DirectoryReader reader = DirectoryReader.open(directory)) {
-                CachedShardSuggestService service = new CachedShardSuggestService(8);
+                CachedShardSuggestService service = new CachedShardSuggestService(ByteSizeValue.ofKb(64), ByteSizeValue.ofKb(64));
                 CachedShardSuggestService.SuggestResult first = service.suggest(
                         reader,
                         "correction",
@@ -119,7 +121,7 @@ public class SuggestionCacheTest {
         try (Directory directory = new ByteBuffersDirectory()) {
             writeDocuments(directory, "github copilot", "github actions", "github color");
             try (DirectoryReader reader = DirectoryReader.open(directory)) {
-                CachedShardSuggestService service = new CachedShardSuggestService(8);
+                CachedShardSuggestService service = new CachedShardSuggestService(ByteSizeValue.ofKb(64), ByteSizeValue.ofKb(64));
                 CachedShardSuggestService.SuggestResult first = service.suggest(
                         reader,
                         "auto",
@@ -144,6 +146,31 @@ public class SuggestionCacheTest {
         }
     }
 
+    @Test
+    public void testClosedReaderDropsItsCachedResults() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory()) {
+            writeDocuments(directory, "github copilot", "github actions");
+            CachedShardSuggestService service = new CachedShardSuggestService(ByteSizeValue.ofKb(64), ByteSizeValue.ofKb(64));
+            LuceneIndexSuggester.CompletionConfig config = new LuceneIndexSuggester.CompletionConfig(5, 32, 1, 1, true);
+
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                service.suggest(
+                        reader,
+                        "prefix",
+                        List.of("content"),
+                        "git",
+                        config,
+                        LuceneIndexSuggester.CorrectionConfig.defaults(),
+                        true);
+                assertEquals(1L, service.cacheStats().entries());
+                assertTrue(service.cacheStats().weightedBytes() > 0);
+            }
+
+            assertEquals(0L, service.cacheStats().entries());
+            assertEquals(0L, service.cacheStats().weightedBytes());
+        }
+    }
+
     private void writeDocuments(Directory directory, String... contents) throws Exception {
         try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
             for (String content : contents) {
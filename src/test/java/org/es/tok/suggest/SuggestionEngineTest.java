@@ -175,6 +175,36 @@ public class SuggestionEngineTest {
         }
     }
 
+    @Test
+    public void testPrefixFindsFrequentCompletionBeyondScanLimit() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory();
+                Analyzer analyzer = new KeywordAnalyzer()) {
+            buildIndex(directory, analyzer,
+                    "母一",
+                    "母丁",
+                    "母七",
+                    "母万",
+                    "母三",
+                    "母上",
+                    "母龙",
+                    "母龙",
+                    "母龙",
+                    "母龙");
+
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                LuceneIndexSuggester suggester = new LuceneIndexSuggester(reader);
+                List<LuceneIndexSuggester.CompletionCandidate> completions = suggester.suggestPrefixCompletions(
+                        List.of("content"),
+                        "母",
+                        new LuceneIndexSuggester.CompletionConfig(3, 4, 1, 1, true));
+
+                assertFalse(completions.isEmpty());
+                assertEquals("母龙", completions.get(0).text());
+                assertEquals(4, completions.get(0).docFreq());
+            }
+        }
+    }
+
     @Test
     public void testPrefixNormalizesChineseWhitespaceVariants() throws Exception {
         try (Directory directory = new ByteBuffersDirectory();
@@ -221,6 +251,132 @@ public class SuggestionEngineTest {
         }
     }
 
+    @Test
+    public void testPinyinPrefixServesLongFullPinyinInput() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory();
+                Analyzer analyzer = new KeywordAnalyzer()) {
+            buildIndex(directory, analyzer,
+                    "影视飓风",
+                    "影视飓风",
+                    "影视剧集",
+                    "影视前线");
+
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                LuceneIndexSuggester suggester = new LuceneIndexSuggester(reader);
+                List<LuceneIndexSuggester.CompletionCandidate> completions = suggester.suggestPrefixCompletions(
+                        List.of("content"),
+                        "yingshijufeng",
+                        new LuceneIndexSuggester.CompletionConfig(3, 32, 1, 1, true, true));
+
+                assertFalse(completions.isEmpty());
+                assertEquals(completions.toString(), "影视飓风", completions.get(0).text());
+            }
+        }
+    }
+
+    @Test
+    public void testPinyinIndexReusesUnchangedSegmentsAfterRefresh() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory();
+                Analyzer analyzer = new KeywordAnalyzer()) {
+            buildIndex(directory, analyzer,
+                    "影视飓风",
+                    "影视飓风",
+                    "影视前线");
+
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                new LuceneIndexSuggester(reader).prewarmPinyinIndices(List.of("content"));
+
+                buildIndex(directory, analyzer,
+                        "影视飓风",
+                        "影视风云");
+                try (DirectoryReader refreshed = DirectoryReader.openIfChanged(reader)) {
+                    assertEquals(2, refreshed.leaves().size());
+                    SegmentTermsCache.Stats before = SegmentTermsCache.stats();
+                    LuceneIndexSuggester suggester = new LuceneIndexSuggester(refreshed);
+                    suggester.prewarmPinyinIndices(List.of("content"));
+                    SegmentTermsCache.Stats after = SegmentTermsCache.stats();
+
+                    assertEquals(1L, after.misses() - before.misses());
+                    assertEquals(1L, after.hits() - before.hits());
+
+                    List<LuceneIndexSuggester.CompletionCandidate> completions = suggester.suggestPrefixCompletions(
+                            List.of("content"),
+                            "ysjf",
+                            new LuceneIndexSuggester.CompletionConfig(3, 32, 1, 1, true, true));
+                    LuceneIndexSuggester.CompletionCandidate top = completions.stream()
+                            .filter(candidate -> candidate.text().equals("影视飓风"))
+                            .findFirst()
+                            .orElseThrow();
+                    assertEquals(3, top.docFreq());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSegmentCacheStaysWithinByteBudget() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory();
+                Analyzer analyzer = new KeywordAnalyzer()) {
+            buildIndex(directory, analyzer,
+                    "影视飓风",
+                    "影视前线",
+                    "影视风云");
+
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                SegmentTermsCache.clear();
+                new LuceneIndexSuggester(reader).prewarmPinyinIndices(List.of("content"));
+                SegmentTermsCache.Stats cached = SegmentTermsCache.stats();
+                assertTrue(cached.segments() > 0);
+                assertTrue(cached.bytes() > 0);
+
+                SegmentTermsCache.setMaxBytes(cached.bytes() - 1);
+                assertTrue(SegmentTermsCache.stats().bytes() < cached.bytes());
+
+                // Entries larger than the whole budget are used once and not kept
+                SegmentTermsCache.setMaxBytes(0);
+                assertEquals(0, SegmentTermsCache.stats().segments());
+                new LuceneIndexSuggester(reader).prewarmPinyinIndices(List.of("content"));
+                assertEquals(0, SegmentTermsCache.stats().segments());
+                assertEquals(0L, SegmentTermsCache.stats().bytes());
+            } finally {
+                SegmentTermsCache.setMaxBytes(SegmentTermsCache.DEFAULT_MAX_BYTES);
+            }
+        }
+    }
+
+    @Test
+    public void testReaderIndexCacheIsBoundedAndDroppedWithItsSegments() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory();
+                Analyzer analyzer = new KeywordAnalyzer()) {
+            buildIndex(directory, analyzer,
+                    "影视飓风",
+                    "影视前线",
+                    "影视风云");
+
+            try {
+                ReaderIndexCache.clear();
+                try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                    new LuceneIndexSuggester(reader).prewarmCompletionIndices(List.of("content"));
+                    new LuceneIndexSuggester(reader).prewarmPinyinIndices(List.of("content"));
+                    ReaderIndexCache.Stats cached = ReaderIndexCache.stats();
+                    assertEquals(3, cached.entries());
+                    assertTrue(cached.bytes() > 0);
+
+                    ReaderIndexCache.setMaxBytes(cached.bytes() - 1);
+                    assertTrue(ReaderIndexCache.stats().bytes() < cached.bytes());
+                    ReaderIndexCache.setMaxBytes(ReaderIndexCache.DEFAULT_MAX_BYTES);
+                    new LuceneIndexSuggester(reader).prewarmCompletionIndices(List.of("content"));
+                    new LuceneIndexSuggester(reader).prewarmPinyinIndices(List.of("content"));
+                    assertEquals(3, ReaderIndexCache.stats().entries());
+                }
+                assertEquals(0, ReaderIndexCache.stats().entries());
+                assertEquals(0L, ReaderIndexCache.stats().bytes());
+            } finally {
+                ReaderIndexCache.setMaxBytes(ReaderIndexCache.DEFAULT_MAX_BYTES);
+            }
+        }
+    }
+
     @Test
     public void testPinyinPrefixSupportsMixedFullAndInitialInput() throws Exception {
         try (Directory directory = new ByteBuffersDirectory();
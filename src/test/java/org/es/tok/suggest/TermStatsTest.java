@@ -0,0 +1,50 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TermStatsTest {
+
+    @Test
+    public void testStatisticsMatchReaderAcrossSegments() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory()) {
+            writeSegment(directory, "github copilot github", "gitlab runner");
+            writeSegment(directory, "github actions", "gitea forge");
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                assertEquals(2, reader.leaves().size());
+                TermStats termStats = new TermStats(reader);
+                termStats.prefetch("content", List.of("runner", "github", "missing"));
+
+                for (String term : List.of("github", "runner", "forge", "missing", "github")) {
+                    Term indexed = new Term("content", term);
+                    assertEquals(reader.docFreq(indexed), termStats.docFreq("content", term));
+                    assertEquals(reader.totalTermFreq(indexed), termStats.totalTermFreq("content", term));
+                }
+                assertEquals(0, termStats.docFreq("absent", "github"));
+            }
+        }
+    }
+
+    private void writeSegment(Directory directory, String... contents) throws Exception {
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+            for (String content : contents) {
+                Document document = new Document();
+                document.add(new TextField("content", content, TextField.Store.NO));
+                writer.addDocument(document);
+            }
+            writer.commit();
+        }
+    }
+}
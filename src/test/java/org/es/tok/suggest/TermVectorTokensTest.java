@@ -0,0 +1,56 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TermVectorTokensTest {
+
+    @Test
+    public void testTokensFollowAnalysisOrderWithFrequencies() throws Exception {
+        FieldType withVectors = new FieldType(TextField.TYPE_NOT_STORED);
+        withVectors.setStoreTermVectors(true);
+        withVectors.setStoreTermVectorPositions(true);
+        withVectors.freeze();
+        try (Directory directory = new ByteBuffersDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+                Document document = new Document();
+                document.add(new Field("title", "zebra github apple github", withVectors));
+                document.add(new TextField("desc", "zebra apple", Field.Store.NO));
+                writer.addDocument(document);
+                writer.addDocument(new Document());
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                TermVectorTokens tokens = new TermVectorTokens(reader);
+                tokens.prefetch(new ScoreDoc[] { new ScoreDoc(1, 1.0f), new ScoreDoc(0, 2.0f) });
+
+                Map<String, Integer> expected = new LinkedHashMap<>();
+                expected.put("zebra", 1);
+                expected.put("github", 2);
+                expected.put("apple", 1);
+                Map<String, Integer> title = tokens.tokens(0, "title", String::valueOf);
+                assertEquals(expected, title);
+                assertEquals(List.copyOf(expected.keySet()), List.copyOf(title.keySet()));
+                assertEquals(Map.of("git", 2), tokens.tokens(0, "title", token -> token.equals("github") ? "git" : ""));
+                assertEquals(Map.of(), tokens.tokens(1, "title", String::valueOf));
+                assertNull(tokens.tokens(0, "desc", String::valueOf));
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.es.tok.suggest;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TinyLfuCacheTest {
+
+    @Test
+    public void testColdKeyIsNotAdmittedOverHotEntries() {
+        TinyLfuCache<String, String> cache = newCache(300, 300);
+        for (String key : new String[] {"alpha", "bravo", "charlie"}) {
+            cache.put("index", key, key);
+            for (int access = 0; access < 5; access++) {
+                cache.get("index", key);
+            }
+        }
+
+        cache.get("index", "delta");
+        cache.put("index", "delta", "delta");
+
+        assertNull(cache.get("index", "delta"));
+        assertEquals("alpha", cache.get("index", "alpha"));
+        assertEquals("bravo", cache.get("index", "bravo"));
+        assertEquals("charlie", cache.get("index", "charlie"));
+        assertEquals(1L, cache.stats().rejections());
+        assertEquals(0L, cache.stats().evictions());
+    }
+
+    @Test
+    public void testPopularKeyEvictsColdEntryByBytes() {
+        TinyLfuCache<String, String> cache = newCache(300, 300);
+        cache.put("index", "alpha", "alpha");
+        cache.put("index", "bravo", "bravo");
+        cache.put("index", "charlie", "charlie");
+        for (int access = 0; access < 3; access++) {
+            cache.get("index", "delta");
+        }
+
+        cache.put("index", "delta", "delta");
+
+        assertEquals("delta", cache.get("index", "delta"));
+        assertNull(cache.get("index", "alpha"));
+        assertEquals(1L, cache.stats().evictions());
+        assertEquals(3L, cache.stats().entries());
+        assertEquals(300L, cache.stats().weightedBytes());
+    }
+
+    @Test
+    public void testRegionBudgetLeavesOtherIndicesAlone() {
+        TinyLfuCache<String, String> cache = newCache(1000, 200);
+        cache.put("hot", "alpha", "alpha");
+        cache.put("hot", "bravo", "bravo");
+        for (int access = 0; access < 3; access++) {
+            cache.get("cold", "charlie");
+        }
+        cache.put("cold", "charlie", "charlie");
+        for (int access = 0; access < 3; access++) {
+            cache.get("hot", "delta");
+        }
+
+        cache.put("hot", "delta", "delta");
+
+        assertEquals("charlie", cache.get("cold", "charlie"));
+        assertEquals("delta", cache.get("hot", "delta"));
+        assertEquals(3L, cache.stats().entries());
+        assertTrue(cache.stats().weightedBytes() <= 300L);
+    }
+
+    @Test
+    public void testNodeBudgetHoldsAcrossRegions() {
+        TinyLfuCache<String, String> cache = newCache(300, 300);
+        for (String region : new String[] {"first", "second", "third", "fourth"}) {
+            for (String key : new String[] {"alpha", "bravo", "charlie"}) {
+                cache.put(region, key, key);
+                assertTrue(cache.stats().weightedBytes() <= 300L);
+            }
+        }
+        assertEquals(3L, cache.stats().entries());
+        assertEquals(300L, cache.stats().weightedBytes());
+
+        // A popular key of a new region displaces an entry of the largest other region
+        for (int access = 0; access < 3; access++) {
+            cache.get("fifth", "delta");
+        }
+        cache.put("fifth", "delta", "delta");
+        assertEquals("delta", cache.get("fifth", "delta"));
+        assertEquals(3L, cache.stats().entries());
+        assertEquals(300L, cache.stats().weightedBytes());
+        assertTrue(cache.stats().evictions() >= 1L);
+    }
+
+    @Test
+    public void testInvalidateReleasesBytes() {
+        TinyLfuCache<String, String> cache = newCache(1000, 1000);
+        cache.put("index", "alpha", "alpha");
+        cache.put("index", "bravo", "bravo");
+
+        cache.invalidate("index", key -> key.startsWith("a"));
+
+        assertNull(cache.get("index", "alpha"));
+        assertEquals("bravo", cache.get("index", "bravo"));
+        assertEquals(100L, cache.stats().weightedBytes());
+    }
+
+    private static TinyLfuCache<String, String> newCache(long maxBytes, long maxRegionBytes) {
+        return new TinyLfuCache<>(maxBytes, maxRegionBytes, 100, (key, value) -> 100, String::hashCode);
+    }
+}
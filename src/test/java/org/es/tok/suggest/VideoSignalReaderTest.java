@@ -0,0 +1,148 @@
+package org.es.tok.suggest;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.sandbox.document.HalfFloatPoint;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.lookup.Source;
+import org.elasticsearch.search.lookup.SourceProvider;
+import org.elasticsearch.xcontent.XContentType;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class VideoSignalReaderTest {
+    private static final NumberFieldMapper.NumberFieldType VIEW_WITHOUT_DOC_VALUES = new NumberFieldMapper.NumberFieldType(
+            VideoSignalReader.STAT_VIEW_FIELD,
+            NumberFieldMapper.NumberType.LONG,
+            true,
+            false,
+            false,
+            true,
+            null,
+            Map.of(),
+            null,
+            false,
+            null,
+            null,
+            false);
+    private static final Map<String, MappedFieldType> FIELD_TYPES = Map.of(
+            VideoSignalReader.OWNER_MID_FIELD,
+            new NumberFieldMapper.NumberFieldType(VideoSignalReader.OWNER_MID_FIELD, NumberFieldMapper.NumberType.LONG),
+            VideoSignalReader.STAT_SCORE_FIELD,
+            new NumberFieldMapper.NumberFieldType(VideoSignalReader.STAT_SCORE_FIELD, NumberFieldMapper.NumberType.FLOAT),
+            VideoSignalReader.INSERT_AT_FIELD,
+            new NumberFieldMapper.NumberFieldType(VideoSignalReader.INSERT_AT_FIELD, NumberFieldMapper.NumberType.LONG),
+            VideoSignalReader.STAT_VIEW_FIELD,
+            VIEW_WITHOUT_DOC_VALUES);
+
+    @Test
+    public void testDecodeKeepsTheMappedPrecision() {
+        assertEquals(42L, VideoSignalReader.decode(IndexNumericFieldData.NumericType.LONG, 42L));
+        assertEquals(0.1d, VideoSignalReader.decode(
+                IndexNumericFieldData.NumericType.DOUBLE, NumericUtils.doubleToSortableLong(0.1d)));
+        // Floats stay floats, so they widen exactly like the source value of a float field does
+        assertEquals(0.1f, VideoSignalReader.decode(
+                IndexNumericFieldData.NumericType.FLOAT, NumericUtils.floatToSortableInt(0.1f)));
+        assertEquals((double) 0.1f, VideoSignalReader.decode(
+                IndexNumericFieldData.NumericType.FLOAT, NumericUtils.floatToSortableInt(0.1f)).doubleValue(), 0.0d);
+        assertEquals(-2.5f, VideoSignalReader.decode(
+                IndexNumericFieldData.NumericType.HALF_FLOAT, HalfFloatPoint.halfFloatToSortableShort(-2.5f)));
+    }
+
+    @Test
+    public void testDocValueTypeNeedsANumberFieldWithDocValues() {
+        assertEquals(IndexNumericFieldData.NumericType.FLOAT,
+                VideoSignalReader.docValueType(FIELD_TYPES.get(VideoSignalReader.STAT_SCORE_FIELD)));
+        assertEquals(IndexNumericFieldData.NumericType.LONG,
+                VideoSignalReader.docValueType(FIELD_TYPES.get(VideoSignalReader.OWNER_MID_FIELD)));
+        assertFalse(VIEW_WITHOUT_DOC_VALUES.hasDocValues());
+        assertNull(VideoSignalReader.docValueType(VIEW_WITHOUT_DOC_VALUES));
+        assertNull(VideoSignalReader.docValueType((MappedFieldType) null));
+    }
+
+    @Test
+    public void testSignalsComeFromDocValuesAndSourceOnlyWithoutThem() throws Exception {
+        List<Map<String, Object>> sources = List.of(
+                Map.of("owner", Map.of("mid", 7), "stat", Map.of("view", 120), "stat_score", 0.1d, "insert_at", 100),
+                Map.of("stat", Map.of("view", "35")),
+                Map.of("owner", Map.of("mid", 8), "stat", Map.of("view", 9), "stat_score", 2.5d, "insert_at", 300));
+        try (Directory directory = new ByteBuffersDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE))) {
+                writer.addDocument(video(7L, 0.1f, 100L));
+                writer.addDocument(new Document());
+                writer.commit();
+                writer.addDocument(video(8L, 2.5f, 300L));
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                assertEquals(2, reader.leaves().size());
+                AtomicInteger sourceLoads = new AtomicInteger();
+                SourceProvider sourceProvider = (leaf, doc) -> {
+                    sourceLoads.incrementAndGet();
+                    return Source.fromMap(sources.get(leaf.docBase + doc), XContentType.JSON);
+                };
+                VideoSignalReader signals = new VideoSignalReader(reader, sourceProvider, FIELD_TYPES::get);
+
+                signals.prefetch(new ScoreDoc[] { new ScoreDoc(2, 1.0f), new ScoreDoc(0, 2.0f), new ScoreDoc(1, 3.0f) });
+                assertEquals(Long.valueOf(7L), signals.ownerMid(0));
+                assertEquals((double) 0.1f, signals.statScore(0), 0.0d);
+                assertEquals(100L, signals.insertAt(0));
+                assertEquals(Long.valueOf(8L), signals.ownerMid(2));
+                assertEquals(2.5d, signals.statScore(2), 0.0d);
+                assertEquals(300L, signals.insertAt(2));
+                assertNull(signals.ownerMid(1));
+                assertEquals(0.0d, signals.statScore(1), 0.0d);
+                assertEquals(0L, signals.insertAt(1));
+                assertEquals(0, sourceLoads.get());
+
+                // stat.view has no doc values; the source is loaded once per document asked for in a row
+                assertEquals(120L, signals.viewCount(0));
+                assertEquals(120L, signals.viewCount(0));
+                assertEquals(35L, signals.viewCount(1));
+                assertEquals(9L, signals.viewCount(2));
+                assertEquals(3, sourceLoads.get());
+            }
+        }
+    }
+
+    @Test
+    public void testSignalsAreReadWithoutPrefetch() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+                writer.addDocument(video(7L, 1.5f, 100L));
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                SourceProvider sourceProvider = (leaf, doc) -> Source.fromMap(Map.of("stat", Map.of("view", 3)), XContentType.JSON);
+                VideoSignalReader signals = new VideoSignalReader(reader, sourceProvider, FIELD_TYPES::get);
+                assertEquals(1.5d, signals.statScore(0), 0.0d);
+                assertEquals(Long.valueOf(7L), signals.ownerMid(0));
+                assertEquals(3L, signals.viewCount(0));
+            }
+        }
+    }
+
+    private static Document video(long mid, float statScore, long insertAt) {
+        Document document = new Document();
+        document.add(new SortedNumericDocValuesField(VideoSignalReader.OWNER_MID_FIELD, mid));
+        document.add(new SortedNumericDocValuesField(VideoSignalReader.STAT_SCORE_FIELD, NumericUtils.floatToSortableInt(statScore)));
+        document.add(new SortedNumericDocValuesField(VideoSignalReader.INSERT_AT_FIELD, insertAt));
+        return document;
+    }
+}